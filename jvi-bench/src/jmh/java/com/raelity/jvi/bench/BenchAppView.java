@@ -0,0 +1,51 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.bench;
+
+import java.nio.file.Path;
+
+import javax.swing.text.JTextComponent;
+
+import com.raelity.jvi.manager.ViManager;
+import com.raelity.jvi.swing.simple.SimpleAppView;
+
+/**
+ * An editor that is not in any container.
+ */
+final class BenchAppView extends SimpleAppView
+{
+    BenchAppView(JTextComponent editor)
+    {
+        super(null, editor);
+    }
+
+    @Override
+    public boolean isNomad()
+    {
+        return false;
+    }
+
+    @Override
+    public Path getPath()
+    {
+        return ViManager.getFS().getPath(this);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.JEditorPane;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.Document;
+import javax.swing.text.PlainView;
+import javax.swing.text.ViewFactory;
+
+import com.raelity.jvi.core.lib.KeyDefs.KeyStrokeType;
+import com.raelity.jvi.manager.AppViews;
+import com.raelity.jvi.manager.Scheduler;
+import com.raelity.jvi.manager.ViManager;
+import com.raelity.jvi.swing.PieceTableDocument;
+import com.raelity.jvi.swing.PlainDocumentWithTestFeatures;
+
+/**
+ * Run jVi without a display for the benchmarks. There is one factory
+ * for the JVM; each benchmark state opens an editor on a generated
+ * document, which becomes G.curwin/G.curbuf.
+ * <p>
+ * jVi works on the EDT; the benchmark methods do their work through
+ * {@link #edt(Callable)}. Each call should do enough work that the
+ * hand off to the EDT is noise.
+ * </p>
+ */
+public final class BenchEnv
+{
+    /** a word found in one line of every SPARSE_EVERY lines */
+    public static final String SPARSE = "needle";
+    public static final int SPARSE_EVERY = 1000;
+    /** a word found only in the last line */
+    public static final String LAST = "finis";
+    /** a word found in every line */
+    public static final String DENSE = "beta";
+
+    private static boolean didInit;
+
+    private BenchEnv()
+    {
+    }
+
+    private static synchronized void init()
+    {
+        if(didInit)
+            return;
+        didInit = true;
+        ViManager.setViFactory(new BenchFactory());
+    }
+
+    /**
+     * Lines look like "0000042 alpha beta_42 gamma delta(42);",
+     * with the SPARSE and LAST words mixed in.
+     * @return the text of a document with nLines lines
+     */
+    public static String text(int nLines)
+    {
+        StringBuilder sb = new StringBuilder(nLines * 40);
+        for(int i = 1; i <= nLines; i++) {
+            sb.append(String.format("%07d", i))
+                    .append(" alpha ").append(DENSE).append('_').append(i)
+                    .append(" gamma delta(").append(i).append(");");
+            if(i % SPARSE_EVERY == 0)
+                sb.append(' ').append(SPARSE);
+            if(i == nLines)
+                sb.append(' ').append(LAST);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Open an editor on a document with nLines lines, see {@link #text},
+     * and make it the current window with the cursor at the start.
+     * @return the editor
+     */
+    public static JEditorPane open(int nLines)
+    {
+        return open(nLines, false);
+    }
+
+    /**
+     * Like {@link #open(int)}; if pieceTable the document is a
+     * PieceTableDocument shown with a PlainView.
+     * @return the editor
+     */
+    public static JEditorPane open(int nLines, boolean pieceTable)
+    {
+        init();
+        String text = text(nLines);
+        return edt(() -> {
+            Document doc;
+            JEditorPane ed = new JEditorPane();
+            if(pieceTable) {
+                ed.setEditorKit(new PlainViewKit());
+                doc = new PieceTableDocument(text.toCharArray(), text.length());
+            } else {
+                PlainDocumentWithTestFeatures pdoc
+                        = new PlainDocumentWithTestFeatures();
+                pdoc.setChunkit(false);
+                try {
+                    pdoc.replace(0, pdoc.getLength(), text, null);
+                } catch(BadLocationException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                doc = pdoc;
+            }
+            // not displayed, but scrolling needs a viewport with a size
+            JScrollPane sp = new JScrollPane(ed);
+            sp.setSize(800, 600);
+            sp.doLayout();
+            sp.getViewport().doLayout();
+            ed.setDocument(doc);
+            BenchAppView av = new BenchAppView(ed);
+            AppViews.open(av, "BenchEnv.open");
+            // activate the editor, like focus would; escape is harmless
+            Scheduler.keyStroke(ed, (char)0x1b, 0, KeyStrokeType.CHAR);
+            return ed;
+        });
+    }
+
+    /**
+     * The JEditorPane plain text kit wraps lines, which makes a view
+     * for every line; large documents want a PlainView.
+     */
+    @SuppressWarnings("serial")
+    private static class PlainViewKit extends DefaultEditorKit
+    {
+        @Override
+        public ViewFactory getViewFactory()
+        {
+            return PlainView::new;
+        }
+    }
+
+    /** Close an editor from {@link #open}. */
+    public static void close(JEditorPane ed)
+    {
+        edt(() -> {
+            AppViews.close(ViManager.getFactory().getAppView(ed));
+            return null;
+        });
+    }
+
+    /** Run the callable on the EDT and return its result. */
+    public static <T> T edt(Callable<T> c)
+    {
+        if(SwingUtilities.isEventDispatchThread())
+            return call(c);
+        AtomicReference<T> result = new AtomicReference<>();
+        try {
+            SwingUtilities.invokeAndWait(() -> result.set(call(c)));
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch(InvocationTargetException ex) {
+            if(ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException)ex.getCause();
+            throw new IllegalStateException(ex.getCause());
+        }
+        return result.get();
+    }
+
+    private static <T> T call(Callable<T> c)
+    {
+        try {
+            return c.call();
+        } catch(RuntimeException ex) {
+            throw ex;
+        } catch(Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
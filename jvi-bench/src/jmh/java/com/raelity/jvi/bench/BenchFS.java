@@ -0,0 +1,89 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.bench;
+
+import java.nio.file.Path;
+
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+
+import com.raelity.jvi.ViAppView;
+import com.raelity.jvi.ViBuffer;
+import com.raelity.jvi.ViFPOS;
+import com.raelity.jvi.ViTextView;
+import com.raelity.jvi.swing.simple.SimpleFS;
+
+/**
+ * Nothing is read or written by the benchmarks.
+ */
+final class BenchFS extends SimpleFS
+{
+    @Override
+    public Path getPath(ViAppView av)
+    {
+        if(av.getEditor() != null)
+            return getPath(((JTextComponent)av.getEditor()).getDocument());
+        return null;
+    }
+
+    public Path getPath(ViBuffer buf)
+    {
+        return getPath((Document)buf.getDocument());
+    }
+
+    private Path getPath(Document doc)
+    {
+        if(doc == null)
+            return null;
+        return (Path)doc.getProperty(Document.TitleProperty);
+    }
+
+    @Override
+    public boolean isModified(ViBuffer buf)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean write(ViTextView tv, boolean force,
+                         Object writeTarget, Integer[] range)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean writeAll(boolean force)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean edit(ViAppView av, boolean force)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean edit(Path f, boolean force, ViFPOS fpos)
+    {
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.bench;
+
+import java.awt.Component;
+import java.io.File;
+import java.io.Writer;
+import java.util.EnumSet;
+
+import javax.swing.text.JTextComponent;
+
+import com.raelity.jvi.ViOutputStream;
+import com.raelity.jvi.ViStatusDisplay;
+import com.raelity.jvi.ViTextView;
+import com.raelity.jvi.ViFS;
+import com.raelity.jvi.core.Buffer;
+import com.raelity.jvi.lib.OutputStreamAdaptor;
+import com.raelity.jvi.swing.LineMapNoFolding;
+import com.raelity.jvi.swing.SwingTextView;
+import com.raelity.jvi.swing.ViewMapSwitcher;
+import com.raelity.jvi.swing.simple.SimpleBuffer;
+import com.raelity.jvi.swing.simple.SimpleFactory;
+import com.raelity.jvi.swing.simple.SimpleTextView;
+
+/**
+ * A factory for editors that are never shown; there is no frame and
+ * messages and output are discarded. See {@link BenchEnv}.
+ */
+final class BenchFactory extends SimpleFactory
+{
+    private final ViFS fs = new BenchFS();
+
+    @Override
+    public Component getMainWindow()
+    {
+        return null;
+    }
+
+    @Override
+    protected ViTextView newTextView(JTextComponent editor)
+    {
+        SwingTextView tv = new BenchTextView(editor);
+        tv.setMaps(new LineMapNoFolding(tv), new ViewMapSwitcher(tv));
+        return tv;
+    }
+
+    @Override
+    protected Buffer createBuffer(ViTextView tv)
+    {
+        return new BenchBuffer(tv);
+    }
+
+    @Override
+    public ViFS getFS()
+    {
+        return fs;
+    }
+
+    @Override
+    public ViOutputStream createOutputStream(
+            ViTextView tv, Object type, Object info,
+            EnumSet<ViOutputStream.FLAGS> flags)
+    {
+        return new NullOutputStream();
+    }
+
+    private static class BenchTextView extends SimpleTextView
+    {
+        BenchTextView(JTextComponent editor)
+        {
+            super(editor);
+            statusDisplay = new NullStatusDisplay();
+        }
+    }
+
+    private static class BenchBuffer extends SimpleBuffer
+    {
+        BenchBuffer(ViTextView tv)
+        {
+            super(tv);
+        }
+
+        @Override
+        public boolean isDirty()
+        {
+            return false;
+        }
+
+        @Override
+        public File getFile()
+        {
+            return null;
+        }
+    }
+
+    private static class NullOutputStream extends OutputStreamAdaptor
+    {
+        NullOutputStream()
+        {
+            super(Writer.nullWriter(), false);
+        }
+
+        @Override public void println(int line, int col, int length) { }
+        @Override public void printlnLink(String text, String link) { }
+        @Override public void printLink(String text, String link) { }
+    }
+
+    private static class NullStatusDisplay implements ViStatusDisplay
+    {
+        @Override public void displayMode(String mode) { }
+        @Override public void displayCommand(String cmd) { }
+        @Override public void displayStatusMessage(String msg) { }
+        @Override public void displayErrorMessage(String msg) { }
+        @Override public void displayWarningMessage(String msg) { }
+        @Override public void displayFrozenMessage(String msg) { }
+        @Override public void clearMessage() { }
+        @Override public void clearDisplay() { }
+        @Override public void scrolling() { }
+        @Override public void refresh() { }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JEditorPane;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.raelity.jvi.ViBuffer;
+import com.raelity.jvi.lib.MySegment;
+import com.raelity.jvi.manager.ViManager;
+
+/**
+ * Walk the document a line at a time and a char at a time,
+ * the way the searching and motion code reads it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BufferBench
+{
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int lines;
+
+    /** "plain" is a PlainDocument, "piece" a PieceTableDocument */
+    @Param({"plain", "piece"})
+    public String doc;
+
+    private JEditorPane ed;
+    private ViBuffer buf;
+
+    @Setup
+    public void setup()
+    {
+        ed = BenchEnv.open(lines, doc.equals("piece"));
+        buf = BenchEnv.edt(() -> ViManager.getFactory().getTextView(ed).getBuffer());
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        BenchEnv.close(ed);
+    }
+
+    /** Every line segment, first to last. */
+    @Benchmark
+    public int lineSegmentAll()
+    {
+        return BenchEnv.edt(() -> {
+            int sum = 0;
+            int n = buf.getLineCount();
+            for(int lnum = 1; lnum <= n; lnum++) {
+                MySegment seg = buf.getLineSegment(lnum);
+                sum += seg.count;
+            }
+            return sum;
+        });
+    }
+
+    /** Every char of the document through one CharSequence. */
+    @Benchmark
+    public int charAtAll()
+    {
+        return BenchEnv.edt(() -> {
+            CharSequence cs = buf.getDocumentCharSequence(0, buf.getLength());
+            int sum = 0;
+            int n = cs.length();
+            for(int i = 0; i < n; i++)
+                sum += cs.charAt(i);
+            return sum;
+        });
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.raelity.jvi.core.lib.BufferQueue;
+
+/**
+ * Replay a register through the stuff buffer the way "@a" does:
+ * the register is stuffed in one append, then pumped out a char at
+ * a time. The large case is a 1MB register.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BufferQueueBench
+{
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private final BufferQueue stuffbuff = new BufferQueue();
+    private String register;
+
+    @Setup
+    public void setup()
+    {
+        String text = BenchEnv.text(size / 20 + 1);
+        register = text.substring(0, size);
+    }
+
+    @Benchmark
+    public int replayRegister()
+    {
+        stuffbuff.append(register);
+        int sum = 0;
+        while(stuffbuff.hasNext())
+            sum += stuffbuff.removeFirst();
+        return sum;
+    }
+
+    /** Like stuff_inserted with a count, the text again in front. */
+    @Benchmark
+    public int replayInsertFront()
+    {
+        stuffbuff.append(register);
+        stuffbuff.removeFirst();
+        stuffbuff.insert(0, register);
+        int sum = 0;
+        while(stuffbuff.hasNext())
+            sum += stuffbuff.removeFirst();
+        return sum;
+    }
+}
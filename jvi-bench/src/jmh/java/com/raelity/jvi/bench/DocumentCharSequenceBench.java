@@ -0,0 +1,100 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.raelity.jvi.swing.DocumentCharSequence;
+
+/**
+ * Read a document through a DocumentCharSequence: forwards, backwards,
+ * in bulk, and with a regex. There's a gap in the middle of the
+ * document, as there usually is after an edit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DocumentCharSequenceBench
+{
+    @Param({"1000", "100000"})
+    public int lines;
+
+    private PlainDocument doc;
+    private Pattern pattern;
+    private char[] buf;
+
+    @Setup
+    public void setup() throws BadLocationException
+    {
+        doc = new PlainDocument();
+        doc.insertString(0, BenchEnv.text(lines), null);
+        doc.insertString(doc.getLength() / 2, " ", null);
+        pattern = Pattern.compile(BenchEnv.LAST);
+        buf = new char[doc.getLength()];
+    }
+
+    private CharSequence cs()
+    {
+        return new DocumentCharSequence(doc, 0, doc.getLength());
+    }
+
+    @Benchmark
+    public int charAtForward()
+    {
+        CharSequence cs = cs();
+        int sum = 0;
+        int n = cs.length();
+        for(int i = 0; i < n; i++)
+            sum += cs.charAt(i);
+        return sum;
+    }
+
+    @Benchmark
+    public int charAtBackward()
+    {
+        CharSequence cs = cs();
+        int sum = 0;
+        for(int i = cs.length() - 1; i >= 0; i--)
+            sum += cs.charAt(i);
+        return sum;
+    }
+
+    @Benchmark
+    public char[] getChars()
+    {
+        ((DocumentCharSequence)cs()).getChars(0, buf.length, buf, 0);
+        return buf;
+    }
+
+    @Benchmark
+    public int regexFind()
+    {
+        Matcher m = pattern.matcher(cs());
+        return m.find() ? m.start() : -1;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.raelity.jvi.core.lib.Constants;
+import com.raelity.jvi.core.lib.Mapping;
+import com.raelity.jvi.core.lib.MappingTrie;
+import com.raelity.jvi.core.lib.TypeBufMultiCharMapping.TypeBufPeek;
+import com.raelity.jvi.lib.MutableBoolean;
+
+/**
+ * Resolve the typebuf against 1000 mappings that all start with the
+ * same leader, as a plugin's mappings do. The linear case is the scan
+ * of the list for the first char that Mappings did before the trie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBench
+{
+    private static final int N_MAPPINGS = 1000;
+
+    private final List<Mapping> mappings = new ArrayList<>();
+    private MappingTrie trie;
+    private final MutableBoolean maybe = new MutableBoolean();
+
+    private Peek full;
+    private Peek partial;
+    private Peek miss;
+
+    @Setup
+    public void setup()
+    {
+        for(int i = 0; i < N_MAPPINGS; i++)
+            mappings.add(new Mapping(lhs(i), ":cmd" + i + "\n",
+                                     Constants.NORMAL, false));
+        trie = new MappingTrie(mappings);
+        full = new Peek(lhs(N_MAPPINGS - 1) + "jjj");
+        String s = lhs(N_MAPPINGS / 2);
+        partial = new Peek(s.substring(0, s.length() - 1));
+        miss = new Peek("\\zzz");
+    }
+
+    private static String lhs(int i)
+    {
+        return "\\" + Integer.toString(i * 7919, 26);
+    }
+
+    @Benchmark
+    public Mapping trieFull()
+    {
+        return trie.lookup(full, Constants.NORMAL, maybe);
+    }
+
+    @Benchmark
+    public Mapping triePartial()
+    {
+        return trie.lookup(partial, Constants.NORMAL, maybe);
+    }
+
+    @Benchmark
+    public Mapping trieMiss()
+    {
+        return trie.lookup(miss, Constants.NORMAL, maybe);
+    }
+
+    @Benchmark
+    public Mapping linearFull()
+    {
+        return linear(full, Constants.NORMAL, maybe);
+    }
+
+    @Benchmark
+    public Mapping linearPartial()
+    {
+        return linear(partial, Constants.NORMAL, maybe);
+    }
+
+    @Benchmark
+    public Mapping linearMiss()
+    {
+        return linear(miss, Constants.NORMAL, maybe);
+    }
+
+    private Mapping linear(TypeBufPeek peek, int state, MutableBoolean maybe)
+    {
+        maybe.setValue(false);
+        for(Mapping m : mappings) {
+            if((m.getMode() & state) == 0)
+                continue;
+            String lhs = m.getLhs();
+            int len = Math.min(lhs.length(), peek.length());
+            boolean match = true;
+            for(int i = 0; i < len; i++) {
+                if(lhs.charAt(i) != peek.charAt(i)) {
+                    match = false;
+                    break;
+                }
+            }
+            if(!match)
+                continue;
+            if(len == lhs.length())
+                return m;
+            maybe.setValue(true);
+        }
+        return null;
+    }
+
+    private static final class Peek implements TypeBufPeek
+    {
+        private final String s;
+
+        Peek(String s)
+        {
+            this.s = s;
+        }
+
+        @Override
+        public int length()
+        {
+            return s.length();
+        }
+
+        @Override
+        public int charAt(int idx)
+        {
+            return s.charAt(idx);
+        }
+    }
+}
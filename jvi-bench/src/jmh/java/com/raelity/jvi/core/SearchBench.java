@@ -0,0 +1,130 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JEditorPane;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.raelity.jvi.ViFPOS;
+import com.raelity.jvi.bench.BenchEnv;
+
+import static com.raelity.jvi.core.lib.Constants.*;
+
+/**
+ * Searching, the substitute and global commands, and word motion
+ * over the whole document. This is in the core package to get at
+ * searchit and the ex commands without going through keystrokes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBench
+{
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int lines;
+
+    private JEditorPane ed;
+
+    @Setup
+    public void setup()
+    {
+        ed = BenchEnv.open(lines);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        BenchEnv.close(ed);
+    }
+
+    private static int search(String pattern)
+    {
+        return BenchEnv.edt(() -> {
+            ViFPOS pos = G.curwin.w_cursor.copy();
+            pos.set(1, 0);
+            return Search.searchit(G.curwin, pos, FORWARD, pattern, 1,
+                                   0, RE_LAST, 0);
+        });
+    }
+
+    /** A plain string only in the last line. */
+    @Benchmark
+    public int searchitLast()
+    {
+        return search(BenchEnv.LAST);
+    }
+
+    /** Like searchitLast, but the regex engine does the work. */
+    @Benchmark
+    public int searchitLastRegex()
+    {
+        return search("fin[i]s");
+    }
+
+    /** The first of the sparse matches. */
+    @Benchmark
+    public int searchitSparse()
+    {
+        return search("\\<" + BenchEnv.SPARSE + "\\>");
+    }
+
+    private static void colon(String cmd)
+    {
+        ExCommands.executeCommand(ExCommands.parseCommand(cmd));
+    }
+
+    /** Change every line, and back, so the document doesn't grow. */
+    @Benchmark
+    public void substituteAll()
+    {
+        BenchEnv.edt(() -> {
+            colon("%s/" + BenchEnv.DENSE + "_/BETA_/");
+            colon("%s/BETA_/" + BenchEnv.DENSE + "_/");
+            return null;
+        });
+    }
+
+    /** Mark the sparse lines and change them, and back. */
+    @Benchmark
+    public void globalSparse()
+    {
+        BenchEnv.edt(() -> {
+            colon("g/" + BenchEnv.SPARSE + "/s/gamma/GAMMA/");
+            colon("g/" + BenchEnv.SPARSE + "/s/GAMMA/gamma/");
+            return null;
+        });
+    }
+
+    /** "w" from the top of the document until it fails at the end. */
+    @Benchmark
+    public int fwdWordAll()
+    {
+        return BenchEnv.edt(() -> {
+            ViFPOS fpos = G.curwin.w_cursor.copy();
+            fpos.set(1, 0);
+            // there are seven or eight words in a line
+            return Search.fwd_word(lines * 10, false, false, fpos);
+        });
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JEditorPane;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.raelity.jvi.bench.BenchEnv;
+import com.raelity.jvi.core.lib.TypeBufMultiCharMapping;
+
+import static com.raelity.jvi.core.lib.KeyDefs.NO_CHAR;
+
+/**
+ * Stuff a string into the typeahead buffer, as when a register is
+ * executed, and read it back a char at a time through the mappings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TypeBufBench
+{
+    /** the length of the stuffed string, MAXTYPEBUFLEN is the limit */
+    @Param({"1000", "10000", "100000"})
+    public int chars;
+
+    private JEditorPane ed;
+    private String input;
+
+    @Setup
+    public void setup()
+    {
+        ed = BenchEnv.open(1000);
+        StringBuilder sb = new StringBuilder(chars);
+        String line = BenchEnv.text(1);
+        while(sb.length() < chars)
+            sb.append(line);
+        sb.setLength(chars);
+        input = sb.toString();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        BenchEnv.close(ed);
+    }
+
+    @Benchmark
+    public int insertGetChar()
+    {
+        return BenchEnv.edt(() -> {
+            TypeBufMultiCharMapping typebuf = GetChar.getTypebuf();
+            typebuf.insert(input, 0, typebuf.length(), true);
+            int sum = 0;
+            int c;
+            while((c = typebuf.getChar()) != NO_CHAR)
+                sum += c;
+            return sum;
+        });
+    }
+}
@@ -26,11 +26,14 @@ import java.awt.FontMetrics;
 import javax.swing.JEditorPane;
 import javax.swing.JLabel;
 import javax.swing.JScrollPane;
+import javax.swing.JTextPane;
 import javax.swing.event.CaretEvent;
 import javax.swing.text.Document;
 import javax.swing.text.Element;
 import javax.swing.text.JTextComponent;
 
+import com.raelity.jvi.swing.MappedFileDocument;
+
 /**
  * An editor is packaged with it's scrollpane
  * @author err
@@ -38,33 +41,50 @@ import javax.swing.text.JTextComponent;
 @SuppressWarnings("serial")
 public class PlayEditorContainer extends JScrollPane
 {
-    private final PlayEditorPane editor;
+    private final JEditorPane editor;
 
-    @SuppressWarnings("OverridableMethodCallInConstructor")
     public PlayEditorContainer(JviFrame f) {
-        editor = new PlayEditorPane();
+        this(f, null);
+    }
+
+    /**
+     * An editor for the file, read only.
+     * The file should already be indexed.
+     */
+    @SuppressWarnings("OverridableMethodCallInConstructor")
+    public PlayEditorContainer(JviFrame f, MappedFileDocument mapped) {
+        if(mapped == null) {
+            editor = new PlayEditorPane();
+        } else {
+            editor = new JEditorPane();
+            editor.setEditorKit(new MappedFileDocument.Kit());
+            editor.setDocument(mapped);
+            editor.setEditable(false);
+        }
         getViewport().add(editor, null);
         editor.setCaretColor(Color.black);
         PlayAppView av = new PlayAppView(f, this);
         AppViews.open(av, "playEditorComponent");
 
-        switch (av.getWinID()) {
-        case 1:
-            editor.setText(SampleText.txt01);
-            break;
-        case 2:
-            // editor.setText(SampleText.txt02);
-            // break;
-        default:
-            StringBuilder sb = new StringBuilder();
-            String t = "aaaaaaaaa\n";
-            for(int i = 0; i < 10; i++) {
-                char c = (char) ('A' + ((av.getWinID() - 1 + i) % 26));
-                sb.append(av.getWinID()).append(" - ")
-                        .append(t.replace('a', c));
+        if(mapped == null) {
+            switch (av.getWinID()) {
+            case 1:
+                editor.setText(SampleText.txt01);
+                break;
+            case 2:
+                // editor.setText(SampleText.txt02);
+                // break;
+            default:
+                StringBuilder sb = new StringBuilder();
+                String t = "aaaaaaaaa\n";
+                for(int i = 0; i < 10; i++) {
+                    char c = (char) ('A' + ((av.getWinID() - 1 + i) % 26));
+                    sb.append(av.getWinID()).append(" - ")
+                            .append(t.replace('a', c));
+                }
+                editor.setText(sb.toString());
+                break;
             }
-            editor.setText(sb.toString());
-            break;
         }
 
         final JLabel jl = f.getCursorStatusBar();
@@ -87,7 +107,8 @@ public class PlayEditorContainer extends JScrollPane
         FontMetrics fm = editor.getFontMetrics(font);
 
         // Program the tabs, 8 chars per tab stop
-        Util.setTabs(editor, 8);
+        if(editor instanceof JTextPane)
+            Util.setTabs((JTextPane)editor, 8);
 
         int width = fm.charWidth(' ') * 40;
         int height = fm.getHeight() * 30;
@@ -20,6 +20,7 @@
 
 package com.raelity.jvi.cmd;
 
+import java.io.IOException;
 import java.nio.file.Path;
 
 import javax.swing.text.Document;
@@ -29,7 +30,12 @@ import com.raelity.jvi.ViAppView;
 import com.raelity.jvi.ViBuffer;
 import com.raelity.jvi.ViFPOS;
 import com.raelity.jvi.ViTextView;
+import com.raelity.jvi.ViTextView.Direction;
 import com.raelity.jvi.core.*;
+import com.raelity.jvi.lib.MappedText;
+import com.raelity.jvi.manager.AppViews;
+import com.raelity.jvi.manager.ViManager;
+import com.raelity.jvi.swing.MappedFileDocument;
 import com.raelity.jvi.swing.simple.SimpleFS;
 
 /**
@@ -71,7 +77,8 @@ public class PlayFS extends SimpleFS
     @Override
     public boolean isModified( ViBuffer buf )
     {
-        return true;
+        // a mapped file can not be changed
+        return !(buf.getDocument() instanceof MappedFileDocument);
     }
 
 
@@ -121,11 +128,43 @@ public class PlayFS extends SimpleFS
     }
 
 
+    /**
+     * The file is opened read only, in a new window below the current
+     * one; it is memory mapped, so it can be very large.
+     * The window opens when the file's lines are indexed.
+     */
     @Override
     public boolean edit(Path f, boolean force, ViFPOS fpos)
     {
-        Msg.emsg("edit(File{" + f + "}, force, fpos) not implemented");
-        return false;
+        MappedText text;
+        try {
+            text = MappedText.open(f);
+        } catch(IOException ex) {
+            Msg.emsg("\"%s\" %s", f, ex.getMessage());
+            return false;
+        }
+        int offset = fpos == null ? 0 : Math.min(fpos.getOffset(), text.length());
+        Msg.smsg("\"%s\" [readonly] %,dB indexing...", f, text.length());
+        text.indexInBackground().whenComplete((v, ex) -> {
+            ViManager.runInDispatch(false, () -> {
+                if(ex != null) {
+                    Msg.emsg("\"%s\" %s", f, ex.getMessage());
+                    return;
+                }
+                PlayAppView av = (PlayAppView)AppViews.getMruAppView(0);
+                if(av == null)
+                    return;
+                PlayEditorContainer edC = new PlayEditorContainer(
+                        (JviFrame)av.getFrame(), new MappedFileDocument(text));
+                PlayAppView avNew = (PlayAppView)ViManager.getFactory()
+                        .getAppView(edC.getEditor());
+                edC.getEditor().setCaretPosition(offset);
+                Util.winSplit(av, Direction.DOWN, 0, avNew);
+                Msg.smsg("\"%s\" [readonly] %dL, %,dB",
+                         f, text.getLineCount(), text.length());
+            });
+        });
+        return true;
     }
 
 
@@ -62,16 +62,12 @@ public class PlayTextView extends SimpleTextView
         updateWrapOption();
     }
 
-    @Override
-    public PlayEditorPane getEditor()
-    {
-        return (PlayEditorPane)super.getEditor();
-    }
-
     private void updateWrapOption()
     {
         PlayAppView av = (PlayAppView) ViManager.getFactory().getAppView(editorPane);
-        getEditor().lineWrap = w_p_wrap;
+        // a read only file view does not wrap
+        if(editorPane instanceof PlayEditorPane)
+            ((PlayEditorPane)editorPane).lineWrap = w_p_wrap;
         av.getContainer().setHorizontalScrollBarPolicy(
                 w_p_wrap ? JScrollPane.HORIZONTAL_SCROLLBAR_NEVER
                          : JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
@@ -48,7 +48,9 @@ public class Util
     {
         PlayAppView av = (PlayAppView) AppViews.getList(AppViews.MRU).get(0);
         JviFrame frame = (JviFrame) av.getFrame();
-        ((JTextPane)av.getEditor()).setEditable(frame.jviButton.isSelected());
+        // a read only file view stays read only
+        if(av.getEditor() instanceof PlayEditorPane)
+            av.getEditor().setEditable(frame.jviButton.isSelected());
     }
 
     static void setTabs( JTextPane tp, int ts )
@@ -57,6 +57,14 @@ public interface ViBuffer {
     /** insert text at specified location */
     public void insertText(int offset, String s);
     
+    /**
+     * Start a group of edits that are applied together, with one undo,
+     * when committed. Use this instead of an edit per line when changing
+     * many lines.
+     * @return a new bulk edit for this buffer
+     */
+    public ViBulkEdit beginBulkEdit();
+    
     /** get some text from the document */
     public String getText(int offset, int length) throws ViBadLocationException;
 
@@ -140,6 +148,16 @@ public interface ViBuffer {
      */
     public CharSequence getDocumentCharSequence(int start, int end);
 
+    /**
+     * For stepping through the text a char at a time.
+     * The cursor must be positioned before it is used.
+     * @return a new text cursor for this buffer
+     */
+    default ViTextCursor getTextCursor()
+    {
+        return new ViTextCursor(this);
+    }
+
 
 
     public int[] getVisualSelectBlocks(ViTextView tv,
@@ -0,0 +1,57 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+package com.raelity.jvi;
+
+/**
+ * A group of edits to a buffer that are applied together, see
+ * {@link ViBuffer#beginBulkEdit()}.
+ * <p>
+ * The offsets of every edit are offsets in the document as it was when
+ * the bulk edit was started; nothing changes in the document until
+ * {@link #commit()}, so the document can be read while edits are added.
+ * Edits may be added in any order, but must not overlap.
+ * </p><p>
+ * Commit applies the edits, in offset order, as a single undoable
+ * change. Marks are adjusted just as if the edits had been done one by one.
+ * The per change work, keeping caches and listeners up to date,
+ * is done once for the whole group.
+ * </p>
+ */
+public interface ViBulkEdit
+{
+    /** Replace indicated region with string */
+    public void replaceString(int start, int end, String s);
+
+    /** Delete a bunch of characters */
+    public void deleteChar(int start, int end);
+
+    /** insert text at specified location */
+    public void insertText(int offset, String s);
+
+    /** @return the number of edits that have been added */
+    public int size();
+
+    /**
+     * Apply the edits to the document. The bulk edit can not be used
+     * after this.
+     * @throws IllegalStateException if edits overlap
+     */
+    public void commit();
+}
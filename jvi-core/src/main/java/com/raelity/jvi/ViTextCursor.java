@@ -0,0 +1,204 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is jvi - vi editor clone.
+ * 
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ * 
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+package com.raelity.jvi;
+
+import com.raelity.jvi.lib.MySegment;
+
+/**
+ * A position in a buffer for stepping through the text a character at
+ * a time. The text of the current line is kept, so moving within a line,
+ * or looking at the current character, does not go to the document.
+ * Moving to another line reads that line into the same segment;
+ * nothing is allocated after the cursor is created.
+ * <p>
+ * Like a ViFPOS, the '\n' at the end of a line is a position on the line.
+ * The methods inc, incV7, inclV7, dec and decl work like the Misc methods
+ * of the same name, which step a ViFPOS.
+ * </p><p>
+ * The cursor is only good until the document changes.
+ * </p>
+ */
+public class ViTextCursor
+{
+    private final ViBuffer buf;
+    private final MySegment seg = new MySegment();
+    private int line;
+    private int lineStart;
+    private int col;
+
+    public ViTextCursor(ViBuffer buf)
+    {
+        this.buf = buf;
+    }
+
+    public final ViBuffer getBuffer()
+    {
+        return buf;
+    }
+
+    /** Move to the offset. */
+    public void set(int offset)
+    {
+        setLine(buf.getLineNumber(offset));
+        col = offset - lineStart;
+    }
+
+    /** Move to the position. */
+    public void set(int line, int column)
+    {
+        if(line != this.line || seg.array == null)
+            setLine(line);
+        col = column;
+    }
+
+    /** Move to the position. */
+    public void set(ViFPOS fpos)
+    {
+        set(fpos.getLine(), fpos.getColumn());
+    }
+
+    /** Set fpos to this position. */
+    public void copyTo(ViFPOS fpos)
+    {
+        fpos.set(line, col);
+    }
+
+    private void setLine(int line)
+    {
+        this.line = line;
+        lineStart = buf.getLineStartOffset(line);
+        buf.getSegment(lineStart, buf.getLineEndOffset2(line) - lineStart, seg);
+    }
+
+    public final int getLine()
+    {
+        return line;
+    }
+
+    public final int getColumn()
+    {
+        return col;
+    }
+
+    public final int getOffset()
+    {
+        return lineStart + col;
+    }
+
+    /** @return the length of the line, not including the '\n' */
+    public final int getLineLength()
+    {
+        int len = seg.count;
+        return len > 0 && seg.array[seg.offset + len - 1] == '\n'
+                ? len - 1 : len;
+    }
+
+    /**
+     * The '\n' is returned for the end of the last line,
+     * even if the document doesn't have one.
+     * @return the character at the position
+     */
+    public final char current()
+    {
+        return col < seg.count ? seg.array[seg.offset + col] : '\n';
+    }
+
+    /**
+     * Like {@link #current}, without moving.
+     * @return the character at column of the current line
+     */
+    public final char charAt(int column)
+    {
+        return column < seg.count ? seg.array[seg.offset + column] : '\n';
+    }
+
+    /**
+     * Move forward a char, crossing line boundaries as necessary.
+     * @return 1 when crossing a line, -1 at end of file, 0 otherwise
+     */
+    public int inc()
+    {
+        int rc = incV7();
+        return rc != 2 ? rc : 1;
+    }
+
+    /**
+     * Move forward a char, crossing line boundaries as necessary.
+     * @return 1 when going to the next line,
+     *         2 when moving onto the newline at the end of the line,
+     *         -1 at end of file, 0 otherwise
+     */
+    public int incV7()
+    {
+        if(current() != '\n') {
+            col++;
+            return current() != '\n' ? 0 : 2;
+        }
+        if(line != buf.getLineCount()) {
+            setLine(line + 1);
+            col = 0;
+            return 1;
+        }
+        return -1;
+    }
+
+    /** Same as incV7, but skip the newline at the end of non-empty lines. */
+    public int inclV7()
+    {
+        int rc = incV7();
+        if(rc >= 1 && col > 0)
+            rc = incV7();
+        return rc;
+    }
+
+    /**
+     * Move back a char, crossing line boundaries as necessary.
+     * @return 1 when crossing a line, -1 at start of file, 0 otherwise
+     */
+    public int dec()
+    {
+        if(col > 0) {
+            col--;
+            return 0;
+        }
+        if(line > 1) {
+            setLine(line - 1);
+            col = getLineLength();
+            return 1;
+        }
+        return -1;
+    }
+
+    /** Same as dec, but skip the newline at the end of non-empty lines. */
+    public int decl()
+    {
+        int rc = dec();
+        if(rc == 1 && col > 0)
+            rc = dec();
+        return rc;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ViTextCursor{lnum=" + line + " col=" + col
+                + " offset=" + getOffset() + "}";
+    }
+}
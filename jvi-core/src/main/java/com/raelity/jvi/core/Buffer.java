@@ -11,13 +11,16 @@ package com.raelity.jvi.core;
 
 import java.awt.EventQueue;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.raelity.jvi.ViBuffer;
+import com.raelity.jvi.ViBulkEdit;
 import com.raelity.jvi.ViFPOS;
 import com.raelity.jvi.ViMark;
 import com.raelity.jvi.ViOptionBag;
@@ -228,6 +231,103 @@ public abstract class Buffer implements ViBuffer, ViOptionBag
 
     }
 
+    /** the longest document that is copied for a background search */
+    private static final int SNAPSHOT_MAX = 32 * 1024 * 1024;
+
+    /**
+     * A background search, incsearch or a parallel :global, works on
+     * a copy of the whole document. When this is false the search is
+     * done a line at a time, reading only the lines it looks at.
+     * @return true if copying the whole document is reasonable
+     */
+    protected boolean canSnapshot() {
+        return getLength() <= SNAPSHOT_MAX;
+    }
+
+    private MatchIndex matchIndex;
+
+    /** @return the index of matches for the search pattern */
+    MatchIndex getMatchIndex() {
+        if(matchIndex == null)
+            matchIndex = new MatchIndex(this);
+        return matchIndex;
+    }
+
+    /**
+     * The implementation calls this for every change to the document,
+     * on the EDT, to keep the search match index up to date.
+     */
+    protected void matchIndexUpdate(int offset, int length, boolean isInsert) {
+        if(matchIndex != null)
+            matchIndex.docChanged(offset, length, isInsert);
+    }
+
+    private final List<LineAnchorSet> lineAnchorSets = new ArrayList<>();
+
+    /**
+     * The anchors are adjusted for every change to the document
+     * until the set is closed.
+     * @param capacity expected number of anchors
+     */
+    LineAnchorSet createLineAnchorSet(int capacity) {
+        LineAnchorSet anchors = new LineAnchorSet(this, capacity);
+        lineAnchorSets.add(anchors);
+        return anchors;
+    }
+
+    void removeLineAnchorSet(LineAnchorSet anchors) {
+        lineAnchorSets.remove(anchors);
+    }
+
+    /**
+     * The implementation calls this for every change to the document,
+     * on the EDT, including each change of a bulk edit.
+     */
+    protected void lineAnchorsUpdate(int offset, int length, boolean isInsert) {
+        for(int i = 0; i < lineAnchorSets.size(); i++)
+            lineAnchorSets.get(i).docChanged(offset, length, isInsert);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //
+    // bulk edit
+    //
+
+    private boolean inBulkEdit;
+
+    @Override
+    public ViBulkEdit beginBulkEdit() {
+        return new BulkEdit(this);
+    }
+
+    /**
+     * True while the edits of a bulk edit are applied. The implementation
+     * can skip its per change work, keeping caches and listeners up to date,
+     * and catch up in {@link #bulkEditDone}. Anything needed to read
+     * the document during the bulk edit must still be done.
+     */
+    protected final boolean isBulkEdit() {
+        return inBulkEdit;
+    }
+
+    /** The edits of a bulk edit are about to be applied. */
+    protected void bulkEditStart() {
+        inBulkEdit = true;
+    }
+
+    /**
+     * The edits of a bulk edit have been applied; what was
+     * the text from start to oldEnd is now the text from start to newEnd.
+     * If override, must call super.
+     */
+    protected void bulkEditDone(int start, int oldEnd, int newEnd) {
+        inBulkEdit = false;
+        if(oldEnd > start)
+            matchIndexUpdate(start, oldEnd - start, false);
+        if(newEnd > start)
+            matchIndexUpdate(start, newEnd - start, true);
+    }
+
     //////////////////////////////////////////////////////////////////////
     //
     // undo/redo
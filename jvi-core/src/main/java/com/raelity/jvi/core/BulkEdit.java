@@ -0,0 +1,132 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+package com.raelity.jvi.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.raelity.jvi.ViBulkEdit;
+
+import static com.raelity.jvi.lib.TextUtil.sf;
+
+/**
+ * The edits are kept in a list, sorted on commit. They are applied
+ * one at a time, last to first, between bulkEditStart and bulkEditDone
+ * and as one undo; so marks move as they would for separate edits.
+ */
+final class BulkEdit implements ViBulkEdit
+{
+    private final Buffer buf;
+    private final List<Edit> edits = new ArrayList<>();
+    private boolean done;
+
+    private record Edit(int start, int end, String s) {}
+
+    BulkEdit(Buffer buf)
+    {
+        this.buf = buf;
+    }
+
+    @Override
+    public void replaceString(int start, int end, String s)
+    {
+        add(start, end, s);
+    }
+
+    @Override
+    public void deleteChar(int start, int end)
+    {
+        add(start, end, "");
+    }
+
+    @Override
+    public void insertText(int offset, String s)
+    {
+        add(offset, offset, s);
+    }
+
+    private void add(int start, int end, String s)
+    {
+        if(done)
+            throw new IllegalStateException("bulk edit already committed");
+        if(start > end)
+            throw new IllegalArgumentException(sf("start %d > end %d",
+                                                  start, end));
+        if(start == end && s.isEmpty())
+            return;
+        edits.add(new Edit(start, end, s));
+    }
+
+    @Override
+    public int size()
+    {
+        return edits.size();
+    }
+
+    @Override
+    public void commit()
+    {
+        if(done)
+            throw new IllegalStateException("bulk edit already committed");
+        done = true;
+        if(edits.isEmpty())
+            return;
+        // stable, so inserts at the same offset go in the order added
+        edits.sort((e1, e2) -> e1.start != e2.start
+                               ? Integer.compare(e1.start, e2.start)
+                               : Integer.compare(e1.end, e2.end));
+        int delta = 0;
+        Edit prev = null;
+        for(Edit e : edits) {
+            if(prev != null && e.start < prev.end)
+                throw new IllegalStateException(sf("overlap %d-%d, %d-%d",
+                        prev.start, prev.end, e.start, e.end));
+            delta += e.s.length() - (e.end - e.start);
+            prev = e;
+        }
+        int start = edits.get(0).start;
+        int oldEnd = prev.end;
+        int newEnd = oldEnd + delta;
+        if(buf == G.curbuf)
+            Misc.runUndoable(() -> apply(start, oldEnd, newEnd));
+        else
+            apply(start, oldEnd, newEnd);
+    }
+
+    private void apply(int start, int oldEnd, int newEnd)
+    {
+        buf.bulkEditStart();
+        try {
+            // last to first, so the offsets of the edits still to be
+            // done are not changed
+            for(int i = edits.size() - 1; i >= 0; i--) {
+                Edit e = edits.get(i);
+                if(e.start == e.end)
+                    buf.insertText(e.start, e.s);
+                else if(e.s.isEmpty())
+                    buf.deleteChar(e.start, e.end);
+                else
+                    buf.replaceString(e.start, e.end, e.s);
+            }
+        } finally {
+            buf.bulkEditDone(start, oldEnd, newEnd);
+        }
+    }
+}
@@ -41,7 +41,6 @@ import java.util.prefs.Preferences;
 import org.openide.util.lookup.ServiceProvider;
 
 import com.raelity.jvi.*;
-import com.raelity.jvi.ViBuffer.BIAS;
 import com.raelity.jvi.ViTextView.Orientation;
 import com.raelity.jvi.ViTextView.TAGOP;
 import com.raelity.jvi.core.Commands.AbstractColonAction;
@@ -51,6 +50,7 @@ import com.raelity.jvi.core.lib.ColonCommandItem;
 import com.raelity.jvi.core.lib.Messages;
 import com.raelity.jvi.lib.MutableBoolean;
 import com.raelity.jvi.lib.MutableInt;
+import com.raelity.jvi.lib.PerfStats;
 import com.raelity.jvi.manager.AppViews;
 import com.raelity.jvi.manager.ViManager;
 import com.raelity.jvi.options.*;
@@ -157,6 +157,8 @@ public class Cc01
         Commands.register("vs", "vsplit",
                                new SplitAction(Orientation.LEFT_RIGHT), null);
 
+        Commands.register("perfs", "perfstats", new PerfStatsAction(), null);
+
         addDebugColonCommands();
     }
 
@@ -668,6 +670,40 @@ public class Cc01
         }
     };
 
+    /**
+     * :perfstats [on|off|reset]
+     * Without an argument, show the stats; see {@link PerfStats}.
+     */
+    private static class PerfStatsAction extends AbstractColonAction {
+        @Override
+        public void actionPerformed(ActionEvent ev)
+        {
+            ColonEvent cev = (ColonEvent)ev;
+            if(cev.getNArg() > 1) {
+                Msg.emsg(Messages.e_trailing);
+                return;
+            }
+            if(cev.getNArg() == 0) {
+                try (ViOutputStream vios
+                        = ViManager.createOutputStream("Perf Stats")) {
+                    for(String line : PerfStats.report())
+                        vios.println(line);
+                }
+                return;
+            }
+            switch(cev.getArg(1)) {
+            case "on" -> PerfStats.setEnabled(true);
+            case "off" -> PerfStats.setEnabled(false);
+            case "reset" -> PerfStats.reset();
+            default -> {
+                Msg.emsg(Messages.e_invarg2 + cev.getArg(1));
+                return;
+            }
+            }
+            Msg.smsg("perfstats " + (PerfStats.isEnabled() ? "on" : "off"));
+        }
+    };
+
     private static class Jumps implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent ev) {
@@ -791,7 +827,7 @@ public class Cc01
     {
         ColonEvent cev = (ColonEvent) e;
         ViTextView tv = cev.getViTextView();
-        final ViBuffer buf = tv.getBuffer();
+        final Buffer buf = (Buffer)tv.getBuffer();
         if(cev.getLine1() > buf.getLineCount()
                 || cev.getLine2() > buf.getLineCount()) {
             Msg.emsg(Messages.e_invrange);
@@ -824,17 +860,14 @@ public class Cc01
 
         // track postions for later delete
         Misc.runUndoable(() -> {
-            try {
-                ViMark pos1 = doMove
-                        ? buf.createMark(offset1, BIAS.FORW) : null;
-                ViMark pos2 = doMove
-                        ? buf.createMark(offset2, BIAS.FORW) : null;
+            try (LineAnchorSet anchors = buf.createLineAnchorSet(2)) {
+                anchors.add(offset1);
+                anchors.add(offset2);
                 String s = buf.getText(offset1, offset2 - offset1);
                 buf.insertText(dstOffset, s);
                 if(doMove) {
-                    assert(pos1 != null && pos2 != null);
-                    buf.deleteChar(pos1.getOffset() - atEndAdjust,
-                            pos2.getOffset() - atEndAdjust);
+                    buf.deleteChar(anchors.getOffset(0) - atEndAdjust,
+                            anchors.getOffset(1) - atEndAdjust);
                 }
             } catch (ViBadLocationException ex) {
                 LOG.log(Level.SEVERE, null, ex);
@@ -434,7 +434,7 @@ private static class SimpleExecuteThread extends FilterThread
             return;
         }
         didCleanup = true;
-        if (dbg.getBoolean()) {
+        if (dbg.isOn()) {
             dumpState();
         }
         if(vos != null) {
@@ -506,7 +506,7 @@ private static class ProcessWriterThread extends FilterThread
             return;
         }
         didCleanup = true;
-        if (dbg.getBoolean()) {
+        if (dbg.isOn()) {
             dumpState();
         }
         if(writer != null) {
@@ -586,7 +586,7 @@ private static class ProcessReaderThread extends FilterThread
             return;
         }
         didCleanup = true;
-        if (dbg.getBoolean()) {
+        if (dbg.isOn()) {
             dumpState();
         }
         if(reader != null) {
@@ -826,7 +826,7 @@ private static class DocumentThread extends FilterThread
             return;
         }
         didCleanup = true;
-        if (dbg.getBoolean()) {
+        if (dbg.isOn()) {
             dumpState();
         }
 
@@ -652,7 +652,14 @@ normal_char:	// do "break normal_char" to insert a character
         Insstart_blank_vcol = get_nolist_virtcol();
     }
 
-    insert_special(c, false, false);
+    // Replayed text, "1000ifoo<ESC>", ".", CTRL-A, comes from the stuff
+    // buffer; insert a run of plain chars all at once.
+    String run = G.State == INSERT && isPlainInsertChar(c)
+            ? GetChar.takeStuffed(Edit::isPlainInsertChar) : "";
+    if(!run.isEmpty())
+      insertRun(c + run);
+    else
+      insert_special(c, false, false);
 
     if(arrow_used)
       inserted_space.setValue(false);
@@ -1223,6 +1230,28 @@ private static class GetLiteral implements HandleNextChar
     insertchar(c, false, -1, ctrlv);
   }
   
+  /**
+   * Chars that are safe to insert with a run of other chars,
+   * the platform does nothing special when they are typed.
+   */
+  private static boolean isPlainInsertChar(int c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  /**
+   * Insert the chars with one document insert. The redo buffer and
+   * magic redo get the chars as insertchar would give them. What is
+   * skipped is Misc.ins_char, with its replace mode handling, and the
+   * platform's key typed action that G.curwin.insertChar goes through;
+   * so this is only for INSERT mode and isPlainInsertChar chars.
+   */
+  private static void insertRun(String s) {
+    stop_arrow();
+    GetChar.AppendCharsToRedobuff(s);
+    G.curwin.insertText(G.curwin.w_cursor.getOffset(), s);
+    G.did_ai = false;
+  }
+  
   static void insertchar(char c, boolean force_formatting,
                          int second_indent, boolean ctrlv) {
     
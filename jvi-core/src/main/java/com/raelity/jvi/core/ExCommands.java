@@ -146,7 +146,11 @@ static void doColonCommand(StringBuilder range)
 static void executeCommand( Commands.ColonEvent cev )
 {
     if(cev != null) {
+        long t0 = PerfStats.start();
         ((ActionListener)cev.commandElement.getValue()).actionPerformed(cev);
+        if(t0 != 0)
+            PerfStats.histogram(":" + cev.commandElement.getName(),
+                                PerfStats.NANOS).stop(t0);
         if(cev.getEmsg() != null)
             Msg.emsg(cev.getEmsg());
     }
@@ -21,8 +21,14 @@
 package com.raelity.jvi.core;
 
 import java.awt.Color;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import com.raelity.jvi.*;
@@ -269,6 +275,63 @@ public class G implements ViOptionBag
     public static int p_closedfiles() { return p_closedfiles; }
 
 
+    private static OptionSnapshot syncedOptions;
+
+    /**
+     * Copy the global options that changed into the p_xxx fields, on
+     * the EDT. Except for a command that saves and restores a field,
+     * the fields are only written here. This is done at the start of
+     * each keystroke and when an option is changed; it is a volatile
+     * read when nothing changed.
+     */
+    public static void syncOptions()
+    {
+        OptionSnapshot s = OptionSnapshot.get();
+        OptionSnapshot prev = syncedOptions;
+        if(s == prev)
+            return;
+        syncedOptions = s;
+        s.forEachChange(prev, G::setOption);
+    }
+
+    /**
+     * The field for each global option, found from the VimOption var
+     * name the first time it is set; there is no second list of the
+     * options to keep up to date.
+     */
+    private static final Map<String, VarHandle> optionFields = new HashMap<>();
+
+    private static void setOption(String varName, Object v)
+    {
+        VarHandle field = optionFields.computeIfAbsent(varName, G::optionField);
+        if(field == null)
+            throw new IllegalArgumentException("option " + varName);
+        field.set(v);
+    }
+
+    /**
+     * Every global VimOption must have a field that syncOptions can
+     * set; VimOptionTest checks this.
+     * @return true if syncOptions handles the var
+     */
+    public static boolean isSyncedOption(String varName)
+    {
+        return optionField(varName) != null;
+    }
+
+    private static VarHandle optionField(String varName)
+    {
+        try {
+            Field f = G.class.getDeclaredField(varName);
+            if(!Modifier.isStatic(f.getModifiers())
+                    || Modifier.isFinal(f.getModifiers()))
+                return null;
+            return MethodHandles.lookup().unreflectVarHandle(f);
+        } catch(NoSuchFieldException | IllegalAccessException ex) {
+            return null;
+        }
+    }
+
     static void p_wsOption_set(boolean f) {
         p_ws = f;
     }
@@ -382,6 +445,12 @@ public class G implements ViOptionBag
     static Color p_vbc;
     // wrapscan
     static boolean p_ws;
+    // bufsearch, search with one matcher over the document
+    static boolean p_bfs;
+    // patterncache, number of translated/compiled search patterns kept
+    static int p_pch;
+    // globalparallel, min lines in range for a multi-threaded :g match
+    static int p_gpl;
     // keep cursor in view
     static boolean p_civ;
     // closed files
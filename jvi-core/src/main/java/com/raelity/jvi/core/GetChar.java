@@ -23,6 +23,7 @@ import java.awt.EventQueue;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.logging.Level;
+import java.util.function.IntPredicate;
 import java.util.logging.Logger;
 
 import com.google.common.eventbus.Subscribe;
@@ -33,6 +34,7 @@ import com.raelity.jvi.*;
 import com.raelity.jvi.core.lib.*;
 import com.raelity.jvi.manager.*;
 import com.raelity.jvi.options.*;
+import com.raelity.jvi.lib.PerfStats;
 import com.raelity.jvi.lib.TextUtil;
 
 import static java.util.logging.Level.*;
@@ -192,6 +194,7 @@ public class GetChar {
         } finally {
             handle_redo = false;
             G.Exec_reg = false;
+            endBatchExec();
             ///// if(doc != null)
             /////     doc.readUnlock();
         }
@@ -342,6 +345,7 @@ public class GetChar {
     private static void pumpAllChars(boolean collectingGroupUndo) {
         // NEEDSWORK: pumpVi: check for interupt?
 
+        int nPumped = 0;
         try {
 
             while(true) {
@@ -358,10 +362,17 @@ public class GetChar {
                     int c = old_char;
                     old_char = NUL;
                     pumpChar(c);
+                    nPumped++;
                     continue;
                 }
                 if(stuffbuff.hasNext()) {
-                    pumpChar(stuffbuff.removeFirst());
+                    pumpingStuff = true;
+                    try {
+                        pumpChar(stuffbuff.removeFirst());
+                    } finally {
+                        pumpingStuff = false;
+                    }
+                    nPumped++;
                     continue;
                 }
                 int c = typebuf.getChar();
@@ -375,6 +386,7 @@ public class GetChar {
                 }
                 if( c != NO_CHAR) { //if(typebuf.hasNext()) {
                     pumpChar(c);
+                    nPumped++;
                 } else {
                     break;
                 }
@@ -384,6 +396,10 @@ public class GetChar {
             Normal.resetCommand(true);
             Logger.getLogger(GetChar.class.getName()).
                     log(Level.SEVERE, null, ex);
+        } finally {
+            if(PerfStats.isEnabled())
+                PerfStats.histogram("pump batch", PerfStats.COUNT)
+                        .record(nPumped);
         }
 
     }
@@ -646,6 +662,15 @@ public class GetChar {
             magicRedo.charTyped(NUL);
     }
 
+    /** Like AppendCharToRedobuff for each char, s is one insert. */
+    static void AppendCharsToRedobuff(String s) {
+        if (!block_redo()) {
+            magicRedo.charsTyped(s);
+            redobuff.append(s);
+        } else
+            magicRedo.charTyped(NUL);
+    }
+
     static void AppendNumberToRedobuff(int n) {
         magicRedo.charTyped(NUL);
         if (!block_redo()) {
@@ -730,6 +755,26 @@ public class GetChar {
         stuffbuff.append(n);
     }
 
+    /**
+     * If the char being processed came from the stuff buffer, take
+     * the chars that follow it there, as long as they match.
+     * Used to insert a replayed run of text all at once.
+     * @return the chars taken, empty if none
+     */
+    static String takeStuffed(IntPredicate match) {
+        if(!pumpingStuff)
+            return "";
+        int n = 0;
+        while(stuffbuff.hasCharAt(n) && match.test(stuffbuff.getCharAt(n)))
+            n++;
+        if(n == 0)
+            return "";
+        String s = stuffbuff.substring(0, n);
+        for(int i = 0; i < n; i++)
+            stuffbuff.removeFirst();
+        return s;
+    }
+
     static void stuffReadbuff(String s) {
         stuffbuff.append(s);
     }
@@ -895,6 +940,12 @@ public class GetChar {
         return typebuf.insert(str, noremap, offset, nottyped) ? OK : FAIL;
     }
 
+    /** for the benchmarks */
+    static TypeBufMultiCharMapping getTypebuf()
+    {
+        return typebuf;
+    }
+
     // introduce _redo version to make it clear that this
     // controls undo chunking
     static int ins_typebuf_redo(CharSequence str, int noremap,
@@ -922,6 +973,82 @@ public class GetChar {
         typebuf.delete(offset, offset + len);
     }
 
+  //
+  // Batch execution of a register
+  //
+  // While "@x" runs, the mode display, the visual highlight, the
+  // highlight search and the caret painting are skipped; they are done
+  // once when the pump finishes. The viewport follows the cursor as
+  // usual, commands like H, L and Ctrl-D depend on it.
+  // The pump is already in one undo group, see ins_typebuf_redo.
+  //
+
+    private static boolean batchExec;
+    private static boolean batchShowmode;
+    private static boolean batchVisual;
+    private static boolean batchHighlight;
+
+    /** Defer UI updates until the current pump finishes. */
+    static void startBatchExec()
+    {
+        if(batchExec)
+            return;
+        G.dbgRedo.println(CONFIG, "startBatchExec");
+        batchExec = true;
+        batchShowmode = false;
+        batchVisual = false;
+        batchHighlight = false;
+    }
+
+    /** @return true while executing a register, UI updates deferred */
+    public static boolean isBatchExec()
+    {
+        return batchExec;
+    }
+
+    /** @return true if the showmode was deferred */
+    static boolean deferShowmode()
+    {
+        if(batchExec)
+            batchShowmode = true;
+        return batchExec;
+    }
+
+    /** @return true if the visual state update was deferred */
+    static boolean deferVisual()
+    {
+        if(batchExec)
+            batchVisual = true;
+        return batchExec;
+    }
+
+    /** @return true if the highlight search update was deferred */
+    public static boolean deferHighlightSearch()
+    {
+        if(batchExec)
+            batchHighlight = true;
+        return batchExec;
+    }
+
+    /** Do the deferred UI updates, once. */
+    private static void endBatchExec()
+    {
+        if(!batchExec)
+            return;
+        batchExec = false;
+        G.dbgRedo.println(CONFIG, "endBatchExec");
+        if(G.curwin == null || G.curwin.isShutdown())
+            return;
+        // the caret is painted
+        Misc.ui_cursor_shape();
+        if(batchVisual)
+            Normal.v_updateVisualState();
+        if(batchHighlight)
+            ViManager.updateHighlightSearchState();
+        if(batchShowmode)
+            Misc.showmode();
+    }
+
   //
   // The various character queues
   //
@@ -932,12 +1059,14 @@ public class GetChar {
     private static ViMagicRedo magicRedo = new MagicRedoOriginal(redobuff);
     private static String startInsertCommand;
 
+    private static boolean pumpingStuff; // processing a char from stuffbuff
     private static int last_recorded_len = 0;  // number of last recorded chars
     private static int redobuff_idx = 0;
     // static BufferQueue old_redobuff;
 
     interface ViMagicRedo {
         void charTyped(char c);
+        void charsTyped(String s);
         void markRedoBackspace();
         void changeInsstart();
         void initRedoTrackingPosition();
@@ -19,6 +19,7 @@
 
 package com.raelity.jvi.core;
 
+import java.awt.GraphicsEnvironment;
 import java.awt.Toolkit;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.ClipboardOwner;
@@ -90,7 +91,9 @@ NO_CB(-1, '\uffff', null, tk -> null);
 
 static boolean noStar()
 {
-    return Toolkit.getDefaultToolkit().getSystemSelection() == null;
+    // getSystemSelection throws when headless, e.g. benchmarks
+    return GraphicsEnvironment.isHeadless()
+            || Toolkit.getDefaultToolkit().getSystemSelection() == null;
 }
 
 private static void init()
@@ -335,7 +338,8 @@ private static boolean permOK()
     //    return false;
     //  }
     //}
-    return true;
+    // the toolkit throws HeadlessException for any clipboard
+    return !GraphicsEnvironment.isHeadless();
 }
 
 /////////////////////////////////////////////////////////////////////////////
@@ -0,0 +1,174 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core;
+
+import java.util.Arrays;
+
+import static com.raelity.jvi.lib.TextUtil.sf;
+
+/**
+ * Document offsets, typically line starts, that follow the text as the
+ * buffer is edited; for ex commands that work through a range of lines
+ * while changing them. It is used instead of a ViMark per line; each
+ * mark is a document Position that is tracked through every edit.
+ * <p>
+ * The offsets are kept in one sorted int array. Anchors must be added in
+ * order, lowest offset first, so the array stays sorted; the index of an
+ * anchor is the order in which it was added. An anchor is like a
+ * {@link com.raelity.jvi.ViBuffer.BIAS#FORW} mark: text inserted at an
+ * anchor goes before it; when the text around an anchor is removed,
+ * the anchor is left where the text was.
+ * </p><p>
+ * The buffer adjusts the anchors once for each change to the document
+ * until the set is closed; use try-with-resources. Everything is
+ * on the EDT.
+ * </p><p>
+ * The offsets have a gap, like the positions of a gap buffer: the
+ * offsets at or after gapIndex are stored without gapDelta, the size
+ * change of the edits before them. A change moves the gap to the
+ * change, adjusting only the offsets in between; an ex command working
+ * down the lines does not touch the anchors it has yet to get to.
+ * </p>
+ */
+final class LineAnchorSet implements AutoCloseable
+{
+    private final Buffer buf;
+    private int[] offsets;
+    private int size;
+    /** offsets[gapIndex] and after are off by gapDelta */
+    private int gapIndex;
+    private int gapDelta;
+
+    /** Use {@link Buffer#createLineAnchorSet}. */
+    LineAnchorSet(Buffer buf, int capacity)
+    {
+        this.buf = buf;
+        offsets = new int[Math.max(capacity, 4)];
+    }
+
+    /**
+     * Add an anchor at the offset.
+     * @return the index of the anchor
+     * @throws IllegalArgumentException if the offset is before the last one
+     */
+    int add(int offset)
+    {
+        if(size > 0 && offset < offset(size - 1))
+            throw new IllegalArgumentException(sf("offset %d before %d",
+                                                  offset, offset(size - 1)));
+        if(size == offsets.length)
+            offsets = Arrays.copyOf(offsets, size * 2);
+        // after the gap
+        offsets[size] = offset - gapDelta;
+        return size++;
+    }
+
+    /** Add an anchor at the start of the line. */
+    int addLine(int lnum)
+    {
+        return add(buf.getLineStartOffset(lnum));
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    /** @return the current document offset of the anchor */
+    int getOffset(int idx)
+    {
+        if(idx < 0 || idx >= size)
+            throw new IndexOutOfBoundsException(sf("anchor %d, size %d",
+                                                   idx, size));
+        return offset(idx);
+    }
+
+    /** @return the line the anchor is now in */
+    int getLine(int idx)
+    {
+        return buf.getLineNumber(getOffset(idx));
+    }
+
+    /** Stop adjusting the anchors. */
+    @Override
+    public void close()
+    {
+        if(buf != null)
+            buf.removeLineAnchorSet(this);
+    }
+
+    /**
+     * Adjust for a change to the document, length chars at offset
+     * were inserted or removed.
+     */
+    void docChanged(int offset, int length, boolean isInsert)
+    {
+        if(isInsert) {
+            moveGap(lowerBound(offset));
+            gapDelta += length;
+        } else {
+            int from = lowerBound(offset);
+            moveGap(lowerBound(offset + length));
+            for(int i = from; i < gapIndex; i++)
+                offsets[i] = offset;
+            gapDelta -= length;
+        }
+    }
+
+    private int offset(int i)
+    {
+        return i < gapIndex ? offsets[i] : offsets[i] + gapDelta;
+    }
+
+    /** Move the gap to before offsets[idx]. */
+    private void moveGap(int idx)
+    {
+        if(idx > gapIndex) {
+            for(int i = gapIndex; i < idx; i++)
+                offsets[i] += gapDelta;
+        } else {
+            for(int i = idx; i < gapIndex; i++)
+                offsets[i] -= gapDelta;
+        }
+        gapIndex = idx;
+    }
+
+    /** @return index of the first anchor at or after offset */
+    private int lowerBound(int offset)
+    {
+        int lo = 0;
+        int hi = size;
+        while(lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if(offset(mid) < offset)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LineAnchorSet{size=" + size + "}";
+    }
+}
@@ -128,6 +128,8 @@ class MagicRedo implements GetChar.ViMagicRedo
 
     private int redoTrackPosition = -1;
     private boolean expectChar;
+    // length of the docInsert that is expected, more than 1 for charsTyped
+    private int expectLength = 1;
     private boolean disableTrackingOneEdit;
     private boolean localDisable;
     // afterBuff, characters added after the current insert position
@@ -260,7 +262,7 @@ class MagicRedo implements GetChar.ViMagicRedo
             }
         }
 
-        if(G.dbgRedo.getBoolean()) {
+        if(G.dbgRedo.isOn()) {
             StringBuilder sb = new StringBuilder("MagicRedo stateMachine: " );
             sb.append(e.name()).append(": ").append(state.name());
 
@@ -446,6 +448,14 @@ class MagicRedo implements GetChar.ViMagicRedo
 
         stateMachine(Event.e_gotc, params, "charTyped");
     }
+    @Override
+    public void charsTyped(String s)
+    {
+        charTyped(s.charAt(0));
+        if(expectChar)
+            expectLength = s.length();
+    }
+
     private State processCharTyped(Params params)
     {
         userInputCharXXX(params.typed);
@@ -699,6 +709,7 @@ class MagicRedo implements GetChar.ViMagicRedo
     // userInputChar
 
     public void userInputCharXXX(char c) {
+      expectLength = 1;
       if(!G.redoTrack)
         return;
       removeDocAfterString = null;
@@ -717,7 +728,7 @@ class MagicRedo implements GetChar.ViMagicRedo
         // skip is 0 when the character comming in is where it is expected
         if(skip != 0) {
           String before = null; // debug
-          if(G.dbgRedo.getBoolean())
+          if(G.dbgRedo.isOn())
             before = afterBuff.toString();
           if(skip < 0) { // '[' --> '[|]', then NOW char, eg 'x', '[x|]'
             // One or more chars inserted before the track position,
@@ -743,14 +754,14 @@ class MagicRedo implements GetChar.ViMagicRedo
                       && c != TAB)
          || c == DEL
          || (c & 0xF000) == VIRT) {
-        if(G.dbgRedo.getBoolean())debug("markRedoPosition OFF");
+        if(G.dbgRedo.isOn())debug("markRedoPosition OFF");
         redoTrackPosition = -1;
         expectChar = false;
         //
         // dump any leftover chars onto redo buff
         //
         if(afterBuff.length() > 0) {
-          if(G.dbgRedo.getBoolean())debug("markRedoPosition leftovers: " + afterBuff);
+          if(G.dbgRedo.isOn())debug("markRedoPosition leftovers: " + afterBuff);
           appendAfterBufToRedoBuff(afterBuff.length());
         }
         return true;
@@ -790,10 +801,10 @@ class MagicRedo implements GetChar.ViMagicRedo
       if(expectChar) {
         if(pos == redoTrackPosition) {
           debugDocInsertMATCH_EXPECTED(pos, s);
-          redoTrackPosition += 1;
+          redoTrackPosition += expectLength;
         } else if(pos != redoTrackPosition)
           debugDocInsertERROR(pos, s);
-        if(s.length() != 1) {
+        if(s.length() != expectLength) {
           debugDocInsertLONG(pos, s);
 ////////////////////////////////////////// THIS DOES NOT SEEM RIGHT
 // OR MAYBE IF KNOWN CHARACTER LIKE " or '. BUT CHECK WHAT ( AND { DO.
@@ -827,6 +838,7 @@ class MagicRedo implements GetChar.ViMagicRedo
       }
       removeDocAfterString = null;
       expectChar = false;
+      expectLength = 1;
     }
     // docInsert assist
     private boolean didCharWarpedRight(int pos, String s) {
@@ -1041,7 +1053,7 @@ class MagicRedo implements GetChar.ViMagicRedo
               if(ViManager.isDebugAtHome()) {
                 LOG.log(Level.WARNING, "redo track: remove after: {0}", ex.getMessage());
               }
-              if(G.dbgRedo.getBoolean())
+              if(G.dbgRedo.isOn())
                 ViManager.dumpStack("redo track: remove after: " + ex.getMessage());
             }
           }
@@ -1050,7 +1062,7 @@ class MagicRedo implements GetChar.ViMagicRedo
       return false;
     }
     private void debugDocRemoveXXX(int pos, int len, String removedText) {
-      if(G.dbgRedo.getBoolean()) {
+      if(G.dbgRedo.isOn()) {
         int insstart = Edit.getInsstart() != null
                 ? Edit.getInsstart().getOffset() : -1;
             G.dbgRedo.printf(() -> sf("docRemove: pos %d, %d, '%s', track %d, insstart %d\n",
@@ -108,6 +108,8 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
 
     private int redoTrackPosition = -1;
     private boolean expectChar;
+    // length of the docInsert that is expected, more than 1 for charsTyped
+    private int expectLength = 1;
     private boolean disableTrackingOneEdit;
     // afterBuff, characters added after the current insert position
     private final BufferQueue afterBuff = new BufferQueue();
@@ -187,8 +189,16 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
         return false;
     }
 
+    @Override
+    public void charsTyped(String s) {
+      charTyped(s.charAt(0));
+      if(expectChar)
+        expectLength = s.length();
+    }
+
     @Override
     public void charTyped(char c) {
+      expectLength = 1;
       if(!G.redoTrack)
         return;
       if(expectChar && overwriteSameChar())
@@ -208,7 +218,7 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
         // skip is 0 when the character comming in is where it is expected
         if(skip != 0) {
           String before = null; // debug
-          if(G.dbgRedo.getBoolean())
+          if(G.dbgRedo.isOn())
             before = afterBuff.toString();
           if(skip < 0) { // '[' --> '[|]', then NOW char, eg 'x', '[x|]'
             // One or more chars inserted before the track position,
@@ -234,14 +244,14 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
                       && c != TAB)
          || c == DEL
          || (c & 0xF000) == VIRT) {
-        if(G.dbgRedo.getBoolean())debug("markRedoPosition OFF");
+        if(G.dbgRedo.isOn())debug("markRedoPosition OFF");
         redoTrackPosition = -1;
         expectChar = false;
         //
         // dump any leftover chars onto redo buff
         //
         if(afterBuff.length() > 0) {
-          if(G.dbgRedo.getBoolean())debug("markRedoPosition leftovers: " + afterBuff);
+          if(G.dbgRedo.isOn())debug("markRedoPosition leftovers: " + afterBuff);
           appendAfterBufToRedoBuff(afterBuff.length());
         }
         return true;
@@ -273,7 +283,7 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
         return;
       if(removeDocBeforeInsstart != null && s != null
               && s.startsWith(removeDocBeforeInsstart)) {
-        if(G.dbgRedo.getBoolean()) debugDocInsertMATCH_BEFORE();
+        if(G.dbgRedo.isOn()) debugDocInsertMATCH_BEFORE();
         int len = removeDocBeforeInsstart.length();
         pos += len;
         s = s.substring(len);
@@ -282,11 +292,11 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
 
       if(expectChar) {
         if(pos == redoTrackPosition) {
-          if(G.dbgRedo.getBoolean())debugDocInsertMATCH_EXPECTED(pos, s);
-          redoTrackPosition += 1;
+          if(G.dbgRedo.isOn())debugDocInsertMATCH_EXPECTED(pos, s);
+          redoTrackPosition += expectLength;
         } else if(pos != redoTrackPosition)
           debugDocInsertERROR(pos, s);
-        if(s.length() != 1) {
+        if(s.length() != expectLength) {
           debugDocInsertLONG(pos, s);
 ////////////////////////////////////////// THIS DOES NOT SEEM RIGHT
 // OR MAYBE IF KNOWN CHARACTER LIKE " or '. BUT CHECK WHAT ( AND { DO.
@@ -297,14 +307,14 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
         }
       } else {
         if(pos == redoTrackPosition && removeDocAfterString == null) {
-          if(G.dbgRedo.getBoolean()) debugDocInsertMATCH_EXTRA(pos, s);
+          if(G.dbgRedo.isOn()) debugDocInsertMATCH_EXTRA(pos, s);
           //
           // Add the mystery string to the redo buffer
           //
           redobuff.append(s);
           redoTrackPosition += s.length();
         } else {
-          if(G.dbgRedo.getBoolean()) debugDocInsertNO_MATCH();
+          if(G.dbgRedo.isOn()) debugDocInsertNO_MATCH();
 
           if(didCharWarpedRight(pos, s)) {
             // An insert to the right of where the next character was expected
@@ -320,6 +330,7 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
       }
       removeDocAfterString = null;
       expectChar = false;
+      expectLength = 1;
     }
     // docInsert assist
     private boolean didCharWarpedRight(int pos, String s) {
@@ -451,12 +462,12 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
       }
 
       if(pos + len == redoTrackPosition) {
-        if(G.dbgRedo.getBoolean()) debugDocRemoveMATCH(pos, len);
+        if(G.dbgRedo.isOn()) debugDocRemoveMATCH(pos, len);
         docRemoveExtendedWithRedobuf(len);
         redoTrackPosition -= len;
       } else if(didDocRemoveAfterTrackPosition(pos, len, removedText)) {
       } else {
-        if(G.dbgRedo.getBoolean()) debugDocRemoveNO_MATCH();
+        if(G.dbgRedo.isOn()) debugDocRemoveNO_MATCH();
       }
       expectChar = false;
     }
@@ -469,10 +480,10 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
         if(removedText != null && removedText.length() >= nChar) {
           // Do not even try to remove text before innstart
           removeDocBeforeInsstart = removedText.substring(0, nChar);
-          if(G.dbgRedo.getBoolean())debugDocRemoveBEFORE_INSSTART();
+          if(G.dbgRedo.isOn())debugDocRemoveBEFORE_INSSTART();
         } else {
           nChar = 0;
-          if(G.dbgRedo.getBoolean())debugDocRemoveBEFORE_INSSTART_NO_MATCH();
+          if(G.dbgRedo.isOn())debugDocRemoveBEFORE_INSSTART_NO_MATCH();
         }
       }
       return nChar;
@@ -522,7 +533,7 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
             docRemoveExtendedWithRedobuf(nBefore);
             redoTrackPosition -= nBefore;
 
-            if(G.dbgRedo.getBoolean()) debugDocRemoveREMOVE_AFTER(nBefore);
+            if(G.dbgRedo.isOn()) debugDocRemoveREMOVE_AFTER(nBefore);
             return true;
           } catch(Exception ex) {
 
@@ -544,7 +555,7 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
               if(ViManager.isDebugAtHome()) {
                 LOG.log(Level.WARNING, "redo track: remove after: {0}", ex.getMessage());
               }
-              if(G.dbgRedo.getBoolean())
+              if(G.dbgRedo.isOn())
                 ViManager.dumpStack("redo track: remove after: " + ex.getMessage());
             }
           }
@@ -553,7 +564,7 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
       return false;
     }
     private void debugDocRemove(int pos, int len, String removedText) {
-      if(G.dbgRedo.getBoolean()) {
+      if(G.dbgRedo.isOn()) {
         int insstart = Edit.getInsstart() != null
                 ? Edit.getInsstart().getOffset() : -1;
             G.dbgRedo.printf(() ->
@@ -571,7 +582,7 @@ class MagicRedoOriginal implements GetChar.ViMagicRedo
         G.dbgRedo.printf("docRemove BEFORE INSSTART NO MATCH\n");
     }
     private void debugDocRemoveMATCH(int pos, int len) {
-      if(G.dbgRedo.getBoolean())
+      if(G.dbgRedo.isOn())
         G.dbgRedo.printf(
                   "docRemove MATCH%s: redoPosition %d --> %d, length %d\n",
                   (expectChar ? "-expect" : ""),
@@ -0,0 +1,497 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core;
+
+import java.awt.EventQueue;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+
+import com.raelity.jvi.ViBadLocationException;
+import com.raelity.jvi.lib.MySegment;
+import com.raelity.jvi.lib.RegExp;
+import com.raelity.jvi.manager.ViManager;
+
+/**
+ * The start offsets of all the matches of a search pattern in a buffer.
+ * Matches are found a line at a time, stepping through a line the same
+ * way as {@link Search#searchit}, so that the index agrees with what
+ * "n" and "N" would find. The index provides the "[n/m]" match count
+ * and lets searchit jump to the next match with a binary search.
+ * <p>
+ * The index is built by a background thread of its own. The document
+ * is read a block of lines at a time, each block copied on the EDT,
+ * so the whole document is never copied at once; a change to the
+ * document during the build cancels it. After it is built, edits shift
+ * the offsets and mark the lines around the edit as dirty; dirty lines
+ * are rescanned the next time the index is used. Everything, except
+ * the background scan, is on the EDT.
+ * </p><p>
+ * The starts have a gap, like the positions of a gap buffer: the
+ * starts at or after gapIndex are stored without gapDelta, the size
+ * change of the edits after them. An edit moves the gap to the edit,
+ * adjusting only the starts in between; edits near each other do not
+ * touch the rest of the matches.
+ * </p>
+ */
+final class MatchIndex
+{
+    /** more dirty lines than this and the index is rebuilt */
+    private static final int MAX_RESCAN_LINES = 10000;
+    /** give up on the index if there are more matches than this */
+    private static final int MAX_MATCHES = 1024 * 1024;
+    /** the number of lines a build reads from the document at a time */
+    private static final int BLOCK_LINES = 1024;
+    private static ExecutorService executor;
+
+    private final Buffer buf;
+    private RegExp re;
+    private boolean cpo_search;
+    private int[] starts = new int[0];
+    private int nStart;
+    /** starts[gapIndex] and after are off by gapDelta */
+    private int gapIndex;
+    private int gapDelta;
+    private boolean ready;
+    /** the pattern had too many matches, don't try again */
+    private boolean overflow;
+    private Build build;
+    /** document offsets that need a rescan, dirtyLo < 0 means none */
+    private int dirtyLo = -1;
+    private int dirtyHi;
+
+    MatchIndex(Buffer buf)
+    {
+        this.buf = buf;
+    }
+
+    /**
+     * Check if the index can be used for the pattern. Any dirty lines
+     * are rescanned first.
+     * @return true if the index is complete for prog
+     */
+    boolean isReady(RegExp prog)
+    {
+        if(!ready || prog != re || cpo_search != G.p_cpo_search)
+            return false;
+        if(dirtyLo >= 0)
+            rescan();
+        return ready;
+    }
+
+    /**
+     * Start building the index for prog, unless it is already built or
+     * being built. When the build completes, onReady, if not null,
+     * is run on the EDT.
+     */
+    void request(RegExp prog, Runnable onReady)
+    {
+        if(prog == re && cpo_search == G.p_cpo_search) {
+            if(build != null) {
+                build.onReady = onReady;
+                return;
+            }
+            if(ready || overflow)
+                return;
+        }
+        clear();
+        re = prog;
+        cpo_search = G.p_cpo_search;
+        build = new Build(prog, cpo_search);
+        build.onReady = onReady;
+        buildExecutor().execute(build);
+    }
+
+    /** @return the thread for index builds, not shared with searches */
+    private static synchronized ExecutorService buildExecutor()
+    {
+        if(executor == null) {
+            executor = Executors.newSingleThreadExecutor((r) -> {
+                Thread t = new Thread(r, "jVi match index");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+
+    /** Discard the index, and stop any build in progress. */
+    void clear()
+    {
+        if(build != null) {
+            build.cancelled = true;
+            build = null;
+        }
+        re = null;
+        ready = false;
+        overflow = false;
+        starts = new int[0];
+        nStart = 0;
+        gapIndex = 0;
+        gapDelta = 0;
+        dirtyLo = -1;
+    }
+
+    private void publish(Build b, int[] result, int n)
+    {
+        if(b != build)
+            return;
+        build = null;
+        if(result == null) {
+            overflow = true;
+            return;
+        }
+        starts = result;
+        nStart = n;
+        gapIndex = n;
+        gapDelta = 0;
+        ready = true;
+        if(b.onReady != null)
+            b.onReady.run();
+    }
+
+    /**
+     * Track a change to the document. Offsets after the change are
+     * shifted, and the changed region is marked for a rescan.
+     */
+    void docChanged(int offset, int length, boolean isInsert)
+    {
+        if(build != null) {
+            // the snapshot is out of date
+            clear();
+            return;
+        }
+        if(!ready)
+            return;
+        if(isInsert) {
+            moveGap(lowerBound(offset));
+            gapDelta += length;
+            if(dirtyLo < 0) {
+                dirtyLo = offset;
+                dirtyHi = offset + length;
+            } else {
+                if(dirtyHi >= offset)
+                    dirtyHi += length;
+                dirtyLo = Math.min(dirtyLo, offset);
+                dirtyHi = Math.max(dirtyHi, offset + length);
+            }
+        } else {
+            // the starts in the removed text go to offset
+            int from = lowerBound(offset);
+            moveGap(lowerBound(offset + length));
+            for(int i = from; i < gapIndex; i++)
+                starts[i] = offset;
+            gapDelta -= length;
+            if(dirtyLo < 0) {
+                dirtyLo = offset;
+                dirtyHi = offset;
+            } else {
+                if(dirtyHi > offset)
+                    dirtyHi = Math.max(offset, dirtyHi - length);
+                dirtyLo = Math.min(dirtyLo, offset);
+                dirtyHi = Math.max(dirtyHi, offset);
+            }
+        }
+    }
+
+    /** @return the i'th match start */
+    private int start(int i)
+    {
+        return i < gapIndex ? starts[i] : starts[i] + gapDelta;
+    }
+
+    /** Move the gap to before starts[idx]. */
+    private void moveGap(int idx)
+    {
+        if(idx > gapIndex) {
+            for(int i = gapIndex; i < idx; i++)
+                starts[i] += gapDelta;
+        } else {
+            for(int i = idx; i < gapIndex; i++)
+                starts[i] -= gapDelta;
+        }
+        gapIndex = idx;
+        if(gapIndex == nStart)
+            gapDelta = 0;
+    }
+
+    /** Rescan the dirty lines, or give up if there are too many. */
+    private void rescan()
+    {
+        int len = buf.getLength();
+        int line1 = buf.getLineNumber(Math.min(dirtyLo, len));
+        int line2 = buf.getLineNumber(Math.min(dirtyHi, len));
+        dirtyLo = -1;
+        if(line2 - line1 > MAX_RESCAN_LINES) {
+            clear();
+            return;
+        }
+        int lo = buf.getLineStartOffset(line1);
+        int hi = buf.getLineEndOffset(line2);
+        IntList found = new IntList(16);
+        Matcher m = null;
+        for(int lnum = line1; lnum <= line2; lnum++) {
+            MySegment seg = buf.getLineSegment(lnum);
+            if(m == null)
+                m = re.getPattern().matcher(CharBuffer.wrap(seg.array));
+            else
+                m.reset(CharBuffer.wrap(seg.array));
+            m.useAnchoringBounds(false); // so /^ only matches beginning of line
+            scanLine(m, seg.offset, seg.offset + seg.count, seg.array.length,
+                     buf.getLineStartOffset(lnum) - seg.offset,
+                     cpo_search, found);
+        }
+        int i = lowerBound(lo);
+        int j = lowerBound(hi);
+        // the starts after the rescan are copied, no gap
+        moveGap(nStart);
+        int n = i + found.n + nStart - j;
+        if(n > MAX_MATCHES) {
+            clear();
+            return;
+        }
+        int[] t = n <= starts.length ? starts : new int[n + n / 4];
+        System.arraycopy(starts, j, t, i + found.n, nStart - j);
+        if(t != starts)
+            System.arraycopy(starts, 0, t, 0, i);
+        System.arraycopy(found.a, 0, t, i, found.n);
+        starts = t;
+        nStart = n;
+        gapIndex = n;
+    }
+
+    /** @return the number of matches */
+    int size()
+    {
+        return nStart;
+    }
+
+    /** @return the 1 based index of the match at offset, 0 if none */
+    int indexOf(int offset)
+    {
+        int i = lowerBound(offset);
+        return i < nStart && start(i) == offset ? i + 1 : 0;
+    }
+
+    /**
+     * Find the first match after the cursor at offset. This is the rule
+     * for the cursor line in searchit; a match at the end of the line is
+     * compared as if it was one before.
+     * @return the match offset, or -1 if none before the end of buffer
+     */
+    int next(int offset, int extra_col)
+    {
+        int target = offset + extra_col;
+        int i = lowerBound(target);
+        if(i < nStart && start(i) == target) {
+            int lnum = buf.getLineNumber(offset);
+            if(start(i) == buf.getLineEndOffset(lnum) - 1)
+                i++; // "/$" doesn't get stuck at end of line
+        }
+        return i < nStart ? start(i) : -1;
+    }
+
+    /**
+     * Find the last match before the cursor at offset.
+     * @return the match offset, or -1 if none after the start of buffer
+     */
+    int prev(int offset, int extra_col)
+    {
+        int i = lowerBound(offset - extra_col + 1) - 1;
+        return i >= 0 ? start(i) : -1;
+    }
+
+    /** @return the first match offset, or -1 if no matches */
+    int first()
+    {
+        return nStart > 0 ? start(0) : -1;
+    }
+
+    /** @return the last match offset, or -1 if no matches */
+    int last()
+    {
+        return nStart > 0 ? start(nStart - 1) : -1;
+    }
+
+    /**
+     * Run the pattern at a match from the index; the RegExp has
+     * the match, as though from a line at a time search.
+     * @return false if the index is wrong about the match
+     */
+    boolean matchAt(int offset)
+    {
+        int lnum = buf.getLineNumber(offset);
+        MySegment seg = buf.getLineSegment(lnum);
+        int col = offset - buf.getLineStartOffset(lnum);
+        if(re.search(seg.array, seg.offset + col, seg.count - col)
+                && re.start(0) == seg.offset + col)
+            return true;
+        clear();
+        return false;
+    }
+
+    /** @return index of first start &gt;= offset */
+    private int lowerBound(int offset)
+    {
+        int lo = 0;
+        int hi = nStart;
+        while(lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if(start(mid) < offset)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Add the matches in the line [ls,le) of the matcher's input to out.
+     * Step through the line like searchit, 'cpoptions' "c" included.
+     * @param limit end of the matcher's input
+     * @param base add to input index to get the document offset
+     */
+    private static void scanLine(Matcher m, int ls, int le, int limit,
+                                 int base, boolean cpo_search, IntList out)
+    {
+        int eolColumn = le - ls - 1;
+        int regionEnd = Math.min(le, limit);
+        int p = 0;
+        for(;;) {
+            m.region(ls + p, regionEnd);
+            if(!m.find() || m.start() >= le)
+                return;
+            int match = m.start() - ls;
+            int matchend = m.end() - ls;
+            out.add(base + m.start());
+            if(cpo_search) {
+                p = matchend;
+                if (match == p && p != eolColumn)
+                    ++p;
+            } else {
+                p = match;
+                if (p != eolColumn)
+                    ++p;
+            }
+            if(p >= eolColumn)
+                return;
+        }
+    }
+
+    /**
+     * Scan the document off the EDT. Each block of lines is copied
+     * on the EDT; the build is cancelled, on the EDT, by any change
+     * to the document, so the blocks are all from the same text.
+     */
+    private final class Build implements Runnable
+    {
+        private final RegExp prog;
+        private final boolean cpo;
+        private volatile boolean cancelled;
+        private Runnable onReady; // only touched on the EDT
+        /** a block of lines, set by read; null if cancelled or done */
+        private String block;
+        private int blockOffset;
+        private int blockLines;
+
+        Build(RegExp prog, boolean cpo)
+        {
+            this.prog = prog;
+            this.cpo = cpo;
+        }
+
+        @Override
+        public void run()
+        {
+            IntList found = new IntList(1024);
+            Matcher m = null;
+            for(int lnum = 1; ; lnum += blockLines) {
+                int firstLine = lnum;
+                ViManager.runInDispatch(true, () -> read(firstLine));
+                if(block == null)
+                    break;
+                if(m == null)
+                    m = prog.getPattern().matcher(block);
+                else
+                    m.reset(block);
+                m.useAnchoringBounds(false); // so /^ only matches beginning of line
+                int ls = 0;
+                for(int i = 0; i < blockLines; i++) {
+                    int nl = block.indexOf('\n', ls);
+                    // like the document, the last line has a newline
+                    int le = nl >= 0 ? nl + 1 : block.length() + 1;
+                    scanLine(m, ls, le, block.length(), blockOffset,
+                             cpo, found);
+                    ls = le;
+                }
+                if(found.n > MAX_MATCHES) {
+                    found = null;
+                    break;
+                }
+            }
+            if(cancelled)
+                return;
+            int[] result = found != null ? found.a : null;
+            int n = found != null ? found.n : 0;
+            EventQueue.invokeLater(() -> publish(this, result, n));
+        }
+
+        /** On the EDT, copy the block of lines starting at lnum. */
+        private void read(int lnum)
+        {
+            block = null;
+            int lineCount = buf.getLineCount();
+            if(cancelled || lnum > lineCount)
+                return;
+            int last = Math.min(lineCount, lnum + BLOCK_LINES - 1);
+            int start = buf.getLineStartOffset(lnum);
+            int end = Math.min(buf.getLineEndOffset(last), buf.getLength());
+            try {
+                block = buf.getText(start, end - start);
+            } catch(ViBadLocationException ex) {
+                cancelled = true;
+                return;
+            }
+            blockOffset = start;
+            blockLines = last - lnum + 1;
+        }
+    }
+
+    private static final class IntList
+    {
+        int[] a;
+        int n;
+
+        IntList(int capacity)
+        {
+            a = new int[capacity];
+        }
+
+        void add(int v)
+        {
+            if(n == a.length)
+                a = Arrays.copyOf(a, 2 * n);
+            a[n++] = v;
+        }
+    }
+}
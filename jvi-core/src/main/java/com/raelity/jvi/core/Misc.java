@@ -40,6 +40,7 @@ import com.google.common.eventbus.Subscribe;
 
 import org.openide.util.lookup.ServiceProvider;
 
+import com.raelity.jvi.ViBulkEdit;
 import com.raelity.jvi.ViCaretStyle;
 import com.raelity.jvi.ViFPOS;
 import com.raelity.jvi.ViInitialization;
@@ -291,6 +292,11 @@ public class Misc {
   }
   /** NOTE: fpos must be in curwin */
   static void set_indent(int size, boolean del_first, ViFPOS fpos) {
+    set_indent(size, del_first, fpos, null);
+  }
+  /** If bulk is not null, the change is added to it. */
+  static void set_indent(int size, boolean del_first, ViFPOS fpos,
+                         ViBulkEdit bulk) {
     int		oldstate = G.State;
     //int		c;
 
@@ -319,7 +325,10 @@ public class Misc {
       --size;
     }
     int offset = G.curbuf.getLineStartOffset(fpos.getLine());
-    G.curbuf.replaceString(offset, offset + col, sb.toString());
+    if(bulk != null)
+      bulk.replaceString(offset, offset + col, sb.toString());
+    else
+      G.curbuf.replaceString(offset, offset + col, sb.toString());
     G.State = oldstate;
   }
 
@@ -1168,6 +1177,8 @@ public class Misc {
      * @return the length of the message (0 if no message).
      */
     static int showmode()       {
+      if(GetChar.deferShowmode())
+        return 0;
       String mode = Edit.VI_MODE_COMMAND;
       int length = 0;
       eatme(length);
@@ -1087,6 +1087,13 @@ public class Misc01
                                      G.curbuf.getLineEndOffset(lnum) -1,
                                      line.toString());
     }
+
+    /** Add the line replacement to bulk. */
+    static void ml_replace(int lnum, CharSequence line, ViBulkEdit bulk) {
+        bulk.replaceString(G.curbuf.getLineStartOffset(lnum),
+                           G.curbuf.getLineEndOffset(lnum) -1,
+                           line.toString());
+    }
     
     public static MySegment truncateNewline(MySegment seg) {
         assert(seg.fetch(seg.count - 1) == '\n'); // DONE
@@ -1123,10 +1130,18 @@ public class Misc01
         return getCharAt(G.curwin.getCaretPosition());
     }
     
+    /** only used on the EDT, by getCharAt */
+    private static final MySegment charAtSeg = new MySegment();
+
+    /**
+     * For stepping through the text use a ViTextCursor.
+     * @return the char at offset in curbuf
+     */
     static char getCharAt(int offset) {
-        MySegment seg = new MySegment();
-        G.curbuf.getSegment(offset, 1, seg);
-        return seg.count > 0 ? seg.fetch(0) : 0; // DONE ??
+        MySegment seg = G.curbuf.getSegment(offset, 1, charAtSeg);
+        char c = seg.count > 0 ? seg.fetch(0) : 0; // DONE ??
+        seg.array = null; // don't hold on to the document's text
+        return c;
     }
     
     /** flush map and typeahead buffers and give a warning for an error */
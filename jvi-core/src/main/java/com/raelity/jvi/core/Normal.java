@@ -43,6 +43,7 @@ import com.raelity.jvi.ViTextView.TAGOP;
 import com.raelity.jvi.core.Register.Yankreg;
 import com.raelity.jvi.core.lib.NotSupportedException;
 import com.raelity.jvi.lib.MutableInt;
+import com.raelity.jvi.lib.PerfStats;
 import com.raelity.jvi.manager.*;
 import com.raelity.jvi.lib.TextUtil;
 import com.raelity.jvi.lib.MySegment;
@@ -168,6 +169,8 @@ public class Normal
 
   static boolean requestProcessInputEvent;
   static public void processInputChar(char c, boolean toplevel) {
+    // pick up any option changes made off the EDT
+    G.syncOptions();
     try {
       if(requestProcessInputEvent) {
         ViManager.firePropertyChange(new ViEvent.ProcessInput());
@@ -189,7 +192,9 @@ public class Normal
           }
         }
       } else {
+        long t0 = PerfStats.start();
         normal_cmd(c, oapProcessInputChar, toplevel);
+        cmdStats(t0);
         if(!editBusy && newChunk) {
           willStartNewChunk();
         }
@@ -203,6 +208,40 @@ public class Normal
     }
   }
 
+  /** time in normal_cmd for the chars of the current command */
+  private static long cmdNanos;
+  /** the operator of the current command, 0 if none yet */
+  private static char cmdOperator;
+
+  /**
+   * A command, like "3dw", takes several calls to normal_cmd. Their
+   * times are added up and recorded when the command is done, keyed on
+   * the command char; for an operator it is the operator, "normal d".
+   */
+  private static void cmdStats(long t0) {
+    if(t0 == 0) {
+      cmdNanos = 0;
+      cmdOperator = 0;
+      return;
+    }
+    cmdNanos += System.nanoTime() - t0;
+    if(!newChunk)
+      return; // in the middle of a chunk, like the count
+    OPARG oap = oapProcessInputChar;
+    if(oap.op_type != OP_NOP || oap.regname != 0) {
+      // an operator, or a register for one, is pending
+      if(oap.op_type != OP_NOP && cmdOperator == 0)
+        cmdOperator = caProcessInputChar.cmdchar;
+      return;
+    }
+    char cmdchar = cmdOperator != 0 ? cmdOperator
+                                    : caProcessInputChar.cmdchar;
+    PerfStats.histogram("normal " + TextUtil.debugString(
+            String.valueOf(cmdchar)), PerfStats.NANOS).record(cmdNanos);
+    cmdNanos = 0;
+    cmdOperator = 0;
+  }
+
   static void finishupEdit() {
     endInsertUndo();
   }
@@ -3051,6 +3090,8 @@ nv_brackets(CMDARG cap, int dir)
     if(!G.VIsual_active) {
       G.curbuf.clearVisualState();
     }
+    if(GetChar.deferVisual())
+      return;
     
     displayVisualBounds();
     
@@ -4229,6 +4270,7 @@ nv_brackets(CMDARG cap, int dir)
 	clearopbeep(cap.oap);
 	break;
       }
+      GetChar.startBatchExec();
     }
   }
 
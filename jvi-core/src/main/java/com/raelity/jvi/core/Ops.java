@@ -21,6 +21,7 @@ package com.raelity.jvi.core;
 
 import java.util.logging.Logger;
 
+import com.raelity.jvi.ViBulkEdit;
 import com.raelity.jvi.ViFPOS;
 import com.raelity.jvi.ViMark;
 import com.raelity.jvi.core.lib.*;
@@ -88,17 +89,28 @@ public class Ops
 
     line = G.curwin.w_cursor.getLine();
     // NOTE: the optimization of using copy() is around 12%
-    //       need to do single insert to get a big win
-    ViMark mStart = G.curbuf.createMark(oap.start);
-    ViMark mEnd = G.curbuf.createMark(oap.end);
+    //       the lines are changed with a single bulk edit
+    //       the first and last line are anchored for the '[ and '] marks
+    int startCol = oap.start.getColumn();
+    int endCol = oap.end.getColumn();
+    int startLine;
+    int endLine;
     ViFPOS fpos = G.curwin.w_cursor.copy();
-    for (i = oap.line_count; --i >= 0; ) {
-      fpos.set(line, 0);
-      first_char = gchar_pos(fpos);
-      if (first_char != '\n') {	// empty line // DONE
-	shift_line(oap.op_type == OP_LSHIFT, G.p_sr, amount, fpos);
+    try (LineAnchorSet anchors = G.curbuf.createLineAnchorSet(2)) {
+      anchors.addLine(oap.start.getLine());
+      anchors.addLine(oap.end.getLine());
+      ViBulkEdit bulk = G.curbuf.beginBulkEdit();
+      for (i = oap.line_count; --i >= 0; ) {
+        fpos.set(line, 0);
+        first_char = gchar_pos(fpos);
+        if (first_char != '\n') {	// empty line // DONE
+          shift_line(oap.op_type == OP_LSHIFT, G.p_sr, amount, fpos, bulk);
+        }
+        line++;
       }
-      line++;
+      bulk.commit();
+      startLine = anchors.getLine(0);
+      endLine = anchors.getLine(1);
     }
 
     if (oap.block_mode) {
@@ -120,8 +132,15 @@ public class Ops
     /*
      * Set "'[" and "']" marks.
      */
-    G.curbuf.b_op_start.setMark(mStart);
-    G.curbuf.b_op_end.setMark(mEnd);
+    setOpMark(G.curbuf.b_op_start, startLine, startCol);
+    setOpMark(G.curbuf.b_op_end, endLine, endCol);
+  }
+
+  /** Set the mark, the column is limited to the end of the line. */
+  private static void setOpMark(ViMark m, int lnum, int col) {
+    int start = G.curbuf.getLineStartOffset(lnum);
+    int len = G.curbuf.getLineEndOffset(lnum) - start - 1;
+    m.setMark(G.curbuf.createFPOS(start + Math.min(col, len)));
   }
 
   /**
@@ -132,6 +151,11 @@ public class Ops
     shift_line(left, round, amount, G.curwin.w_cursor);
   }
   static void shift_line(boolean left, boolean round, int amount, ViFPOS fpos) {
+    shift_line(left, round, amount, fpos, null);
+  }
+  /** If bulk is not null, the change is added to it. */
+  static void shift_line(boolean left, boolean round, int amount, ViFPOS fpos,
+                         ViBulkEdit bulk) {
     int		count;
     int		i, j;
     int		p_sw = G.curbuf.b_p_sw;
@@ -165,7 +189,7 @@ public class Ops
     if (G.State == VREPLACE) {
       // change_indent(INDENT_SET, count, false, NUL);
     } else {
-      set_indent(count, true, fpos);
+      set_indent(count, true, fpos, bulk);
     }
   }
 
@@ -381,77 +405,19 @@ public class Ops
    * block mode delete
    * 
    * This was inside an if block in op_delete.
-   * Pull it out to clarify swap algorithm
+   * The lines are done with one bulk edit.
    */
   private static void block_delete(OPARG oap) {
-    if(!blockOpSwapText || oap.line_count < 5) {
-      block_deleteInplace(oap);
-      return;
-    }
-    //
-    // Use block_deleteInplace for the first line and last line
-    // so that they are separate undoable operation.
-    // Then the undo/redo pointer are better placed (I hope).
-    //
-
-    // there are at least 3 lines to do
-
-    int lnum = oap.start.getLine();
-    int finishPositionColumn = block_deleteInplace(oap, lnum, lnum);
-    ++lnum; // did the first line
-    int endLine = oap.end.getLine() - 1; // don't do last line in big chunk
-
-    // startOffset/endOffset of single multi-line chunk replaced in the document
-    int startOffset = G.curbuf.getLineStartOffset(lnum);
-    int endOffset = G.curbuf.getLineEndOffset(endLine);
-    StringBuilder sb = new StringBuilder(endOffset - startOffset);
-
-    block_def bd = new block_def();
-    for (; lnum <= endLine; lnum++) {
-      MySegment oldp;
-      block_prep(oap, bd, lnum, true);
-
-      oldp = ml_get(lnum);
-      if (bd.textlen == 0) {       /* nothing to delete */
-        sb.append(oldp);
-        continue;
-      }
-
-      // If we delete a TAB, it may be replaced by several characters.
-      // Thus the number of characters may increase!
-      //
-      sb.append(oldp, 0, bd.textcol);
-      // insert spaces
-      append_spaces(sb, bd.startspaces + bd.endspaces);
-      // copy the part after the deleted part
-      int oldp_idx = bd.textcol + bd.textlen;
-      sb.append(oldp, oldp_idx, oldp.length());
-    }
-
-    // delete the trailing '\n'
-    sb.deleteCharAt(sb.length()-1); // DONE
-    G.curbuf.replaceString(startOffset, endOffset-1, sb.toString());
-
-    // do the final line
-    ++endLine;
-    block_deleteInplace(oap, endLine, endLine);
-
-    G.curwin.w_cursor.set(oap.start.getLine(), finishPositionColumn);
-    adjust_cursor();
-
-    update_screen(VALID_TO_CURSCHAR);
-    oap.line_count = 0; /* no lines deleted */
-  }
-
-  /** the original block_delete */
-  private static int block_deleteInplace(OPARG oap) {
 //      if (u_save((oap.start.getLine() - 1), (oap.end.getLine() + 1)) == FAIL)
 //            return FAIL;
 
     ViFPOS fpos = oap.start;
-    int finishPositionColumn = block_deleteInplace(oap,
-                                                       oap.start.getLine(),
-                                                       oap.end.getLine());
+    ViBulkEdit bulk = G.curbuf.beginBulkEdit();
+    int finishPositionColumn = block_delete(oap,
+                                            oap.start.getLine(),
+                                            oap.end.getLine(),
+                                            bulk);
+    bulk.commit();
 
     G.curwin.w_cursor.set(fpos.getLine(), finishPositionColumn);
     //changed_cline_bef_curs();/* recompute cursor pos. on screen */
@@ -461,12 +427,15 @@ public class Ops
     //changed();
     update_screen(VALID_TO_CURSCHAR);
     oap.line_count = 0; /* no lines deleted */
-    return finishPositionColumn;
   }
 
-  private static int block_deleteInplace(OPARG oap,
-                                             int startLine,
-                                             int endLine) {
+  /**
+   * @return the cursor column after the delete
+   */
+  private static int block_delete(OPARG oap,
+                                  int startLine,
+                                  int endLine,
+                                  ViBulkEdit bulk) {
     //ViFPOS fpos = G.curwin.w_cursor.copy();
     ViFPOS fpos = oap.start;
     int finishPositionColumn = fpos.getColumn();
@@ -494,8 +463,8 @@ public class Ops
       if(bd.startspaces + bd.endspaces == 0) {
         // No TAB is split, simplify
         int lineStart = G.curbuf.getLineStartOffset(lnum);
-        G.curwin.deleteChar(lineStart + bd.textcol,
-                            lineStart + bd.textcol + bd.textlen);
+        bulk.deleteChar(lineStart + bd.textcol,
+                        lineStart + bd.textcol + bd.textlen);
       } else {
         oldp = ml_get(lnum);
         newp = new StringBuilder();
@@ -512,7 +481,7 @@ public class Ops
                     (oldp.length()-1) - oldp_idx); // STRLEN(oldp) + 1)
         // replace the line
         newp.setLength(STRLEN(newp));
-        ml_replace(lnum, newp);
+        ml_replace(lnum, newp, bulk);
       }
     }
     return finishPositionColumn;
@@ -605,16 +574,20 @@ public class Ops
       } else if (!oap.inclusive)
         dec(oap.end);
       
+      ViBulkEdit bulk = G.curbuf.beginBulkEdit();
+      String s = String.valueOf(c);
       while(fpos.compareTo(oap.end) <= 0) {
         if (gchar_pos(fpos) != '\n') { // DONE
           // #ifdef FEAT_MBYTE ... #endif
-          pchar(fpos, c);
+          int offset = fpos.getOffset();
+          bulk.replaceString(offset, offset + 1, s);
         }
         
         // Advance to next character, stop at the end of the file.
         if (inc(fpos) == -1)
           break;
       }
+      bulk.commit();
     }
     
     G.curwin.w_cursor.set(oap.start);
@@ -629,84 +602,19 @@ public class Ops
     return OK;
   }
 
+  /**
+   * Replace the block a line at a time, all the lines in one bulk edit.
+   */
   private static void block_replace(OPARG oap, char c)
   {
-    if(!blockOpSwapText || oap.line_count < 5) {
-      block_replaceInplace(oap, c);
-      return;
-    }
-
-    int         numc;
-    MySegment   oldBuf;
-    block_def bd = new block_def();
-
-    bd.is_MAX = G.curwin.w_curswant == MAXCOL;
-
-    int lnum = oap.start.getLine();
-    block_replaceInplace(oap, c, lnum, lnum);
-    ++lnum; // first line done by "inplace"
-    int endLine = oap.end.getLine() - 1; // don't do last line in this loop
-
-    // startOffset/endOffset of single multi-line chunk replaced in the document
-    int startOffset = G.curbuf.getLineStartOffset(lnum);
-    int endOffset = G.curbuf.getLineEndOffset(endLine);
-    StringBuilder sb = new StringBuilder(endOffset - startOffset);
-
-    for (; lnum <= endLine; lnum++) {
-      //fpos.set(lnum, 0);
-      block_prep(oap, bd, lnum, true);
-
-      oldBuf = ml_get(lnum);
-
-      if (bd.textlen == 0 /* && (!virtual_op || bd.is_MAX)*/)
-      {
-        sb.append(oldBuf);
-        continue;                     // nothing to replace
-      }
-
-      // If we split a TAB, it may be replaced by several characters.
-      // Thus the number of characters may increase!
-      //
-      // allow for pre spaces
-      // allow for post spp
-      numc = oap.end_vcol - oap.start_vcol + 1;
-      if (bd.is_short /*&& (!virtual_op || bd.is_MAX)*/)
-        numc -= (oap.end_vcol - bd.end_vcol) + 1;
-      // oldlen includes textlen, so don't double count
-
-      // copy up to deleted part
-      sb.append(oldBuf, 0, bd.textcol);
-      // insert pre-spaces
-      append_spaces(sb, bd.startspaces);
-      /* insert replacement chars CHECK FOR ALLOCATED SPACE */
-      append_chars(sb, numc, c);
-      if (!bd.is_short) {
-        // insert post-spaces
-        //copy_spaces(newBuf, STRLEN(newBuf), bd.endspaces);
-        append_spaces(sb, bd.endspaces);
-        // copy the part after the changed part
-        sb.append(oldBuf, bd.textcol + bd.textlen, oldBuf.length());
-      } else {
-        sb.append('\n'); // DONE
-      }
-    }
-
-    // All done with the big chunk.
-    // delete the trailing '\n'
-    sb.deleteCharAt(sb.length()-1); // DONE
-    G.curbuf.replaceString(startOffset, endOffset-1, sb.toString());
-
-    ++endLine;
-    block_replaceInplace(oap, c, endLine, endLine);
-  }
-
-  private static void block_replaceInplace(OPARG oap, char c)
-  {
-    block_replaceInplace(oap, c, oap.start.getLine(), oap.end.getLine());
+    ViBulkEdit bulk = G.curbuf.beginBulkEdit();
+    block_replace(oap, c, oap.start.getLine(), oap.end.getLine(), bulk);
+    bulk.commit();
   }
 
-  private static void block_replaceInplace(OPARG oap, char c,
-                                           int startLine, int endLine)
+  private static void block_replace(OPARG oap, char c,
+                                    int startLine, int endLine,
+                                    ViBulkEdit bulk)
   {
     int		n;
     int         numc;
@@ -755,7 +663,7 @@ public class Ops
           fullReplaceString = sb.toString();
         }
         int offset = G.curbuf.getLineStartOffset(lnum) + bd.textcol;
-        G.curbuf.replaceString(offset, offset + numc, fullReplaceString);
+        bulk.replaceString(offset, offset + numc, fullReplaceString);
       } else {
         //oldp = ml_get_curline();
         //oldBuf = Util.ml_get(fpos.getLine());
@@ -788,7 +696,7 @@ public class Ops
         // delete trailing nulls, vim alloc extra when tabs (seen with gdb)
         newBuf.setLength(STRLEN(newBuf));
         // replace the line
-        ml_replace(lnum, newBuf);
+        ml_replace(lnum, newBuf, bulk);
       }
     }
   }
@@ -807,6 +715,7 @@ public class Ops
      *************************************************************/
 
     pos = oap.start.copy();
+    ViBulkEdit bulk = G.curbuf.beginBulkEdit();
 
     if (oap.block_mode)		    // Visual block mode
     {
@@ -816,7 +725,7 @@ public class Ops
         block_prep(oap, bd, pos.getLine(), false);
         pos.setColumn(bd.textcol);
         while (--bd.textlen >= 0) {
-          swapchar(oap.op_type, pos);
+          swapchar(oap.op_type, pos, bulk);
           if (inc(pos) == -1) // at end of file
             break;
         }
@@ -836,11 +745,12 @@ public class Ops
 
       finalPosition = pos.copy();
       while (pos.compareTo(oap.end) <= 0) {
-        swapchar(oap.op_type, pos);
+        swapchar(oap.op_type, pos, bulk);
         if (inc(pos) == -1)    // at end of file
           break;
       }
     }
+    bulk.commit();
     G.curwin.w_cursor.set(finalPosition);
 
     /* **********************************************************
@@ -880,6 +790,19 @@ public class Ops
     }
   }
 
+  /** Like swapchar(op_type, fpos), but the change is added to bulk. */
+  static void swapchar(int op_type, ViFPOS fpos, ViBulkEdit bulk) {
+    char    c;
+    char    nc;
+
+    c = gchar_pos(fpos);
+    nc = swapchar(op_type, c);
+    if(c != nc) {
+      int offset = fpos.getOffset();
+      bulk.replaceString(offset, offset + 1, String.valueOf(nc));
+    }
+  }
+
   static char swapchar(int op_type, char c) {
     char    nc;
 
@@ -1029,13 +952,51 @@ public class Ops
 
     if (count > 10)
       redraw = false;		    /* don't redraw each small change */
+
+    //
+    // The joins are found in the unchanged lines and done with one
+    // bulk edit. lastc is the last char of the line being built,
+    // the line as it is after the joins so far.
+    //
+    ViBulkEdit bulk = G.curbuf.beginBulkEdit();
+    int lnum = G.curwin.w_cursor.getLine();
+    int lastc = -1;
+    int cursor = -1;
+    int delta = 0;  // size change from the joins so far
+    boolean fail = false;
     while (--count > 0) {
       line_breakcheck();
-      if (/*got_int ||*/ do_join(insert_space, redraw) == FAIL) {
-	beep_flush();
-	break;
+      if (lnum == G.curbuf.getLineCount()) {
+        fail = true;	// can't join on last line
+        break;
       }
+      int nextline = lnum + 1;
+
+      int offset00 = G.curbuf.getLineStartOffset(nextline);
+      int offset01 = offset00 - 1; // points to the '\n' of current line // DONE
+
+      MySegment seg = G.curbuf.getLineSegment(nextline);
+      int offset02 = offset00 + skipwhite(seg, 0);
+      int nextc = getCharAt(offset02);
+
+      if (lastc < 0)
+        lastc = offset01 > 0 ? getCharAt(offset01 - 1) : '\n'; // DONE
+      String spaces = join_spaces(insert_space, lastc, nextc);
+      bulk.replaceString(offset01, offset02, spaces);
+      cursor = offset01 + delta;
+      delta += spaces.length() - (offset02 - offset01);
+
+      if (nextc != '\n') // DONE
+        lastc = getCharAt(G.curbuf.getLineEndOffset(nextline) - 2);
+      else if (!spaces.isEmpty())
+        lastc = ' ';
+      lnum = nextline;
     }
+    bulk.commit();
+    if (cursor >= 0)
+      G.curwin.w_cursor.set(cursor);
+    if (fail)
+      beep_flush();
     // redraw_later(VALID_TO_CURSCHAR);
 
     /*
@@ -1045,6 +1006,22 @@ public class Ops
     // update_topline_redraw();
   }
 
+  /**
+   * The spaces to put between the joined lines.
+   * @param lastc the last char of the first line, '\n' if it is empty
+   * @param nextc the first non white char of the second line
+   */
+  private static String join_spaces(boolean insert_space, int lastc, int nextc)
+  {
+    if(insert_space
+            && nextc != ')' && lastc != ' ' && lastc != TAB && lastc != '\n') { // DONE
+      if(G.p_js && (lastc == '.' || lastc == '?' || lastc =='!'))
+        return "  ";
+      return " ";
+    }
+    return "";
+  }
+
   /*
    * Join two lines at the cursor position.
    * "redraw" is TRUE when the screen should be updated.
@@ -1057,7 +1034,6 @@ public class Ops
                               == G.curbuf.getLineCount()) {
 	return FAIL;	// can't join on last line
       }
-      StringBuilder spaces = new StringBuilder();
       int nextline = G.curwin.w_cursor.getLine() + 1;
       int lastc;
 
@@ -1068,25 +1044,17 @@ public class Ops
       int offset02 = offset00 + skipwhite(seg, 0);
       int nextc = getCharAt(offset02);
 
-      if(insert_space) {
-	if(offset01 > 0) {
-	  // there's a char before first line's '\n'
-	  lastc = getCharAt(offset01 - 1); // last char of line // DONE
-	} else {
-	  // at begin file, say lastc is a newline
-	  lastc = '\n'; // DONE
-	}
-	if(nextc != ')' && lastc != ' ' && lastc != TAB && lastc != '\n') { // DONE
-	  spaces.append(' ');
-	  if(   G.p_js && (lastc == '.' || lastc == '?'
-                                     || lastc =='!')) {
-	    spaces.append(' ');
-	  }
-	}
+      if(offset01 > 0) {
+        // there's a char before first line's '\n'
+        lastc = getCharAt(offset01 - 1); // last char of line // DONE
+      } else {
+        // at begin file, say lastc is a newline
+        lastc = '\n'; // DONE
       }
+      String spaces = join_spaces(insert_space, lastc, nextc);
       G.curwin.deleteChar(offset01, offset02);
-      if(spaces.length() > 0) {
-	G.curwin.insertText(offset01, spaces.toString());
+      if(!spaces.isEmpty()) {
+	G.curwin.insertText(offset01, spaces);
       }
       G.curwin.w_cursor.set(offset01);
 
@@ -1637,139 +1605,35 @@ op_do_addsub(char command, int Prenum1)
         }
       }
     }
-    
-    static boolean blockOpSwapText = true;
+
 /**
  * Insert string "s" (b_insert ? before : after) block :AKelly
  * Caller must prepare for undo.
  */
   static void block_insert(OPARG oap, String s, boolean b_insert, block_def bdp) {
-    if(!blockOpSwapText || oap.line_count < 5) {
-      block_insertInplace(oap, s, b_insert, bdp);
-      return;
+    // The first line has already been handled by edit;
+    // the other lines are done with one bulk edit.
+    ViBulkEdit bulk = G.curbuf.beginBulkEdit();
+    int op_end_col = block_insert(oap, s, b_insert, bdp,
+                                  oap.start.getLine() + 1, oap.end.getLine(),
+                                  bulk);
+    bulk.commit();
+    if (op_end_col >= 0) {
+      // Set "']" mark to the end of the block instead of the end of
+      // the insert in the first line.
+      ViFPOS op_end = oap.end.copy();
+      op_end.setColumn(op_end_col);
+      G.curbuf.b_op_end.setMark(op_end);
     }
-
-    //
-    // Profiling shows that almost all the time is spent in Document.<op>.
-    // This modified algorithm build a new string result consisting of all
-    // the modified lines and replaces them in a single document op.
-    //
-    // This cuts the time in half (still around 90% in Document),
-    // still long but...
-    //
-
-    int		p_ts;
-    int		count = 0;	// extra spaces to replace a cut TAB
-    int		spaces = 0;	// non-zero if cutting a TAB
-    int 	offset;		// pointer along new line
-    int 	s_len;		// STRLEN(s)
-    MySegment   oldp;           // new, old lines
-    int		oldstate = G.State;
-
-    eatme(count);
-    int lnum = oap.start.getLine() + 1; // frist line done by edit
-    int endLine = oap.end.getLine() - 1; // don't do last line in this loop
-
-    G.State = INSERT;		// don't want REPLACE for State
-    s_len = s.length();
-
-    int startOffset = G.curbuf.getLineStartOffset(lnum);
-    int endOffset = G.curbuf.getLineEndOffset(endLine);
-    StringBuilder sb = new StringBuilder(endOffset - startOffset
-            + s_len * (endLine - lnum + 1));
-
-    for (; lnum <= endLine; lnum++) {
-      block_prep(oap, bdp, lnum, true);
-
-      oldp = ml_get(lnum);
-
-      if (bdp.is_short && b_insert) {
-        sb.append(oldp);
-        continue;	// OP_INSERT, line ends before block start
-      }
-
-      count = 0;
-      if (b_insert) {
-        p_ts = bdp.start_char_vcols;
-        spaces = bdp.startspaces;
-        if (spaces != 0)
-          count = p_ts - 1; // we're cutting a TAB
-        offset = bdp.textcol;
-      } else // append
-      {
-        p_ts = bdp.end_char_vcols;
-        if (!bdp.is_short) // spaces = padding after block
-        {
-          spaces = (bdp.endspaces != 0 ? p_ts - bdp.endspaces : 0);
-          if (spaces != 0)
-            count = p_ts - 1; // we're cutting a TAB
-          offset = bdp.textcol + bdp.textlen - (spaces != 0 ? 1 : 0);
-        } else // spaces = padding to block edge
-        {
-          // if $ used, just append to EOL (ie spaces==0)
-          if (!bdp.is_MAX)
-            spaces = (oap.end_vcol - bdp.end_vcol) + 1;
-          count = spaces;
-          offset = bdp.textcol + bdp.textlen;
-        }
-      }
-      eatme(count);
-
-      //if(spaces == 0) {
-      //  // No splitting or padding going on, can simply insert the string.
-      //  // Profiling shows that 45% of time spent in Document.remove
-      //  // and 50% in Document.insertString, with this case don't need remove
-      //  // Should almost double the performance
-      //  G.curwin.insertText(G.curbuf.getLineStartOffset(lnum) + offset, s);
-      //} else
-
-      /* copy up to shifted part */
-      sb.append(oldp, 0, offset);
-      int oldp_idx = offset;
-
-      // insert pre-padding
-      append_spaces(sb, spaces);
-
-      // copy the new text
-      sb.append(s);
-
-      if (spaces != 0 && !bdp.is_short) {
-        // insert post-padding
-        append_spaces(sb, p_ts - spaces);
-        // We're splitting a TAB, don't copy it.
-        oldp_idx++;
-        // We allowed for that TAB, remember this now
-      }
-
-      // Copy the rest of the line
-      sb.append(oldp, oldp_idx, oldp.length());
-
-    } // for all lnum except first and last
-
-    // All done with the big chunk.
-    // delete the trailing '\n'
-    sb.deleteCharAt(sb.length()-1); // DONE
-    G.curbuf.replaceString(startOffset, endOffset-1, sb.toString());
-
-    // do the last line
-    ++endLine;
-    block_insertInplace(oap, s, b_insert, bdp, endLine, endLine);
-
-    // changed_lines(oap.start.lnum + 1, 0, oap.end.lnum + 1, 0L);
-
-    G.State = oldstate;
   }
 
-  private static void block_insertInplace(
-          OPARG oap, String s, boolean b_insert, block_def bdp) {
-    // The first line has already been handled by edit
-    block_insertInplace(oap, s, b_insert, bdp,
-                        oap.start.getLine() + 1, oap.end.getLine());
-  }
-
-  private static void block_insertInplace(
+  /**
+   * @return the column in endLine, after the insert, for the "']" mark;
+   *         or -1 if endLine is not done
+   */
+  private static int block_insert(
           OPARG oap, String s, boolean b_insert, block_def bdp,
-          int startLine, int endLine) {
+          int startLine, int endLine, ViBulkEdit bulk) {
     int		p_ts;
     int		count;		// extra spaces to replace a cut TAB
     int		spaces = 0;	// non-zero if cutting a TAB
@@ -1778,6 +1642,7 @@ op_do_addsub(char command, int Prenum1)
     MySegment   oldp;           // new, old lines
     StringBuilder newp;
     int 	lnum;		// loop var
+    int		op_end_col = -1;
     int		oldstate = G.State;
     
     G.State = INSERT;		// don't want REPLACE for State
@@ -1821,7 +1686,7 @@ op_do_addsub(char command, int Prenum1)
         // Profiling shows that 45% of time spent in Document.remove
         // and 50% in Document.insertString, with this case don't need remove
         // Should almost double the performance
-        G.curwin.insertText(G.curbuf.getLineStartOffset(lnum) + offset, s);
+        bulk.insertText(G.curbuf.getLineStartOffset(lnum) + offset, s);
         offset += s_len;
       } else {
         newp = new StringBuilder();
@@ -1860,21 +1725,17 @@ op_do_addsub(char command, int Prenum1)
                     (oldp.length() - 1) - oldp_idx);
         
         newp.setLength(STRLEN(newp));
-        ml_replace(lnum, newp);
+        ml_replace(lnum, newp, bulk);
       }
       
-      if (lnum == oap.end.getLine()) {
-          // Set "']" mark to the end of the block instead of the end of
-          // the insert in the first line.
-        ViFPOS op_end = oap.end.copy();
-        op_end.setColumn(offset);
-        G.curbuf.b_op_end.setMark(op_end);
-      }
+      if (lnum == oap.end.getLine())
+        op_end_col = offset;
     } // for all lnum
     
     // changed_lines(oap.start.lnum + 1, 0, oap.end.lnum + 1, 0L);
     
     G.State = oldstate;
+    return op_end_col;
   }
 
   static void do_pending_operator(CMDARG cap, int old_col, boolean gui_yank)
@@ -155,6 +155,9 @@ public final class Options {
   public static final String searchFromEnd = "viSearchFromEnd";
   public static final String endOfSentence = "viEndOfSentence";
   public static final String wrapScan = "viWrapScan";
+  public static final String bufferSearch = "viBufferSearch";
+  public static final String patternCache = "viPatternCache";
+  public static final String globalParallel = "viGlobalParallel";
   public static final String isKeyWord = "viIsKeyWord";
 
   public static final String magic = "viAaSearchMagic";
@@ -289,6 +292,7 @@ public final class Options {
 
     String MinMinus1 = "Only '-1 <= val' allowed. Not '%d'.";
     String ToTenK = "Only '0 <= val <= 10000' allowed. Not '%d'.";
+    String MinZero = "Only '0 <= val' allowed. Not '%d'.";
 
     // Since this is used to debug options, put it first
 
@@ -1029,6 +1033,38 @@ public final class Options {
     setupOptionDesc(Category.SEARCH, wrapScan, "'wrapscan' 'ws'",
                "Searches wrap around the end of the file.");
 
+    createBooleanOption(bufferSearch, false);
+    setupOptionDesc(Category.SEARCH, bufferSearch, "'bufsearch' 'bfs'", """
+            Search the document with a single matcher, rather than \
+            a line at a time. This is much faster in large files. \
+            A pattern can match across lines, for example "foo\\nbar". \
+            A backward search only finds a multi-line match if it is \
+            shorter than 64K characters.""");
+    setExpertHidden(bufferSearch, true, false);
+
+    createIntegerOption(patternCache, 64, (val) -> {
+                          if(val < 0 || val > 10000) {
+                            failedValidation(sf(ToTenK, val));
+                          }});
+    setupOptionDesc(Category.SEARCH, patternCache, "'patterncache' 'pch'", """
+            The number of search patterns that are kept translated \
+            and compiled, so they are not prepared again when used \
+            again. Zero disables the cache.
+            The maximum value is 10000.""");
+    setExpertHidden(patternCache, true, false);
+
+    createIntegerOption(globalParallel, 100000, (val) -> {
+                          if(val < 0) {
+                            failedValidation(sf(MinZero, val));
+                          }});
+    setupOptionDesc(Category.SEARCH, globalParallel,
+                    "'globalparallel' 'gpl'", """
+            When a ":global" or ":vglobal" command has at least this \
+            many lines in its range, the lines are checked for a match \
+            with several threads, before any command is run. \
+            Zero means always check the lines one at a time.""");
+    setExpertHidden(globalParallel, true, false);
+
     createBooleanOption(searchFromEnd, true);
     setupOptionDesc(Category.SEARCH, searchFromEnd, "'cpoptions' 'cpo' \"c\"",
                "search continues at end of match");
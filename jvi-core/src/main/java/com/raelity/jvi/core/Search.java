@@ -22,14 +22,20 @@ package com.raelity.jvi.core;
 import java.awt.EventQueue;
 import java.util.logging.Logger;
 
+import javax.swing.Timer;
+
+import com.raelity.jvi.ViBadLocationException;
+import com.raelity.jvi.ViBuffer;
 import com.raelity.jvi.ViCmdEntry;
 import com.raelity.jvi.ViFPOS;
+import com.raelity.jvi.ViTextCursor;
 import com.raelity.jvi.core.lib.Messages;
 import com.raelity.jvi.lib.MutableInt;
 import com.raelity.jvi.manager.Scheduler;
 import com.raelity.jvi.manager.ViManager;
 import com.raelity.jvi.lib.RegExp;
 import com.raelity.jvi.lib.MySegment;
+import com.raelity.jvi.lib.PerfStats;
 
 import static java.util.logging.Level.*;
 
@@ -39,7 +45,16 @@ import static com.raelity.jvi.core.Misc01.*;
 import static com.raelity.jvi.core.lib.Constants.*;
 import static com.raelity.jvi.core.lib.KeyDefs.*;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -195,11 +210,13 @@ public class Search
       removeIsListener();
       ass.searchTopLine = G.curwin.getVpTopDocumentLine();
       ass.didIncrSearch = false;
+      IncrSearch is = new IncrSearch();
+      incrSearch = is;
       isListener = new Object() {
         @Subscribe public void incrSearchChar(ViCmdEntry.CmdEntryChange ev)
         {
           if(ev.getSource() == getSearchCommandEntry().getTextComponent())
-            EventQueue.invokeLater(Search::doIncrementalSearch);
+            EventQueue.invokeLater(is::changed);
         }
       };
       ViCmdEntry.getEventBus().register(isListener);
@@ -207,6 +224,14 @@ public class Search
   
   private static void stopIncrementalSearch(boolean accept) {
       removeIsListener();
+      if(incrSearch != null) {
+        // If the entry has changed since the last result was shown,
+        // then get the result for what is accepted now.
+        boolean stale = incrSearch.stop();
+        incrSearch = null;
+        if(accept && stale)
+          doIncrementalSearch();
+      }
 
       G.curwin.clearSelection(); // since it is used by incr search
       
@@ -219,6 +244,316 @@ public class Search
     G.curwin.w_cursor.set(ass.searchPos.getOffset());
   }
   
+  private static IncrSearch incrSearch;
+  private static ExecutorService executor;
+
+  /** @return the thread for background search work */
+  static synchronized ExecutorService searchExecutor()
+  {
+    if(executor == null) {
+      executor = Executors.newSingleThreadExecutor((r) -> {
+        Thread t = new Thread(r, "jVi search");
+        t.setDaemon(true);
+        return t;
+      });
+    }
+    return executor;
+  }
+
+  /**
+   * Incremental search with the matching done by a background thread.
+   * <p>
+   * Changes to the search entry are debounced. Then the pattern is
+   * compiled on the EDT, and a BufferSearch is run by the worker thread
+   * on a snapshot of the document. The snapshot is taken once for the
+   * search, since the document does not change while the search pattern
+   * is entered. The matches are the ones searchit finds: unless
+   * 'bufsearch' is set they are kept within a line, the same as the
+   * line at a time search.
+   * A new change cancels the search in progress; the matcher's input
+   * checks for the cancel, so even a slow pattern stops promptly.
+   * Only the result of the latest search is given to the EDT, which
+   * does the cursor, selection and highlight updates.
+   * </p><p>
+   * Patterns that are empty or do not compile are handled by
+   * doIncrementalSearch, as are matches, line at a time, when the
+   * search is accepted before the latest result is shown. So is
+   * everything for a buffer that should not be copied, see
+   * Buffer.canSnapshot.
+   * </p>
+   */
+  private static final class IncrSearch
+  {
+    private static final int DEBOUNCE_DELAY = 50; // milliseconds
+
+    private final Timer timer;
+    private TextSnapshot snapshot;
+    private Task task;
+    /** the entry has changed since the last result was shown */
+    private boolean stale;
+    private boolean stopped;
+
+    IncrSearch()
+    {
+      timer = new Timer(DEBOUNCE_DELAY, (ev) -> startSearch());
+      timer.setRepeats(false);
+    }
+
+    /** The search entry changed */
+    void changed()
+    {
+      if(stopped)
+        return;
+      stale = true;
+      cancelTask();
+      timer.restart();
+    }
+
+    /** @return true if the latest entry change has no result */
+    boolean stop()
+    {
+      stopped = true;
+      timer.stop();
+      cancelTask();
+      snapshot = null;
+      return stale;
+    }
+
+    private void cancelTask()
+    {
+      if(task != null) {
+        task.cancelled = true;
+        task = null;
+      }
+    }
+
+    private void startSearch()
+    {
+      if(stopped)
+        return;
+      String pattern = getSearchCommandEntry().getCurrentEntry();
+      RegExp prog = pattern.isEmpty() ? null
+              : search_regcomp(pattern, RE_SEARCH, RE_LAST, SEARCH_KEEP);
+      if(!G.curbuf.canSnapshot())
+        snapshot = null;
+      else if(snapshot == null || snapshot.length() != G.curbuf.getLength())
+        snapshot = TextSnapshot.create(G.curbuf);
+      if(prog == null || snapshot == null) {
+        // nothing to do in the background
+        stale = false;
+        doIncrementalSearch();
+        return;
+      }
+      task = new Task(this, snapshot, prog, ass.searchPos.getLine(),
+                      ass.searchPos.getColumn(),
+                      ass.dirc == '/' ? FORWARD : BACKWARD,
+                      ass.searchCount, G.p_ws, G.p_cpo_search, G.p_bfs);
+      searchExecutor().execute(task);
+    }
+
+    /** On the EDT, show the result of a search. */
+    private void publish(Task t)
+    {
+      if(stopped || t != task)
+        return;
+      task = null;
+      stale = false;
+      dbg.println(FINE, "ISEARCH: publish");
+      Hook.setJViBusy(true);
+      try {
+        spats[0].off.dir = ass.dirc;
+        BufferSearch bs = t.bs;
+        lastMatchingRE = bs.sawMatch ? t.prog : null;
+        ass.didIncrSearch = true;
+        if(t.found) {
+          ViFPOS pos = ass.searchPos.copy();
+          pos.set(bs.resultOffset());
+          searchitFound(pos, bs.matchEnd - bs.matchStart, bs.submatch,
+                        bs.wrapMessage());
+          G.curwin.w_cursor.set(pos);
+          G.curwin.w_set_curswant = true;
+        } else
+          searchitNotFound(SEARCH_MSG, t.dir == BACKWARD);
+        // for incr search, use java selection to show progress
+        int new_pos = G.curwin.w_cursor.getOffset();
+        G.curwin.setSelection(new_pos, new_pos + search_match_len);
+        if(!t.found) {
+          resetViewIncrementalSearch();
+          searchitErrorMessage(null);
+        }
+      } catch(Exception ex) {
+          LOG.log(SEVERE, null, ex);
+      } finally {
+        try {
+          Normal.v_updateVisualState();
+          ViManager.updateHighlightSearchState();
+        } finally {
+          Hook.setJViBusy(false);
+        }
+      }
+    }
+  }
+
+  /**
+   * An incremental search in the background. This is the SearchText
+   * that BufferSearch uses; the chars check for cancel.
+   */
+  private static final class Task implements Runnable, SearchText
+  {
+    private final IncrSearch owner;
+    private final TextSnapshot snapshot;
+    private final RegExp prog;
+    private final int lnum;
+    private final int col;
+    private final int dir;
+    private final int count;
+    private final boolean wrapscan;
+    private final boolean cpo_search;
+    private final boolean bufsearch;
+    volatile boolean cancelled;
+    private BufferSearch bs;
+    private boolean found;
+
+    Task(IncrSearch owner, TextSnapshot snapshot, RegExp prog,
+         int lnum, int col, int dir, int count,
+         boolean wrapscan, boolean cpo_search, boolean bufsearch)
+    {
+      this.owner = owner;
+      this.snapshot = snapshot;
+      this.prog = prog;
+      this.lnum = lnum;
+      this.col = col;
+      this.dir = dir;
+      this.count = count;
+      this.wrapscan = wrapscan;
+      this.cpo_search = cpo_search;
+      this.bufsearch = bufsearch;
+    }
+
+    @Override
+    public void run()
+    {
+      if(cancelled)
+        return;
+      try {
+        bs = new BufferSearch(this, prog, SEARCH_MSG + SEARCH_NOOF, 1,
+                              wrapscan, cpo_search, bufsearch);
+        found = bs.search(lnum, col, dir, count);
+      } catch(CancellationException ex) {
+        return;
+      }
+      if(!cancelled)
+        EventQueue.invokeLater(() -> owner.publish(this));
+    }
+
+    @Override public CharSequence chars() {
+      return new CharSequence() {
+        private final String text = snapshot.text;
+        private int nCheck;
+        @Override public int length() { return text.length(); }
+        @Override public char charAt(int index) {
+          if((++nCheck & 0x3ff) == 0 && cancelled)
+            throw new CancellationException();
+          return text.charAt(index);
+        }
+        @Override public CharSequence subSequence(int start, int end) {
+          return text.subSequence(start, end);
+        }
+        @Override public String toString() { return text; }
+      };
+    }
+    @Override public int lineCount() { return snapshot.lineCount(); }
+    @Override public int lineNumber(int offset) {
+      return snapshot.lineNumber(offset);
+    }
+    @Override public int lineStart(int lnum) {
+      return snapshot.lineStart(lnum);
+    }
+    @Override public int lineEnd(int lnum) {
+      return snapshot.lineEnd(lnum);
+    }
+    @Override public void breakcheck() {
+      if(cancelled)
+        throw new CancellationException();
+    }
+  }
+
+  /** The text of a document, with its line starts, that does not change. */
+  static final class TextSnapshot implements SearchText
+  {
+    final String text;
+    /** lineStarts[0] is the start of line 1 */
+    private final int[] lineStarts;
+    private final int lineCount;
+
+    private TextSnapshot(String text)
+    {
+      this.text = text;
+      int[] starts = new int[64];
+      int n = 0;
+      starts[n++] = 0;
+      for(int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+        if(n == starts.length)
+          starts = Arrays.copyOf(starts, 2 * n);
+        starts[n++] = i + 1;
+      }
+      lineStarts = starts;
+      lineCount = n;
+    }
+
+    /** @return snapshot of the buffer, or null if it can't be read */
+    static TextSnapshot create(Buffer buf)
+    {
+      try {
+        return new TextSnapshot(buf.getText(0, buf.getLength()));
+      } catch(ViBadLocationException ex) {
+        return null;
+      }
+    }
+
+    int length()
+    {
+      return text.length();
+    }
+
+    @Override
+    public CharSequence chars()
+    {
+      return text;
+    }
+
+    @Override
+    public int lineCount()
+    {
+      return lineCount;
+    }
+
+    @Override
+    public int lineNumber(int offset)
+    {
+      int idx = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+      return idx >= 0 ? idx + 1 : -idx - 1;
+    }
+
+    @Override
+    public int lineStart(int lnum)
+    {
+      return lineStarts[lnum - 1];
+    }
+
+    @Override
+    public int lineEnd(int lnum)
+    {
+      // like the document, the last line has a newline after the text
+      return lnum < lineCount ? lineStarts[lnum] : text.length() + 1;
+    }
+
+    @Override
+    public void breakcheck()
+    {
+    }
+  }
+
   private static void doIncrementalSearch() {
     dbg.println(FINE, "ISEARCH: doIncrementalSearch");
     Hook.setJViBusy(true);
@@ -346,6 +681,7 @@ end_do_search:
       }
 
       // ..... lots of offset and some SEARCH_ECHO stuff .....
+      String echo = null;
       if((options & SEARCH_ECHO) != 0) {
         // simplified
         String p;
@@ -353,7 +689,8 @@ end_do_search:
           p = spats[last_idx].pat;
         else
           p = searchstr;
-        Msg.nmsg(String.valueOf(dirc) + p);
+        echo = String.valueOf(dirc) + p;
+        Msg.nmsg(echo);
       }
 
       int rc = searchit(null, pos,
@@ -372,6 +709,8 @@ end_do_search:
       // if(spat0.off.end && oap != null)
       //    oap.inclusive = true;  // 'e' includes last character
       retval = 1;  // pattern found
+      if(echo != null && lastMatchingRE != null)
+        searchCountMsg(echo, search_match_start, pos.getOffset(), search_wmsg);
 
       //
       // add character and/or line offset
@@ -408,6 +747,36 @@ end_do_search:
     return retval;
   }
 
+  /**
+   * Follow the echoed search command with "[n/m]", the match's position
+   * in the buffer's MatchIndex. If the index isn't ready, start building
+   * it and show the count when it's done, if the cursor hasn't moved.
+   */
+  private static void searchCountMsg(String echo, int offset, int cursor,
+                                     String wmsg)
+  {
+    Buffer buf = G.curbuf;
+    RegExp prog = lastMatchingRE;
+    MatchIndex mi = buf.getMatchIndex();
+    Runnable show = () -> {
+      int idx = mi.indexOf(offset);
+      if(idx == 0)
+        return;
+      if(wmsg != null)
+        Msg.wmsg("%s  [%d/%d]", wmsg, idx, mi.size());
+      else
+        Msg.nmsg("%s  [%d/%d]", echo, idx, mi.size());
+    };
+    if(mi.isReady(prog))
+      show.run();
+    else
+      mi.request(prog, () -> {
+        if(G.curbuf == buf && mi.isReady(prog)
+                && G.curwin.w_cursor.getOffset() == cursor)
+          show.run();
+      });
+  }
+
   ////////////////////////////////////////////////////////////////
   //
   // searchc
@@ -505,9 +874,12 @@ end_do_search:
     return cls(G.curwin.w_cursor);
   }
   private static int cls(ViFPOS fpos) {
-    char    c;
-
-    c = gchar_pos(fpos);
+    return cls(gchar_pos(fpos));
+  }
+  static int cls(ViTextCursor tc) {
+    return cls(tc.current());
+  }
+  private static int cls(char c) {
     if (c == ' ' || c == '\t' || c == '\n') // DONE
       return 0;
 
@@ -520,6 +892,11 @@ end_do_search:
     return ( ! funnyCharsAsWord) ? 2 : 1;
   }
 
+  //
+  // The word motions step a ViTextCursor, the ViFPOS methods
+  // set up the cursor and copy the result back.
+  //
+
 
   /**
    * fwd_word(count, type, eol) - move forward one word
@@ -534,20 +911,27 @@ end_do_search:
     return rc;
   }
   static int fwd_word(int count, boolean type, boolean eol, ViFPOS fpos) {
+    ViTextCursor tc = textCursor(fpos);
+    int rc = fwd_word(count, type, eol, tc);
+    tc.copyTo(fpos);
+    return rc;
+  }
+  static int fwd_word(int count, boolean type, boolean eol, ViTextCursor tc) {
     int		sclass;	    /* starting class */
     int		i;
     boolean	last_line;
+    int         lineCount = tc.getBuffer().getLineCount();
 
     funnyCharsAsWord = type;
     while (--count >= 0) {
-      sclass = cls(fpos);
+      sclass = cls(tc);
 
       //
       // We always move at least one character, unless on the last character
       // in the buffer.
       //
-      last_line = (fpos.getLine() == G.curbuf.getLineCount());
-      i = inc(fpos);
+      last_line = (tc.getLine() == lineCount);
+      i = tc.inc();
       if (i == -1 || (i == 1 && last_line)) // started at last char in file
 	return FAIL;
       if (i == 1 && eol && count == 0)      // started at last char in line
@@ -557,8 +941,8 @@ end_do_search:
       // Go one char past end of current word (if any)
       //
       if (sclass != 0)
-	while (cls(fpos) == sclass) {
-	  i = inc(fpos);
+	while (cls(tc) == sclass) {
+	  i = tc.inc();
 	  if (i == -1 || (i == 1 && eol && count == 0))
 	    return OK;
 	}
@@ -566,16 +950,16 @@ end_do_search:
       //
       // go to next non-white
       //
-      while (cls(fpos) == 0) {
+      while (cls(tc) == 0) {
 	//
 	// We'll stop if we land on a blank line
 	//
-	if(fpos.getColumn() == 0
-	   	&& gchar_pos(fpos) == '\n') { // DONE
+	if(tc.getColumn() == 0
+	   	&& tc.current() == '\n') { // DONE
 	  break;
 	}
 
-	i = inc(fpos);
+	i = tc.inc();
 	if (i == -1 || (i == 1 && eol && count == 0))
 	  return OK;
       }
@@ -597,36 +981,42 @@ end_do_search:
     return rc;
   }
   static int bck_word(int count, boolean type, boolean stop, ViFPOS fpos) {
+    ViTextCursor tc = textCursor(fpos);
+    int rc = bck_word(count, type, stop, tc);
+    tc.copyTo(fpos);
+    return rc;
+  }
+  static int bck_word(int count, boolean type, boolean stop, ViTextCursor tc) {
     int		sclass;	    /* starting class */
 
     funnyCharsAsWord = type;
     while (--count >= 0) {
-      sclass = cls(fpos);
-      if (dec(fpos) == -1)     /* started at start of file */
+      sclass = cls(tc);
+      if (tc.dec() == -1)     /* started at start of file */
 	return FAIL;
 
 finished_block:
       do {
-	if (!stop || sclass == cls(fpos) || sclass == 0) {
+	if (!stop || sclass == cls(tc) || sclass == 0) {
 	  //
 	  // Skip white space before the word.
 	  // Stop on an empty line.
 	  //
-	  while (cls(fpos) == 0) {
-	    if (fpos.getColumn() == 0 && Misc01.lineempty(fpos.getLine()))
+	  while (cls(tc) == 0) {
+	    if (tc.getColumn() == 0 && tc.getLineLength() == 0)
 	      break finished_block;
-	    if (dec(fpos) == -1)   // hit start of file, stop here
+	    if (tc.dec() == -1)   // hit start of file, stop here
 	      return OK;
 	  }
 
 	  //
 	  // Move backward to start of this word.
 	  //
-	  if (skip_chars(cls(fpos), BACKWARD, fpos))
+	  if (skip_chars(cls(tc), BACKWARD, tc))
 	    return OK;
 	}
 
-	inc(fpos);		 // overshot - forward one
+	tc.inc();		 // overshot - forward one
       } while(false); // was a label here - finished:
       stop = false;
     }
@@ -656,13 +1046,22 @@ finished_block:
   }
   static int end_word(
           int count, boolean type, boolean stop, boolean empty, ViFPOS fpos)
+  {
+    ViTextCursor tc = textCursor(fpos);
+    int rc = end_word(count, type, stop, empty, tc);
+    tc.copyTo(fpos);
+    return rc;
+  }
+  static int end_word(
+          int count, boolean type, boolean stop, boolean empty,
+          ViTextCursor tc)
   {
     int		sclass;	    /* starting class */
 
     funnyCharsAsWord = type;
     while (--count >= 0) {
-      sclass = cls(fpos);
-      if (inc(fpos) == -1)
+      sclass = cls(tc);
+      if (tc.inc() == -1)
 	return FAIL;
 
 finished_block:
@@ -671,32 +1070,31 @@ finished_block:
 	// If we're in the middle of a word, we just have to move to the end
 	// of it.
 	//
-	if (cls(fpos) == sclass && sclass != 0) {
+	if (cls(tc) == sclass && sclass != 0) {
 	  //
 	  // Move forward to end of the current word
 	  //
-	  if (skip_chars(sclass, FORWARD, fpos))
+	  if (skip_chars(sclass, FORWARD, tc))
 	    return FAIL;
 	} else if (!stop || sclass == 0) {
 	  //
 	  // We were at the end of a word. Go to the end of the next word.
 	  // First skip white space, if 'empty' is TRUE, stop at empty line.
 	  //
-	  while (cls(fpos) == 0) {
-	    if (empty && fpos.getColumn() == 0
-		&& Misc01.lineempty(fpos.getLine()))
+	  while (cls(tc) == 0) {
+	    if (empty && tc.getColumn() == 0 && tc.getLineLength() == 0)
 	      break finished_block;
-	    if (inc(fpos) == -1)    // hit end of file, stop here
+	    if (tc.inc() == -1)    // hit end of file, stop here
 	      return FAIL;
 	  }
 
 	  //
 	  // Move forward to the end of this word.
 	  //
-	  if (skip_chars(cls(fpos), FORWARD, fpos))
+	  if (skip_chars(cls(tc), FORWARD, tc))
 	    return FAIL;
 	}
-	dec(fpos);	// overshot - one char backward
+	tc.dec();	// overshot - one char backward
       } while(false); // was a label here - finished:
 finished:
       stop = false;		// we move only one word less
@@ -718,13 +1116,20 @@ finished:
     return rc;
   }
   static int bckend_word(int count, boolean type, boolean eol, ViFPOS fpos) {
+    ViTextCursor tc = textCursor(fpos);
+    int rc = bckend_word(count, type, eol, tc);
+    tc.copyTo(fpos);
+    return rc;
+  }
+  static int bckend_word(int count, boolean type, boolean eol,
+                         ViTextCursor tc) {
     int		sclass;	    // starting class
     int		i;
 
     funnyCharsAsWord = type;
     while (--count >= 0) {
-      sclass = cls(fpos);
-      if ((i = dec(fpos)) == -1)
+      sclass = cls(tc);
+      if ((i = tc.dec()) == -1)
 	return FAIL;
       if (eol && i == 1)
 	return OK;
@@ -733,18 +1138,18 @@ finished:
       // Move backward to before the start of this word.
       //
       if (sclass != 0) {
-	while (cls(fpos) == sclass)
-	  if ((i = dec(fpos)) == -1 || (eol && i == 1))
+	while (cls(tc) == sclass)
+	  if ((i = tc.dec()) == -1 || (eol && i == 1))
 	    return OK;
       }
 
       //
       // Move backward to end of the previous word
       //
-      while (cls(fpos) == 0) {
-	if (fpos.getColumn() == 0 && Misc01.lineempty(fpos.getLine()))
+      while (cls(tc) == 0) {
+	if (tc.getColumn() == 0 && tc.getLineLength() == 0)
 	  break;
-	if ((i = dec(fpos)) == -1 || (eol && i == 1))
+	if ((i = tc.dec()) == -1 || (eol && i == 1))
 	  return OK;
       }
     }
@@ -755,20 +1160,20 @@ finished:
    * Skip a row of characters of the same class.
    * @return TRUE when end-of-file reached, FALSE otherwise.
    */
-  private static boolean skip_chars(int cclass, int dir) {
-    ViFPOS fpos = G.curwin.w_cursor.copy();
-    boolean rc = skip_chars(cclass, dir, fpos);
-    G.curwin.w_cursor.set(fpos);
-    return rc;
-  }
-  private static boolean skip_chars(int cclass, int dir, ViFPOS fpos) {
-    if(Boolean.FALSE) skip_chars(0, 0); // eatme
-    while (cls(fpos) == cclass)
-      if ((dir == FORWARD ? inc(fpos) : dec(fpos)) == -1)
+  static boolean skip_chars(int cclass, int dir, ViTextCursor tc) {
+    while (cls(tc) == cclass)
+      if ((dir == FORWARD ? tc.inc() : tc.dec()) == -1)
 	return true;
     return false;
   }
 
+  /** @return a text cursor for the buffer of fpos, at fpos */
+  static ViTextCursor textCursor(ViFPOS fpos) {
+    ViTextCursor tc = fpos.getBuffer().getTextCursor();
+    tc.set(fpos);
+    return tc;
+  }
+
   /////////////////////////////////////////////////////////////////////
   //
   // regualr expression handling stuff
@@ -872,6 +1277,7 @@ finished:
                                int pat_save, int pat_use, int options)
   {
     Spat spat = null;
+    PatternCache.Entry cached = null;
     int i;
     String cleanPattern;
     MutableInt embeddedVimFlags = new MutableInt();
@@ -897,8 +1303,16 @@ finished:
     } else {
       if((options & SEARCH_HIS) != 0)	// put new pattern in history
           add_to_history(HIST_SEARCH, pattern);
-      cleanPattern = cleanupPattern(pattern, embeddedVimFlags,
-                                    (options & SEARCH_ISCLEAN) != 0);
+      boolean isClean = (options & SEARCH_ISCLEAN) != 0;
+      cached = PatternCache.get(pattern, isClean);
+      if(cached != null) {
+        cleanPattern = cached.cleanPattern;
+        embeddedVimFlags.setValue(cached.embeddedVimFlags);
+      } else {
+        cleanPattern = cleanupPattern(pattern, embeddedVimFlags, isClean);
+        cached = PatternCache.put(pattern, isClean, cleanPattern,
+                                  embeddedVimFlags.getValue());
+      }
     }
 
     // jVi saves more state in spat
@@ -920,11 +1334,15 @@ finished:
       re = spat.re;
     } else {
       re = get_spat_cache(cleanPattern, ic);
+      if(re == null && cached != null)
+        re = cached.getRegExp(ic);
       if(re == null) {
         try {
           int flags = ic ? Pattern.CASE_INSENSITIVE : 0;
           re = RegExp.create();
           re.compile(cleanPattern, flags);
+          if(cached != null)
+            cached.setRegExp(ic, re);
         } catch(PatternSyntaxException ex) {
           Msg.emsg(ex.getMessage() + " [" + ex.getIndex() + "]" + pattern);
           re = null;
@@ -965,6 +1383,93 @@ finished:
     return null;
   }
 
+  /**
+   * Cache of translated and compiled patterns, in addition to spats.
+   * This avoids cleanupPattern and Pattern.compile for patterns
+   * that are used over and over, for example from history, "*" and
+   * ":g". The key is the raw pattern plus the state that affects its
+   * translation; the ignore case state selects the compiled RegExp.
+   * The size is 'patterncache'; zero disables the cache.
+   * Only used from the event dispatch thread.
+   */
+  static final class PatternCache
+  {
+    private record Key(String pattern, String magic, char escape) {}
+
+    static final class Entry
+    {
+      final String cleanPattern;
+      final int embeddedVimFlags;
+      private RegExp re;      // compiled case sensitive
+      private RegExp re_ic;   // compiled ignore case
+
+      private Entry(String cleanPattern, int embeddedVimFlags)
+      {
+        this.cleanPattern = cleanPattern;
+        this.embeddedVimFlags = embeddedVimFlags;
+      }
+
+      RegExp getRegExp(boolean ic)
+      {
+        return ic ? re_ic : re;
+      }
+
+      void setRegExp(boolean ic, RegExp re)
+      {
+        if(ic)
+          re_ic = re;
+        else
+          this.re = re;
+      }
+    }
+
+    private static final Map<Key, Entry> cache
+            = new LinkedHashMap<>(16, .75f, true);
+    /** hits and misses, when {@link PerfStats} is on */
+    private static final PerfStats.Ratio stats
+            = PerfStats.ratio("pattern cache");
+
+    private PatternCache() {}
+
+    private static Key key(String pattern, boolean isClean)
+    {
+      // RegExp.create() always has '\\' as the escape char
+      return new Key(pattern, isClean ? "" : G.p_magic, '\\');
+    }
+
+    static Entry get(String pattern, boolean isClean)
+    {
+      if(G.p_pch <= 0)
+        return null;
+      Entry e = cache.get(key(pattern, isClean));
+      if(PerfStats.isEnabled()) {
+        if(e != null)
+          stats.hit();
+        else
+          stats.miss();
+      }
+      return e;
+    }
+
+    static Entry put(String pattern, boolean isClean,
+                     String cleanPattern, int embeddedVimFlags)
+    {
+      if(G.p_pch <= 0) {
+        cache.clear();
+        return null;
+      }
+      Entry e = new Entry(cleanPattern, embeddedVimFlags);
+      cache.put(key(pattern, isClean), e);
+      // 'patterncache' may have been made smaller
+      for(Iterator<Entry> it = cache.values().iterator();
+              cache.size() > G.p_pch && it.hasNext();) {
+        it.next();
+        it.remove();
+      }
+      return e;
+    }
+  }
+
   private static void save_re_pat(int idx, String pat, RegExp re,
                                   int embeddedVimFlags,
                                   boolean re_ic, boolean no_smartcase)
@@ -1131,6 +1636,10 @@ finished:
 
   // HACK: who uses this?
   private static int search_match_len;
+  /** offset of the match, before any adjustment, from searchit */
+  private static int search_match_start;
+  /** the wrap message, if any, from searchit */
+  private static String search_wmsg;
   // HACK: used by incr search
   private static RegExp lastMatchingRE;
 
@@ -1198,6 +1707,14 @@ finished:
     else
       extra_col = 1;
 
+    if(G.p_bfs)
+      return searchitBuffer(pos, dir, prog, count, options, extra_col);
+    if((options & SEARCH_END) == 0 && G.curbuf.getMatchIndex().isReady(prog)) {
+      int rc = searchitIndex(pos, dir, prog, count, options, extra_col);
+      if(rc >= 0)
+        return rc;
+    }
+
 
     /*
      * find the string
@@ -1390,20 +1907,33 @@ finished:
     } while (--count > 0 && found);   // stop after count matches or no match
 
     if (!found) {	    // did not find it
-      if (G.False/*got_int*/)
-        searchitErrorMessage(Messages.e_interr);
-      else if ((options & SEARCH_MSG) == SEARCH_MSG) {
-        if (    G.p_ws)
-          searchitErrorMessage(Messages.e_patnotf2 + mr_pattern);
-        else if (lnum == 0)
-          searchitErrorMessage("search hit TOP without match for: " + mr_pattern);
-        else
-          searchitErrorMessage("search hit BOTTOM without match for: " + mr_pattern);
-      }
-      search_match_len = 0;
+      searchitNotFound(options, lnum == 0);
       return FAIL;
     }
-    search_match_len = matchend - match;
+    return searchitFound(pos, matchend - match, submatch, wmsg);
+  }
+
+  private static void searchitNotFound(int options, boolean hitTop)
+  {
+    if (G.False/*got_int*/)
+      searchitErrorMessage(Messages.e_interr);
+    else if ((options & SEARCH_MSG) == SEARCH_MSG) {
+      if (    G.p_ws)
+        searchitErrorMessage(Messages.e_patnotf2 + mr_pattern);
+      else if (hitTop)
+        searchitErrorMessage("search hit TOP without match for: " + mr_pattern);
+      else
+        searchitErrorMessage("search hit BOTTOM without match for: " + mr_pattern);
+    }
+    search_match_len = 0;
+  }
+
+  private static int searchitFound(ViFPOS pos, int match_len,
+                                   int submatch, String wmsg)
+  {
+    search_match_len = match_len;
+    search_match_start = pos.getOffset();
+    search_wmsg = wmsg;
 
     int new_pos = pos.getOffset();
     if(search_match_len == 0) {
@@ -1417,6 +1947,411 @@ finished:
     }
     return submatch + 1;
   }
+
+  /**
+   * The 'bufsearch' variant of searchit. A single Matcher runs over
+   * the entire document, see {@link ViBuffer#getDocumentCharSequence},
+   * and offsets are mapped back to line/column as needed. The result is
+   * the same as the line at a time search; only a pattern with an
+   * explicit newline may match across lines.
+   */
+  private static int searchitBuffer(ViFPOS pos, int dir, RegExp prog,
+                                    int count, int options, int extra_col)
+  {
+    BufferSearch bs = new BufferSearch(new BufferText(G.curbuf), prog,
+                                       options, extra_col,
+                                       G.p_ws, G.p_cpo_search, true);
+    boolean found = bs.search(pos.getLine(), pos.getColumn(), dir, count);
+
+    lastMatchingRE = bs.sawMatch ? prog : null;
+    if(!found) {
+      searchitNotFound(options, dir == BACKWARD);
+      return FAIL;
+    }
+    pos.set(bs.resultOffset());
+    return searchitFound(pos, bs.matchEnd - bs.matchStart, bs.submatch,
+                         (options & SEARCH_MSG) != 0 ? bs.wrapMessage() : null);
+  }
+
+  /**
+   * The variant of searchit used when the buffer's MatchIndex is
+   * up to date for the pattern. The match is found with a binary search
+   * rather than looking at lines.
+   * @return -1 if the index could not be used, else as searchit
+   */
+  private static int searchitIndex(ViFPOS pos, int dir, RegExp prog,
+                                   int count, int options, int extra_col)
+  {
+    MatchIndex mi = G.curbuf.getMatchIndex();
+    String wmsg = null;
+    int offset = pos.getOffset();
+    int match;
+    do { // loop for count
+      if(dir == FORWARD) {
+        match = mi.next(offset, extra_col);
+        if(match < 0 && G.p_ws) {
+          match = mi.first();
+          if((options & SEARCH_MSG) != 0)
+            wmsg = bot_top_msg;
+        }
+      } else {
+        // Start searching in current line, unless we're in column 0.
+        boolean bol = offset == G.curbuf.getLineStartOffset(
+                                        G.curbuf.getLineNumber(offset));
+        match = mi.prev(offset, bol ? 1 : extra_col);
+        if(match < 0 && G.p_ws) {
+          match = mi.last();
+          if((options & SEARCH_MSG) != 0)
+            wmsg = top_bot_msg;
+        }
+      }
+      offset = match;
+    } while (--count > 0 && match >= 0);
+
+    if(match < 0) {
+      lastMatchingRE = mi.size() > 0 ? prog : null;
+      searchitNotFound(options, dir == BACKWARD);
+      return FAIL;
+    }
+    if(!mi.matchAt(match))
+      return -1;
+    lastMatchingRE = prog;
+    pos.set(match);
+    return searchitFound(pos, prog.end(0) - prog.start(0),
+                         first_submatch(prog), wmsg);
+  }
+
+  /** The text, and its lines, that a BufferSearch works on. */
+  interface SearchText
+  {
+    /** @return the document, without the final newline */
+    CharSequence chars();
+    int lineCount();
+    int lineNumber(int offset);
+    int lineStart(int lnum);
+    /** @return the offset after the line's newline */
+    int lineEnd(int lnum);
+    /** called between blocks of a long search */
+    void breakcheck();
+  }
+
+  /** SearchText directly on a Buffer. */
+  static final class BufferText implements SearchText
+  {
+    private final Buffer buf;
+
+    BufferText(Buffer buf)
+    {
+      this.buf = buf;
+    }
+
+    @Override public CharSequence chars() {
+      return buf.getDocumentCharSequence(0, buf.getLength());
+    }
+    @Override public int lineCount() { return buf.getLineCount(); }
+    @Override public int lineNumber(int offset) {
+      return buf.getLineNumber(offset);
+    }
+    @Override public int lineStart(int lnum) {
+      return buf.getLineStartOffset(lnum);
+    }
+    @Override public int lineEnd(int lnum) {
+      return buf.getLineEndOffset(lnum);
+    }
+    @Override public void breakcheck() {
+      Misc.line_breakcheck();	// stop if ctrl-C typed
+    }
+  }
+
+  /**
+   * Run one Matcher over the whole document for searchit. The rules for
+   * which match is accepted in the starting line, and for continuing
+   * after a match ('cpoptions' "c"), are the same as for the line at a
+   * time search. Only the SearchText is used, so this can run without
+   * the Buffer, see IncrSearch.
+   * <p>
+   * A backward search scans blocks of lines, working toward the start
+   * of the document, and takes the last acceptable match in the first
+   * block that has one. A match starting in a block can extend no more
+   * than LOOKAHEAD characters past the end of the block.
+   * </p><p>
+   * Constructs like \s and [^x] match a newline. Unless the pattern
+   * has an explicit newline, and 'bufsearch' is set, a match that runs
+   * into the next line is looked for again, limited to its line, as the
+   * line at a time search would see it.
+   * </p>
+   */
+  static final class BufferSearch
+  {
+    private static final int MIN_BLOCK = 8 * 1024;
+    private static final int MAX_BLOCK = 1024 * 1024;
+    private static final int LOOKAHEAD = 64 * 1024;
+
+    private final SearchText text;
+    private final CharSequence chars;
+    private final Matcher m;
+    /** the pattern has a newline, matches may span lines */
+    private final boolean multiLine;
+    private final int docEnd;
+    private final int options;
+    private final int extra_col;
+    private final boolean wrapscan;
+    private final boolean cpo_search;
+
+    /** some match was seen, whether or not it was accepted */
+    boolean sawMatch;
+    /** the search wrapped around the end of the document */
+    boolean wrapped;
+    private int dir;
+    /** document offsets of the accepted match; matchEnd is exclusive */
+    int matchStart;
+    int matchEnd;
+    int submatch;
+
+    /**
+     * @param bufsearch as 'bufsearch', a pattern with a newline may
+     *        match across lines; otherwise the matches are as found by
+     *        the line at a time search
+     */
+    BufferSearch(SearchText text, RegExp prog, int options, int extra_col,
+                 boolean wrapscan, boolean cpo_search, boolean bufsearch)
+    {
+      this.text = text;
+      this.options = options;
+      this.extra_col = extra_col;
+      this.wrapscan = wrapscan;
+      this.cpo_search = cpo_search;
+      chars = text.chars();
+      docEnd = chars.length();
+      String pattern = prog.getPattern().pattern();
+      multiLine = bufsearch
+                  && (pattern.indexOf('\n') >= 0 || pattern.contains("\\n"));
+      m = prog.getPattern().matcher(chars);
+      m.useAnchoringBounds(false); // so /^ only matches beginning of line
+      m.useTransparentBounds(true); // lookbehind, \b see outside region
+    }
+
+    /**
+     * Search for the count'th match from lnum,col in direction dir.
+     * @return true if found, see matchStart, matchEnd and resultOffset
+     */
+    boolean search(int lnum, int col, int dir, int count)
+    {
+      this.dir = dir;
+      boolean found;
+      do { // loop for count
+        if(dir == FORWARD) {
+          found = forward(lnum, col);
+          if(!found && wrapscan) {
+            found = forwardWrap(lnum);
+            wrapped = true;
+          }
+        } else {
+          // Start searching in current line, unless we're in column 0.
+          int startLine = col == 0 ? lnum - 1 : lnum;
+          found = startLine > 0
+                  && backward(0, text.lineEnd(startLine),
+                              col == 0 ? 0 : lnum, col);
+          if(!found && wrapscan) {
+            found = backward(text.lineStart(lnum),
+                             text.lineEnd(text.lineCount()), 0, 0);
+            wrapped = true;
+          }
+        }
+        if(found) {
+          int offset = resultOffset();
+          lnum = text.lineNumber(offset);
+          col = offset - text.lineStart(lnum);
+        }
+      } while (--count > 0 && found); // stop after count matches or no match
+      return found;
+    }
+
+    /** @return where the cursor goes for the match */
+    int resultOffset()
+    {
+      return ((options & SEARCH_END) != 0) && (options & SEARCH_NOOF) == 0
+             ? matchEnd - 1 : matchStart;
+    }
+
+    /** @return the message if the search wrapped, else null */
+    String wrapMessage()
+    {
+      return !wrapped ? null : dir == FORWARD ? bot_top_msg : top_bot_msg;
+    }
+
+    private boolean find(int from, int to)
+    {
+      while(from <= to) {
+        m.region(from, to);
+        if(!m.find())
+          return false;
+        if(multiLine || !crossesLine()) {
+          sawMatch = true;
+          return true;
+        }
+        // Look again in the match's line only.
+        int lineStart = text.lineStart(text.lineNumber(m.start()));
+        int lineEnd = Math.min(to, lineStart + lineLength(lineStart));
+        m.region(Math.max(from, lineStart), lineEnd);
+        if(m.find() && m.start() < lineEnd) {
+          sawMatch = true;
+          return true;
+        }
+        from = lineEnd;
+      }
+      return false;
+    }
+
+    /** @return true if there's a newline in the match, except at its end */
+    private boolean crossesLine()
+    {
+      for(int i = m.start(), end = m.end() - 1; i < end; i++) {
+        if(chars.charAt(i) == '\n')
+          return true;
+      }
+      return false;
+    }
+
+    /** @return the length of the line starting at offset, with newline */
+    private int lineLength(int offset)
+    {
+      int i = offset;
+      while(i < docEnd && chars.charAt(i++) != '\n') {
+      }
+      return i - offset;
+    }
+
+    private void accept()
+    {
+      matchStart = m.start();
+      matchEnd = m.end();
+      submatch = first_submatch(m);
+    }
+
+    /**
+     * @return document offset to continue searching in the line,
+     *         or -1 if there is nothing more to search in the line.
+     */
+    private int next(int lineStart, int eolColumn, int match, int matchend)
+    {
+      //
+      // If vi-compatible searching, continue at the end
+      // of the match, otherwise continue one position
+      // forward.
+      //
+      int p;
+      if(cpo_search) {
+        p = matchend;
+        if (match == p && p != eolColumn)
+          ++p;
+      } else {
+        p = match;
+        if (p != eolColumn)
+          ++p;
+      }
+      return p == eolColumn ? -1 : lineStart + p;
+    }
+
+    /** Search from lnum,col to the end of the document. */
+    private boolean forward(int lnum, int col)
+    {
+      int lineStart = text.lineStart(lnum);
+      int lineEnd = text.lineEnd(lnum);
+      int eolColumn = lineEnd - lineStart - 1;
+      int from = lineStart;
+      while(find(from, docEnd)) {
+        if(m.start() >= lineEnd) {
+          // first match after the starting line
+          accept();
+          return true;
+        }
+        int match = m.start() - lineStart;
+        int matchend = m.end() - lineStart;
+        //
+        // When *match == NUL the cursor will be put one back
+        // afterwards, compare with that position, otherwise
+        // "/$" will get stuck on end of line.
+        //
+        if(!(((options & SEARCH_END) != 0)
+                ? (matchend - 1  < col + extra_col)
+                : (match - (match == eolColumn ? 1 : 0) < col + extra_col))) {
+          accept();
+          return true;
+        }
+        from = next(lineStart, eolColumn, match, matchend);
+        if(from < 0)
+          from = lineEnd;
+      }
+      return false;
+    }
+
+    /** Search from the top of the document through line lnum. */
+    private boolean forwardWrap(int lnum)
+    {
+      if(find(0, docEnd) && m.start() < text.lineEnd(lnum)) {
+        accept();
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Find the last match that starts in [lo,hi); lo and hi are
+     * line boundaries. If firstLine is not zero, then a match in that
+     * line must be before col.
+     */
+    private boolean backward(int lo, int hi, int firstLine, int col)
+    {
+      int firstLineStart = firstLine > 0 ? text.lineStart(firstLine) : -1;
+      int blockSize = MIN_BLOCK;
+      int blockEnd = hi;
+      while(blockEnd > lo) {
+        int blockStart = blockEnd - blockSize <= lo
+                ? lo
+                : Math.max(lo, text.lineStart(
+                        text.lineNumber(blockEnd - blockSize)));
+        if(backwardBlock(blockStart, blockEnd, firstLineStart, col))
+          return true;
+        text.breakcheck();
+        blockEnd = blockStart;
+        blockSize = Math.min(2 * blockSize, MAX_BLOCK);
+      }
+      return false;
+    }
+
+    private boolean backwardBlock(int blockStart, int blockEnd,
+                                  int firstLineStart, int col)
+    {
+      int regionEnd = Math.min(docEnd, blockEnd + LOOKAHEAD);
+      boolean found = false;
+      int lineStart = -1;
+      int lineEnd = -1;
+      int from = blockStart;
+      while(find(from, regionEnd) && m.start() < blockEnd) {
+        if(m.start() >= lineEnd) {
+          int lnum = text.lineNumber(m.start());
+          lineStart = text.lineStart(lnum);
+          lineEnd = text.lineEnd(lnum);
+        }
+        int eolColumn = lineEnd - lineStart - 1;
+        int match = m.start() - lineStart;
+        int matchend = m.end() - lineStart;
+        if(lineStart == firstLineStart
+                && !(((options & SEARCH_END) != 0)
+                     ? (matchend - 1 + extra_col <= col)
+                     : (match + extra_col <= col)))
+          break; // only matches after the cursor remain
+        accept();
+        found = true;
+        from = next(lineStart, eolColumn, match, matchend);
+        if(from < 0)
+          from = lineEnd;
+      }
+      return found;
+    }
+  }
+
   private static String lastSearchitErrorMessage;
   /** null means reprint the last one */
   private static void searchitErrorMessage(String s)
@@ -1428,14 +2363,28 @@ finished:
       Msg.emsg(lastSearchitErrorMessage);
   }
 
+/**
+ * Return the number of the first subpat that matched.
+ */
+    static int
+first_submatch(MatchResult mr)
+{
+    return first_submatch(mr.groupCount(), mr::start);
+}
+
 /**
  * Return the number of the first subpat that matched.
  */
     static int
 first_submatch(RegExp rp)
+{
+    return first_submatch(rp.nGroup(), rp::start);
+}
+
+    private static int
+first_submatch(int n, IntUnaryOperator start)
 {
     int		submatch;
-    int         n = rp.nGroup();
 
     for (submatch = 1; ; ++submatch)
     {
@@ -1444,7 +2393,7 @@ first_submatch(RegExp rp)
 	    submatch = 0;
 	    break;
 	}
-	if (rp.start(submatch) >= 0)
+	if (start.applyAsInt(submatch) >= 0)
 	    break;
     }
     return submatch;
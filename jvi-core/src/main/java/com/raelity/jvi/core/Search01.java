@@ -27,10 +27,14 @@ import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import com.raelity.jvi.ViBuffer.BIAS;
+import com.raelity.jvi.ViBadLocationException;
+import com.raelity.jvi.ViBulkEdit;
 import com.raelity.jvi.ViFPOS;
-import com.raelity.jvi.ViMark;
 import com.raelity.jvi.ViOutputStream;
 import com.raelity.jvi.ViOutputStream.FLAGS;
 import com.raelity.jvi.core.Commands.ColonEvent;
@@ -250,29 +254,38 @@ public class Search01 {
       nSubChanges = 0;
     }
 
-    // Mark the beginning of each line in case extra lines are added
-    // (unlike the 'g' command, doGlobal, not checking if lines are deleted)
+    // Without confirm, all the replacements are computed first
+    // and then applied to the document together.
+    if(!substFlags.testAnyBits(SUBST_CONFIRM))
+      cursorLine = substitute_bulk(prog, line1, line2,
+                                   substFlags, substitution);
+    if(cursorLine < 0) {
+      cursorLine = 0;
 
-    List<ViMark> marks = new ArrayList<>();
-    for(int lnum = line1; lnum <= line2; lnum++) {
-      marks.add(G.curbuf.createMark(G.curbuf.getLineStartOffset(lnum),
-                                    BIAS.FORW));
-    }
+      // Anchor the beginning of each line in case extra lines are added
+      // (unlike the 'g' command, doGlobal, not checking if lines are deleted)
+
+      try (LineAnchorSet anchors
+              = G.curbuf.createLineAnchorSet(line2 - line1 + 1)) {
+        for(int lnum = line1; lnum <= line2; lnum++)
+          anchors.addLine(lnum);
+
+        for(int idx = 0; idx < anchors.size(); idx++) {
+          if(substFlags.testAnyBits(SUBST_QUIT))
+            break;
+          int i = anchors.getLine(idx);
+          int nChange = substitute_line(prog, i, substFlags, substitution);
+          if(nChange > 0) {
+            nSubChanges += nChange;
+            cursorLine = i;  // keep track of last line changed
+            nSubLine++;
+            if(substFlags.testAnyBits(SUBST_PRINT)) {
+              ExCommands.outputPrint(i, 0, 0);
+            }
+          }
 
-    for(ViMark m : marks) {
-      if(substFlags.testAnyBits(SUBST_QUIT))
-        break;
-      int i = G.curbuf.getLineNumber(m.getOffset());
-      int nChange = substitute_line(prog, i, substFlags, substitution);
-      if(nChange > 0) {
-        nSubChanges += nChange;
-        cursorLine = i;  // keep track of last line changed
-        nSubLine++;
-        if(substFlags.testAnyBits(SUBST_PRINT)) {
-          ExCommands.outputPrint(i, 0, 0);
         }
       }
-
     }
 
     if(! G.global_busy) {
@@ -424,6 +437,131 @@ public class Search01 {
     return countChanges;
   }
 
+  /** A replacement in the document, offsets are before any change. */
+  private record SubEdit(int start, int end, String text) {}
+
+  /**
+   * Substitute in lines line1 through line2 without asking for
+   * confirmation. This is not adapted vim code.
+   * <p>
+   * The matches are found, and the replacement text built, using the
+   * unchanged lines; then the replacements are applied to the document
+   * with one bulk edit, a replace for each match, so marks between the
+   * matches are not disturbed. This gives the same result as
+   * {@link #substitute_line} one line and one match at a time, without
+   * a document change and a line fetch for each match.
+   * </p><p>
+   * Nothing is done if a match includes the end of a line, since
+   * the line at a time substitute then works with the joined line;
+   * -1 is returned and the caller must substitute a line at a time.
+   * </p>
+   * @return the line number, after the changes, of the last changed line,
+   *         0 if there were no changes, or -1 if nothing was done.
+   */
+  private static int substitute_bulk(RegExp prog,
+                                     int line1,
+                                     int line2,
+                                     MutableInt flags,
+                                     CharSequence subs)
+  {
+    List<SubEdit> edits = new ArrayList<>();
+    // lines with changes, and number of edits when the line was done
+    List<int[]> changedLines = new ArrayList<>();
+    StringBuilder sb = new StringBuilder();
+    int countMatch = 0;
+
+    for(int lnum = line1; lnum <= line2; lnum++) {
+      MySegment seg = G.curbuf.getLineSegment(lnum);
+      int lineStart = G.curbuf.getLineStartOffset(lnum);
+      int lookColumnOffset = 0;
+      int lastMatchColumn = -1;
+      int countChanges = 0;
+
+      while(prog.search(seg.array,
+                        seg.offset + lookColumnOffset,
+                        seg.count - lookColumnOffset)) {
+        int matchOffsetColumn = prog.start(0) - seg.offset;
+        if(lastMatchColumn == matchOffsetColumn) {
+          // prevent infinite loops, can happen with match of zero characters
+          ++lookColumnOffset;
+          if(lookColumnOffset >= seg.count - 1)
+            break;
+          continue;
+        }
+        lastMatchColumn = matchOffsetColumn;
+        int matchEndColumn = prog.end(0) - seg.offset;
+        if(matchEndColumn >= seg.count)
+          return -1; // matched the newline, lines get joined
+
+        countMatch++;
+        // advance past matched characters
+        lookColumnOffset = matchEndColumn;
+        CharSequence changedData = flags.testAnyBits(SUBST_ESCAPE)
+                                ? translateSubstitution(prog, seg, sb, subs)
+                                : subs;
+        countChanges++;
+        edits.add(new SubEdit(lineStart + matchOffsetColumn,
+                              lineStart + matchEndColumn,
+                              changedData.toString()));
+
+        if( ! flags.testAnyBits(SUBST_ALL)) {
+          // only do one substitute per line
+          break;
+        }
+      }
+      if(countChanges > 0)
+        changedLines.add(new int[] {lnum, edits.size() - countChanges});
+    }
+
+    nSubMatch += countMatch;
+    if(edits.isEmpty())
+      return 0;
+
+    // each match is its own replace, as substitute_line does it;
+    // matches that touch are one replace
+    ViBulkEdit bulk = G.curbuf.beginBulkEdit();
+    int i = 0;
+    while(i < edits.size()) {
+      SubEdit e = edits.get(i++);
+      int end = e.end();
+      StringBuilder text = null;
+      while(i < edits.size() && edits.get(i).start() == end) {
+        if(text == null)
+          text = new StringBuilder(e.text());
+        SubEdit next = edits.get(i++);
+        text.append(next.text());
+        end = next.end();
+      }
+      bulk.replaceString(e.start(), end,
+                         text == null ? e.text() : text.toString());
+    }
+    bulk.commit();
+
+    // The replacements may have added lines; track the line numbers.
+    int addedLines = 0;
+    int lnum = 0;
+    int editIdx = 0;
+    for(int[] changed : changedLines) {
+      for( ; editIdx < changed[1]; editIdx++)
+        addedLines += countNewlines(edits.get(editIdx).text());
+      lnum = changed[0] + addedLines;
+      nSubLine++;
+      if(flags.testAnyBits(SUBST_PRINT)) {
+        ExCommands.outputPrint(lnum, 0, 0);
+      }
+    }
+    nSubChanges += edits.size();
+    return lnum;
+  }
+
+  private static int countNewlines(String s)
+  {
+    int n = 0;
+    for(int i = s.indexOf('\n'); i >= 0; i = s.indexOf('\n', i + 1))
+      n++;
+    return n;
+  }
+
   /**
    * Handle substitution where there is escape handling.
    * Append the substitution to string buffer argument.
@@ -505,6 +643,98 @@ public class Search01 {
     return sb;
   }
 
+  /** fewest lines checked by a GlobalMatch task */
+  private static final int GLOBAL_CHUNK = 4096;
+
+  /**
+   * Check which lines in line1 through line2 have a match for prog.
+   * This is done only if the range has at least 'globalparallel' lines,
+   * and the buffer can be copied, see Buffer.canSnapshot; the lines
+   * are copied and checked in chunks with the common
+   * fork-join pool.
+   * @return per line match, index 0 is line1; or null if not done.
+   */
+  private static boolean[] globalMatch(RegExp prog, int line1, int line2)
+  {
+    int nLine = line2 - line1 + 1;
+    if(G.p_gpl <= 0 || nLine < G.p_gpl || nLine < 2 * GLOBAL_CHUNK
+            || !G.curbuf.canSnapshot())
+      return null;
+
+    int start = G.curbuf.getLineStartOffset(line1);
+    int end = G.curbuf.getLineEndOffset(line2);
+    String text;
+    try {
+      // The document's length does not include the final newline,
+      // but the last line's segment does.
+      text = end <= G.curbuf.getLength()
+             ? G.curbuf.getText(start, end - start)
+             : G.curbuf.getText(start, G.curbuf.getLength() - start) + '\n';
+    } catch(ViBadLocationException ex) {
+      return null;
+    }
+
+    int[] lineStarts = new int[nLine + 1];
+    int n = 0;
+    for(int i = text.indexOf('\n'); i >= 0 && n < nLine;
+            i = text.indexOf('\n', i + 1)) {
+      lineStarts[++n] = i + 1;
+    }
+    if(n != nLine)
+      return null; // not the lines expected
+
+    boolean[] matches = new boolean[nLine];
+    ForkJoinPool.commonPool().invoke(new GlobalMatch(
+            prog.getPattern(), text, lineStarts, matches, 0, nLine));
+    G.dbgSearch.printf(":global: parallel match of %d lines\n", nLine);
+    return matches;
+  }
+
+  /**
+   * Check a range of lines of a copy of the text for a match, splitting
+   * big ranges. The matching is done as {@link RegExp#search}, with the
+   * line as the matcher's region.
+   */
+  @SuppressWarnings("serial")
+  private static class GlobalMatch extends RecursiveAction
+  {
+    private final Pattern pat;
+    private final String text;
+    private final int[] lineStarts;
+    private final boolean[] matches;
+    private final int lo;
+    private final int hi;
+
+    GlobalMatch(Pattern pat, String text, int[] lineStarts,
+                boolean[] matches, int lo, int hi)
+    {
+      this.pat = pat;
+      this.text = text;
+      this.lineStarts = lineStarts;
+      this.matches = matches;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if(hi - lo > GLOBAL_CHUNK) {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new GlobalMatch(pat, text, lineStarts, matches, lo, mid),
+                  new GlobalMatch(pat, text, lineStarts, matches, mid, hi));
+        return;
+      }
+      Matcher m = pat.matcher(text);
+      m.useAnchoringBounds(false); // so /^ only matches beginning of line
+      for(int i = lo; i < hi; i++) {
+        int lineEnd = lineStarts[i + 1];
+        m.region(lineStarts[i], lineEnd);
+        matches[i] = m.find() && m.start() < lineEnd;
+      }
+    }
+  }
+
   /**
    * global command. first arg is /pattern/some_command_goes_here
    * <br>
@@ -649,70 +879,81 @@ public class Search01 {
     
     substFlags = null;
 
-    List<ViMark> marks = new ArrayList<>();
     List<String> debugInfo = null;
-    if(G.dbgSearch.getBoolean())
+    if(G.dbgSearch.isOn())
       debugInfo = new ArrayList<>();
 
-    // Set up two marks for each line, first char and after newline.
-    // Use two marks/line to detect if a line is deleted.
-    for(int lnum = cev.getLine1(); lnum <= cev.getLine2(); lnum++) {
-      line = G.curbuf.getLineSegment(lnum);
-      boolean match = prog.search(line.array, line.offset, line.count);
-      if(type == 'g' && match || type == 'v' && !match) {
-        marks.add(G.curbuf.createMark(line.docOffset, BIAS.FORW));
-        marks.add(G.curbuf.createMark(line.docOffset + line.count, BIAS.FORW));
-        if(debugInfo != null) {
-          debugInfo.add(new String(line.array, line.offset, lineLength(line)));
+    // With a big range, check the lines for a match in parallel.
+    boolean[] matches = globalMatch(prog, cev.getLine1(), cev.getLine2());
+
+    // Set up two anchors for each line, first char and after newline.
+    // Use two anchors/line to detect if a line is deleted.
+    try (LineAnchorSet anchors = G.curbuf.createLineAnchorSet(64)) {
+      for(int lnum = cev.getLine1(); lnum <= cev.getLine2(); lnum++) {
+        boolean match;
+        if(matches != null) {
+          line = null;
+          match = matches[lnum - cev.getLine1()];
+        } else {
+          line = G.curbuf.getLineSegment(lnum);
+          match = prog.search(line.array, line.offset, line.count);
+        }
+        if(type == 'g' && match || type == 'v' && !match) {
+          if(line == null)
+            line = G.curbuf.getLineSegment(lnum);
+          anchors.add(line.docOffset);
+          anchors.add(line.docOffset + line.count);
+          if(debugInfo != null) {
+            debugInfo.add(new String(line.array, line.offset, lineLength(line)));
+          }
         }
       }
-    }
 
-    G.dbgSearch.printf(":global: %d lines match\n", marks.size() >> 1);
-    Iterator<String> debugIt = null;
-    if(debugInfo != null)
-      debugIt = debugInfo.iterator();
-
-    // second pass, perform the actions on the matching lines
-    for(Iterator<ViMark> it = marks.iterator(); it.hasNext();) {
-      ViMark m = it.next();
-      ViMark mEnd = it.next();
-      String debugText = null;
-      if(debugIt != null)
-        debugText = debugIt.next();
-
-      // skip lines deleted by ":global" actions so far
-      if(m.getOffset() == mEnd.getOffset()) {
-        String debugTextF = debugText;
-        G.dbgSearch.printf(() -> sf(":global: line deleted after %d: %s\n",
-                     G.curbuf.createFPOS(m.getOffset()).getLine(), debugTextF));
-        continue;
-      }
+      G.dbgSearch.printf(":global: %d lines match\n", anchors.size() >> 1);
+      Iterator<String> debugIt = null;
+      if(debugInfo != null)
+        debugIt = debugInfo.iterator();
+
+      // second pass, perform the actions on the matching lines
+      for(int idx = 0; idx < anchors.size(); idx += 2) {
+        int offset = anchors.getOffset(idx);
+        String debugText = null;
+        if(debugIt != null)
+          debugText = debugIt.next();
+
+        // skip lines deleted by ":global" actions so far
+        if(offset == anchors.getOffset(idx + 1)) {
+          String debugTextF = debugText;
+          G.dbgSearch.printf(() -> sf(":global: line deleted after %d: %s\n",
+                       G.curbuf.createFPOS(offset).getLine(), debugTextF));
+          continue;
+        }
 
-      int lnum = G.curbuf.getLineNumber(m.getOffset());
-      // if full parse each time command executed,
-      // then should move cursor (or equivilent) but.....
-      if(cevAction != null) {
-        cevAction.line1 = lnum;
-        cevAction.line2 = lnum;
-      }
-      if(cmdAction == Cc01.getActionPrint()) {
-        result.println(lnum, 0, 0);
-      } else if(cmdAction == Cc01.getActionSubstitute()) {
-        ExCommands.executeCommand(cevAction);
-        if(substFlags != null && substFlags.testAnyBits(SUBST_QUIT))
-          break;
-      } else if(cmdAction == Cc01.getActionDelete()) {
-        OPARG oa = ExCommands.setupExop(cevAction, true);
-        oa.op_type = OP_DELETE;
-        op_delete(oa);
-      } else if(cmdAction == Cc01.getActionGlobal()) {
-        Msg.emsg("Cannot do :global recursively");
-        return;
-      } else {
-        // no command specified, but cursorLine is getting set above
+        int lnum = G.curbuf.getLineNumber(offset);
+        // if full parse each time command executed,
+        // then should move cursor (or equivilent) but.....
+        if(cevAction != null) {
+          cevAction.line1 = lnum;
+          cevAction.line2 = lnum;
+        }
+        if(cmdAction == Cc01.getActionPrint()) {
+          result.println(lnum, 0, 0);
+        } else if(cmdAction == Cc01.getActionSubstitute()) {
+          ExCommands.executeCommand(cevAction);
+          if(substFlags != null && substFlags.testAnyBits(SUBST_QUIT))
+            break;
+        } else if(cmdAction == Cc01.getActionDelete()) {
+          OPARG oa = ExCommands.setupExop(cevAction, true);
+          oa.op_type = OP_DELETE;
+          op_delete(oa);
+        } else if(cmdAction == Cc01.getActionGlobal()) {
+          Msg.emsg("Cannot do :global recursively");
+          return;
+        } else {
+          // no command specified, but cursorLine is getting set above
+        }
+        cursorLine = lnum;  // keep track of last line matched
       }
-      cursorLine = lnum;  // keep track of last line matched
     }
 
 
@@ -21,6 +21,7 @@
 package com.raelity.jvi.core;
 
 import com.raelity.jvi.ViFPOS;
+import com.raelity.jvi.ViTextCursor;
 import com.raelity.jvi.lib.MutableInt;
 import com.raelity.jvi.lib.MySegment;
 
@@ -73,35 +74,39 @@ public class Search03
     static void back_in_line()
     {
         int		sclass;		    /* starting class */
+        ViTextCursor tc = textCursor(G.curwin.w_cursor);
 
-        sclass = cls();
+        sclass = cls(tc);
         for (;;)
         {
-            if (G.curwin.w_cursor.getColumn() == 0)	    // stop at start of line
+            if (tc.getColumn() == 0)	    // stop at start of line
                 break;
-            dec_cursor();
-            if (cls() != sclass)		    /* stop at start of word */
+            tc.dec();
+            if (cls(tc) != sclass)		    /* stop at start of word */
             {
-                inc_cursorV7();
+                tc.incV7();
                 break;
             }
         }
+        tc.copyTo(G.curwin.w_cursor);
     }
 
     static void
     find_first_blank(ViFPOS posp)
     {
         char    c;
+        ViTextCursor tc = textCursor(posp);
 
-        while (decl(posp) != -1)
+        while (tc.decl() != -1)
         {
-            c = gchar_pos(posp);
+            c = tc.current();
             if (!vim_iswhite(c))
             {
-                inclV7(posp);
+                tc.inclV7();
                 break;
             }
         }
+        tc.copyTo(posp);
     }
 
     /**
@@ -338,17 +343,20 @@ while(true) {
                  * - at the start of a sentence
                  */
                 at_start_sent = true;
-                decl(pos);
-                while (pos.compareTo(G.curwin.w_cursor) < 0)
+                ViTextCursor tc = textCursor(pos);
+                int cursor = G.curwin.w_cursor.getOffset();
+                tc.decl();
+                while (tc.getOffset() < cursor)
                 {
-                    c = gchar_pos(pos);
+                    c = tc.current();
                     if (!vim_iswhite(c))
                     {
                         at_start_sent = false;
                         break;
                     }
-                    inclV7(pos);
+                    tc.inclV7();
                 }
+                tc.copyTo(pos);
                 if (!at_start_sent)
                 {
                     findsent(BACKWARD, 1);
@@ -379,20 +387,22 @@ while(true) {
                  * - just before or in the white space before a sentence
                  * - in a sentence
                  */
-                inclV7(pos);
+                ViTextCursor tc = textCursor(pos);
+                int cursor = G.curwin.w_cursor.getOffset();
+                tc.inclV7();
                 at_start_sent = true;
-                if (!equalpos(pos, G.curwin.w_cursor)) /* not just before a sentence */
+                if (tc.getOffset() != cursor) /* not just before a sentence */
                 {
                     at_start_sent = false;
-                    while (lt(pos, G.curwin.w_cursor))
+                    while (tc.getOffset() < cursor)
                     {
-                        c = gchar_pos(pos);
+                        c = tc.current();
                         if (!vim_iswhite(c))
                         {
                             at_start_sent = true;
                             break;
                         }
-                        inclV7(pos);
+                        tc.inclV7();
                     }
                     if (at_start_sent)	/* in the sentence */
                         findsent(BACKWARD, 1);
@@ -413,8 +423,10 @@ while(true) {
          * If cursor started on blank, check if it is just before the start of the
          * next sentence.
          */
-        while (vim_iswhite(gchar_pos(pos)))	/* vim_iswhite() is a macro */
-            inclV7(pos);
+        ViTextCursor tc = textCursor(pos);
+        while (vim_iswhite(tc.current()))	/* vim_iswhite() is a macro */
+            tc.inclV7();
+        tc.copyTo(pos);
         if (equalpos(pos, G.curwin.w_cursor))
         {
             start_blank = true;
@@ -266,8 +266,8 @@ public abstract class TextView implements ViTextView
         boolean magicMove = !ViManager.jViBusy() && !Scheduler.isMouseDown()
                 && diff > MAGIC_MOVE_LINE_LIMIT;
 
-        if (magicMove && G.dbgMouse.getBoolean(Level.INFO)
-                || G.dbgMouse.getBoolean(Level.FINE))
+        if (magicMove && G.dbgMouse.isOn(Level.INFO)
+                || G.dbgMouse.isOn(Level.FINE))
             G.dbgMouse.println(() -> "CaretMark: " + lastDot + " --> " + currDot
                     + " " + w_buffer.getDebugFileName());
         if (magicMove) {
@@ -19,60 +19,87 @@
  */
 package com.raelity.jvi.core.lib;
 
+import static com.raelity.jvi.lib.TextUtil.sf;
+
 /**
- * Small queue of characters. Can't extend StringBuilder, so delegate.
+ * Queue of characters, a ring of chars. Adding or removing at
+ * either end is O(1); an insert moves the chars on the shorter side.
+ * Stuffing a big register and reading it back a char at a time
+ * is linear.
+ * <p>
+ * The array length is always a power of two.
+ * </p>
  *
  * @author Ernie Rael <err at raelity.com>
  */
 public final class BufferQueue implements CharSequence {
-    private final StringBuilder buf = new StringBuilder();
+    private char[] a = new char[16];
+    private int mask = a.length - 1;
+    private int head;
+    private int size;
 
+    /** Like StringBuilder.setLength, growing pads with NUL. */
     public void setLength(int length)
     {
-        buf.setLength(length);
+        if(length < 0)
+            throw new IndexOutOfBoundsException(sf("setLength %d", length));
+        if(length > size) {
+            ensureCapacity(length);
+            for(int i = size; i < length; i++)
+                a[(head + i) & mask] = 0;
+        }
+        size = length;
+        if(size == 0)
+            head = 0;
     }
 
     @Override
     public int length()
     {
-        return buf.length();
+        return size;
     }
 
     @Override
     public char charAt(int index)
     {
-        return buf.charAt(index);
+        checkIndex(index);
+        return a[(head + index) & mask];
     }
 
     @Override
     public CharSequence subSequence(int start, int end)
     {
-        return buf.subSequence(start, end);
+        return substring(start, end);
     }
 
     public boolean hasNext()
     {
-        return buf.length() > 0;
+        return size > 0;
     }
 
     public char removeFirst()
     {
-        char c = buf.charAt(0);
-        buf.deleteCharAt(0);
+        checkIndex(0);
+        char c = a[head];
+        head = (head + 1) & mask;
+        if(--size == 0)
+            head = 0;
         return c;
     }
 
     public BufferQueue addFirst(char c)
     {
-        buf.insert(0, c);
+        ensureCapacity(size + 1);
+        head = (head - 1) & mask;
+        a[head] = c;
+        size++;
         return this;
     }
 
     public char removeLast()
     {
-        int newLength = buf.length() - 1;
-        char c = buf.charAt(newLength);
-        buf.setLength(newLength);
+        char c = charAt(size - 1);
+        size--;
         return c;
     }
 
@@ -83,52 +110,118 @@ public final class BufferQueue implements CharSequence {
 
     public char getLast(int i)
     {
-        return buf.charAt(buf.length() - 1 - i);
+        return charAt(size - 1 - i);
     }
 
     public BufferQueue insert(int ix, String s)
     {
-        buf.insert(ix, s);
+        if(ix < 0 || ix > size)
+            throw new IndexOutOfBoundsException(sf("insert %d size %d",
+                                                   ix, size));
+        int len = s.length();
+        ensureCapacity(size + len);
+        int oldSize = size;
+        size += len;
+        if(ix < oldSize - ix) {
+            head = (head - len) & mask;
+            move(len, 0, ix);
+        } else
+            move(ix, ix + len, oldSize - ix);
+        put(ix, s);
         return this;
     }
 
     public boolean hasCharAt(int idx)
     {
-        return buf.length() > idx;
+        return size > idx;
     }
 
     public char getCharAt(int idx)
     {
-        return buf.charAt(idx);
+        return charAt(idx);
     }
 
     public String substring(int idx)
     {
-        return buf.substring(idx);
+        return substring(idx, size);
+    }
+
+    public String substring(int start, int end)
+    {
+        if(start < 0 || start > end || end > size)
+            throw new IndexOutOfBoundsException(sf("substring %d,%d size %d",
+                                                   start, end, size));
+        int p = (head + start) & mask;
+        int len = end - start;
+        int n = Math.min(len, a.length - p);
+        if(n == len)
+            return new String(a, p, len);
+        char[] t = new char[len];
+        System.arraycopy(a, p, t, 0, n);
+        System.arraycopy(a, 0, t, n, len - n);
+        return new String(t);
     }
 
     public BufferQueue append(char c)
     {
-        buf.append(c);
+        ensureCapacity(size + 1);
+        a[(head + size) & mask] = c;
+        size++;
         return this;
     }
 
     public BufferQueue append(int n)
     {
-        buf.append(n);
-        return this;
+        return append(Integer.toString(n));
     }
 
     public BufferQueue append(String s)
     {
-        buf.append(s);
+        int len = s.length();
+        ensureCapacity(size + len);
+        size += len;
+        put(size - len, s);
         return this;
     }
 
+    /** Copy s over the chars starting at idx, at most two getChars. */
+    private void put(int idx, String s)
+    {
+        int len = s.length();
+        int p = (head + idx) & mask;
+        int n = Math.min(len, a.length - p);
+        s.getChars(0, n, a, p);
+        s.getChars(n, len, a, 0);
+    }
+
+    private void move(int src, int dst, int count)
+    {
+        RingArrays.move(a, a.length, head, src, dst, count);
+    }
+
+    private void ensureCapacity(int needed)
+    {
+        if(needed <= a.length)
+            return;
+        int cap = RingArrays.grownCapacity(a.length, needed);
+        char[] t = new char[cap];
+        RingArrays.unwrap(a, a.length, head, size, t);
+        a = t;
+        mask = cap - 1;
+        head = 0;
+    }
+
+    private void checkIndex(int idx)
+    {
+        if(idx < 0 || idx >= size)
+            throw new IndexOutOfBoundsException(sf("index %d size %d",
+                                                   idx, size));
+    }
+
     @Override
     public String toString()
     {
-        return buf.toString();
+        return substring(0, size);
     }
 
 }
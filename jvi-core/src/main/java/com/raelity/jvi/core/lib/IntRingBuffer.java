@@ -0,0 +1,181 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core.lib;
+
+import java.util.Arrays;
+
+import static com.raelity.jvi.lib.TextUtil.sf;
+
+/**
+ * A growable ring of ints, indexed from the first element.
+ * Elements can be inserted and deleted anywhere; the elements on the
+ * shorter side of the change are moved, with System.arraycopy.
+ * So adding or removing at either end is O(1).
+ * <p>
+ * The array length is always a power of two.
+ * </p>
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+final class IntRingBuffer
+{
+    private int[] a;
+    private int mask;
+    private int head;
+    private int size;
+
+    IntRingBuffer(int capacity)
+    {
+        int cap = Integer.highestOneBit(Math.max(capacity, 8) - 1) << 1;
+        a = new int[cap];
+        mask = cap - 1;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    int capacity()
+    {
+        return a.length;
+    }
+
+    int get(int idx)
+    {
+        checkIndex(idx);
+        return a[(head + idx) & mask];
+    }
+
+    void set(int idx, int v)
+    {
+        checkIndex(idx);
+        a[(head + idx) & mask] = v;
+    }
+
+    void addFirst(int v)
+    {
+        ensureCapacity(size + 1);
+        head = (head - 1) & mask;
+        a[head] = v;
+        size++;
+    }
+
+    void addLast(int v)
+    {
+        ensureCapacity(size + 1);
+        a[(head + size) & mask] = v;
+        size++;
+    }
+
+    int removeFirst()
+    {
+        checkIndex(0);
+        int v = a[head];
+        head = (head + 1) & mask;
+        size--;
+        return v;
+    }
+
+    /**
+     * Make room for len elements at offset; the new elements are
+     * set with {@link #set}, until then their value is garbage.
+     */
+    void insertGap(int offset, int len)
+    {
+        if(offset < 0 || offset > size || len < 0)
+            throw new IndexOutOfBoundsException(sf("insert %d,%d size %d",
+                                                   offset, len, size));
+        ensureCapacity(size + len);
+        int oldSize = size;
+        size += len;
+        if(offset < oldSize - offset) {
+            head = (head - len) & mask;
+            move(len, 0, offset);
+        } else
+            move(offset, offset + len, oldSize - offset);
+    }
+
+    /** Delete len elements starting at offset. */
+    void delete(int offset, int len)
+    {
+        if(offset < 0 || len < 0 || offset + len > size)
+            throw new IndexOutOfBoundsException(sf("delete %d,%d size %d",
+                                                   offset, len, size));
+        int after = size - offset - len;
+        if(offset < after) {
+            move(0, len, offset);
+            head = (head + len) & mask;
+        } else
+            move(offset + len, offset, after);
+        size -= len;
+    }
+
+    void clear()
+    {
+        head = 0;
+        size = 0;
+    }
+
+    private void move(int src, int dst, int count)
+    {
+        RingArrays.move(a, a.length, head, src, dst, count);
+    }
+
+    private void ensureCapacity(int needed)
+    {
+        if(needed <= a.length)
+            return;
+        int cap = RingArrays.grownCapacity(a.length, needed);
+        int[] t = new int[cap];
+        RingArrays.unwrap(a, a.length, head, size, t);
+        a = t;
+        mask = cap - 1;
+        head = 0;
+    }
+
+    private void checkIndex(int idx)
+    {
+        if(idx < 0 || idx >= size)
+            throw new IndexOutOfBoundsException(sf("index %d size %d",
+                                                   idx, size));
+    }
+
+    /** @return the elements, first to last */
+    int[] toArray()
+    {
+        int[] t = new int[size];
+        for(int i = 0; i < size; i++)
+            t[i] = a[(head + i) & mask];
+        return t;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IntRingBuffer" + Arrays.toString(toArray());
+    }
+}
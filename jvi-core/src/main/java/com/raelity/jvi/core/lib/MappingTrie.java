@@ -0,0 +1,154 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core.lib;
+
+import java.util.Arrays;
+
+import com.raelity.jvi.core.lib.TypeBufMultiCharMapping.TypeBufPeek;
+import com.raelity.jvi.lib.MutableBoolean;
+
+/**
+ * The mappings compiled into a trie on the lhs chars. A lookup walks
+ * the typebuf once, from the first char, and finds both a full match
+ * and whether there is a partial match; nothing is allocated.
+ * <p>
+ * Each node has the mappings whose lhs ends there, and the or of the
+ * modes of all the mappings at or below it. So a partial match, the
+ * typebuf runs out inside the trie, is reported only if some mapping
+ * further down is for the current state.
+ * </p><p>
+ * The trie is immutable; Mappings builds a new one when the mappings
+ * change. A mapping's mode must not change while it is in a trie.
+ * </p>
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public final class MappingTrie
+{
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_KIDS = new Node[0];
+    private static final Mapping[] NO_MAPPINGS = new Mapping[0];
+
+    private final Node root = new Node();
+    private final int size;
+
+    /**
+     * Mappings with the same lhs are kept in the order given; the first
+     * one for the state is the match.
+     */
+    public MappingTrie(Iterable<Mapping> mappings)
+    {
+        int n = 0;
+        for(Mapping m : mappings) {
+            if(m.lhs.isEmpty())
+                continue;
+            Node node = root;
+            for(int i = 0; i < m.lhs.length(); i++)
+                node = node.addChild(m.lhs.charAt(i));
+            node.here = Arrays.copyOf(node.here, node.here.length + 1);
+            node.here[node.here.length - 1] = m;
+            n++;
+        }
+        size = n;
+        root.computeModes();
+    }
+
+    /** @return the number of mappings in the trie */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Find the mapping whose lhs starts the typebuf, for the state.
+     * If there is no match, maybe is set when the typebuf is
+     * the start of a mapping for the state; more input could match.
+     * @param maybe may be null
+     * @return the mapping or null
+     */
+    public Mapping lookup(TypeBufPeek peek, int state, MutableBoolean maybe)
+    {
+        if(maybe != null)
+            maybe.setValue(false);
+        Node node = root;
+        int len = peek.length();
+        for(int i = 0; i < len; i++) {
+            int c = peek.charAt(i);
+            if(c < 0 || (node = node.child((char)c)) == null)
+                return null;
+            for(Mapping m : node.here) {
+                if((m.mode & state) != 0)
+                    return m;
+            }
+        }
+        if(maybe != null && node != root && (node.modes & state) != 0)
+            maybe.setValue(true);
+        return null;
+    }
+
+    private static final class Node
+    {
+        /** sorted */
+        char[] keys = NO_KEYS;
+        Node[] kids = NO_KIDS;
+        /** the mappings whose lhs ends here */
+        Mapping[] here = NO_MAPPINGS;
+        /** the modes of the mappings here and below */
+        int modes;
+
+        Node child(char c)
+        {
+            int idx = Arrays.binarySearch(keys, c);
+            return idx >= 0 ? kids[idx] : null;
+        }
+
+        Node addChild(char c)
+        {
+            int idx = Arrays.binarySearch(keys, c);
+            if(idx >= 0)
+                return kids[idx];
+            idx = -idx - 1;
+            int n = keys.length;
+            char[] k = new char[n + 1];
+            Node[] t = new Node[n + 1];
+            System.arraycopy(keys, 0, k, 0, idx);
+            System.arraycopy(kids, 0, t, 0, idx);
+            System.arraycopy(keys, idx, k, idx + 1, n - idx);
+            System.arraycopy(kids, idx, t, idx + 1, n - idx);
+            k[idx] = c;
+            t[idx] = new Node();
+            keys = k;
+            kids = t;
+            return t[idx];
+        }
+
+        int computeModes()
+        {
+            int m = 0;
+            for(Mapping mapping : here)
+                m |= mapping.mode;
+            for(Node kid : kids)
+                m |= kid.computeModes();
+            modes = m;
+            return m;
+        }
+    }
+}
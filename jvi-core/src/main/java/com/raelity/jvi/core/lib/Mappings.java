@@ -58,6 +58,8 @@ public final class Mappings {
     private static Mappings INSTANCE;
 
     private final Map<Character, List<Mapping>> mappings = new HashMap<>();
+    /** built from mappings when needed; null after a change */
+    private MappingTrie trie;
     private static WeakReference<List<Mapping>> refDefaultMappings;
     private static WeakReference<Map<EqLower, Character>> refMapCommandSpecial;
     private static WeakReference<Map<Character, String>> refReverseMapCommandSpecial;
@@ -591,6 +593,7 @@ public final class Mappings {
         boolean unmap = newMapping.isUnmap;
         Options.kd().printf(FINER,
                       "putMapping(unmap %b): %s\n", unmap, newMapping);
+        trie = null;
 
         Character c = newMapping.lhs.charAt(0);
         List<Mapping> lM = mappings.get(c);
@@ -640,16 +643,13 @@ public final class Mappings {
 
     Mapping getMapping(TypeBufPeek peek, int state, MutableBoolean maybe)
     {
-        if(maybe != null)
-            maybe.setValue(false);
-        List<Mapping> lM = mappings.get(peek.firstChar());
-        if( lM != null) {
-            for(Mapping m : lM) {
-                if((m.mode & state) != 0 && peek.isMatch(m.lhs, maybe))
-                    return m;
-            }
+        if(trie == null) {
+            List<Mapping> all = new ArrayList<>();
+            for(List<Mapping> l : mappings.values())
+                all.addAll(l);
+            trie = new MappingTrie(all);
         }
-        return null;
+        return trie.lookup(peek, state, maybe);
     }
 
     private boolean containsMappings(Mapping m)
@@ -667,16 +667,15 @@ public final class Mappings {
         }
 
         @Override
-        public char firstChar()
+        public int length()
         {
-            return buf.charAt(0);
+            return buf.length();
         }
 
         @Override
-        public boolean isMatch(String lhs, MutableBoolean maybe)
+        public int charAt(int idx)
         {
-            // no partial match for lookup
-            return buf.startsWith(lhs);
+            return buf.charAt(idx);
         }
     }
 
@@ -684,6 +683,7 @@ public final class Mappings {
     public void saveMappings(List<Mapping> newMappings)
     {
         mappings.clear();
+        trie = null;
         //
         // NOTE: defaults must be put first
         //
@@ -0,0 +1,87 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core.lib;
+
+/**
+ * The array copies for a ring, an array whose length is a power
+ * of two, with the elements starting at head and wrapping.
+ * The array is an int[] or char[]; IntRingBuffer and BufferQueue
+ * keep their own head and size and do the element access.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+final class RingArrays
+{
+    private RingArrays() { }
+
+    /**
+     * Copy count elements from logical index src to logical index dst,
+     * the ranges may overlap. Each arraycopy is a run where neither
+     * the source nor the destination wraps.
+     *
+     * @param a the ring's array
+     * @param cap the array length
+     */
+    static void move(Object a, int cap, int head, int src, int dst, int count)
+    {
+        if(count == 0 || src == dst)
+            return;
+        int mask = cap - 1;
+        if(dst < src) {
+            while(count > 0) {
+                int p = (head + src) & mask;
+                int q = (head + dst) & mask;
+                int n = Math.min(count, Math.min(cap - p, cap - q));
+                System.arraycopy(a, p, a, q, n);
+                src += n;
+                dst += n;
+                count -= n;
+            }
+        } else {
+            while(count > 0) {
+                int p = (head + src + count - 1) & mask;
+                int q = (head + dst + count - 1) & mask;
+                int n = Math.min(count, Math.min(p + 1, q + 1));
+                System.arraycopy(a, p - n + 1, a, q - n + 1, n);
+                count -= n;
+            }
+        }
+    }
+
+    /** @return the power of two, at least cap, that holds needed */
+    static int grownCapacity(int cap, int needed)
+    {
+        while(cap < needed)
+            cap <<= 1;
+        return cap;
+    }
+
+    /**
+     * Copy the size elements starting at head to the start of t,
+     * unwrapped; the new ring has head zero.
+     */
+    static void unwrap(Object a, int cap, int head, int size, Object t)
+    {
+        int n = Math.min(size, cap - head);
+        System.arraycopy(a, head, t, 0, n);
+        System.arraycopy(a, 0, t, n, size - n);
+    }
+}
@@ -19,8 +19,6 @@
  */
 package com.raelity.jvi.core.lib;
 
-import java.util.ArrayDeque;
-import java.util.Iterator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,10 +39,9 @@ import static com.raelity.jvi.lib.TextUtil.sf;
  * In particular, typebuf has a parallel data structure to track
  * if a given char can be re-mapped.
  * <p/>
- * NOTE: always: buf.length() == noremapbuf.length()
- * <p/>
- * NEEDSWORK: I bet copying the Deque code and useing an int array
- * would be real fast.
+ * Each element is an int, the char in the low 16 bits and the
+ * noremap flag above it, kept in an {@link IntRingBuffer}; so chars can
+ * be inserted or deleted at any offset without boxing.
  *
  * @author Ernie Rael <err at raelity.com>
  */
@@ -52,7 +49,7 @@ public final class TypeBufMultiCharMapping {
     private static final Logger LOG = Logger.getLogger(TypeBufMultiCharMapping.class.getName());
 
     private final Mappings mappings;
-    private ArrayDeque<Integer> buf;
+    private IntRingBuffer buf;
     private int nMappings;
     private int capacity;
     private boolean fWaitMapping;
@@ -64,11 +61,13 @@ public final class TypeBufMultiCharMapping {
         clear();
     }
 
-    interface TypeBufPeek
+    /** What the mapping lookup sees of the typebuf. */
+    public interface TypeBufPeek
     {
-        char firstChar();
+        int length();
 
-        boolean isMatch(String lhs, MutableBoolean maybe);
+        /** @return the char at idx, -1 if it can not be remapped */
+        int charAt(int idx);
     }
 
     private boolean isNoremap(int i)
@@ -76,44 +75,23 @@ public final class TypeBufMultiCharMapping {
         return (i & ~0xffff) != 0;
     }
 
-    /*
-     * startsWith and couldMatch use iterator
-     * along with building a temporary string
-     * string gets destroyed when deque is modified
-     *
-     * NEEDSWORK: noremap issues
-     */
     private class MyTypeBufPeek implements TypeBufPeek
     {
         @Override
-        public char firstChar()
+        public int length()
         {
-            int i = buf.getFirst(); // does not remove
-            assert ! isNoremap(i); // should not be called if noremap
-            return (char)(i & 0xffff);
+            return buf.size();
         }
 
         @Override
-        public boolean isMatch(String lhs, MutableBoolean fPartialMatch)
+        public int charAt(int idx)
         {
-            int idx = 0;
-            for(Iterator<Integer> it = buf.iterator();
-                    it.hasNext() && idx < lhs.length(); idx++) {
-                int i = it.next();
-                if(lhs.charAt(idx) != (i & 0xffff) || isNoremap(i)) {
-                    return false;
-                }
-            }
-
-            if(idx == buf.size()) {
-                fPartialMatch.setValue(true);
-                partialMatch = lhs.substring(0, idx);
-            }
-            return idx == lhs.length();
+            int i = buf.get(idx);
+            return isNoremap(i) ? -1 : i & 0xffff;
         }
     }
     private final TypeBufPeek peek = new MyTypeBufPeek();
-    private String partialMatch = "";
+    private final MutableBoolean fPartialMatch = new MutableBoolean();
 
     public void clearNMappings()
     {
@@ -122,7 +100,7 @@ public final class TypeBufMultiCharMapping {
 
     public String getPartialMatch()
     {
-        return fWaitMapping ? partialMatch : null;
+        return fWaitMapping ? charString() : null;
     }
 
     public void mappingTimeout()
@@ -138,10 +116,6 @@ public final class TypeBufMultiCharMapping {
         if(capacity > ADJUSTTYPEBUFLEN && buf.isEmpty()) {
             clear();
         }
-        //
-        // NEEDSWORK: ins_typebuf: performance can be improved
-        //            For example, pass in a char array
-        //
         if(length() + str.length() > MAXTYPEBUFLEN) {
             vim_beep();
             Msg.emsg(Messages.e_toocompl); // also calls flushbuff
@@ -161,33 +135,10 @@ public final class TypeBufMultiCharMapping {
         if(noremap < 0) {
             noremap = str.length();
         }
-        // NEEDSWORK: optimize this by only having one loop,
-        byte[] temp = new byte[str.length()];
+        // combine the remap flag and the char into an int
+        buf.insertGap(offset, str.length());
         for(int i = 0; i < str.length(); i++) {
-            // noremapbuf.insert(offset + i, (char)(noremap-- > 0 ? 1 : 0));
-            temp[i] = noremap-- > 0 ? (byte)1 : (byte)0;
-        }
-
-        if(offset == 0) {
-            // now combine remap and string int integers
-            // and add them to deque (in reverse order!).
-            for(int i = temp.length-1; i >= 0; i--) {
-                buf.addFirst((temp[i] << 16) | str.charAt(i));
-            }
-        } else if(offset == buf.size()) {
-            // append to end of Deque
-            for(int i = 0; i < temp.length; i++) {
-                buf.addLast((temp[i] << 16) | str.charAt(i));
-            }
-        } else {
-            // Make a big array, then use System.arrayCopy to
-            // do the insert, then wrap the array in a list
-            // and add that back to a new Deque
-
-            // crash and burn
-            throw new IllegalStateException("unhandled insert in middle");
-
-            // Integer[] toArray = buf.toArray(new Integer[0]);
+            buf.set(offset + i, (noremap-- > 0 ? 1 << 16 : 0) | str.charAt(i));
         }
 
         /* ************************************************************
@@ -205,13 +156,7 @@ public final class TypeBufMultiCharMapping {
 
     public void delete(int start, int end)
     {
-        if(start != 0) {
-            // crash and burn
-            throw new IllegalStateException("unhandled delete in middle");
-        }
-        for(int i = end - start; i > 0; i--) {
-            buf.removeFirst();
-        }
+        buf.delete(start, end - start);
     }
 
     /**
@@ -230,13 +175,13 @@ public final class TypeBufMultiCharMapping {
         int loops = 0;
         boolean needsRemove;
         while(true) {
-            int peekData = buf.getFirst();
+            int peekData = buf.get(0);
             needsRemove = true;
             boolean noremap = isNoremap(peekData);
             c = (char)(peekData & 0xffff);
 
-                        if(Options.kd().getBoolean()) {
-                            if(Options.kd().getBoolean(Level.FINEST)
+                        if(Options.kd().isOn()) {
+                            if(Options.kd().isOn(Level.FINEST)
                                     || G.no_mapping() != 0
                                     || G.allow_keys() != 0
                                     || G.no_zero_mapping() != 0) {
@@ -259,7 +204,7 @@ public final class TypeBufMultiCharMapping {
                     // && G.allow_keys == 0 ?????
             ) {
                 int state = get_real_state();
-                MutableBoolean fPartialMatch = new MutableBoolean();
+                fPartialMatch.setValue(false);
                 Mapping mapping = mappings.getMapping(peek, state, fPartialMatch);
                 if(mapping != null) {
                     if(++loops > G.p_mmd()) {
@@ -283,14 +228,12 @@ public final class TypeBufMultiCharMapping {
                     // If m_noremap is set, don't remap the whole 'to'
                     // part.
                     //
-                    if(Options.kd().getBoolean() && loops <= 20) {
+                    if(Options.kd().isOn() && loops <= 20) {
                         System.err.println("getChar: map: " + mapping +
                                 (loops == 20 ? "... ... ..." : ""));
                     }
                     // get rid of the stuff we've matched
-                    for(int i = mapping.lhs.length(); i > 0; --i) {
-                        buf.removeFirst();
-                    }
+                    buf.delete(0, mapping.lhs.length());
                     needsRemove = false;
                     if(!insert(mapping.getRhs(),
                             mapping.isNoremap()
@@ -310,7 +253,7 @@ public final class TypeBufMultiCharMapping {
                     if(!sawMappingTimeout) {
                         fWaitMapping = true;
                         Options.kd().println(Level.FINEST, () ->
-                                "getChar partial match: " + partialMatch);
+                                "getChar partial match: " + charString());
                         c = NO_CHAR;
                         needsRemove = false;
                     }
@@ -351,7 +294,7 @@ public final class TypeBufMultiCharMapping {
 
     public void clear()
     {
-        buf = new ArrayDeque<>(250);
+        buf = new IntRingBuffer(256);
         capacity = 0;
         fMappingTimeout = false;
         fWaitMapping = false;
@@ -372,25 +315,29 @@ public final class TypeBufMultiCharMapping {
         return buf.isEmpty();
     }
 
+    /** @return the chars in the buffer, without the noremap flags */
+    private String charString()
+    {
+        StringBuilder sb = new StringBuilder(buf.size());
+        for(int idx = 0; idx < buf.size(); idx++)
+            sb.append((char)(buf.get(idx) & 0xffff));
+        return sb.toString();
+    }
+
     @Override
     public String toString()
     {
-        Iterator<Integer> i = buf.iterator();
-	if (! i.hasNext())
-	    return "[]";
-
 	StringBuilder sb = new StringBuilder();
 	sb.append('[');
-	for (;;) {
-            Integer data = i.next();
+	for (int idx = 0; idx < buf.size(); idx++) {
+            int data = buf.get(idx);
+            if(idx > 0)
+                sb.append(", ");
             if(isNoremap(data))
                 sb.append('*');
-
-	    sb.append((char)data.intValue());
-	    if (! i.hasNext())
-		return sb.append(']').toString();
-	    sb.append(", ");
+	    sb.append((char)(data & 0xffff));
 	}
+	return sb.append(']').toString();
     }
 
 }
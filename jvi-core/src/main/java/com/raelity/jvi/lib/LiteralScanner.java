@@ -0,0 +1,254 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+package com.raelity.jvi.lib;
+
+import java.nio.CharBuffer;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Find a regular expression that is a plain string without using
+ * the regex engine; a Boyer-Moore-Horspool scan over the char array.
+ * The pattern may start and/or end with "\b", that is how vim's
+ * "\&lt;" and "\&gt;" arrive here.
+ * <p>
+ * The results are the same as java.util.regex with the same flags and
+ * with the opaque, non-anchoring bounds that RegExp.search uses.
+ * Ignore case, like Pattern.CASE_INSENSITIVE, only folds US-ASCII.
+ * Word boundaries next to non-ASCII characters are checked with
+ * the Pattern since what counts as a word character depends on the JDK.
+ * </p>
+ */
+final class LiteralScanner
+{
+private static final String META = "\\^$.|?*+()[]{}";
+
+private final Pattern pattern;
+private final char[] lit;
+private final boolean ignoreCase;
+private final boolean boundStart;
+private final boolean boundEnd;
+private final int[] skip = new int[256];
+
+private LiteralScanner(Pattern pattern, char[] lit, boolean ignoreCase,
+                       boolean boundStart, boolean boundEnd)
+{
+    this.pattern = pattern;
+    this.lit = lit;
+    this.ignoreCase = ignoreCase;
+    this.boundStart = boundStart;
+    this.boundEnd = boundEnd;
+    int m = lit.length;
+    java.util.Arrays.fill(skip, m);
+    // a later char sharing the low byte gets the smaller shift
+    for(int i = 0; i < m - 1; i++)
+        skip[lit[i] & 0xff] = m - 1 - i;
+}
+
+/**
+ * @param regex the java.util.regex pattern string
+ * @param flags the compile flags
+ * @param pattern the compiled regex
+ * @return a scanner if regex is a plain string, else null
+ */
+static LiteralScanner create(String regex, int flags, Pattern pattern)
+{
+    if((flags & ~(Pattern.MULTILINE | Pattern.CASE_INSENSITIVE)) != 0)
+        return null;
+    boolean ignoreCase = (flags & Pattern.CASE_INSENSITIVE) != 0;
+    boolean boundStart = false;
+    boolean boundEnd = false;
+    StringBuilder sb = new StringBuilder(regex.length());
+    int n = regex.length();
+    for(int i = 0; i < n; i++) {
+        char c = regex.charAt(i);
+        if(c == '\\') {
+            if(++i == n)
+                return null;
+            char d = regex.charAt(i);
+            if(d == 'b' && i == 1)
+                boundStart = true;
+            else if(d == 'b' && i == n - 1)
+                boundEnd = true;
+            else if(Character.isLetterOrDigit(d) || d >= 0x80)
+                return null; // \w, \n, back reference, ...
+            else
+                sb.append(d);
+        } else if(META.indexOf(c) >= 0 || Character.isSurrogate(c))
+            return null;
+        else
+            sb.append(ignoreCase ? fold(c) : c);
+    }
+    if(sb.length() == 0)
+        return null;
+    // a boundary next to a non-ASCII char is left to the regex engine
+    if(boundStart && sb.charAt(0) >= 0x80
+            || boundEnd && sb.charAt(sb.length() - 1) >= 0x80)
+        return null;
+    char[] lit = new char[sb.length()];
+    sb.getChars(0, lit.length, lit, 0);
+    return new LiteralScanner(pattern, lit, ignoreCase, boundStart, boundEnd);
+}
+
+/** US-ASCII only, like CASE_INSENSITIVE without UNICODE_CASE */
+private static char fold(char c)
+{
+    return c >= 'A' && c <= 'Z' ? (char)(c + ('a' - 'A')) : c;
+}
+
+int length()
+{
+    return lit.length;
+}
+
+/**
+ * Find the first match in [from,to) of the array.
+ * @return offset of the match or -1
+ */
+int find(char[] input, int from, int to)
+{
+    int m = lit.length;
+    int last = m - 1;
+    char lastc = lit[last];
+    for(int i = from; i <= to - m; ) {
+        char c = input[i + last];
+        if(ignoreCase)
+            c = fold(c);
+        if(c == lastc && regionMatches(input, i) && bounds(input, i, from, to))
+            return i;
+        i += skip[c & 0xff];
+    }
+    return -1;
+}
+
+private boolean regionMatches(char[] input, int i)
+{
+    int last = lit.length - 1;
+    if(ignoreCase) {
+        for(int j = 0; j < last; j++) {
+            if(fold(input[i + j]) != lit[j])
+                return false;
+        }
+    } else {
+        for(int j = 0; j < last; j++) {
+            if(input[i + j] != lit[j])
+                return false;
+        }
+    }
+    return true;
+}
+
+/** Check the "\b" at either end; outside [from,to) is not seen. */
+private boolean bounds(char[] input, int i, int from, int to)
+{
+    if(!boundStart && !boundEnd)
+        return true;
+    int e = i + lit.length;
+    char before = i > from ? input[i - 1] : 0;
+    char after = e < to ? input[e] : 0;
+    if(boundStart && before >= 0x80 || boundEnd && after >= 0x80) {
+        Matcher m = pattern.matcher(CharBuffer.wrap(input, from, to - from));
+        m.region(i - from, to - from);
+        m.useTransparentBounds(true);
+        m.useAnchoringBounds(false);
+        return m.lookingAt();
+    }
+    return (!boundStart || isWord(before) != isWord(input[i]))
+            && (!boundEnd || isWord(input[e - 1]) != isWord(after));
+}
+
+private static boolean isWord(char c)
+{
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z'
+            || c >= '0' && c <= '9' || c == '_';
+}
+
+/** A match, no groups, of the literal at start in the input. */
+MatchResult result(char[] input, int start)
+{
+    return new Result(input, start, start + lit.length);
+}
+
+private static final class Result implements MatchResult
+{
+    private final char[] input;
+    private final int start;
+    private final int end;
+
+    Result(char[] input, int start, int end)
+    {
+        this.input = input;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int start()
+    {
+        return start;
+    }
+
+    @Override
+    public int start(int group)
+    {
+        check(group);
+        return start;
+    }
+
+    @Override
+    public int end()
+    {
+        return end;
+    }
+
+    @Override
+    public int end(int group)
+    {
+        check(group);
+        return end;
+    }
+
+    @Override
+    public String group()
+    {
+        return start < 0 ? null : new String(input, start, end - start);
+    }
+
+    @Override
+    public String group(int group)
+    {
+        check(group);
+        return group();
+    }
+
+    @Override
+    public int groupCount()
+    {
+        return 0;
+    }
+
+    private static void check(int group)
+    {
+        if(group != 0)
+            throw new IndexOutOfBoundsException("No group " + group);
+    }
+}
+}
@@ -0,0 +1,360 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.lib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import static com.raelity.jvi.lib.TextUtil.sf;
+
+/**
+ * The read only text of a file, memory mapped. Nothing is read until
+ * it is asked for; a char is decoded from its byte, ISO-8859-1, when
+ * it is needed. So char offsets are byte offsets, and the file must be
+ * smaller than 2G, since text offsets are ints.
+ * <p>
+ * The line index is sparse, it has the start of every
+ * {@value #SPARSE}th line. The index is built as needed; looking up a
+ * line, or an offset, indexes up to that point. Use
+ * {@link #indexInBackground} so that looking up lines near the end,
+ * or {@link #getLineCount}, does not have to wait for the whole
+ * file to be scanned.
+ * </p>
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public final class MappedText
+{
+    /** there is an index entry for every SPARSE lines */
+    public static final int SPARSE = 64;
+    private static final int REGION_SHIFT = 30;
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    /** index this much at a time, then let go of the lock */
+    private static final int CHUNK = 4 * 1024 * 1024;
+
+    private final Path path;
+    private final ByteBuffer[] regions;
+    private final int length;
+
+    // The index; the fields are guarded by this.
+    private int[] sparse = new int[1024];
+    private int nSparse = 1;    // sparse[0] == 0, the first line
+    private int nLines;         // newlines found before indexedTo
+    private int indexedTo;      // everything before here is indexed
+    private int lineStart;      // start of the line at indexedTo
+    private int maxLineLength;
+
+    private CompletableFuture<Void> background;
+
+    /**
+     * The last line found, the line number is in the high 32 bits and
+     * its start is in the low. Lines are mostly looked at in order, a
+     * line near the last one is found from it rather than the index.
+     */
+    private volatile long lastLine;
+
+    private MappedText(Path path, ByteBuffer[] regions, int length)
+    {
+        this.path = path;
+        this.regions = regions;
+        this.length = length;
+    }
+
+    /**
+     * Map the file. The mapping stays valid after the file is closed,
+     * it goes away when this is garbage collected.
+     * @param path the file
+     * @return the text of the file
+     * @throws IOException if the file can not be mapped, or is too large
+     */
+    public static MappedText open(Path path) throws IOException
+    {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = fc.size();
+            if(size >= Integer.MAX_VALUE)
+                throw new IOException(sf("%s: %,d bytes, too large",
+                                         path, size));
+            int n = (int)((size + REGION_MASK) >>> REGION_SHIFT);
+            ByteBuffer[] regions = new ByteBuffer[Math.max(n, 1)];
+            regions[0] = ByteBuffer.allocate(0);
+            for(int i = 0; i < n; i++) {
+                long start = (long)i << REGION_SHIFT;
+                MappedByteBuffer bb = fc.map(FileChannel.MapMode.READ_ONLY,
+                        start, Math.min(size - start, REGION_MASK + 1));
+                regions[i] = bb;
+            }
+            return new MappedText(path, regions, (int)size);
+        }
+    }
+
+    /** @return the file that is mapped */
+    public Path getPath()
+    {
+        return path;
+    }
+
+    /** @return number of chars, which is the number of bytes, in the file */
+    public int length()
+    {
+        return length;
+    }
+
+    private byte byteAt(int offset)
+    {
+        return regions[offset >>> REGION_SHIFT].get(offset & REGION_MASK);
+    }
+
+    public char charAt(int offset)
+    {
+        Objects.checkIndex(offset, length);
+        return (char)(byteAt(offset) & 0xff);
+    }
+
+    /**
+     * Decode chars from the file.
+     * @param offset start of text
+     * @param len number of chars
+     * @param dst chars are put here
+     * @param dstBegin where the first char is put
+     */
+    public void getChars(int offset, int len, char[] dst, int dstBegin)
+    {
+        Objects.checkFromIndexSize(offset, len, length);
+        Objects.checkFromIndexSize(dstBegin, len, dst.length);
+        byte[] b = new byte[Math.min(len, 8192)];
+        while(len > 0) {
+            int region = offset >>> REGION_SHIFT;
+            int ro = offset & REGION_MASK;
+            int n = Math.min(Math.min(len, b.length),
+                             regions[region].limit() - ro);
+            ByteBuffer bb = regions[region].duplicate();
+            bb.position(ro);
+            bb.get(b, 0, n);
+            for(int i = 0; i < n; i++)
+                dst[dstBegin + i] = (char)(b[i] & 0xff);
+            offset += n;
+            dstBegin += n;
+            len -= n;
+        }
+    }
+
+    public String getString(int offset, int len)
+    {
+        char[] a = new char[len];
+        getChars(offset, len, a, 0);
+        return new String(a);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //
+    // The line index
+    //
+
+    /**
+     * Index the text in a daemon thread. Lookups are not blocked, they
+     * index what they need if the background has not gotten there yet.
+     * @return completes when the whole file is indexed
+     */
+    public synchronized CompletableFuture<Void> indexInBackground()
+    {
+        if(background == null) {
+            background = new CompletableFuture<>();
+            Thread t = new Thread(() -> {
+                try {
+                    while(!isIndexed())
+                        indexTo(Math.min(length, getIndexedTo() + CHUNK));
+                    background.complete(null);
+                } catch(Throwable ex) {
+                    background.completeExceptionally(ex);
+                }
+            }, "jvi-index " + path.getFileName());
+            t.setDaemon(true);
+            t.start();
+        }
+        return background;
+    }
+
+    public synchronized boolean isIndexed()
+    {
+        return indexedTo == length;
+    }
+
+    private synchronized int getIndexedTo()
+    {
+        return indexedTo;
+    }
+
+    /** Scan for newlines, up to but not including end. */
+    private synchronized void indexTo(int end)
+    {
+        if(end <= indexedTo)
+            return;
+        int offset = indexedTo;
+        while(offset < end) {
+            int region = offset >>> REGION_SHIFT;
+            ByteBuffer bb = regions[region];
+            int base = region << REGION_SHIFT;
+            int regionEnd = Math.min(end - base, bb.limit());
+            for(int i = offset - base; i < regionEnd; i++) {
+                if(bb.get(i) != '\n')
+                    continue;
+                int next = base + i + 1;
+                maxLineLength = Math.max(maxLineLength, next - 1 - lineStart);
+                lineStart = next;
+                if(++nLines % SPARSE == 0) {
+                    if(nSparse == sparse.length)
+                        sparse = Arrays.copyOf(sparse, nSparse * 2);
+                    sparse[nSparse++] = next;
+                }
+            }
+            offset = base + regionEnd;
+        }
+        indexedTo = end;
+        if(end == length)
+            maxLineLength = Math.max(maxLineLength, length - lineStart);
+    }
+
+    /**
+     * Make sure the line is in the index, or the whole file is indexed.
+     * @return the sparse entry at or before the line
+     */
+    private synchronized int sparseForLine(int line)
+    {
+        while(nLines < line && indexedTo < length)
+            indexTo(Math.min(length, indexedTo + CHUNK));
+        if(line > nLines)
+            throw new IndexOutOfBoundsException(sf("line %d, %d lines",
+                                                   line, nLines + 1));
+        return sparse[line / SPARSE];
+    }
+
+    /**
+     * Make sure the offset is in the index.
+     * @return the line of the last sparse entry at or before the offset
+     */
+    private synchronized int sparseLineForOffset(int offset)
+    {
+        indexTo(offset);
+        int i = Arrays.binarySearch(sparse, 0, nSparse, offset);
+        if(i < 0)
+            i = -i - 2;
+        return i * SPARSE;
+    }
+
+    private synchronized int sparseAt(int i)
+    {
+        return sparse[i];
+    }
+
+    /**
+     * This waits until the whole file is indexed.
+     * @return number of lines, one more than the number of newlines
+     */
+    public int getLineCount()
+    {
+        indexTo(length);
+        synchronized(this) {
+            return nLines + 1;
+        }
+    }
+
+    /**
+     * This waits until the whole file is indexed.
+     * @return length of the longest line, not counting the newline
+     */
+    public int getMaxLineLength()
+    {
+        indexTo(length);
+        synchronized(this) {
+            return maxLineLength;
+        }
+    }
+
+    /**
+     * @param line line number, the first is 0
+     * @return offset of the first char of the line
+     */
+    public int getLineStart(int line)
+    {
+        if(line < 0)
+            throw new IndexOutOfBoundsException("line " + line);
+        int offset = sparseForLine(line);
+        int n = line % SPARSE;
+        long last = lastLine;
+        int lastNumber = (int)(last >>> 32);
+        if(lastNumber <= line && line - lastNumber < n) {
+            n = line - lastNumber;
+            offset = (int)last;
+        }
+        for(; n > 0; n--)
+            offset = findNewline(offset) + 1;
+        lastLine = (long)line << 32 | offset;
+        return offset;
+    }
+
+    /**
+     * @param offset 0 to length, inclusive
+     * @return the line with the offset, the first is 0
+     */
+    public int getLineOfOffset(int offset)
+    {
+        Objects.checkIndex(offset, length + 1);
+        int line = sparseLineForOffset(offset);
+        int start = sparseAt(line / SPARSE);
+        long last = lastLine;
+        if((int)last > start && (int)last <= offset) {
+            line = (int)(last >>> 32);
+            start = (int)last;
+        }
+        for(;;) {
+            int nl = findNewline(start);
+            if(nl < 0 || nl >= offset)
+                break;
+            line++;
+            start = nl + 1;
+        }
+        lastLine = (long)line << 32 | start;
+        return line;
+    }
+
+    /** @return offset of the next newline at or after offset, or -1 */
+    private int findNewline(int offset)
+    {
+        for(; offset < length; offset++) {
+            if(byteAt(offset) == '\n')
+                return offset;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MappedText{" + path + ", " + length + "}";
+    }
+}
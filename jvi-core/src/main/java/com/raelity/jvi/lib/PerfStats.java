@@ -0,0 +1,379 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.lib;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import static com.raelity.jvi.lib.TextUtil.sf;
+
+/**
+ * Counters for the hot paths: how long commands take, how many chars
+ * are pumped at a time, regex compile and search, cache hit ratios.
+ * Off by default; turn on with {@code :perfstats on} or through JMX,
+ * the MBean is {@value #OBJECT_NAME}.
+ * <p>
+ * A probe checks {@link #isEnabled} before doing anything else, so when
+ * the stats are off a probe is a volatile read. The usual pattern is
+ * <pre>
+ *     long t0 = PerfStats.start();
+ *     ...
+ *     PerfStats.histogram("regex search", PerfStats.NANOS).stop(t0);
+ * </pre>
+ * {@link #start} returns 0 when the stats are off, and stop ignores 0.
+ * Looking up a histogram by name costs a map lookup, so it is only done
+ * when enabled; a probe that fires very often should keep a reference.
+ * </p><p>
+ * Histograms use power of two buckets, so the percentiles are
+ * approximate, they are the top of the bucket. Everything is thread
+ * safe, recording does not lock.
+ * </p>
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public final class PerfStats
+{
+    private static final Logger LOG = Logger.getLogger(PerfStats.class.getName());
+
+    /** The name under which the MBean is registered. */
+    public static final String OBJECT_NAME = "com.raelity.jvi:type=PerfStats";
+    /** Histogram unit, values are nanoseconds; reported as micros. */
+    public static final String NANOS = "us";
+    /** Histogram unit, values are a count of things. */
+    public static final String COUNT = "n";
+
+    private static volatile boolean enabled;
+    private static boolean registered;
+
+    private static final Map<String, Histogram> histograms
+            = new ConcurrentSkipListMap<>();
+    private static final Map<String, Ratio> ratios
+            = new ConcurrentSkipListMap<>();
+
+    private PerfStats() { }
+
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Turn stats collection on or off. The first time the stats are
+     * turned on the MBean is registered.
+     */
+    public static void setEnabled(boolean f)
+    {
+        if(f)
+            register();
+        enabled = f;
+    }
+
+    /** @return the time to pass to {@link Histogram#stop}, 0 if disabled */
+    public static long start()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /** Get the named histogram, it is created if needed. */
+    public static Histogram histogram(String name, String unit)
+    {
+        return histograms.computeIfAbsent(name, k -> new Histogram(k, unit));
+    }
+
+    /** Get the named ratio, it is created if needed. */
+    public static Ratio ratio(String name)
+    {
+        return ratios.computeIfAbsent(name, Ratio::new);
+    }
+
+    /** Clear all the counts. Histograms and ratios stay registered. */
+    public static void reset()
+    {
+        histograms.values().forEach(Histogram::reset);
+        ratios.values().forEach(Ratio::reset);
+    }
+
+    /** @return the stats, one line per histogram or ratio, sorted by name */
+    public static List<String> report()
+    {
+        List<String> l = new ArrayList<>();
+        l.add(sf("perfstats %s", enabled ? "on" : "off"));
+        int width = 8;
+        for(String name : histograms.keySet())
+            width = Math.max(width, name.length());
+        for(String name : ratios.keySet())
+            width = Math.max(width, name.length());
+        if(!histograms.isEmpty())
+            l.add(sf("%-" + width + "s %2s %9s %9s %9s %9s %9s %9s",
+                     "name", "", "count", "mean", "p50", "p90", "p99", "max"));
+        for(Histogram h : histograms.values()) {
+            if(h.getCount() != 0)
+                l.add(h.format(width));
+        }
+        for(Ratio r : ratios.values()) {
+            if(r.getTotal() != 0)
+                l.add(r.format(width));
+        }
+        return l;
+    }
+
+    private static synchronized void register()
+    {
+        if(registered)
+            return;
+        registered = true;
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            mbs.registerMBean(new StandardMBean(new Jmx(), MBean.class),
+                              new ObjectName(OBJECT_NAME));
+        } catch(JMException | RuntimeException | LinkageError ex) {
+            // no JMX, use :perfstats
+            LOG.log(Level.CONFIG, "PerfStats MBean not registered", ex);
+        }
+    }
+
+    /**
+     * A histogram of long values, typically nanoseconds.
+     */
+    public static final class Histogram
+    {
+        private static final int BUCKETS = 64;
+        private final String name;
+        private final String unit;
+        /** bucket i has values with i significant bits */
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram(String name, String unit)
+        {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void record(long v)
+        {
+            if(v < 0)
+                v = 0;
+            buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(v));
+            count.increment();
+            sum.add(v);
+            long m;
+            while(v > (m = max.get()) && !max.compareAndSet(m, v)) {
+            }
+        }
+
+        /**
+         * Record the time since t0, from {@link PerfStats#start}.
+         * Nothing is recorded if t0 is 0; the stats were off at start.
+         */
+        public void stop(long t0)
+        {
+            if(t0 != 0)
+                record(System.nanoTime() - t0);
+        }
+
+        public long getCount()
+        {
+            return count.sum();
+        }
+
+        public long getMax()
+        {
+            return max.get();
+        }
+
+        public double getMean()
+        {
+            long n = count.sum();
+            return n == 0 ? 0 : (double)sum.sum() / n;
+        }
+
+        /**
+         * @param p percentile, 0 to 100
+         * @return the top of the bucket holding the percentile
+         */
+        public long getPercentile(double p)
+        {
+            long[] b = new long[BUCKETS];
+            long n = 0;
+            for(int i = 0; i < BUCKETS; i++) {
+                b[i] = buckets.get(i);
+                n += b[i];
+            }
+            if(n == 0)
+                return 0;
+            long want = (long)Math.ceil(n * p / 100);
+            long seen = 0;
+            for(int i = 0; i < BUCKETS; i++) {
+                seen += b[i];
+                if(seen >= want && b[i] != 0)
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, getMax());
+            }
+            return getMax();
+        }
+
+        private void reset()
+        {
+            for(int i = 0; i < BUCKETS; i++)
+                buckets.set(i, 0);
+            count.reset();
+            sum.reset();
+            max.set(0);
+        }
+
+        private String format(int width)
+        {
+            double scale = NANOS.equals(unit) ? 1000 : 1;
+            return sf("%-" + width + "s %2s %9d %9.1f %9.1f %9.1f %9.1f %9.1f",
+                      name, unit, getCount(),
+                      getMean() / scale,
+                      getPercentile(50) / scale,
+                      getPercentile(90) / scale,
+                      getPercentile(99) / scale,
+                      getMax() / scale);
+        }
+
+        @Override
+        public String toString()
+        {
+            return format(0);
+        }
+    }
+
+    /**
+     * A hit ratio, for caches.
+     */
+    public static final class Ratio
+    {
+        private final String name;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private Ratio(String name)
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void hit()
+        {
+            hits.increment();
+        }
+
+        public void miss()
+        {
+            misses.increment();
+        }
+
+        public long getHits()
+        {
+            return hits.sum();
+        }
+
+        public long getTotal()
+        {
+            return hits.sum() + misses.sum();
+        }
+
+        private void reset()
+        {
+            hits.reset();
+            misses.reset();
+        }
+
+        private String format(int width)
+        {
+            long total = getTotal();
+            return sf("%-" + width + "s %2s %9d hits %d (%.1f%%)",
+                      name, "%", total, getHits(),
+                      total == 0 ? 0.0 : 100.0 * getHits() / total);
+        }
+
+        @Override
+        public String toString()
+        {
+            return format(0);
+        }
+    }
+
+    /**
+     * The JMX view of the stats.
+     */
+    public interface MBean
+    {
+        boolean isEnabled();
+        void setEnabled(boolean f);
+        /** @return the report, one line per entry */
+        String[] getReport();
+        void reset();
+    }
+
+    private static class Jmx implements MBean
+    {
+        @Override
+        public boolean isEnabled()
+        {
+            return PerfStats.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean f)
+        {
+            PerfStats.setEnabled(f);
+        }
+
+        @Override
+        public String[] getReport()
+        {
+            return PerfStats.report().toArray(String[]::new);
+        }
+
+        @Override
+        public void reset()
+        {
+            PerfStats.reset();
+        }
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.lib;
+
+import java.util.Arrays;
+
+import javax.swing.text.Segment;
+
+import static com.raelity.jvi.lib.TextUtil.sf;
+
+/**
+ * Text storage for very large files. The original text is never copied
+ * or changed; inserted text is appended to an add buffer. The document
+ * is a sequence of pieces, each a run of chars from one of the two
+ * buffers, kept in a balanced tree (a treap) ordered by document offset.
+ * <p>
+ * Each tree node has the char and newline counts of its subtree, and
+ * each buffer has the offsets of its newlines; so finding an offset,
+ * the start of a line or the line of an offset is O(log n). Text that
+ * lies within a piece is handed out without copying, see
+ * {@link #getText(int, int, Segment)}.
+ * </p><p>
+ * Lines are numbered from 0. A line ends after its '\n'; the text after
+ * the last '\n' is the last line, it may be empty.
+ * </p>
+ * This class is not thread safe.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public final class PieceTable
+{
+    private final Buf orig;
+    private final Buf add;
+    private Piece root;
+    private int seed = 0x2545F491;
+
+    /** An empty piece table. */
+    public PieceTable()
+    {
+        this(new char[0], 0);
+    }
+
+    /**
+     * The piece table takes ownership of the array,
+     * it must not be changed.
+     * @param text the initial text
+     * @param length number of chars of text
+     */
+    public PieceTable(char[] text, int length)
+    {
+        orig = new Buf(text, length);
+        add = new Buf(new char[Math.max(256, length / 16)], 0);
+        if(length > 0)
+            root = newPiece(orig, 0, length);
+    }
+
+    public PieceTable(CharSequence text)
+    {
+        this(text.toString().toCharArray(), text.length());
+    }
+
+    /** @return number of chars */
+    public int length()
+    {
+        return len(root);
+    }
+
+    /** @return number of lines, one more than the number of '\n' */
+    public int getLineCount()
+    {
+        return nl(root) + 1;
+    }
+
+    /** @return the offset of the start of the line */
+    public int getLineStart(int line)
+    {
+        if(line < 0 || line >= getLineCount())
+            throw new IndexOutOfBoundsException(sf("line %d, count %d",
+                                                   line, getLineCount()));
+        if(line == 0)
+            return 0;
+        // find the line'th newline
+        int k = line;
+        int base = 0;
+        Piece t = root;
+        while(true) {
+            if(k <= nl(t.left)) {
+                t = t.left;
+                continue;
+            }
+            k -= nl(t.left);
+            base += len(t.left);
+            if(k <= t.nl) {
+                Buf b = t.buf;
+                int nlOffset = b.nl[b.nlIndex(t.start) + k - 1];
+                return base + nlOffset - t.start + 1;
+            }
+            k -= t.nl;
+            base += t.len;
+            t = t.right;
+        }
+    }
+
+    /**
+     * The offset may be the length, that is the last line.
+     * @return the line that contains the offset
+     */
+    public int getLineOfOffset(int offset)
+    {
+        checkRange(offset, 0);
+        int line = 0;
+        Piece t = root;
+        while(t != null) {
+            if(offset < len(t.left)) {
+                t = t.left;
+                continue;
+            }
+            line += nl(t.left);
+            offset -= len(t.left);
+            if(offset < t.len)
+                return line + t.buf.nlCount(t.start, offset);
+            line += t.nl;
+            offset -= t.len;
+            t = t.right;
+        }
+        return line;
+    }
+
+    public char charAt(int offset)
+    {
+        if(offset < 0 || offset >= length())
+            throw new IndexOutOfBoundsException(sf("offset %d, length %d",
+                                                   offset, length()));
+        Piece t = root;
+        while(true) {
+            if(offset < len(t.left)) {
+                t = t.left;
+                continue;
+            }
+            offset -= len(t.left);
+            if(offset < t.len)
+                return t.buf.a[t.start + offset];
+            offset -= t.len;
+            t = t.right;
+        }
+    }
+
+    /** Copy the text to dst starting at dstBegin. */
+    public void getChars(int offset, int length, char[] dst, int dstBegin)
+    {
+        checkRange(offset, length);
+        copy(root, offset, offset + length, dst, dstBegin);
+    }
+
+    /**
+     * Like {@link javax.swing.text.AbstractDocument.Content#getChars}.
+     * If the text lies within a piece, the segment refers to the
+     * piece table's buffer, nothing is copied; the buffer is never
+     * changed so the segment remains good. Otherwise, if the segment
+     * is a partial return then it gets the text up to the end of
+     * the piece, else the text is copied.
+     */
+    public void getText(int offset, int length, Segment seg)
+    {
+        checkRange(offset, length);
+        int base = 0;
+        Piece t = root;
+        while(t != null) {
+            if(offset < base + len(t.left)) {
+                t = t.left;
+                continue;
+            }
+            base += len(t.left);
+            if(offset < base + t.len)
+                break;
+            base += t.len;
+            t = t.right;
+        }
+        if(t != null) {
+            int inPiece = base + t.len - offset;
+            if(length <= inPiece || seg.isPartialReturn()) {
+                seg.array = t.buf.a;
+                seg.offset = t.start + offset - base;
+                seg.count = Math.min(length, inPiece);
+                return;
+            }
+        }
+        char[] a = new char[length];
+        getChars(offset, length, a, 0);
+        seg.array = a;
+        seg.offset = 0;
+        seg.count = length;
+    }
+
+    public String getString(int offset, int length)
+    {
+        char[] a = new char[length];
+        getChars(offset, length, a, 0);
+        return new String(a);
+    }
+
+    @Override
+    public String toString()
+    {
+        return getString(0, length());
+    }
+
+    /** @return number of pieces, the cost of the edit history */
+    public int getPieceCount()
+    {
+        return count(root);
+    }
+
+    /** Insert the text at the offset. */
+    public void insert(int offset, CharSequence s)
+    {
+        checkRange(offset, 0);
+        int n = s.length();
+        if(n == 0)
+            return;
+        int addStart = add.len;
+        int nlBefore = add.nlLen;
+        add.append(s);
+        int nl = add.nlLen - nlBefore;
+
+        split(root, offset);
+        Piece left = splitL;
+        Piece right = splitR;
+        Piece last = rightmost(left);
+        if(last != null && last.buf == add && last.start + last.len == addStart) {
+            // typing at the end of the previous insert, grow that piece
+            for(Piece t = left; t != null; t = t.right) {
+                t.sumLen += n;
+                t.sumNl += nl;
+            }
+            last.len += n;
+            last.nl += nl;
+            root = merge(left, right);
+        } else {
+            root = merge(merge(left, newPiece(add, addStart, n)), right);
+        }
+    }
+
+    /** Remove length chars starting at offset. */
+    public void remove(int offset, int length)
+    {
+        checkRange(offset, length);
+        if(length == 0)
+            return;
+        split(root, offset);
+        Piece left = splitL;
+        split(splitR, length);
+        root = merge(left, splitR);
+    }
+
+    private void checkRange(int offset, int length)
+    {
+        if(offset < 0 || length < 0 || offset + length > length())
+            throw new IndexOutOfBoundsException(sf(
+                    "offset %d, length %d, table length %d",
+                    offset, length, length()));
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //
+    // The buffers
+    //
+
+    /** A buffer of chars that is only appended to. */
+    private static final class Buf
+    {
+        char[] a;
+        int len;
+        /** offsets in the buffer of the '\n' */
+        int[] nl;
+        int nlLen;
+
+        Buf(char[] a, int len)
+        {
+            this.a = a;
+            this.len = len;
+            nl = new int[16];
+            for(int i = 0; i < len; i++) {
+                if(a[i] == '\n')
+                    addNl(i);
+            }
+        }
+
+        /**
+         * The old array, if replaced, is left as is; so segments that
+         * refer to it are still good.
+         */
+        void append(CharSequence s)
+        {
+            int n = s.length();
+            if(len + n > a.length)
+                a = Arrays.copyOf(a, Math.max(len + n, a.length * 2));
+            for(int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                a[len + i] = c;
+                if(c == '\n')
+                    addNl(len + i);
+            }
+            len += n;
+        }
+
+        private void addNl(int offset)
+        {
+            if(nlLen == nl.length)
+                nl = Arrays.copyOf(nl, nlLen * 2);
+            nl[nlLen++] = offset;
+        }
+
+        /** @return index of the first '\n' at or after the offset */
+        int nlIndex(int offset)
+        {
+            int i = Arrays.binarySearch(nl, 0, nlLen, offset);
+            return i >= 0 ? i : -i - 1;
+        }
+
+        /** @return the number of '\n' in [start, start + length) */
+        int nlCount(int start, int length)
+        {
+            return length == 0 ? 0 : nlIndex(start + length) - nlIndex(start);
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //
+    // The tree of pieces
+    //
+
+    private static final class Piece
+    {
+        final Buf buf;
+        int start;
+        int len;
+        int nl;
+        final int pri;
+        Piece left;
+        Piece right;
+        /** chars in this subtree */
+        int sumLen;
+        /** newlines in this subtree */
+        int sumNl;
+
+        Piece(Buf buf, int start, int len, int pri)
+        {
+            this.buf = buf;
+            this.start = start;
+            this.len = len;
+            this.nl = buf.nlCount(start, len);
+            this.pri = pri;
+            sumLen = len;
+            sumNl = nl;
+        }
+    }
+
+    private Piece newPiece(Buf buf, int start, int len)
+    {
+        // xorshift, the treap only needs the priorities to be mixed up
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return new Piece(buf, start, len, seed);
+    }
+
+    private static int len(Piece t)
+    {
+        return t == null ? 0 : t.sumLen;
+    }
+
+    private static int nl(Piece t)
+    {
+        return t == null ? 0 : t.sumNl;
+    }
+
+    private static void update(Piece t)
+    {
+        t.sumLen = len(t.left) + t.len + len(t.right);
+        t.sumNl = nl(t.left) + t.nl + nl(t.right);
+    }
+
+    private static Piece rightmost(Piece t)
+    {
+        if(t != null) {
+            while(t.right != null)
+                t = t.right;
+        }
+        return t;
+    }
+
+    private static int count(Piece t)
+    {
+        return t == null ? 0 : count(t.left) + 1 + count(t.right);
+    }
+
+    // results of split
+    private Piece splitL;
+    private Piece splitR;
+
+    /**
+     * Split the tree so splitL has the first offset chars,
+     * and splitR has the rest. A piece may be cut in two.
+     */
+    private void split(Piece t, int offset)
+    {
+        if(t == null) {
+            splitL = splitR = null;
+            return;
+        }
+        int leftLen = len(t.left);
+        if(offset <= leftLen) {
+            split(t.left, offset);
+            t.left = splitR;
+            update(t);
+            splitR = t;
+        } else if(offset >= leftLen + t.len) {
+            split(t.right, offset - leftLen - t.len);
+            t.right = splitL;
+            update(t);
+            splitL = t;
+        } else {
+            // t keeps the head, a new piece for the tail
+            int k = offset - leftLen;
+            Piece tail = newPiece(t.buf, t.start + k, t.len - k);
+            Piece right = t.right;
+            t.right = null;
+            t.len = k;
+            t.nl = t.buf.nlCount(t.start, k);
+            update(t);
+            splitL = t;
+            splitR = merge(tail, right);
+        }
+    }
+
+    /** Every offset in t1 is before those in t2. */
+    private static Piece merge(Piece t1, Piece t2)
+    {
+        if(t1 == null)
+            return t2;
+        if(t2 == null)
+            return t1;
+        if(t1.pri > t2.pri) {
+            t1.right = merge(t1.right, t2);
+            update(t1);
+            return t1;
+        } else {
+            t2.left = merge(t1, t2.left);
+            update(t2);
+            return t2;
+        }
+    }
+
+    /** Copy [from, to) of the subtree to dst. */
+    private static int copy(Piece t, int from, int to, char[] dst, int dstPos)
+    {
+        if(t == null || from >= to)
+            return dstPos;
+        int leftLen = len(t.left);
+        if(from < leftLen)
+            dstPos = copy(t.left, from, Math.min(to, leftLen), dst, dstPos);
+        int pStart = Math.max(from, leftLen);
+        int pEnd = Math.min(to, leftLen + t.len);
+        if(pStart < pEnd) {
+            System.arraycopy(t.buf.a, t.start + pStart - leftLen,
+                             dst, dstPos, pEnd - pStart);
+            dstPos += pEnd - pStart;
+        }
+        int rightStart = leftLen + t.len;
+        if(to > rightStart)
+            dstPos = copy(t.right, Math.max(from, rightStart) - rightStart,
+                          to - rightStart, dst, dstPos);
+        return dstPos;
+    }
+}
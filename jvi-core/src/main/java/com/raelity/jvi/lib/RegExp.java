@@ -123,8 +123,19 @@ public static RegExp create()
 /** A compile option */
 public static final int IGNORE_CASE = 0x01;
 
-private RegExpResult result;
+private static final PerfStats.Histogram compileStats
+        = PerfStats.histogram("regex compile", PerfStats.NANOS);
+private static final PerfStats.Histogram searchStats
+        = PerfStats.histogram("regex search", PerfStats.NANOS);
+
 private Pattern pat;
+/** non null if the pattern is a plain string */
+private LiteralScanner literal;
+/** the input of the last search, the matcher is reset to it */
+private final MySegment window = new MySegment();
+private Matcher matcher;
+/** the match from the literal scanner */
+private int litStart = -1;
     
 /**
  * The escape character.
@@ -165,25 +176,56 @@ public void compile(String patternString, int compileFlags)
         // change the escape character
         patternString = fixupEscape(patternString.toCharArray(), 0, escape);
     }
+    long t0 = PerfStats.start();
     pat = Pattern.compile(patternString, flags);
+    literal = LiteralScanner.create(patternString, flags, pat);
+    compileStats.stop(t0);
+    matcher = pat.matcher(window);
+    matcher.useAnchoringBounds(false); //so /^ only matches beginning of line
+    //matcher.useTransparentBounds(true);
+    matched = false;
+}
+
+/** @return true if searches use the plain string scanner */
+public boolean isLiteral() {
+    return literal != null;
 }
 
 /**
  * Search for a match in char array starting at char position <i>start</i>
  * with the indicated <i>length</i>.
+ * <p>
+ * Nothing is allocated; the result is in this RegExp, see
+ * {@link #start(int)} and friends, until the next search. Use
+ * {@link #snapshotResult()} to keep it. Since the matcher is reused,
+ * a RegExp must not be used for searches by more than one thread.
+ * </p>
  * @return true if <i>input</i> matches this regular expression.
  */
 public boolean search(char[] input, int start, int len)
 {
-    MySegment s = new MySegment(input, 0, input.length, -1);
+    long t0 = PerfStats.start();
+    boolean found = search0(input, start, len);
+    searchStats.stop(t0);
+    return found;
+}
+
+private boolean search0(char[] input, int start, int len)
+{
+    window.array = input;
+    window.offset = 0;
+    window.count = input.length;
+    if(literal != null) {
+        litStart = literal.find(input, start, start + len);
+        matched = litStart >= 0;
+        return matched;
+    }
     //System.err.print("\tstart: " + start + ", len: " + len);
-    Matcher m = pat.matcher(s).region(start, start+len);
-    m.useAnchoringBounds(false); //so /^ only matches beginning of line
-    //m.useTransparentBounds(true);
-    matched = m.find();
-    result = new RegExpResult(m, matched);
+    // region() resets the matcher, which picks up the window's new length
+    matcher.region(start, start+len);
+    matched = matcher.find();
     //System.err.println(matched ? " FOUND: " + start(0) + "," + stop(0):"");
-    if(start(0) >= start + len) {
+    if(matched && matcher.start() >= start + len) {
         //System.err.println("OUCH");
         // Given a line 'xy\n', with start: 1, len: 3
         // search the entire line
@@ -212,12 +254,28 @@ public boolean isMatch()
  * RegExp for searching an input, for example <i>match</i>.
  * Further calls to match do not change the RegExpResult
  * that is returned.
- * @return The results of the match or null if the match failed.
+ * @return The results of the match or null if no search was done.
  * @see RegExpResult
  */
 public RegExpResult getResult()
 {
-    return result;
+    return snapshotResult();
+}
+
+/**
+ * Copy the result of the last search. The accessors of this RegExp
+ * see the live result, which the next search changes; a caller that
+ * needs to keep a result, across another search, takes a snapshot.
+ * @return The results of the match or null if no search was done.
+ */
+public RegExpResult snapshotResult()
+{
+    if(window.array == null)
+        return null;
+    if(literal != null)
+        return new RegExpResult(literal.result(window.array, litStart),
+                                matched);
+    return new RegExpResult(matcher, matched);
 }
 
 /**
@@ -226,7 +284,7 @@ public RegExpResult getResult()
  * @see RegExpResult#nGroup()
  */
 public int nGroup() {
-    return result.groupCount();
+    return literal != null ? 0 : matcher.groupCount();
 }
 
 /**
@@ -234,7 +292,13 @@ public int nGroup() {
  * @see RegExpResult#group(int)
  */
 public String group(int i) {
-    return result.group(i);
+    if(!matched)
+        return null;
+    if(literal != null) {
+        checkLiteralGroup(i);
+        return new String(window.array, litStart, literal.length());
+    }
+    return matcher.group(i);
 }
 
 /**
@@ -242,7 +306,9 @@ public String group(int i) {
  * @ see RegExpResult#length(int)
  */
 public int length(int i) {
-    return result.length(i);
+    if(!matched || i > nGroup() || end(i) < 0)
+        return -1;
+    return end(i) - start(i);
 }
 
 /**
@@ -251,7 +317,13 @@ public int length(int i) {
  * @see com.raelity.text.RegExpResult#start(int)
  */
 public int start(int i) {
-    return result.start(i);
+    if(!matched)
+        return -1;
+    if(literal != null) {
+        checkLiteralGroup(i);
+        return litStart;
+    }
+    return matcher.start(i);
 }
 
 /**
@@ -260,7 +332,18 @@ public int start(int i) {
  * @see com.raelity.text.RegExpResult#stop(int)
  */
 public int end(int i) {
-    return result.end(i);
+    if(!matched)
+        return -1;
+    if(literal != null) {
+        checkLiteralGroup(i);
+        return litStart + literal.length();
+    }
+    return matcher.end(i);
+}
+
+private static void checkLiteralGroup(int i) {
+    if(i != 0)
+        throw new IndexOutOfBoundsException("No group " + i);
 }
 
 /**
@@ -48,6 +48,11 @@ public RegExpResult(Matcher m, boolean matches) {
     this.matches = matches;
 }
 
+RegExpResult(MatchResult result, boolean matches) {
+    this.result = result;
+    this.matches = matches;
+}
+
 /**
  * Check if the associated search produced a match.
  * @return True if the input matched. Otherwise false.
@@ -736,6 +736,8 @@ final public class ViManager
     /** update visible textviews */
     public static void updateHighlightSearchState()
     {
+        if(GetChar.deferHighlightSearch())
+            return;
         Set<ViTextView> s = factory.getViTextViewSet();
         for (ViTextView tv : s) {
             if(tv.getAppView().isShowing())
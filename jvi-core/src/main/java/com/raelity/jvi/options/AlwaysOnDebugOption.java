@@ -30,6 +30,16 @@ import java.util.logging.Level;
  */
 public class AlwaysOnDebugOption {
 
+    final public boolean isOn()
+    {
+        return true;
+    }
+
+    final public boolean isOn(Level level)
+    {
+        return true;
+    }
+
     final public Boolean getBoolean()
     {
         return true;
@@ -47,7 +57,7 @@ public class AlwaysOnDebugOption {
 
     final public void println(Level level, String msg, Object... args)
     {
-        if(getBoolean(level)) {
+        if(isOn(level)) {
             String s = args.length == 0 ? msg : String.format(msg, args);
             System.err.println(s);
         }
@@ -60,7 +70,7 @@ public class AlwaysOnDebugOption {
 
     final public void printf(Level level, String format, Object... args)
     {
-        if(getBoolean(level))
+        if(isOn(level))
             System.err.printf(format, args);
     }
 
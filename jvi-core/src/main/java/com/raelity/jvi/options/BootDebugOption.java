@@ -27,12 +27,11 @@ import java.util.logging.Logger;
  * @author Ernie Rael <err at raelity.com>
  */
 final public class BootDebugOption extends DebugOption {
-    public boolean v;
 
     public BootDebugOption(boolean v)
     {
         super(null, null, new DefaultEnumValidator<String>(), new String[0]);
-        this.v = v;
+        setLevel(v ? Level.ALL : Level.OFF);
     }
 
     @Override
@@ -45,18 +44,6 @@ final public class BootDebugOption extends DebugOption {
     {
     }
 
-    @Override
-    public Boolean getBoolean()
-    {
-        return v;
-    }
-
-    @Override
-    public boolean getBoolean(Level level)
-    {
-        return v;
-    }
-
     @Override
     public Logger getLogger()
     {
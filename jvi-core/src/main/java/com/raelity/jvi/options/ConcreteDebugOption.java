@@ -54,7 +54,9 @@ final public class ConcreteDebugOption extends DebugOption
         logger = Logger.getLogger("com.raelity.jvi.debug." + key);
         // setValue below gets invoked by the constructor,
         // so it can't set the logger level
-        logger.setLevel(Level.parse(getValue()));
+        Level level = Level.parse(getValue());
+        logger.setLevel(level);
+        setLevel(level);
     }
 
     @Override
@@ -67,20 +69,11 @@ final public class ConcreteDebugOption extends DebugOption
             newValue = "OFF";
 
         super.setValue(newValue);
-        if(logger != null)
-            logger.setLevel(Level.parse(newValue));
-    }
-
-    @Override
-    final public Boolean getBoolean()
-    {
-        return logger.isLoggable(Level.SEVERE);
-    }
-
-    @Override
-    final public boolean getBoolean(Level level)
-    {
-        return logger.isLoggable(level);
+        if(logger != null) {
+            Level level = Level.parse(newValue);
+            logger.setLevel(level);
+            setLevel(level);
+        }
     }
 
     @Override
@@ -30,22 +30,63 @@ import java.util.logging.Logger;
  * This jVi option is for debug, based on enum of logger level.
  * It supports getBoolean, with a variation that supplies a logger level.
  * It also support some print methods.
+ * <p>
+ * The level is kept in a volatile int, set when the option changes.
+ * Use {@link #isOn()} and {@link #isOn(Level)} on hot paths; they are a
+ * volatile read and a compare, no lock and no boxing. The print methods
+ * check it first, use the Supplier variations so that nothing is
+ * formatted when the option is off.
+ * </p>
  * 
  * @author Ernie Rael <err at raelity.com>
  */
 abstract public class DebugOption extends EnumOption<String>
 {
+    private static final int OFF = Level.OFF.intValue();
+    private static final int SEVERE = Level.SEVERE.intValue();
+
+    /** Level.intValue of the option; OFF is Integer.MAX_VALUE */
+    private volatile int levelValue;
 
     public DebugOption(String key, String defaultValue,
                               Validator<String> validator, String[] enumValues)
     {
         super(key, defaultValue, validator, enumValues);
+        // the subclass sets the level, the option has no value yet
+        levelValue = OFF;
+    }
+
+    /** Subclasses invoke this whenever the option's value changes. */
+    protected final void setLevel(Level level)
+    {
+        levelValue = level.intValue();
+    }
+
+    /** @return true if the option is not OFF */
+    public final boolean isOn()
+    {
+        return levelValue <= SEVERE;
     }
 
+    /** @return true if messages at the level are output */
+    public final boolean isOn(Level level)
+    {
+        int v = levelValue;
+        return v != OFF && level.intValue() >= v;
+    }
+
+    /** Prefer {@link #isOn()}. */
     @Override
-    abstract public Boolean getBoolean();
+    public final Boolean getBoolean()
+    {
+        return isOn();
+    }
 
-    abstract public boolean getBoolean(Level level);
+    /** Same as {@link #isOn(Level)}. */
+    public final boolean getBoolean(Level level)
+    {
+        return isOn(level);
+    }
 
     @SuppressWarnings("UseOfSystemOutOrSystemErr")
     protected void doPrintln(String fmt, Object... args)
@@ -67,49 +108,49 @@ abstract public class DebugOption extends EnumOption<String>
 
     public void println(String s, Object... args)
     {
-        if(getBoolean())
+        if(isOn())
             doPrintln(s, args);
     }
 
     public void println(Level level, String s, Object... args)
     {
-        if(getBoolean(level))
+        if(isOn(level))
             doPrintln(s, args);
     }
 
     public void printf(String format, Object... args)
     {
-        if(getBoolean())
+        if(isOn())
             doPrintf(format, args);
     }
 
     public void printf(Level level, String format, Object... args)
     {
-        if(getBoolean(level))
+        if(isOn(level))
             doPrintf(format, args);
     }
 
     public void println(Supplier<String> sup)
     {
-        if(getBoolean())
+        if(isOn())
             doPrintln(sup.get());
     }
 
     public void println(Level level, Supplier<String> sup)
     {
-        if(getBoolean(level))
+        if(isOn(level))
             doPrintln(sup.get());
     }
 
     public void printf(Supplier<String> sup)
     {
-        if(getBoolean())
+        if(isOn())
             doPrintf(sup.get());
     }
 
     public void printf(Level level, Supplier<String> sup)
     {
-        if(getBoolean(level))
+        if(isOn(level))
             doPrintf(sup.get());
     }
 
@@ -311,32 +311,25 @@ public class OptUtil {
     }
   }
 
+  /**
+   * Publish the option's value in the global options snapshot,
+   * the G fields pick it up on the EDT; once started, just before
+   * the returned event is fired, see OptionEvent.qPut.
+   */
   static OptionEvent.Change intializeGlobalOptionMemoryValue(Option<?> opt)
   {
     VimOption vopt = VimOption.get(opt.getName());
     if(vopt == null || !vopt.isGlobal())
       return null;
-    try {
-      Field f = G.class.getDeclaredField(vopt.getVarName());
-      f.setAccessible(true);
-      Object oldValue = f.get(null);
-      if(f.getType() == int.class
-              || f.getType() == boolean.class
-              || f.getType() == String.class
-              || f.getType() == Color.class
-              || f.getType() == EnumSet.class)
-        f.set(null, opt.getValue());
-      else
-        throw new IllegalArgumentException("option " + opt.getName());
-
-      G.dbgOptions().printf(FINE, () ->
-              sf("Init G.%s to '%s'\n", vopt.getVarName(), opt.getValue()));
-      return new OptionEvent.Global(opt.getName(), oldValue, opt.getValue());
-    } catch(IllegalArgumentException | IllegalAccessException
-            | NoSuchFieldException | SecurityException ex) {
-      Logger.getLogger(OptUtil.class.getName()).log(SEVERE, null, ex);
-    }
-    return null;
+    Object value = opt.getValue();
+    Object oldValue = OptionSnapshot.get().get(vopt.getVarName());
+    OptionSnapshot.publish(vopt.getVarName(), value);
+    if(!started)
+      G.syncOptions();
+
+    G.dbgOptions().printf(FINE, () ->
+            sf("Init G.%s to '%s'\n", vopt.getVarName(), value));
+    return new OptionEvent.Global(opt.getName(), oldValue, value);
   }
 
   public static void verifyVimOptions() {
@@ -67,7 +67,8 @@ public abstract class Option<T> {
     final protected String name;
     final protected T defaultValue;
     final protected Validator<T> validator;
-    private T value;
+    /** written holding the lock, read without it */
+    private volatile T value;
 
     private String displayName;
     private String desc;
@@ -152,7 +153,7 @@ public abstract class Option<T> {
         preferenceChange(OptUtil.getPrefs().get(name, getValueAsString(defaultValue)));
     }
 
-    synchronized final public T getValue() {
+    final public T getValue() {
         return value;
     }
 
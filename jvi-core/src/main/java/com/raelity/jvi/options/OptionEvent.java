@@ -58,9 +58,20 @@ static void qPut(Runnable r)
         toRun.offer(r);
 }
 
+/**
+ * A Global event is fired after G has the new value; the listeners
+ * see the same value in G and in the event.
+ */
 static void qPut(Change ev)
 {
-    if(OptUtil.isStarted() && ev != null)
+    if(!OptUtil.isStarted() || ev == null)
+        return;
+    if(ev instanceof Global)
+        qPut(() -> ViManager.runInDispatch(false, () -> {
+            G.syncOptions();
+            fireOptionEvent(ev);
+        }));
+    else
         qPut(() -> fireOptionEvent(ev));
 }
 
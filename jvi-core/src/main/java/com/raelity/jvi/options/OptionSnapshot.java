@@ -0,0 +1,131 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.options;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * The in memory values of the global options, the G.p_xxx values,
+ * keyed by {@link VimOption#getVarName()}. A snapshot never changes;
+ * when an option is changed, from the dialog, a preference change
+ * or a set command, a new snapshot is published through a volatile
+ * reference. Any thread can look at {@link #get()} without locking.
+ * <p>
+ * The core's command loop copies a new snapshot into the G fields,
+ * see G.syncOptions, on the EDT. So the fields are only written on the
+ * EDT, and a keystroke pays a volatile read to check for a change.
+ * </p>
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public final class OptionSnapshot
+{
+    private static volatile OptionSnapshot current
+            = new OptionSnapshot(Collections.emptyMap(), 0);
+
+    private final Map<String, Object> values;
+    private final int version;
+
+    private OptionSnapshot(Map<String, Object> values, int version)
+    {
+        this.values = values;
+        this.version = version;
+    }
+
+    /** @return the latest snapshot */
+    public static OptionSnapshot get()
+    {
+        return current;
+    }
+
+    /**
+     * Publish a snapshot with the new value for the variable.
+     * @return the new snapshot
+     */
+    static synchronized OptionSnapshot publish(String varName, Object value)
+    {
+        OptionSnapshot s = current;
+        if(s.values.containsKey(varName)
+                && Objects.equals(s.values.get(varName), value))
+            return s;
+        Map<String, Object> m = new HashMap<>(s.values);
+        m.put(varName, value);
+        s = new OptionSnapshot(Collections.unmodifiableMap(m), s.version + 1);
+        current = s;
+        return s;
+    }
+
+    /** @return incremented each time a snapshot is published */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /** @return the value of the variable, null if not set */
+    public Object get(String varName)
+    {
+        return values.get(varName);
+    }
+
+    /** @return the value, false if not set */
+    public boolean getBoolean(String varName)
+    {
+        Object v = values.get(varName);
+        return v != null && (Boolean)v;
+    }
+
+    /** @return the value, 0 if not set */
+    public int getInteger(String varName)
+    {
+        Object v = values.get(varName);
+        return v == null ? 0 : (Integer)v;
+    }
+
+    public String getString(String varName)
+    {
+        return (String)values.get(varName);
+    }
+
+    /**
+     * Report the variables whose value differs from the previous
+     * snapshot; everything if prev is null.
+     */
+    public void forEachChange(OptionSnapshot prev,
+                              BiConsumer<String, Object> action)
+    {
+        values.forEach((varName, value) -> {
+            if(prev == null || !prev.values.containsKey(varName)
+                    || !Objects.equals(prev.values.get(varName), value))
+                action.accept(varName, value);
+        });
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OptionSnapshot{version=" + version
+                + ", size=" + values.size() + "}";
+    }
+}
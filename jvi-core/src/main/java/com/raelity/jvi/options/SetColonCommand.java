@@ -245,9 +245,12 @@ public class SetColonCommand extends AbstractColonAction
             G.dbgOptions().printf(CONFIG, () -> sf("SET %s%s to '%s'\n",
                     vopt.isGlobal() ? "G." : "", vopt.getVarName(), newValueF));
             Object oldValue = null;
-            if(vopt.isGlobal())
-                oldValue = voptState.f.get(voptState.bag);
-            voptState.f.set(voptState.bag, newValue);
+            if(vopt.isGlobal()) {
+                oldValue = voptState.curValue;
+                OptionSnapshot.publish(vopt.getVarName(), newValue);
+                G.syncOptions();
+            } else
+                voptState.f.set(voptState.bag, newValue);
             // NEEDSWORK: fire something if local is set?
             if (vopt.isLocal()) {
                 voptState.bag.viOptionSet(G.curwin(), vopt);
@@ -307,7 +310,9 @@ public class SetColonCommand extends AbstractColonAction
                     : voptState.bag.getClass().getField(vopt.varName);
             voptState.f.setAccessible(true);
             voptState.type = voptState.f.getType();
-            voptState.curValue = voptState.f.get(voptState.bag);
+            voptState.curValue = vopt.isGlobal()
+                    ? OptionSnapshot.get().get(vopt.varName)
+                    : voptState.f.get(voptState.bag);
         } catch(NoSuchFieldException | SecurityException
                 | IllegalArgumentException | IllegalAccessException ex) {
             LOG.log(Level.SEVERE, null, ex);
@@ -202,6 +202,7 @@ public final class VimOption {
 final private static VimOption[] vopts = new VimOption[]{
     // SORTED ALPHABETICALLY, BEFORE F.HIDE
 new VimOption("backspace",   "bs",   backspace,       S.P_GBL, nullF),
+new VimOption("bufsearch",   "bfs",  bufferSearch,    S.P_GBL, nullF),
 new VimOption("clipboard",   "cb",   clipboard,       S.P_GBL, EnumSet.of(F.COMMA, F.NODUP)),
 new VimOption("closedfiles", "",     closedFiles,     S.P_GBL, nullF),
 new VimOption("cpo_j",       "",     endOfSentence,   S.P_GBL, EnumSet.of(F.HIDE)),
@@ -213,6 +214,7 @@ new VimOption("equalprg",    "ep",   equalProgram,    S.P_GBL, nullF),
 new VimOption("expandtab",   "et",   expandTabs,      S.P_BUF, nullF),
 new VimOption("foldopen",    "fdo",  foldOpen,        S.P_GBL, EnumSet.of(F.COMMA, F.NODUP)),
 new VimOption("formatprg",   "fp",   formatProgram,   S.P_GBL, nullF),
+new VimOption("globalparallel","gpl",globalParallel, S.P_GBL, nullF),
 new VimOption("history",     "hi",   history,         S.P_GBL, nullF),
 new VimOption("hlsearch",    "hls",  highlightSearch, S.P_GBL, nullF),
 new VimOption("ignorecase",  "ic",   ignoreCase,      S.P_GBL, nullF),
@@ -226,6 +228,7 @@ new VimOption("modeline",    "ml",   modeline,        S.P_GBL, nullF),
 new VimOption("modelines",   "mls",  modelines,       S.P_GBL, nullF),
 new VimOption("number",      "nu",   number,          S.P_WIN, nullF),
 new VimOption("nrformats",   "nf",   nrFormats,       S.P_BUF, EnumSet.of(F.COMMA, F.NODUP)),
+new VimOption("patterncache","pch", patternCache,    S.P_GBL, nullF),
 new VimOption("platformbrace","pbm", platformBraceMatch,S.P_GBL,EnumSet.of(F.HIDE)),
 new VimOption("report",      "",     report,          S.P_GBL, nullF),
 new VimOption("rocursorcolor","rocc",roCursorColor,   S.P_GBL, nullF),
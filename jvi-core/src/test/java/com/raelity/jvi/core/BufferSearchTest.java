@@ -0,0 +1,129 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.raelity.jvi.core.Search.BufferSearch;
+import com.raelity.jvi.core.Search.SearchText;
+import com.raelity.jvi.lib.RegExp;
+
+import static com.raelity.jvi.core.lib.Constants.*;
+
+/**
+ * The whole buffer search must find what the line at a time
+ * search finds; a match only spans lines for an explicit newline.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class BufferSearchTest
+{
+    private static final String TEXT = "ab x\ncd\nxab\n";
+
+    private static class StringText implements SearchText
+    {
+        private final String text;
+        private final List<Integer> starts = new ArrayList<>();
+
+        StringText(String text)
+        {
+            this.text = text;
+            starts.add(0);
+            for(int i = text.indexOf('\n'); i >= 0 && i + 1 < text.length();
+                    i = text.indexOf('\n', i + 1))
+                starts.add(i + 1);
+        }
+
+        @Override public CharSequence chars() { return text; }
+        @Override public int lineCount() { return starts.size(); }
+        @Override public int lineNumber(int offset)
+        {
+            int lnum = 1;
+            while(lnum < starts.size() && starts.get(lnum) <= offset)
+                lnum++;
+            return lnum;
+        }
+        @Override public int lineStart(int lnum) { return starts.get(lnum - 1); }
+        @Override public int lineEnd(int lnum)
+        {
+            return lnum < starts.size() ? starts.get(lnum) : text.length();
+        }
+        @Override public void breakcheck() { }
+    }
+
+    private static BufferSearch search(String pattern, boolean bufsearch)
+    {
+        RegExp re = RegExp.create();
+        re.compile(pattern, 0);
+        return new BufferSearch(new StringText(TEXT), re, 0, 1, false, true,
+                                bufsearch);
+    }
+
+    /** @return the match as start,end; null if none */
+    private static int[] find(String pattern, int lnum, int col, int dir)
+    {
+        return find(pattern, lnum, col, dir, true);
+    }
+
+    private static int[] find(String pattern, int lnum, int col, int dir,
+                              boolean bufsearch)
+    {
+        BufferSearch bs = search(pattern, bufsearch);
+        return bs.search(lnum, col, dir, 1)
+               ? new int[] { bs.matchStart, bs.matchEnd } : null;
+    }
+
+    @Test
+    public void testWhiteSpaceStaysInLine()
+    {
+        // "x\s*c" would run from line 1 into line 2
+        assertArrayEquals(new int[] { 3, 5 }, find("x\\s*", 1, 0, FORWARD));
+        assertNull(find("x\\s*c", 1, 0, FORWARD));
+    }
+
+    @Test
+    public void testNegatedClassStaysInLine()
+    {
+        // [^y]* stops at the end of the line, including its newline
+        assertArrayEquals(new int[] { 3, 5 }, find("x[^y]*", 1, 0, FORWARD));
+        assertArrayEquals(new int[] { 8, 12 }, find("x[^y]*", 2, 0, FORWARD));
+        assertArrayEquals(new int[] { 3, 5 }, find("x[^y]*", 3, 0, BACKWARD));
+    }
+
+    @Test
+    public void testExplicitNewline()
+    {
+        assertArrayEquals(new int[] { 3, 7 }, find("x\\ncd", 1, 0, FORWARD));
+    }
+
+    @Test
+    public void testLineAtATime()
+    {
+        // without 'bufsearch' only the line's own newline can match
+        assertNull(find("x\\ncd", 1, 0, FORWARD, false));
+        assertArrayEquals(new int[] { 3, 5 },
+                          find("x\\n", 1, 0, FORWARD, false));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The anchors should move like forward bias document positions.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class LineAnchorSetTest
+{
+    private LineAnchorSet anchors;
+
+    @BeforeEach
+    public void setUp()
+    {
+        anchors = new LineAnchorSet(null, 2);
+        for(int offset : new int[] { 0, 10, 10, 20, 30 })
+            anchors.add(offset);
+    }
+
+    private int[] offsets()
+    {
+        int[] a = new int[anchors.size()];
+        for(int i = 0; i < a.length; i++)
+            a[i] = anchors.getOffset(i);
+        return a;
+    }
+
+    @Test
+    public void testInsert()
+    {
+        anchors.docChanged(10, 5, true);
+        assertArrayEquals(new int[] { 0, 15, 15, 25, 35 }, offsets());
+        anchors.docChanged(0, 1, true);
+        assertArrayEquals(new int[] { 1, 16, 16, 26, 36 }, offsets());
+        anchors.docChanged(40, 1, true);
+        assertArrayEquals(new int[] { 1, 16, 16, 26, 36 }, offsets());
+    }
+
+    @Test
+    public void testRemove()
+    {
+        anchors.docChanged(5, 10, false);
+        assertArrayEquals(new int[] { 0, 5, 5, 10, 20 }, offsets());
+        // remove a "line", its start and end anchors are the same
+        anchors.docChanged(5, 5, false);
+        assertArrayEquals(new int[] { 0, 5, 5, 5, 15 }, offsets());
+        anchors.docChanged(0, 15, false);
+        assertArrayEquals(new int[] { 0, 0, 0, 0, 0 }, offsets());
+    }
+
+    @Test
+    public void testAdd()
+    {
+        assertEquals(5, anchors.add(30));
+        assertEquals(6, anchors.size());
+        assertThrows(IllegalArgumentException.class, () -> anchors.add(29));
+        assertThrows(IndexOutOfBoundsException.class,
+                     () -> anchors.getOffset(6));
+    }
+
+    @Test
+    public void testRandom()
+    {
+        // the anchors against offsets adjusted one by one
+        Random r = new Random(17);
+        anchors = new LineAnchorSet(null, 2);
+        int[] model = new int[0];
+        int length = 1000;
+        for(int n = 0; n < 2000; n++) {
+            int op = r.nextInt(5);
+            if(op == 0) {
+                int last = model.length == 0 ? 0 : model[model.length - 1];
+                int offset = last + r.nextInt(length - last + 1);
+                anchors.add(offset);
+                model = Arrays.copyOf(model, model.length + 1);
+                model[model.length - 1] = offset;
+            } else if(op <= 2) {
+                int offset = r.nextInt(length + 1);
+                int len = 1 + r.nextInt(20);
+                anchors.docChanged(offset, len, true);
+                for(int i = 0; i < model.length; i++)
+                    if(model[i] >= offset)
+                        model[i] += len;
+                length += len;
+            } else {
+                int offset = r.nextInt(length);
+                int len = 1 + r.nextInt(Math.min(20, length - offset));
+                anchors.docChanged(offset, len, false);
+                for(int i = 0; i < model.length; i++)
+                    model[i] = model[i] >= offset + len ? model[i] - len
+                               : Math.min(model[i], offset);
+                length -= len;
+            }
+            assertArrayEquals(model, offsets(), "step " + n);
+        }
+    }
+}
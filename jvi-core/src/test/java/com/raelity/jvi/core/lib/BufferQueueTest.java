@@ -0,0 +1,95 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core.lib;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Check the queue against a StringBuilder, with the head moving
+ * around the ring so that the copies wrap.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class BufferQueueTest
+{
+    @Test
+    public void testQueue()
+    {
+        BufferQueue q = new BufferQueue();
+        q.append("bc").addFirst('a').append(12).append('d');
+        assertEquals("abc12d", q.toString());
+        assertEquals('a', q.removeFirst());
+        assertEquals('d', q.removeLast());
+        assertEquals('2', q.getLast());
+        assertEquals('1', q.getLast(1));
+        q.insert(2, "xyz");
+        assertEquals("bcxyz12", q.toString());
+        assertEquals("z12", q.substring(4));
+        assertEquals("cx", q.subSequence(1, 3).toString());
+        assertTrue(q.hasCharAt(6));
+        assertFalse(q.hasCharAt(7));
+        q.setLength(2);
+        assertEquals("bc", q.toString());
+        q.setLength(3);
+        assertEquals("bc\0", q.toString());
+        q.setLength(0);
+        assertFalse(q.hasNext());
+        assertThrows(IndexOutOfBoundsException.class, () -> q.removeFirst());
+    }
+
+    @Test
+    public void testRandom()
+    {
+        Random r = new Random(23);
+        BufferQueue q = new BufferQueue();
+        StringBuilder expect = new StringBuilder();
+        char next = 'a';
+        for(int loop = 0; loop < 20000; loop++) {
+            int op = r.nextInt(6);
+            if(op == 0) {
+                q.addFirst(next);
+                expect.insert(0, next);
+            } else if(op == 1 && expect.length() > 0) {
+                assertEquals(expect.charAt(0), q.removeFirst());
+                expect.deleteCharAt(0);
+            } else if(op == 2 && expect.length() > 0) {
+                assertEquals(expect.charAt(expect.length() - 1),
+                             q.removeLast());
+                expect.setLength(expect.length() - 1);
+            } else if(op == 3) {
+                String s = String.valueOf(next).repeat(r.nextInt(20));
+                q.append(s);
+                expect.append(s);
+            } else {
+                int ix = r.nextInt(expect.length() + 1);
+                String s = String.valueOf(next).repeat(r.nextInt(12));
+                q.insert(ix, s);
+                expect.insert(ix, s);
+            }
+            next = next == 'z' ? 'a' : (char)(next + 1);
+            assertEquals(expect.length(), q.length());
+            assertEquals(expect.toString(), q.toString());
+        }
+    }
+}
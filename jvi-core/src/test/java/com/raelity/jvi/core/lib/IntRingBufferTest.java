@@ -0,0 +1,115 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core.lib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Check the ring against an ArrayList, with the head moving around
+ * the ring so that the moves wrap.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class IntRingBufferTest
+{
+    private static void check(List<Integer> expect, IntRingBuffer ring)
+    {
+        assertEquals(expect.size(), ring.size());
+        int[] a = new int[expect.size()];
+        for(int i = 0; i < a.length; i++)
+            a[i] = expect.get(i);
+        assertArrayEquals(a, ring.toArray());
+    }
+
+    @Test
+    public void testEnds()
+    {
+        IntRingBuffer ring = new IntRingBuffer(8);
+        assertEquals(8, ring.capacity());
+        ring.addLast(2);
+        ring.addFirst(1);
+        ring.addLast(3);
+        assertArrayEquals(new int[] { 1, 2, 3 }, ring.toArray());
+        assertEquals(1, ring.removeFirst());
+        assertEquals(2, ring.get(0));
+        for(int i = 0; i < 20; i++)
+            ring.addFirst(-i);
+        assertEquals(22, ring.size());
+        assertEquals(32, ring.capacity());
+        assertEquals(-19, ring.get(0));
+        assertEquals(3, ring.get(21));
+        assertThrows(IndexOutOfBoundsException.class, () -> ring.get(22));
+    }
+
+    @Test
+    public void testMiddle()
+    {
+        IntRingBuffer ring = new IntRingBuffer(8);
+        for(int i = 0; i < 6; i++)
+            ring.addLast(i);
+        ring.insertGap(2, 3);
+        for(int i = 0; i < 3; i++)
+            ring.set(2 + i, 10 + i);
+        assertArrayEquals(new int[] { 0, 1, 10, 11, 12, 2, 3, 4, 5 },
+                          ring.toArray());
+        ring.delete(4, 4);
+        assertArrayEquals(new int[] { 0, 1, 10, 11, 5 }, ring.toArray());
+        ring.delete(0, 5);
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void testRandom()
+    {
+        Random r = new Random(17);
+        IntRingBuffer ring = new IntRingBuffer(8);
+        List<Integer> expect = new ArrayList<>();
+        int next = 0;
+        for(int loop = 0; loop < 20000; loop++) {
+            int op = r.nextInt(5);
+            if(op == 0) {
+                ring.addFirst(next);
+                expect.add(0, next++);
+            } else if(op == 1 && !expect.isEmpty()) {
+                assertEquals((int)expect.remove(0), ring.removeFirst());
+            } else if(op == 2 || expect.size() < 4) {
+                int offset = r.nextInt(expect.size() + 1);
+                int len = r.nextInt(12);
+                ring.insertGap(offset, len);
+                for(int i = 0; i < len; i++) {
+                    ring.set(offset + i, next);
+                    expect.add(offset + i, next++);
+                }
+            } else {
+                int offset = r.nextInt(expect.size());
+                int len = r.nextInt(Math.min(12, expect.size() - offset) + 1);
+                ring.delete(offset, len);
+                expect.subList(offset, offset + len).clear();
+            }
+            check(expect, ring);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.core.lib;
+
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.raelity.jvi.core.lib.TypeBufMultiCharMapping.TypeBufPeek;
+import com.raelity.jvi.lib.MutableBoolean;
+
+import static com.raelity.jvi.core.lib.Constants.*;
+
+/**
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class MappingTrieTest
+{
+    private static final Mapping abc = new Mapping("\\abc", "x", NORMAL, false);
+    private static final Mapping abd = new Mapping("\\abd", "y", NORMAL, false);
+    private static final Mapping ab = new Mapping("\\ab", "z", INSERT, false);
+    private static final Mapping ab2 = new Mapping("\\ab", "w", VISUAL, false);
+    private static final Mapping q = new Mapping("q", "Q", NORMAL|VISUAL, false);
+
+    private MappingTrie trie;
+    private final MutableBoolean maybe = new MutableBoolean();
+
+    @BeforeEach
+    public void setUp()
+    {
+        trie = new MappingTrie(List.of(abc, abd, ab, ab2, q));
+    }
+
+    /** Upper case chars can not be remapped. */
+    private static TypeBufPeek peek(String s)
+    {
+        return new TypeBufPeek() {
+            @Override
+            public int length()
+            {
+                return s.length();
+            }
+
+            @Override
+            public int charAt(int idx)
+            {
+                char c = s.charAt(idx);
+                return Character.isUpperCase(c) ? -1 : c;
+            }
+        };
+    }
+
+    @Test
+    public void testFull()
+    {
+        assertEquals(5, trie.size());
+        assertSame(abc, trie.lookup(peek("\\abc"), NORMAL, maybe));
+        assertSame(abd, trie.lookup(peek("\\abdxyz"), NORMAL, maybe));
+        assertSame(ab, trie.lookup(peek("\\abc"), INSERT, maybe));
+        assertSame(ab2, trie.lookup(peek("\\abc"), VISUAL, maybe));
+        assertSame(q, trie.lookup(peek("q"), VISUAL, maybe));
+        assertNull(trie.lookup(peek("q"), INSERT, maybe));
+        assertFalse(maybe.getValue());
+        assertNull(trie.lookup(peek("x"), NORMAL, maybe));
+    }
+
+    @Test
+    public void testPartial()
+    {
+        assertNull(trie.lookup(peek("\\a"), NORMAL, maybe));
+        assertTrue(maybe.getValue());
+        assertNull(trie.lookup(peek("\\a"), INSERT, maybe));
+        assertTrue(maybe.getValue());
+        assertNull(trie.lookup(peek("\\ab"), NORMAL, maybe));
+        assertTrue(maybe.getValue());
+        // nothing below for insert
+        assertNull(trie.lookup(peek("\\a"), OP_PENDING, maybe));
+        assertFalse(maybe.getValue());
+        assertNull(trie.lookup(peek("\\ax"), NORMAL, maybe));
+        assertFalse(maybe.getValue());
+        assertNull(trie.lookup(peek(""), NORMAL, maybe));
+        assertFalse(maybe.getValue());
+    }
+
+    @Test
+    public void testNoremap()
+    {
+        assertNull(trie.lookup(peek("Q"), NORMAL, maybe));
+        assertNull(trie.lookup(peek("\\aBc"), NORMAL, maybe));
+        assertFalse(maybe.getValue());
+        assertNull(trie.lookup(peek("\\aB"), NORMAL, maybe));
+        assertFalse(maybe.getValue());
+    }
+}
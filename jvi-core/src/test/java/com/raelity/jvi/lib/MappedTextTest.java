@@ -0,0 +1,144 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.lib;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Check the mapped text, and its line index, against a String.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class MappedTextTest
+{
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        file = Files.createTempFile("jvi", ".txt");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    private MappedText open(String s) throws IOException
+    {
+        Files.write(file, s.getBytes(StandardCharsets.ISO_8859_1));
+        return MappedText.open(file);
+    }
+
+    private static void check(String s, MappedText mt)
+    {
+        assertEquals(s.length(), mt.length());
+        assertEquals(s, mt.getString(0, mt.length()));
+        int line = 0;
+        int maxLength = 0;
+        int start = 0;
+        for(int i = 0; i <= s.length(); i++) {
+            assertEquals(line, mt.getLineOfOffset(i), "offset " + i);
+            if(i == 0 || s.charAt(i - 1) == '\n')
+                assertEquals(i, mt.getLineStart(line), "line " + line);
+            if(i == s.length() || s.charAt(i) == '\n') {
+                maxLength = Math.max(maxLength, i - start);
+                start = i + 1;
+            }
+            if(i < s.length()) {
+                assertEquals(s.charAt(i), mt.charAt(i));
+                if(s.charAt(i) == '\n')
+                    line++;
+            }
+        }
+        assertEquals(line + 1, mt.getLineCount());
+        assertEquals(maxLength, mt.getMaxLineLength());
+    }
+
+    private static String lines(int n)
+    {
+        Random r = new Random(5);
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < n; i++) {
+            for(int k = r.nextInt(20); k > 0; k--)
+                sb.append((char)('a' + r.nextInt(26)));
+            sb.append(r.nextInt(10) == 0 ? "é\n" : "\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testSmall() throws IOException
+    {
+        String s = "one\ntwo\n\nfour\nfive";
+        check(s, open(s));
+        check("", open(""));
+        check("\n", open("\n"));
+    }
+
+    @Test
+    public void testLookupFirst() throws IOException
+    {
+        // lookups, from the end backwards, index as they go
+        String s = lines(1000);
+        MappedText mt = open(s);
+        assertFalse(mt.isIndexed());
+        assertEquals(s.lastIndexOf('\n', s.length() - 2) + 1,
+                     mt.getLineStart(999));
+        assertEquals(500, mt.getLineOfOffset(mt.getLineStart(500)));
+        check(s, mt);
+        assertThrows(IndexOutOfBoundsException.class,
+                     () -> mt.getLineStart(1001));
+    }
+
+    @Test
+    public void testBackground() throws Exception
+    {
+        String s = lines(1000);
+        MappedText mt = open(s);
+        mt.indexInBackground().get();
+        assertTrue(mt.isIndexed());
+        check(s, mt);
+
+        // random order, not near the last line found
+        Random r = new Random(9);
+        for(int i = 0; i < 1000; i++) {
+            int line = r.nextInt(1000);
+            int start = mt.getLineStart(line);
+            assertTrue(start == 0 || s.charAt(start - 1) == '\n');
+            int offset = start + r.nextInt(s.indexOf('\n', start) - start + 1);
+            assertEquals(line, mt.getLineOfOffset(offset));
+            assertEquals(line, mt.getLineOfOffset(start));
+        }
+
+        char[] a = new char[30];
+        mt.getChars(100, 20, a, 10);
+        assertEquals(s.substring(100, 120), new String(a, 10, 20));
+    }
+}
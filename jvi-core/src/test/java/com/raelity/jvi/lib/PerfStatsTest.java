@@ -0,0 +1,91 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.lib;
+
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class PerfStatsTest
+{
+    @AfterEach
+    public void tearDown()
+    {
+        PerfStats.setEnabled(false);
+        PerfStats.reset();
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        assertFalse(PerfStats.isEnabled());
+        long t0 = PerfStats.start();
+        assertEquals(0, t0);
+        PerfStats.Histogram h = PerfStats.histogram("test off", PerfStats.NANOS);
+        h.stop(t0);
+        assertEquals(0, h.getCount());
+    }
+
+    @Test
+    public void testHistogram()
+    {
+        PerfStats.setEnabled(true);
+        PerfStats.Histogram h = PerfStats.histogram("test n", PerfStats.COUNT);
+        assertSame(h, PerfStats.histogram("test n", PerfStats.COUNT));
+        for(int i = 1; i <= 100; i++)
+            h.record(i);
+        assertEquals(100, h.getCount());
+        assertEquals(100, h.getMax());
+        assertEquals(50.5, h.getMean(), 0.001);
+        // power of two buckets, 50 is in 32..63
+        assertEquals(63, h.getPercentile(50));
+        assertEquals(100, h.getPercentile(99));
+        h.record(0);
+        assertEquals(0, h.getPercentile(0));
+
+        PerfStats.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getPercentile(50));
+    }
+
+    @Test
+    public void testReport()
+    {
+        PerfStats.setEnabled(true);
+        PerfStats.histogram("test report", PerfStats.NANOS)
+                .stop(PerfStats.start());
+        PerfStats.Ratio r = PerfStats.ratio("test ratio");
+        r.hit();
+        r.hit();
+        r.hit();
+        r.miss();
+        List<String> l = PerfStats.report();
+        assertEquals("perfstats on", l.get(0));
+        assertTrue(l.stream().anyMatch(s -> s.startsWith("test report")));
+        assertTrue(l.stream().anyMatch(s -> s.startsWith("test ratio")
+                                            && s.contains("(75.0%)")));
+    }
+}
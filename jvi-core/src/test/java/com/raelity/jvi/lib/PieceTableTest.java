@@ -0,0 +1,160 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.lib;
+
+import java.util.Random;
+
+import javax.swing.text.Segment;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Check the piece table against a StringBuilder.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class PieceTableTest
+{
+    private PieceTable pt;
+    private StringBuilder sb;
+
+    @BeforeEach
+    public void setUp()
+    {
+        String s = "one\ntwo\n\nfour\nfive";
+        pt = new PieceTable(s);
+        sb = new StringBuilder(s);
+    }
+
+    private void check()
+    {
+        assertEquals(sb.toString(), pt.toString());
+        assertEquals(sb.length(), pt.length());
+        int line = 0;
+        for(int i = 0; i <= sb.length(); i++) {
+            assertEquals(line, pt.getLineOfOffset(i), "offset " + i);
+            if(i == 0 || sb.charAt(i - 1) == '\n')
+                assertEquals(i, pt.getLineStart(line), "line " + line);
+            if(i < sb.length()) {
+                assertEquals(sb.charAt(i), pt.charAt(i));
+                if(sb.charAt(i) == '\n')
+                    line++;
+            }
+        }
+        assertEquals(line + 1, pt.getLineCount());
+    }
+
+    @Test
+    public void testInitial()
+    {
+        check();
+        assertEquals(1, pt.getPieceCount());
+        pt = new PieceTable();
+        sb.setLength(0);
+        check();
+    }
+
+    @Test
+    public void testInsertRemove()
+    {
+        pt.insert(4, "xx\nyy");
+        sb.insert(4, "xx\nyy");
+        check();
+        pt.remove(2, 6);
+        sb.delete(2, 8);
+        check();
+        pt.insert(0, "\n");
+        sb.insert(0, "\n");
+        check();
+        pt.insert(pt.length(), "end\n");
+        sb.append("end\n");
+        check();
+        pt.remove(0, pt.length());
+        sb.setLength(0);
+        check();
+    }
+
+    @Test
+    public void testTyping()
+    {
+        // typing grows one piece
+        String s = "typed\ntext";
+        for(int i = 0; i < s.length(); i++) {
+            pt.insert(8 + i, s.substring(i, i + 1));
+            sb.insert(8 + i, s.charAt(i));
+        }
+        check();
+        assertEquals(3, pt.getPieceCount());
+    }
+
+    @Test
+    public void testGetText()
+    {
+        Segment seg = new Segment();
+        pt.getText(4, 3, seg);
+        assertEquals("two", seg.toString());
+
+        pt.insert(4, "TWO ");
+        sb.insert(4, "TWO ");
+        pt.getText(2, 8, seg);
+        assertEquals(sb.substring(2, 10), seg.toString());
+
+        seg.setPartialReturn(true);
+        pt.getText(2, 8, seg);
+        assertEquals(sb.substring(2, 4), seg.toString());
+    }
+
+    @Test
+    public void testRandom()
+    {
+        Random r = new Random(17);
+        for(int i = 0; i < 2000; i++) {
+            int offset = r.nextInt(sb.length() + 1);
+            if(r.nextInt(3) == 0 && offset < sb.length()) {
+                int n = r.nextInt(Math.min(10, sb.length() - offset)) + 1;
+                pt.remove(offset, n);
+                sb.delete(offset, offset + n);
+            } else {
+                String s = r.nextBoolean() ? "ab" : "c\nd\n";
+                pt.insert(offset, s);
+                sb.insert(offset, s);
+            }
+            if(i % 100 == 0)
+                check();
+        }
+        check();
+        char[] a = new char[20];
+        pt.getChars(5, 20, a, 0);
+        assertEquals(sb.substring(5, 25), new String(a));
+    }
+
+    @Test
+    public void testRange()
+    {
+        assertThrows(IndexOutOfBoundsException.class,
+                     () -> pt.insert(pt.length() + 1, "x"));
+        assertThrows(IndexOutOfBoundsException.class,
+                     () -> pt.remove(pt.length() - 1, 2));
+        assertThrows(IndexOutOfBoundsException.class,
+                     () -> pt.getLineStart(pt.getLineCount()));
+    }
+}
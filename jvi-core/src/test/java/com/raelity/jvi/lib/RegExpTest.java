@@ -0,0 +1,129 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.lib;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Check the plain string scanner against java.util.regex.
+ */
+public class RegExpTest
+{
+private static final String TEXT
+        = "foo Foo FOO_foo foobar barfoo\n"
+        + "éfoo fooé foo.bar foo*bar (foo) x\n";
+
+public RegExpTest()
+{
+}
+
+/** The way RegExp.search worked before the scanner. */
+private static int[] regexSearch(Pattern pat, char[] input, int start, int len)
+{
+    Matcher m = pat.matcher(new String(input)).region(start, start+len);
+    m.useAnchoringBounds(false);
+    if(!m.find() || m.start() >= start + len)
+        return null;
+    return new int[] { m.start(), m.end() };
+}
+
+private static void check(String pattern, int flags)
+{
+    RegExp re = RegExp.create();
+    re.compile(pattern, flags);
+    assertTrue(re.isLiteral(), pattern);
+    Pattern pat = Pattern.compile(pattern, Pattern.MULTILINE | flags);
+    char[] input = TEXT.toCharArray();
+    for(int start = 0; start < input.length; start++) {
+        for(int end : new int[] { input.length, TEXT.indexOf('\n') + 1,
+                                  start + 6 }) {
+            if(end < start || end > input.length)
+                continue;
+            int[] expect = regexSearch(pat, input, start, end - start);
+            boolean found = re.search(input, start, end - start);
+            String msg = pattern + " " + start + "," + end;
+            assertEquals(expect != null, found, msg);
+            if(found) {
+                assertEquals(expect[0], re.start(0), msg);
+                assertEquals(expect[1], re.end(0), msg);
+                assertEquals(TEXT.substring(expect[0], expect[1]),
+                             re.group(0), msg);
+                assertEquals(0, re.nGroup(), msg);
+            } else
+                assertEquals(-1, re.start(0), msg);
+        }
+    }
+}
+
+@Test
+public void testLiteral()
+{
+    check("foo", 0);
+    check("foo", Pattern.CASE_INSENSITIVE);
+    check("o", 0);
+    check("foo\\.bar", 0);
+    check("foo\\*bar", 0);
+    check("\\(foo\\)", 0);
+}
+
+@Test
+public void testBoundary()
+{
+    check("\\bfoo\\b", 0);
+    check("\\bfoo\\b", Pattern.CASE_INSENSITIVE);
+    check("\\bfoo", 0);
+    check("foo\\b", 0);
+    check("\\b\\(foo\\)", 0);
+}
+
+@Test
+public void testSnapshot()
+{
+    for(String s : new String[] { "foo", "f(o+)" }) {
+        RegExp re = RegExp.create();
+        re.compile(s, 0);
+        char[] input = TEXT.toCharArray();
+        assertTrue(re.search(input, 0, input.length));
+        RegExpResult r = re.snapshotResult();
+        assertTrue(re.search(input, 1, input.length - 1));
+        assertEquals(12, re.start(0), s);
+        assertTrue(r.isMatch(), s);
+        assertEquals(0, r.start(0), s);
+        assertEquals(3, r.end(0), s);
+        assertEquals(re.nGroup(), r.groupCount(), s);
+        assertFalse(re.search(input, 1, 3));
+        assertEquals(-1, re.start(0), s);
+        assertEquals(0, r.start(0), s);
+    }
+}
+
+@Test
+public void testNotLiteral()
+{
+    for(String s : new String[] { "fo*", "f.o", "^foo", "foo$", "\\w+",
+                                  "a\\bc", "(foo)", "foo|bar", "\\b" }) {
+        RegExp re = RegExp.create();
+        re.compile(s, 0);
+        assertFalse(re.isLiteral(), s);
+    }
+}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.options;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.raelity.jvi.core.G;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The global options are copied into G by G.syncOptions, which
+ * has a case for each var name.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class VimOptionTest
+{
+    @Test
+    public void testGlobalsAreSynced()
+    {
+        List<String> missing = new ArrayList<>();
+        for(VimOption vopt : VimOption.getAll()) {
+            if(vopt.isGlobal() && !G.isSyncedOption(vopt.getVarName()))
+                missing.add(vopt.getVarName());
+        }
+        assertEquals(List.of(), missing);
+    }
+}
@@ -29,9 +29,16 @@ import javax.swing.text.Segment;
 
 /**
  * Present up to an entire document as a CharSequence.
- * Note that using the CharSequence to scan an entire document
- * should need at most two Segments. This is because PartialReturn
- * is used and always ask for entire document.
+ * The document is read through a window of at most {@value #CHUNK}
+ * chars, a Segment gotten with PartialReturn, so with a PlainDocument
+ * the chars are usually not copied. When there is a miss going
+ * backwards the new window ends at the char, so a backward scan
+ * is not a miss on every char.
+ * <p>
+ * A subSequence shares the window of the sequence it comes from;
+ * regex scans take lots of subSequences. Use {@link #getChars} to
+ * copy a range, it does not disturb the window.
+ * </p>
  * 
  * @author Ernie Rael <err at raelity.com>
  */
@@ -40,15 +47,12 @@ public class DocumentCharSequence implements CharSequence
     private static final Logger LOG
             = Logger.getLogger(DocumentCharSequence.class.getName());
 
-    private final Document doc;
-    private int start;
-    private int end;
+    /** the most chars in a window */
+    static final int CHUNK = 8 * 1024;
 
-    private int lo = Integer.MAX_VALUE;
-    private int hi;
-    private int adjust;
-    private Segment seg;
-    private int segDocOffset;
+    private final Window w;
+    private final int start;
+    private final int end;
 
     /**
      * Note if 'end' is less than 0, then go to end of file.
@@ -60,16 +64,21 @@ public class DocumentCharSequence implements CharSequence
     {
         LOG.log(Level.FINE, "DocumentCharSequence: start: {0}, end{1}",
                 new Object[]{start, end});
-        this.doc = doc;
+        if(end < 0)
+            end = doc.getLength();
         if(start > end || start < 0 || end > doc.getLength())
             throw new IndexOutOfBoundsException(
                     "[" + start + "," + end + ") not in [0,len)");
+        this.w = new Window(doc);
+        this.start = start;
+        this.end = end;
+    }
+
+    private DocumentCharSequence(Window w, int start, int end)
+    {
+        this.w = w;
         this.start = start;
-        if(end < 0)
-            end = doc.getLength();
         this.end = end;
-        seg = new Segment();
-        seg.setPartialReturn(true);
     }
 
     @Override
@@ -81,52 +90,117 @@ public class DocumentCharSequence implements CharSequence
     @Override
     public char charAt(int index)
     {
-        if(index < lo || index >= hi)
-            getSegment(index);
-        return seg.array[index + adjust];
+        if(index < 0 || index >= length())
+            throw new IndexOutOfBoundsException(
+                    "" + index + " not in [0," + length() + ")");
+        int offset = start + index;
+        if(offset < w.lo || offset >= w.hi)
+            w.fill(offset);
+        return w.seg.array[offset + w.adjust];
     }
 
-    private void getSegment(int idx)
+    /**
+     * Copy chars from this sequence into the destination array,
+     * like {@link String#getChars}.
+     * @param srcBegin index of the first char to copy
+     * @param srcEnd index after the last char to copy
+     * @param dst the destination array
+     * @param dstBegin the start offset in the destination array
+     */
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin)
     {
-        int offset = start + idx;
-        if(idx < 0 || idx >= length())
+        if(srcBegin < 0 || srcBegin > srcEnd || srcEnd > length())
             throw new IndexOutOfBoundsException(
-                    "" + idx + " not in [0," + length() + ")");
-        try {
-            doc.getText(offset, doc.getLength() - offset, seg);
-        } catch(BadLocationException ex) {
-            lo = Integer.MAX_VALUE;
-            RuntimeException rex
-                    = new IndexOutOfBoundsException("BadLocation Exception");
-            rex.initCause(ex);
-            throw rex;
+                    "[" + srcBegin + "," + srcEnd + ") not in [0,"
+                    + length() + ")");
+        Segment s = new Segment();
+        s.setPartialReturn(true);
+        int offset = start + srcBegin;
+        int len = srcEnd - srcBegin;
+        while(len > 0) {
+            w.getText(offset, len, s);
+            System.arraycopy(s.array, s.offset, dst, dstBegin, s.count);
+            offset += s.count;
+            dstBegin += s.count;
+            len -= s.count;
         }
-        LOG.log(Level.FINE, "getSegment: idx: {0}, seg.off: {1}, seg.count: {2}",
-                new Object[]{idx, seg.offset, seg.count});
-        segDocOffset = offset;
-        lo = segDocOffset - start;
-        hi = Math.min(lo + seg.count, end);
-        adjust = seg.offset - lo;
     }
 
     @Override
     public CharSequence subSequence(int start, int end)
     {
-        return new DocumentCharSequence(doc,
-                start + this.start, end + this.start);
+        if(start < 0 || start > end || end > length())
+            throw new IndexOutOfBoundsException(
+                    "[" + start + "," + end + ") not in [0,"
+                    + length() + ")");
+        return new DocumentCharSequence(w, start + this.start, end + this.start);
     }
 
     @Override
     public String toString()
     {
-        String s;
-        try {
-            s = doc.getText(start, end - start);
-        } catch(BadLocationException ex) {
-            LOG.log(Level.SEVERE, null, ex);
-            s = "TOSTRING DOCUMENT EXCEPTION";
+        char[] a = new char[length()];
+        getChars(0, a.length, a, 0);
+        return new String(a);
+    }
+
+    /**
+     * The chars of the document that are at hand, [lo,hi) in document
+     * offsets; seg.array[offset + adjust] is the char at offset.
+     */
+    private static class Window
+    {
+        private final Document doc;
+        private final Segment seg;
+        private int lo = Integer.MAX_VALUE;
+        private int hi;
+        private int adjust;
+
+        Window(Document doc)
+        {
+            this.doc = doc;
+            seg = new Segment();
+            seg.setPartialReturn(true);
+        }
+
+        /** Make the window have the char at offset. */
+        void fill(int offset)
+        {
+            // going backwards, end the window at the offset
+            if(offset < lo && offset + CHUNK > lo) {
+                int from = Math.max(0, offset - CHUNK + 1);
+                set(from, offset + 1 - from);
+                if(offset < hi)
+                    return;
+            }
+            set(offset, Math.min(CHUNK, doc.getLength() - offset));
+        }
+
+        private void set(int offset, int len)
+        {
+            lo = Integer.MAX_VALUE;
+            getText(offset, len, seg);
+            LOG.log(Level.FINE, "fill: offset: {0}, seg.off: {1}, seg.count: {2}",
+                    new Object[]{offset, seg.offset, seg.count});
+            lo = offset;
+            hi = offset + seg.count;
+            adjust = seg.offset - offset;
+        }
+
+        void getText(int offset, int len, Segment s)
+        {
+            try {
+                doc.getText(offset, len, s);
+            } catch(BadLocationException ex) {
+                RuntimeException rex
+                        = new IndexOutOfBoundsException("BadLocation Exception");
+                rex.initCause(ex);
+                throw rex;
+            }
+            if(s.count <= 0)
+                throw new IndexOutOfBoundsException(
+                        "no text at " + offset + ", length " + len);
         }
-        return s;
     }
 
 }
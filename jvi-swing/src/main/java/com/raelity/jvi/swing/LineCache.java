@@ -0,0 +1,215 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import java.util.Arrays;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+import com.raelity.jvi.lib.MySegment;
+import com.raelity.jvi.lib.PerfStats;
+
+/**
+ * A small most recently used cache of line elements and line segments,
+ * by line number. Code that goes back and forth between a few lines,
+ * joining lines, block mode columns, bracket matching, gets a hit.
+ * <p>
+ * When the document changes, only the lines that were changed are
+ * dropped; the line numbers of the cached lines after the change are
+ * shifted. The elements of the other lines are still good, their offsets
+ * track the document. The segments are all dropped since a segment may
+ * share the document's buffer, and the text in the buffer moves around.
+ * </p>
+ */
+final class LineCache
+{
+    /** the number of lines in the cache */
+    static final int SIZE = 8;
+    /** all the caches together, when {@link PerfStats} is on */
+    private static final PerfStats.Ratio elemStats
+            = PerfStats.ratio("line cache elem");
+    private static final PerfStats.Ratio segStats
+            = PerfStats.ratio("line cache seg");
+
+    private final Document doc;
+    /** most recently used first; the line numbers start at 1 */
+    private final int[] lines = new int[SIZE];
+    private final Element[] elems = new Element[SIZE];
+    private final MySegment[] segs = new MySegment[SIZE];
+    private int n;
+
+    /** the last lookup was found in the cache */
+    boolean hit;
+    long elemHits;
+    long elemMisses;
+    long segHits;
+    long segMisses;
+
+    LineCache(Document doc)
+    {
+        this.doc = doc;
+    }
+
+    /** @return the element for the line */
+    Element getElement(int line)
+    {
+        if(find(line)) {
+            elemHits++;
+            if(PerfStats.isEnabled())
+                elemStats.hit();
+        } else {
+            elemMisses++;
+            if(PerfStats.isEnabled())
+                elemStats.miss();
+            add(line, doc.getDefaultRootElement().getElement(line - 1));
+        }
+        return elems[0];
+    }
+
+    /**
+     * The segment is shared, it must not be changed.
+     * @return the segment for the line
+     */
+    MySegment getSegment(int line) throws BadLocationException
+    {
+        getElement(line);
+        if(segs[0] != null) {
+            segHits++;
+            if(PerfStats.isEnabled())
+                segStats.hit();
+            hit = true;
+            return segs[0];
+        }
+        segMisses++;
+        if(PerfStats.isEnabled())
+            segStats.miss();
+        hit = false;
+        Element elem = elems[0];
+        MySegment seg = new MySegment();
+        doc.getText(elem.getStartOffset(),
+                    elem.getEndOffset() - elem.getStartOffset(), seg);
+        seg.docOffset = elem.getStartOffset();
+        seg.first();
+        segs[0] = seg;
+        return seg;
+    }
+
+    /** @return the cached line that contains the offset, else 0 */
+    int getLine(int offset)
+    {
+        for(int i = 0; i < n; i++) {
+            if(elems[i].getStartOffset() <= offset
+                    && offset < elems[i].getEndOffset())
+                return lines[i];
+        }
+        return 0;
+    }
+
+    /** @return the most recently used element, null if none */
+    Element getCurrent()
+    {
+        return n > 0 ? elems[0] : null;
+    }
+
+    /** @return the line number of the most recently used element */
+    int getCurrentLine()
+    {
+        return n > 0 ? lines[0] : 0;
+    }
+
+    /**
+     * Adjust for a document change, see
+     * {@link SwingBuffer.LineChangeListener#linesChanged}.
+     */
+    void linesChanged(int firstLine, int lastLine, int lineDelta)
+    {
+        int oldLastLine = lastLine - lineDelta;
+        int j = 0;
+        for(int i = 0; i < n; i++) {
+            int line = lines[i];
+            if(line >= firstLine && line <= oldLastLine)
+                continue;
+            lines[j] = line > oldLastLine ? line + lineDelta : line;
+            elems[j] = elems[i];
+            j++;
+        }
+        for(int i = j; i < n; i++)
+            elems[i] = null;
+        n = j;
+        Arrays.fill(segs, null);
+    }
+
+    void clear()
+    {
+        Arrays.fill(elems, null);
+        Arrays.fill(segs, null);
+        n = 0;
+    }
+
+    /** If the line is cached, move it to the front. */
+    private boolean find(int line)
+    {
+        for(int i = 0; i < n; i++) {
+            if(lines[i] == line) {
+                if(i != 0) {
+                    Element elem = elems[i];
+                    MySegment seg = segs[i];
+                    shift(i);
+                    lines[0] = line;
+                    elems[0] = elem;
+                    segs[0] = seg;
+                }
+                hit = true;
+                return true;
+            }
+        }
+        hit = false;
+        return false;
+    }
+
+    /** Add to the front, the least recently used may be dropped. */
+    private void add(int line, Element elem)
+    {
+        if(n < SIZE)
+            n++;
+        shift(n - 1);
+        lines[0] = line;
+        elems[0] = elem;
+        segs[0] = null;
+    }
+
+    /** Move [0,i) up one, overwriting i. */
+    private void shift(int i)
+    {
+        System.arraycopy(lines, 0, lines, 1, i);
+        System.arraycopy(elems, 0, elems, 1, i);
+        System.arraycopy(segs, 0, segs, 1, i);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LineCache{elem hit/miss " + elemHits + "/" + elemMisses
+                + ", seg hit/miss " + segHits + "/" + segMisses + "}";
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Shape;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.PlainView;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+import javax.swing.undo.UndoableEdit;
+
+import com.raelity.jvi.lib.MappedText;
+
+/**
+ * A read only document of a memory mapped file, see {@link MappedText}.
+ * It is for looking at, searching and yanking from, files that are too
+ * big to read into a PlainDocument. A line element is made when it is
+ * asked for, from the sparse line index; the text of a line is decoded
+ * when it is asked for.
+ * <p>
+ * The document can not be changed, insertString and remove throw
+ * BadLocationException; the editor should be made not editable, so
+ * jVi reports the edit commands as read only errors.
+ * </p><p>
+ * Use {@link Kit} for the editor, its view does not look at every line
+ * to find the widest. Finding the number of lines needs the whole
+ * file indexed, {@link MappedText#indexInBackground} first.
+ * </p>
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+@SuppressWarnings("serial")
+public class MappedFileDocument extends AbstractDocument
+{
+    /** the most chars given by a partial return getText */
+    private static final int MAX_SEGMENT = 64 * 1024;
+
+    private final MappedText text;
+    private final LineRoot root = new LineRoot();
+
+    /**
+     * Map the file; the title property is set to the path.
+     * @param path the file
+     * @throws IOException if the file can not be mapped
+     */
+    public MappedFileDocument(Path path) throws IOException
+    {
+        this(MappedText.open(path));
+    }
+
+    public MappedFileDocument(MappedText text)
+    {
+        super(new MappedContent(text));
+        this.text = text;
+        putProperty(PlainDocument.tabSizeAttribute, 8);
+        putProperty(Document.TitleProperty, text.getPath());
+    }
+
+    public MappedText getMappedText()
+    {
+        return text;
+    }
+
+    @Override
+    public Element getDefaultRootElement()
+    {
+        return root;
+    }
+
+    @Override
+    public Element getParagraphElement(int pos)
+    {
+        return root.getElement(root.getElementIndex(pos));
+    }
+
+    @Override
+    public void insertString(int offs, String str, AttributeSet a)
+            throws BadLocationException
+    {
+        throw new BadLocationException("read only", offs);
+    }
+
+    @Override
+    public void remove(int offs, int len) throws BadLocationException
+    {
+        throw new BadLocationException("read only", offs);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //
+    // The elements
+    //
+
+    /** The root, its children are the lines; made as needed. */
+    private class LineRoot extends AbstractElement
+    {
+        @Override
+        public Element getParentElement()
+        {
+            return null;
+        }
+
+        @Override
+        public String getName()
+        {
+            return ParagraphElementName;
+        }
+
+        @Override
+        public int getStartOffset()
+        {
+            return 0;
+        }
+
+        @Override
+        public int getEndOffset()
+        {
+            return text.length() + 1;
+        }
+
+        @Override
+        public int getElementIndex(int offset)
+        {
+            return text.getLineOfOffset(
+                    Math.max(0, Math.min(offset, text.length())));
+        }
+
+        /** The content's final '\n' ends the last line. */
+        @Override
+        public int getElementCount()
+        {
+            return text.getLineCount();
+        }
+
+        @Override
+        public Element getElement(int index)
+        {
+            if(index < 0 || index >= getElementCount())
+                return null;
+            int start = text.getLineStart(index);
+            int end = index + 1 < getElementCount()
+                      ? text.getLineStart(index + 1) : text.length() + 1;
+            return new Line(start, end);
+        }
+
+        @Override
+        public boolean isLeaf()
+        {
+            return false;
+        }
+    }
+
+    private class Line extends AbstractElement
+    {
+        private final int start;
+        private final int end;
+
+        Line(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Element getParentElement()
+        {
+            return root;
+        }
+
+        @Override
+        public String getName()
+        {
+            return ContentElementName;
+        }
+
+        @Override
+        public int getStartOffset()
+        {
+            return start;
+        }
+
+        @Override
+        public int getEndOffset()
+        {
+            return end;
+        }
+
+        @Override
+        public int getElementIndex(int offset)
+        {
+            return -1;
+        }
+
+        @Override
+        public int getElementCount()
+        {
+            return 0;
+        }
+
+        @Override
+        public Element getElement(int index)
+        {
+            return null;
+        }
+
+        @Override
+        public boolean isLeaf()
+        {
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Line[" + start + "," + end + "]";
+        }
+    }
+
+    private abstract class AbstractElement implements Element
+    {
+        @Override
+        public Document getDocument()
+        {
+            return MappedFileDocument.this;
+        }
+
+        @Override
+        public AttributeSet getAttributes()
+        {
+            return SimpleAttributeSet.EMPTY;
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //
+    // The content
+    //
+
+    /**
+     * The text of the file followed by a '\n'. Nothing moves, so a
+     * position is just an offset.
+     */
+    private static class MappedContent implements AbstractDocument.Content
+    {
+        private final MappedText text;
+
+        MappedContent(MappedText text)
+        {
+            this.text = text;
+        }
+
+        @Override
+        public Position createPosition(int offset) throws BadLocationException
+        {
+            if(offset < 0 || offset > length())
+                throw new BadLocationException("createPosition", offset);
+            return () -> offset;
+        }
+
+        @Override
+        public int length()
+        {
+            return text.length() + 1;
+        }
+
+        @Override
+        public UndoableEdit insertString(int where, String str)
+                throws BadLocationException
+        {
+            throw new BadLocationException("read only", where);
+        }
+
+        @Override
+        public UndoableEdit remove(int where, int nitems)
+                throws BadLocationException
+        {
+            throw new BadLocationException("read only", where);
+        }
+
+        @Override
+        public String getString(int where, int len) throws BadLocationException
+        {
+            Segment seg = new Segment();
+            getChars(where, len, seg);
+            return seg.toString();
+        }
+
+        /**
+         * The chars are decoded into a new array; with partial return,
+         * at most {@value #MAX_SEGMENT} chars.
+         */
+        @Override
+        public void getChars(int where, int len, Segment txt)
+                throws BadLocationException
+        {
+            if(where < 0 || len < 0 || where + len > length())
+                throw new BadLocationException("getChars", where + len);
+            if(txt.isPartialReturn())
+                len = Math.min(len, MAX_SEGMENT);
+            char[] a = new char[len];
+            int n = Math.min(len, text.length() - where);
+            text.getChars(where, n, a, 0);
+            if(n < len)
+                a[n] = '\n';
+            txt.array = a;
+            txt.offset = 0;
+            txt.count = len;
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //
+    // The editor kit
+    //
+
+    /**
+     * An editor kit for a MappedFileDocument. The PlainView finds the
+     * widest line when it is first sized, looking at the text of every
+     * line; the view here uses the length of the longest line, from the
+     * index, and a fixed char width.
+     */
+    public static class Kit extends DefaultEditorKit
+    {
+        @Override
+        public ViewFactory getViewFactory()
+        {
+            return LargeFileView::new;
+        }
+    }
+
+    private static class LargeFileView extends PlainView
+    {
+        private Font font;
+        private int tabSize;
+        private int tabBase;
+
+        LargeFileView(Element elem)
+        {
+            super(elem);
+        }
+
+        @Override
+        protected void updateMetrics()
+        {
+            Component host = getContainer();
+            Font f = host.getFont();
+            if(font != f) {
+                font = f;
+                metrics = host.getFontMetrics(f);
+                tabSize = getTabSize() * metrics.charWidth('m');
+            }
+        }
+
+        @Override
+        public float getPreferredSpan(int axis)
+        {
+            if(axis != View.X_AXIS)
+                return super.getPreferredSpan(axis);
+            updateMetrics();
+            Document doc = getDocument();
+            int len = doc instanceof MappedFileDocument
+                    ? ((MappedFileDocument)doc).text.getMaxLineLength() : 0;
+            return len * metrics.charWidth('m');
+        }
+
+        @Override
+        public void paint(Graphics g, Shape a)
+        {
+            tabBase = a.getBounds().x;
+            super.paint(g, a);
+        }
+
+        @Override
+        public float nextTabStop(float x, int tabOffset)
+        {
+            if(tabSize == 0)
+                return x;
+            int ntabs = ((int)x - tabBase) / tabSize;
+            return tabBase + ((ntabs + 1) * tabSize);
+        }
+    }
+}
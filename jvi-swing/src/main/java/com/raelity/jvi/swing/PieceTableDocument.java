@@ -0,0 +1,783 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+
+import com.raelity.jvi.lib.PieceTable;
+
+/**
+ * A plain text document for very large files, the text is kept in a
+ * {@link PieceTable}. Use it as the document of a JTextArea, or any
+ * JTextComponent, and a SimpleBuffer, or any SwingBuffer, works with it.
+ * <p>
+ * A PlainDocument keeps an element, with two positions, for every line;
+ * with millions of lines that is a lot of memory, and every edit moves
+ * the positions. Here the line elements come from the piece table's
+ * line index when they are asked for; so line lookup is O(log n) and a
+ * line's segment refers to the piece table, without copying.
+ * </p><p>
+ * A line element tracks the start of its line, like the line elements
+ * of a PlainDocument, until that line is changed. Views that keep an
+ * element for every line, like WrappedPlainView, make an element, and
+ * a position, for every line; use a non wrapping PlainView with large
+ * files.
+ * </p>
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+@SuppressWarnings("serial")
+public class PieceTableDocument extends AbstractDocument
+{
+    private final PieceTable table;
+    private final LineRoot root = new LineRoot();
+
+    public PieceTableDocument()
+    {
+        this(new PieceTable());
+    }
+
+    /**
+     * The document takes ownership of the array, it must not be changed.
+     * There is no undo for the initial text.
+     * @param text the initial text
+     * @param length number of chars of text
+     */
+    public PieceTableDocument(char[] text, int length)
+    {
+        this(new PieceTable(text, length));
+    }
+
+    private PieceTableDocument(PieceTable table)
+    {
+        super(new PieceContent(table));
+        this.table = table;
+        putProperty(PlainDocument.tabSizeAttribute, 8);
+    }
+
+    /** @return the piece table with the text, do not modify */
+    public PieceTable getPieceTable()
+    {
+        return table;
+    }
+
+    @Override
+    public Element getDefaultRootElement()
+    {
+        return root;
+    }
+
+    @Override
+    public Element getParagraphElement(int pos)
+    {
+        return root.getElement(root.getElementIndex(pos));
+    }
+
+    /** New lines, if any, replace the line where the text is inserted. */
+    @Override
+    protected void insertUpdate(DefaultDocumentEvent chng, AttributeSet attr)
+    {
+        int offset = chng.getOffset();
+        int line = table.getLineOfOffset(offset);
+        int nNew = table.getLineOfOffset(offset + chng.getLength()) - line;
+        if(nNew > 0) {
+            int end = table.getLineStart(line + nNew + 1) - chng.getLength();
+            Element[] removed = {
+                new FixedLine(table.getLineStart(line), end)
+            };
+            Element[] added = new Element[nNew + 1];
+            for(int i = 0; i < added.length; i++)
+                added[i] = root.getElement(line + i);
+            chng.addEdit(new LineChange(line, removed, added));
+        }
+        super.insertUpdate(chng, attr);
+    }
+
+    /** Lines that lose their newline are joined into the first line. */
+    @Override
+    protected void removeUpdate(DefaultDocumentEvent chng)
+    {
+        int offset = chng.getOffset();
+        int line = table.getLineOfOffset(offset);
+        int lastLine = table.getLineOfOffset(offset + chng.getLength());
+        if(lastLine > line) {
+            Element[] removed = new Element[lastLine - line + 1];
+            for(int i = 0; i < removed.length; i++) {
+                removed[i] = new FixedLine(table.getLineStart(line + i),
+                                           table.getLineStart(line + i + 1));
+            }
+            Element[] added = { root.getElement(line) };
+            chng.addEdit(new LineChange(line, removed, added));
+        }
+        super.removeUpdate(chng);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //
+    // The elements
+    //
+
+    /** The root, its children are the lines; made as needed. */
+    private class LineRoot implements Element
+    {
+        @Override
+        public Document getDocument()
+        {
+            return PieceTableDocument.this;
+        }
+
+        @Override
+        public Element getParentElement()
+        {
+            return null;
+        }
+
+        @Override
+        public String getName()
+        {
+            return ParagraphElementName;
+        }
+
+        @Override
+        public AttributeSet getAttributes()
+        {
+            return SimpleAttributeSet.EMPTY;
+        }
+
+        @Override
+        public int getStartOffset()
+        {
+            return 0;
+        }
+
+        @Override
+        public int getEndOffset()
+        {
+            return table.length();
+        }
+
+        @Override
+        public int getElementIndex(int offset)
+        {
+            int line = table.getLineOfOffset(
+                    Math.max(0, Math.min(offset, table.length())));
+            return Math.min(line, getElementCount() - 1);
+        }
+
+        /** The content ends with a '\n', there is no line after it. */
+        @Override
+        public int getElementCount()
+        {
+            return table.getLineCount() - 1;
+        }
+
+        /**
+         * The views ask for the same few lines, over and over, as the
+         * text changes; reuse those elements rather than make new ones.
+         */
+        private final LineElement[] recent = new LineElement[8];
+        private int next;
+
+        @Override
+        public Element getElement(int index)
+        {
+            if(index < 0 || index >= getElementCount())
+                return null;
+            int start = table.getLineStart(index);
+            for(LineElement e : recent) {
+                if(e != null && e.getStartOffset() == start)
+                    return e;
+            }
+            LineElement e = new LineElement(start);
+            recent[next] = e;
+            next = (next + 1) % recent.length;
+            return e;
+        }
+
+        @Override
+        public boolean isLeaf()
+        {
+            return false;
+        }
+    }
+
+    private abstract class AbstractLine implements Element
+    {
+        @Override
+        public Document getDocument()
+        {
+            return PieceTableDocument.this;
+        }
+
+        @Override
+        public Element getParentElement()
+        {
+            return root;
+        }
+
+        @Override
+        public String getName()
+        {
+            return ContentElementName;
+        }
+
+        @Override
+        public AttributeSet getAttributes()
+        {
+            return SimpleAttributeSet.EMPTY;
+        }
+
+        @Override
+        public int getElementIndex(int offset)
+        {
+            return -1;
+        }
+
+        @Override
+        public int getElementCount()
+        {
+            return 0;
+        }
+
+        @Override
+        public Element getElement(int index)
+        {
+            return null;
+        }
+
+        @Override
+        public boolean isLeaf()
+        {
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Line[" + getStartOffset() + "," + getEndOffset() + "]";
+        }
+    }
+
+    /**
+     * The position is at the '\n' before the line, so text inserted at
+     * the start of the line does not move it.
+     */
+    private class LineElement extends AbstractLine
+    {
+        private final Position mark;
+        private final boolean atZero;
+
+        LineElement(int start)
+        {
+            atZero = start == 0;
+            mark = ((PieceContent)getContent()).createPos(atZero ? 0 : start - 1);
+        }
+
+        @Override
+        public int getStartOffset()
+        {
+            return atZero ? 0 : mark.getOffset() + 1;
+        }
+
+        @Override
+        public int getEndOffset()
+        {
+            int line = table.getLineOfOffset(getStartOffset());
+            // a stale element, its line was joined into the last line
+            if(line + 1 >= table.getLineCount())
+                return table.length();
+            return table.getLineStart(line + 1);
+        }
+    }
+
+    /** The lines taken out by a change, they do not track the text. */
+    private class FixedLine extends AbstractLine
+    {
+        private final int start;
+        private final int end;
+
+        FixedLine(int start, int end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int getStartOffset()
+        {
+            return start;
+        }
+
+        @Override
+        public int getEndOffset()
+        {
+            return end;
+        }
+    }
+
+    /**
+     * The lines come from the text; so undo and redo of the text
+     * are all that is needed.
+     */
+    private class LineChange extends AbstractUndoableEdit
+            implements DocumentEvent.ElementChange
+    {
+        private final int index;
+        private final Element[] removed;
+        private final Element[] added;
+
+        LineChange(int index, Element[] removed, Element[] added)
+        {
+            this.index = index;
+            this.removed = removed;
+            this.added = added;
+        }
+
+        @Override
+        public Element getElement()
+        {
+            return root;
+        }
+
+        @Override
+        public int getIndex()
+        {
+            return index;
+        }
+
+        @Override
+        public Element[] getChildrenRemoved()
+        {
+            return removed.clone();
+        }
+
+        @Override
+        public Element[] getChildrenAdded()
+        {
+            return added.clone();
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //
+    // The content
+    //
+
+    /**
+     * The positions are kept in offset order, the way GapContent keeps
+     * its marks. There is a gap in position space at the last change;
+     * a position after the gap is stored as its offset plus the gap
+     * length, so a change only moves the positions between it and the
+     * previous change. Changes a line at a time, in either direction,
+     * touch few positions.
+     * <p>
+     * New positions are put in order at the next change, all at once;
+     * looking up many lines, which makes many line elements, is cheap.
+     * Until then, the pending positions that are gone are dropped as
+     * the pending list grows.
+     * The marks of positions that are gone are dropped when enough
+     * have been added since the last time.
+     * </p><p>
+     * As GapContent does, the undo of a remove puts the positions that
+     * were in the removed text back where they were; the same for the
+     * redo of an insert.
+     * </p>
+     */
+    private static class PieceContent implements AbstractDocument.Content
+    {
+        private final PieceTable table;
+        /** the positions, in order, live and dead */
+        private List<Mark> marks = new ArrayList<>();
+        /** positions made since the last change, not in order */
+        private final List<Mark> pending = new ArrayList<>();
+        private static final int PENDING_MIN = 1024;
+        /** prune pending when it is larger */
+        private int pendingLimit = PENDING_MIN;
+        /** marks added since the dead marks were dropped */
+        private int added;
+        /** index of the first mark after the gap */
+        private int gapIndex;
+        private long gapStart;
+        /** larger than any document, inserts make it smaller */
+        private long gapLength = 1L << 40;
+
+        PieceContent(PieceTable table)
+        {
+            this.table = table;
+            // AbstractDocument's content ends with a '\n'
+            table.insert(table.length(), "\n");
+        }
+
+        /**
+         * The marks are in offset order; raw is also in that order,
+         * those after the gap are larger than those before it.
+         */
+        private class Mark
+        {
+            long raw;
+            final WeakReference<Pos> ref;
+
+            Mark(long raw, Pos pos)
+            {
+                this.raw = raw;
+                ref = new WeakReference<>(pos);
+            }
+
+            int offset()
+            {
+                return (int)(raw < gapStart ? raw : raw - gapLength);
+            }
+        }
+
+        private static class Pos implements Position
+        {
+            private Mark mark;
+
+            @Override
+            public int getOffset()
+            {
+                return mark.offset();
+            }
+
+            @Override
+            public String toString()
+            {
+                return "Pos{" + getOffset() + "}";
+            }
+        }
+
+        Position createPos(int offset)
+        {
+            Pos pos = new Pos();
+            pos.mark = new Mark(offset < gapStart ? offset : offset + gapLength,
+                                pos);
+            pending.add(pos.mark);
+            if(pending.size() > pendingLimit)
+                prunePending();
+            return pos;
+        }
+
+        /**
+         * Looking up lines, without an edit, makes a position for each
+         * line element; most are soon gone. Drop those, so a walk over
+         * all the lines of a big file does not keep a mark for every line.
+         */
+        private void prunePending()
+        {
+            pending.removeIf(m -> m.ref.get() == null);
+            pendingLimit = Math.max(2 * pending.size(),
+                                    marks.size() + PENDING_MIN);
+        }
+
+        /** A mark and where it was, for undo. */
+        private record SavedMark(Mark mark, int offset) {}
+
+        /**
+         * Put the pending marks in with the others. If there are many,
+         * or many have been added since the last time, merge them and
+         * drop the marks of positions that are gone.
+         */
+        private void addPending()
+        {
+            if(pending.isEmpty())
+                return;
+            added += pending.size();
+            if(pending.size() <= 16 && added <= marks.size() / 2) {
+                // a few, the usual case, insert them
+                for(Mark m : pending) {
+                    if(m.ref.get() == null)
+                        continue;
+                    int lo = 0;
+                    int hi = marks.size();
+                    while(lo < hi) {
+                        int mid = (lo + hi) >>> 1;
+                        if(marks.get(mid).raw <= m.raw)
+                            lo = mid + 1;
+                        else
+                            hi = mid;
+                    }
+                    marks.add(lo, m);
+                    if(m.raw < gapStart)
+                        gapIndex++;
+                }
+                pending.clear();
+                pendingLimit = marks.size() + PENDING_MIN;
+                return;
+            }
+            pending.sort((m1, m2) -> Long.compare(m1.raw, m2.raw));
+            List<Mark> merged = new ArrayList<>(marks.size() + pending.size());
+            int i = 0;
+            int j = 0;
+            gapIndex = 0;
+            while(i < marks.size() || j < pending.size()) {
+                Mark m = j >= pending.size() || i < marks.size()
+                                && marks.get(i).raw <= pending.get(j).raw
+                         ? marks.get(i++) : pending.get(j++);
+                if(m.ref.get() == null)
+                    continue;
+                if(m.raw < gapStart)
+                    gapIndex++;
+                merged.add(m);
+            }
+            marks = merged;
+            pending.clear();
+            pendingLimit = marks.size() + PENDING_MIN;
+            added = 0;
+        }
+
+        /** Move the gap to the offset. */
+        private void moveGap(int offset)
+        {
+            if(offset > gapStart) {
+                while(gapIndex < marks.size()
+                        && marks.get(gapIndex).offset() < offset) {
+                    marks.get(gapIndex).raw -= gapLength;
+                    gapIndex++;
+                }
+            } else {
+                while(gapIndex > 0 && marks.get(gapIndex - 1).offset() >= offset) {
+                    marks.get(gapIndex - 1).raw += gapLength;
+                    gapIndex--;
+                }
+            }
+            gapStart = offset;
+        }
+
+        @Override
+        public Position createPosition(int offset) throws BadLocationException
+        {
+            if(offset < 0 || offset > table.length())
+                throw new BadLocationException("createPosition", offset);
+            return createPos(offset);
+        }
+
+        @Override
+        public int length()
+        {
+            return table.length();
+        }
+
+        /**
+         * A position at the offset moves with the inserted text,
+         * except at 0; the same as the Swing contents.
+         */
+        @Override
+        public UndoableEdit insertString(int where, String str)
+                throws BadLocationException
+        {
+            if(where < 0 || where > table.length() - 1)
+                throw new BadLocationException("insertString", where);
+            if(str.isEmpty())
+                return null;
+            insert(where, str);
+            return new InsertUndo(where, str);
+        }
+
+        private void insert(int where, String str)
+        {
+            int n = str.length();
+            table.insert(where, str);
+            addPending();
+            moveGap(where);
+            gapStart += n;
+            gapLength -= n;
+            if(where == 0) {
+                // the positions at 0 stay there
+                while(gapIndex < marks.size()
+                        && marks.get(gapIndex).offset() == n) {
+                    marks.get(gapIndex).raw = 0;
+                    gapIndex++;
+                }
+            }
+        }
+
+        @Override
+        public UndoableEdit remove(int where, int nitems)
+                throws BadLocationException
+        {
+            if(where < 0 || nitems < 0 || where + nitems > table.length() - 1)
+                throw new BadLocationException("remove", where);
+            String removed = table.getString(where, nitems);
+            return new RemoveUndo(where, removed, remove(where, removed));
+        }
+
+        /**
+         * The positions in the removed text go to where.
+         * @return the positions that moved, and where they were
+         */
+        private List<SavedMark> remove(int where, String removed)
+        {
+            int nitems = removed.length();
+            table.remove(where, nitems);
+            addPending();
+            moveGap(where);
+            List<SavedMark> saved = new ArrayList<>();
+            long newGapLength = gapLength + nitems;
+            for(int i = gapIndex; i < marks.size(); i++) {
+                Mark m = marks.get(i);
+                int offset = m.offset();
+                if(offset > where + nitems)
+                    break;
+                if(m.ref.get() != null)
+                    saved.add(new SavedMark(m, offset));
+                m.raw = where + newGapLength;
+            }
+            gapLength = newGapLength;
+            return saved;
+        }
+
+        /**
+         * The text at where was put back; the saved positions, that
+         * the insert left at one end of it, go back where they were.
+         */
+        private void restore(int where, int n, List<SavedMark> saved)
+        {
+            if(saved.isEmpty())
+                return;
+            moveGap(where);
+            int end = gapIndex;
+            while(end < marks.size() && marks.get(end).offset() <= where + n)
+                end++;
+            Map<Mark, Integer> offsets = new IdentityHashMap<>();
+            for(int i = gapIndex; i < end; i++)
+                offsets.put(marks.get(i), marks.get(i).offset());
+            for(SavedMark sm : saved) {
+                if(offsets.containsKey(sm.mark))
+                    offsets.put(sm.mark, sm.offset);
+            }
+            // in order by the restored offsets, all after the gap
+            List<Mark> run = marks.subList(gapIndex, end);
+            run.sort((m1, m2) -> Integer.compare(offsets.get(m1),
+                                                 offsets.get(m2)));
+            for(Mark m : run)
+                m.raw = offsets.get(m) + gapLength;
+        }
+
+        @Override
+        public String getString(int where, int len) throws BadLocationException
+        {
+            checkRange(where, len);
+            return table.getString(where, len);
+        }
+
+        @Override
+        public void getChars(int where, int len, Segment txt)
+                throws BadLocationException
+        {
+            checkRange(where, len);
+            table.getText(where, len, txt);
+        }
+
+        private void checkRange(int where, int len) throws BadLocationException
+        {
+            if(where < 0 || len < 0 || where + len > table.length())
+                throw new BadLocationException("Invalid range", where + len);
+        }
+
+        private class InsertUndo extends AbstractUndoableEdit
+        {
+            private final int where;
+            private final String text;
+            /** the positions in the text when it was removed by undo */
+            private List<SavedMark> saved = List.of();
+
+            InsertUndo(int where, String text)
+            {
+                this.where = where;
+                this.text = text;
+            }
+
+            @Override
+            public void undo() throws CannotUndoException
+            {
+                super.undo();
+                if(where + text.length() > table.length() - 1)
+                    throw new CannotUndoException();
+                saved = remove(where, text);
+            }
+
+            @Override
+            public void redo() throws CannotRedoException
+            {
+                super.redo();
+                if(where > table.length() - 1)
+                    throw new CannotRedoException();
+                insert(where, text);
+                restore(where, text.length(), saved);
+                saved = List.of();
+            }
+        }
+
+        private class RemoveUndo extends AbstractUndoableEdit
+        {
+            private final int where;
+            private final String text;
+            /** the positions in the text when it was removed */
+            private List<SavedMark> saved;
+
+            RemoveUndo(int where, String text, List<SavedMark> saved)
+            {
+                this.where = where;
+                this.text = text;
+                this.saved = saved;
+            }
+
+            @Override
+            public void undo() throws CannotUndoException
+            {
+                super.undo();
+                if(where > table.length() - 1)
+                    throw new CannotUndoException();
+                insert(where, text);
+                restore(where, text.length(), saved);
+                saved = List.of();
+            }
+
+            @Override
+            public void redo() throws CannotRedoException
+            {
+                super.redo();
+                if(where + text.length() > table.length() - 1)
+                    throw new CannotRedoException();
+                saved = remove(where, text);
+            }
+        }
+    }
+}
@@ -9,6 +9,8 @@
 
 package com.raelity.jvi.swing;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -62,6 +64,7 @@ abstract public class SwingBuffer extends Buffer
     public SwingBuffer(ViTextView tv) {
         super(tv);
         doc = ((JTextComponent)tv.getEditor()).getDocument();
+        lineCache = new LineCache(doc);
         startDocumentEvents();
     }
 
@@ -88,6 +91,9 @@ abstract public class SwingBuffer extends Buffer
     public void removeShare() {
         super.removeShare();
         if(getShare() == 0) {
+            if(cacheTrace.isOn())
+                cacheTrace.println("close: " + lineCache);
+            lineCache.clear();
             stopDocumentEvents();
             doc = null;
         }
@@ -346,9 +352,14 @@ abstract public class SwingBuffer extends Buffer
     final static private boolean cacheDisabled = false;
     
     public static DebugOption cacheTrace = Options.getDebugOption(Options.dbgCache);
+
+    private final LineCache lineCache;
     
     /** @return the element index from root which contains the offset */
     protected int getElemIndex(int offset) {
+        int line = lineCache.getLine(offset); // CACHE
+        if(line > 0)
+            return line - 1;
         Element root = getDocument().getDefaultRootElement();
         return root.getElementIndex(offset);
     }
@@ -361,34 +372,20 @@ abstract public class SwingBuffer extends Buffer
                 && offset < elem.getEndOffset()) {
             return elem;
         }
-        //Element root = getDocument().getDefaultRootElement();
-        //return root.getElement(root.getElementIndex(offset));
-        int line = getDocument().getDefaultRootElement().getElementIndex(offset) + 1;
-        return getLineElement(line);
+        return getLineElement(getElemIndex(offset) + 1);
     }
 
     ElemCache getElemCache(int offset) {
         getElem(offset);
+        elemCache.line = lineCache.getCurrentLine();
+        elemCache.elem = lineCache.getCurrent();
         return elemCache;
     }
-    
-    /**
-     * The segment cache data. Only used to clone.
-     * count == 0 implies invalid. The cache tag is segment_line.
-     */
-    private final MySegment segment = new MySegment();
-    /** The line number of the segment. The first line is numbered at 1. */
-    private int segment_line;
 
     @Override
     final public int getLineLength(int line) {
-        int len;
-        if(cacheDisabled || segment.count == 0 || segment_line != line) {
-            Element elem = getLineElement(line);
-            len = elem.getEndOffset() - elem.getStartOffset();
-        } else {
-            len = segment.count;
-        }
+        Element elem = getLineElement(line);
+        int len = elem.getEndOffset() - elem.getStartOffset();
         // forget the '\n'
         return len < 1 ? 0 : len - 1;
     }
@@ -396,30 +393,19 @@ abstract public class SwingBuffer extends Buffer
     /** @return the segment for the indicated line */
     @Override
     final public MySegment getLineSegment(int line) {
-        if(cacheDisabled || segment.count == 0 || segment_line != line) {
-            if(cacheTrace.getBoolean())cacheTrace.println("Miss seg: " + line);
-            try {
-                Element elem = getLineElement(line);
-                getDocument().getText(elem.getStartOffset(),
-                        elem.getEndOffset() - elem.getStartOffset(),
-                        segment);
-                segment.docOffset = elem.getStartOffset();
-                segment_line = line;
-                segment.first();
-            } catch(BadLocationException ex) {
-                segment.count = 0;
-                LOG.log(Level.SEVERE, null, ex);
-            }
-        } else {
-            if(cacheTrace.getBoolean())cacheTrace.println("Hit seg: " + line);
+        if(cacheDisabled)
+            lineCache.clear();
+        MySegment segment;
+        try {
+            segment = lineCache.getSegment(line);
+        } catch(BadLocationException ex) {
+            LOG.log(Level.SEVERE, null, ex);
+            return new MySegment();
         }
-        MySegment s = (MySegment)segment.clone();
-        return s;
-    }
-    
-    private void invalidateLineSegment() {
-        if(cacheTrace.getBoolean())cacheTrace.println("Inval seg:");
-        segment.count = 0;
+        if(cacheTrace.isOn())
+            cacheTrace.println((lineCache.hit ? "Hit seg: " : "Miss seg: ")
+                               + line);
+        return (MySegment)segment.clone();
     }
 
     static class ElemCache {
@@ -432,34 +418,30 @@ abstract public class SwingBuffer extends Buffer
     {
         return new DocumentCharSequence(getDocument(), start, end);
     }
+
+    /** a mapped file is too big to copy, however long it is */
+    @Override
+    protected boolean canSnapshot()
+    {
+        return !(getDocument() instanceof MappedFileDocument)
+                && super.canSnapshot();
+    }
     
     private final ElemCache elemCache = new ElemCache();
-    /** the element cache */
-    private Element element;
-    /** the line number corresponding to the element cache (0 based). */
-    private int elementLine;
+
     /** @return the element for the indicated line */
     final public Element getLineElement(int line) {
-        line--;
-        if(cacheDisabled || element == null || elementLine != line) {
-            if(cacheTrace.getBoolean())cacheTrace.println("Miss elem: " + (line+1));
-            element = getDocument().getDefaultRootElement().getElement(line);
-            elementLine = line;
-            elemCache.line = line+1;
-            elemCache.elem = element;
-        } else {
-            if(cacheTrace.getBoolean())cacheTrace.println("Hit elem: " + (line+1));
-        }
-        return element;
+        if(cacheDisabled)
+            lineCache.clear();
+        Element elem = lineCache.getElement(line);
+        if(cacheTrace.isOn())
+            cacheTrace.println((lineCache.hit ? "Hit elem: " : "Miss elem: ")
+                               + line);
+        return elem;
     }
     
     final public Element getCurrentLineElement() {
-        return element;
-    }
-    
-    private void invalidateElement() {
-        if(cacheTrace.getBoolean())cacheTrace.println("Inval elem:");
-        element = null;
+        return lineCache.getCurrent();
     }
 
     //////////////////////////////////////////////////////////////////////
@@ -471,30 +453,120 @@ abstract public class SwingBuffer extends Buffer
 
     private DocumentListener documentListener;
 
+    /**
+     * Notified from the document listener of the lines affected by
+     * a document change. The document can not be modified from
+     * the notification.
+     */
+    public interface LineChangeListener {
+        /**
+         * The old lines firstLine through {@code lastLine - lineDelta}
+         * are now firstLine through lastLine; lines after that are
+         * shifted by lineDelta.
+         * @param firstLine first changed line
+         * @param lastLine last changed line, after the change
+         * @param lineDelta number of lines added, negative if removed
+         */
+        void linesChanged(int firstLine, int lastLine, int lineDelta);
+    }
+
+    private final List<LineChangeListener> lineChangeListeners
+            = new CopyOnWriteArrayList<>();
+
+    public void addLineChangeListener(LineChangeListener l) {
+        lineChangeListeners.add(l);
+    }
+
+    public void removeLineChangeListener(LineChangeListener l) {
+        lineChangeListeners.remove(l);
+    }
+
+    /**
+     * Update the line cache for a document change,
+     * then tell the LineChangeListeners.
+     */
+    private void linesChanged(DocumentEvent e) {
+        Element root = getDocument().getDefaultRootElement();
+        DocumentEvent.ElementChange ec = e.getChange(root);
+        int firstLine;
+        int lastLine;
+        int lineDelta;
+        if(ec == null) {
+            // change within a line
+            firstLine = root.getElementIndex(e.getOffset()) + 1;
+            lastLine = firstLine;
+            lineDelta = 0;
+        } else {
+            int nAdded = ec.getChildrenAdded().length;
+            firstLine = ec.getIndex() + 1;
+            lastLine = firstLine + Math.max(nAdded, 1) - 1;
+            lineDelta = nAdded - ec.getChildrenRemoved().length;
+        }
+        linesChanged(firstLine, lastLine, lineDelta);
+    }
+
+    private void linesChanged(int firstLine, int lastLine, int lineDelta) {
+        if(cacheTrace.isOn())
+            cacheTrace.println(sf("Inval lines: %d-%d delta %d",
+                                  firstLine, lastLine, lineDelta));
+        lineCache.linesChanged(firstLine, lastLine, lineDelta);
+        for(LineChangeListener l : lineChangeListeners) {
+            l.linesChanged(firstLine, lastLine, lineDelta);
+        }
+    }
+
+    private int bulkLineCount;
+
+    @Override
+    protected void bulkEditStart() {
+        super.bulkEditStart();
+        bulkLineCount = getLineCount();
+    }
+
+    /**
+     * One line change notification for all the edits.
+     */
+    @Override
+    protected void bulkEditDone(int start, int oldEnd, int newEnd) {
+        super.bulkEditDone(start, oldEnd, newEnd);
+        lineCache.clear();
+        int lineDelta = getLineCount() - bulkLineCount;
+        int firstLine = getLineNumber(start);
+        int lastLine = getLineNumber(Math.min(newEnd, getLength()));
+        linesChanged(firstLine, Math.max(lastLine, firstLine + lineDelta),
+                     lineDelta);
+    }
+
     // This listener is used for two purposes.
     //      1) Invalidate cached information about the document
     //      2) Provide information for magic redo tracking
     class DocListen implements DocumentListener {
         @Override
         public void changedUpdate(DocumentEvent e) {
-            if(cacheTrace.getBoolean()) {
+            if(cacheTrace.isOn()) {
                 cacheTrace.println("doc changed: " + e.getOffset()
                                    + ":" + e.getLength() + " " + e);
                 // System.err.println("element" + e.getChange());
             }
             // insertUpdate/removeUpdate fire as well so skip this one
-            // invalidateData();
         }
 
         @Override
         public void insertUpdate(DocumentEvent e) {
-            if(cacheTrace.getBoolean())
+            if(cacheTrace.isOn())
                 cacheTrace.println("doc insert: " + e.getOffset()
                                    + ":" + e.getLength() + " " + e);
-            invalidateData();
             if(docChangeInfo != null) {
                 docChangeInfo.setup(true, e);
             }
+            lineAnchorsUpdate(e.getOffset(), e.getLength(), true);
+            if(isBulkEdit()) {
+                // bulkEditDone does the lines and matches
+                lineCache.clear();
+            } else {
+                linesChanged(e);
+                matchIndexUpdate(e.getOffset(), e.getLength(), true);
+            }
             
             // If not in insert mode, then no magic redo tracking
             if(!isInsertMode())
@@ -515,13 +587,20 @@ abstract public class SwingBuffer extends Buffer
         
         @Override
         public void removeUpdate(DocumentEvent e) {
-            if(cacheTrace.getBoolean())
+            if(cacheTrace.isOn())
                 cacheTrace.println("doc remove: " + e.getOffset()
                                    + ":" + e.getLength() + " " + e);
-            invalidateData();
             if(docChangeInfo != null) {
                 docChangeInfo.setup(false, e);
             }
+            lineAnchorsUpdate(e.getOffset(), e.getLength(), false);
+            if(isBulkEdit()) {
+                // bulkEditDone does the lines and matches
+                lineCache.clear();
+            } else {
+                linesChanged(e);
+                matchIndexUpdate(e.getOffset(), e.getLength(), false);
+            }
 
             // If not in insert mode, then no magic redo tracking
             if(!isInsertMode())
@@ -646,12 +725,6 @@ abstract public class SwingBuffer extends Buffer
         //             new FilterListen());
         // }
     }
-  
-    private void invalidateData() {
-        // NEEDSWORK: invalidateCursor(-1);
-        invalidateLineSegment();
-        invalidateElement();
-    }
     
     /**
      * This method can be used to determine information about the
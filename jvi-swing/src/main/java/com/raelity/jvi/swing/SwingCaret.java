@@ -21,6 +21,7 @@ package com.raelity.jvi.swing;
 
 import java.awt.Graphics;
 import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
 import java.awt.event.FocusEvent;
 import java.util.prefs.PreferenceChangeEvent;
 import java.util.prefs.PreferenceChangeListener;
@@ -35,6 +36,7 @@ import org.openide.util.WeakListeners;
 
 import com.raelity.jvi.ViCaret;
 import com.raelity.jvi.ViCaretStyle;
+import com.raelity.jvi.core.GetChar;
 import com.raelity.jvi.core.Options;
 import com.raelity.jvi.manager.Scheduler;
 import com.raelity.jvi.manager.ViManager;
@@ -51,6 +53,8 @@ import com.raelity.jvi.manager.ViManager;
 public class SwingCaret extends DefaultCaret implements ViCaret
 {
     SwingPaintCaret viDelegate;
+    /** caret moved while executing a register, paint it in setCursor */
+    private boolean batchMoved;
 
     public SwingCaret()
     {
@@ -77,6 +81,15 @@ public class SwingCaret extends DefaultCaret implements ViCaret
     public void setCursor(ViCaretStyle cursor)
     {
         viDelegate.setCursor(cursor);
+        if(batchMoved && !GetChar.isBatchExec()) {
+            batchMoved = false;
+            try {
+                Rectangle2D r2 = getComponent().modelToView2D(getDot());
+                if(r2 != null)
+                    damage(r2.getBounds());
+            } catch(BadLocationException ex) {
+            }
+        }
     }
 
     @Override
@@ -88,6 +101,10 @@ public class SwingCaret extends DefaultCaret implements ViCaret
     @Override
     protected synchronized void damage(Rectangle r)
     {
+        if(GetChar.isBatchExec()) {
+            batchMoved = true;
+            return;
+        }
 
         viDelegate.adjustCaretBounds(r, getDotChar(), true);
         if (viDelegate.damage(this, r)) {
@@ -705,7 +705,7 @@ abstract public class SwingFactory implements ViFactory
             JTextComponent target = getTextComponent(e);
             int mod = e.getModifiers();
             char key = basekey;
-            if ( Options.kd().getBoolean() ) {
+            if ( Options.kd().isOn() ) {
                 String virt = ((key & 0xF000) == VIRT) ? "virt" : "";
                 Options.kd().println("KeyAction: "
                         + getValue(Action.NAME).toString()
@@ -0,0 +1,152 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing.simple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A map by line number that follows the document's line changes.
+ * The keys have a gap, like the positions of a gap buffer: the lines
+ * before the gap are stored as is, the lines after it are stored
+ * plus gapLength. A change moves the gap to the change, re-keying
+ * only the entries between the old and the new gap, and then the
+ * line delta is taken out of gapLength; the lines after the change
+ * are shifted without touching them. Changes near each other,
+ * the usual case, are cheap however many entries there are.
+ *
+ * @param <V> the value for a line
+ */
+final class LineShiftMap<V>
+{
+    private final TreeMap<Long, V> map = new TreeMap<>();
+    private long gapStart = 1;
+    /** larger than any line count, adding lines makes it smaller */
+    private long gapLength = 1L << 40;
+
+    private long raw(int line)
+    {
+        return line < gapStart ? line : line + gapLength;
+    }
+
+    private int line(long raw)
+    {
+        return (int)(raw < gapStart ? raw : raw - gapLength);
+    }
+
+    V get(int line)
+    {
+        return map.get(raw(line));
+    }
+
+    boolean containsKey(int line)
+    {
+        return map.containsKey(raw(line));
+    }
+
+    V put(int line, V v)
+    {
+        return map.put(raw(line), v);
+    }
+
+    V remove(int line)
+    {
+        return map.remove(raw(line));
+    }
+
+    boolean isEmpty()
+    {
+        return map.isEmpty();
+    }
+
+    /** @return true if no line first through last is in the map */
+    boolean isEmpty(int first, int last)
+    {
+        return first > last || range(first, last).isEmpty();
+    }
+
+    /** @return the lines, first through last, that are in the map */
+    List<Integer> lines(int first, int last)
+    {
+        List<Integer> l = new ArrayList<>();
+        if(first <= last) {
+            for(long raw : range(first, last).keySet())
+                l.add(line(raw));
+        }
+        return l;
+    }
+
+    void clear()
+    {
+        map.clear();
+    }
+
+    private NavigableMap<Long, V> range(int first, int last)
+    {
+        return map.subMap(raw(first), true, raw(last), true);
+    }
+
+    /**
+     * The old lines firstLine through {@code lastLine - lineDelta}
+     * are now firstLine through lastLine; lines after that are
+     * shifted by lineDelta. The entries of the old changed lines
+     * are dropped.
+     */
+    void linesChanged(int firstLine, int lastLine, int lineDelta)
+    {
+        int oldLastLine = lastLine - lineDelta;
+        if(firstLine <= oldLastLine)
+            range(firstLine, oldLastLine).clear();
+        if(lineDelta == 0)
+            return;
+        moveGap(oldLastLine + 1);
+        gapStart += lineDelta;
+        gapLength -= lineDelta;
+    }
+
+    /** Move the gap to the line, the lines in between change sides. */
+    private void moveGap(int line)
+    {
+        NavigableMap<Long, V> moving;
+        long shift;
+        if(line > gapStart) {
+            moving = map.subMap(gapStart + gapLength, true,
+                                line + gapLength, false);
+            shift = -gapLength;
+        } else {
+            moving = map.subMap((long)line, true, gapStart, false);
+            shift = gapLength;
+        }
+        if(!moving.isEmpty()) {
+            // copies, a TreeMap entry can change when another is removed
+            List<Map.Entry<Long, V>> entries = new ArrayList<>(moving.size());
+            for(Map.Entry<Long, V> e : moving.entrySet())
+                entries.add(Map.entry(e.getKey(), e.getValue()));
+            moving.clear();
+            for(Map.Entry<Long, V> e : entries)
+                map.put(e.getKey() + shift, e.getValue());
+        }
+        gapStart = line;
+    }
+}
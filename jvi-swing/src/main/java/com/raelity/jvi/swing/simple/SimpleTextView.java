@@ -23,8 +23,8 @@ package com.raelity.jvi.swing.simple;
 import java.awt.EventQueue;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.text.AttributeSet;
@@ -39,6 +39,7 @@ import com.google.common.eventbus.Subscribe;
 import com.raelity.jvi.core.*;
 import com.raelity.jvi.manager.*;
 import com.raelity.jvi.options.*;
+import com.raelity.jvi.swing.SwingBuffer;
 import com.raelity.jvi.swing.SwingTextView;
 
 /**
@@ -66,6 +67,8 @@ abstract public class SimpleTextView extends SwingTextView
 
     /**
      * Update the search match highlight.
+     * Only the lines around the viewport are matched, see
+     * {@link #updateHighlightSearchLines}.
      */
     @Override
     public void updateHighlightSearchState()
@@ -75,9 +78,33 @@ abstract public class SimpleTextView extends SwingTextView
                 return;
         setupStyles();
 
-        int[] b = getBuffer()
-                .getHighlightSearchBlocks(0, getBuffer().getLength());
-        highlight(b, Options.searchColor);
+        hlAllStale = true;
+        updateHighlightSearchLines();
+    }
+
+    @Override
+    protected void changeVp(boolean init)
+    {
+        super.changeVp(init);
+        scheduleHighlightSearchLines();
+    }
+
+    @Override
+    public void startup()
+    {
+        super.startup();
+        hlBuffer = getBuffer();
+        if(hlBuffer != null)
+            hlBuffer.addLineChangeListener(hlLineChangeListener);
+    }
+
+    @Override
+    public void shutdown()
+    {
+        if(hlBuffer != null)
+            hlBuffer.removeLineChangeListener(hlLineChangeListener);
+        hlBuffer = null;
+        super.shutdown();
     }
 
 
@@ -216,19 +243,230 @@ abstract public class SimpleTextView extends SwingTextView
 
     }
 
+    //////////////////////////////////////////////////////////////////////
+    //
+    // Search highlight, by line
+    //
+    // The search matches are only found for the lines in and around the
+    // viewport. The highlight columns applied to the document are kept
+    // per line; when the viewport moves, only lines that have not been
+    // seen are matched. When the document changes the changed lines are
+    // dirty, their attributes are unknown; they are cleared and matched
+    // again. Attributes are only set for lines whose highlight changes.
+    // The per line data is kept in LineShiftMaps, a change only re-keys
+    // the lines between it and the previous change. Dirty lines that
+    // are not around the viewport are cleared at the next update.
+    //
+
+    /** lines that have search highlight in the document; columns */
+    private final LineShiftMap<int[]> hlLines = new LineShiftMap<>();
+    /** changed lines, attributes not known */
+    private final LineShiftMap<Boolean> hlDirty = new LineShiftMap<>();
+    /** the lines, in and around the viewport, that are up to date */
+    private int hlFirst;
+    private int hlLast;
+    /** all line highlights must be found again, e.g. new pattern */
+    private boolean hlAllStale = true;
+    private boolean hlUpdatePending;
+    private SwingBuffer hlBuffer;
+    private static final int[] NO_COLUMNS = new int[0];
+
+    private final SwingBuffer.LineChangeListener hlLineChangeListener
+            = this::hlLinesChanged;
+
+    /** Adjust the per line data for a document change. */
+    private void hlLinesChanged(int firstLine, int lastLine, int lineDelta)
+    {
+        int oldLastLine = lastLine - lineDelta;
+        hlLines.linesChanged(firstLine, lastLine, lineDelta);
+        hlDirty.linesChanged(firstLine, lastLine, lineDelta);
+        for(int line = firstLine; line <= lastLine; line++) {
+            hlDirty.put(line, Boolean.TRUE);
+        }
+        // adjust the up to date range, the changed lines are dirty
+        if(hlFirst > oldLastLine)
+            hlFirst += lineDelta;
+        else if(hlFirst > firstLine)
+            hlFirst = firstLine;
+        if(hlLast > oldLastLine)
+            hlLast += lineDelta;
+        else if(hlLast >= firstLine)
+            hlLast = lastLine;
+        // Can not change attributes from a document listener.
+        scheduleHighlightSearchLines();
+    }
+
+    private void scheduleHighlightSearchLines()
+    {
+        if(hlUpdatePending)
+            return;
+        hlUpdatePending = true;
+        EventQueue.invokeLater(() -> {
+            hlUpdatePending = false;
+            if(!isShutdown()
+                    && editorPane.getDocument() instanceof StyledDocument)
+                updateHighlightSearchLines();
+        });
+    }
+
+    /**
+     * Bring the search highlight up to date for the lines in and around
+     * the viewport. If hlAllStale then every line is considered,
+     * otherwise only lines that are not up to date.
+     */
+    private void updateHighlightSearchLines()
+    {
+        setupStyles();
+        int lineCount = getBuffer().getLineCount();
+        int first;
+        int last;
+        if(getViewport() == null) {
+            first = 1;
+            last = lineCount;
+        } else {
+            int vpLines = Math.max(getVpLines(), 1);
+            first = Math.max(1, getVpTopDocumentLine() - vpLines);
+            last = Math.min(lineCount,
+                            getVpTopDocumentLine() + 2 * vpLines);
+        }
+        if(!hlAllStale && first >= hlFirst && last <= hlLast
+                && hlDirty.isEmpty(first, last))
+            return;
+
+        StyledDocument sdoc = (StyledDocument)editorPane.getDocument();
+        AttributeSet noHighlight = sdoc.getStyle(NO_HIGHLIGHT);
+        boolean changed = false;
+
+        if(hlAllStale) {
+            // Nothing outside the range is valid, clear it.
+            List<Integer> stale = hlLines.lines(1, first - 1);
+            stale.addAll(hlLines.lines(last + 1, Integer.MAX_VALUE));
+            for(int line : stale) {
+                if(line <= lineCount)
+                    setColumns(sdoc, line, hlLines.get(line), noHighlight);
+                hlLines.remove(line);
+                changed = true;
+            }
+        }
+        // Clear the dirty lines that are not going to be matched,
+        // they are found again if the viewport gets to them.
+        List<Integer> outside = hlDirty.lines(1, first - 1);
+        outside.addAll(hlDirty.lines(last + 1, Integer.MAX_VALUE));
+        for(int line : outside) {
+            if(line <= lineCount)
+                clearLine(sdoc, line, noHighlight);
+            hlDirty.remove(line);
+            hlLines.remove(line);
+            changed = true;
+        }
+
+        // Find the matches for runs of lines that need them
+        for(int line = first; line <= last; line++) {
+            if(!hlAllStale && line >= hlFirst && line <= hlLast
+                    && !hlDirty.containsKey(line))
+                continue;
+            int runEnd = line;
+            while(runEnd < last && (hlAllStale
+                    || runEnd + 1 < hlFirst || runEnd + 1 > hlLast
+                    || hlDirty.containsKey(runEnd + 1)))
+                runEnd++;
+            changed |= updateLines(sdoc, line, runEnd, noHighlight);
+            line = runEnd;
+        }
+        hlFirst = first;
+        hlLast = last;
+        hlAllStale = false;
+
+        if(changed && !isEmpty(currentSelect)) {
+            // visual select goes on top of search highlight
+            applyHighlight(currentSelect, sdoc.getStyle(Options.selectColor));
+        }
+    }
+
+    /** @return true if any attributes were changed */
+    private boolean updateLines(StyledDocument sdoc, int first, int last,
+                                AttributeSet noHighlight)
+    {
+        SwingBuffer buf = getBuffer();
+        int start = buf.getLineStartOffset(first);
+        int end = Math.min(buf.getLineEndOffset(last), buf.getLength());
+        int[] blocks = buf.getHighlightSearchBlocks(start, end);
+        AttributeSet search = sdoc.getStyle(Options.searchColor);
+        boolean changed = false;
+
+        int idx = 0;
+        for(int line = first; line <= last; line++) {
+            int lineStart = buf.getLineStartOffset(line);
+            int lineEnd = buf.getLineEndOffset(line);
+            // collect the blocks that start in this line, as columns
+            int n = 0;
+            while(blocks[idx + 2 * n] != -1
+                    && blocks[idx + 2 * n] < lineEnd)
+                n++;
+            int[] cols = n == 0 ? NO_COLUMNS : new int[2 * n];
+            for(int i = 0; i < n; i++) {
+                int b0 = blocks[idx + 2 * i];
+                // keep a block within its line
+                int b1 = Math.min(blocks[idx + 2 * i + 1], lineEnd);
+                cols[2 * i] = b0 - lineStart;
+                cols[2 * i + 1] = b1 - lineStart;
+            }
+            idx += 2 * n;
+
+            boolean dirty = hlDirty.remove(line) != null;
+            int[] prev = hlLines.get(line);
+            if(dirty) {
+                clearLine(sdoc, line, noHighlight);
+                changed = true;
+            } else if(!Arrays.equals(prev == null ? NO_COLUMNS : prev, cols)) {
+                if(prev != null)
+                    setColumns(sdoc, line, prev, noHighlight);
+                changed = true;
+            } else
+                continue;
+            setColumns(sdoc, line, cols, search);
+            if(cols.length == 0)
+                hlLines.remove(line);
+            else
+                hlLines.put(line, cols);
+        }
+        return changed;
+    }
+
+    private void setColumns(StyledDocument sdoc, int line, int[] cols,
+                            AttributeSet as)
+    {
+        int lineStart = getBuffer().getLineStartOffset(line);
+        for(int i = 0; i < cols.length; i += 2) {
+            sdoc.setCharacterAttributes(lineStart + cols[i],
+                                        cols[i + 1] - cols[i], as, true);
+        }
+    }
+
+    private void clearLine(StyledDocument sdoc, int line, AttributeSet as)
+    {
+        int lineStart = getBuffer().getLineStartOffset(line);
+        sdoc.setCharacterAttributes(
+                lineStart, getBuffer().getLineEndOffset(line) - lineStart,
+                as, true);
+    }
+
+    //////////////////////////////////////////////////////////////////////
+    //
+    // Visual select highlight
+    //
+
     private boolean isEmpty(int[] a)
     {
         return a == null || a[0] == -1;
     }
 
-    Map<String, int[]> currentHighlights;
+    private int[] currentSelect = new int[]{-1};
 
     private void highlight(int[] blocks, String str)
     {
-        if(currentHighlights == null) {
-            clearCurrentHighlights();
-        }
-        int[] prev = currentHighlights.get(str);
+        assert Options.selectColor.equals(str);
+        int[] prev = currentSelect;
         // if data has not changed, then return
         for (int i = 0; i < prev.length; i++) {
             int j = prev[i];
@@ -237,26 +475,21 @@ abstract public class SimpleTextView extends SwingTextView
             if(j == -1)
                 return; // they are equal
         }
-        currentHighlights.put(str, blocks);
-
-        applyCurentHighlights();
+        currentSelect = blocks;
 
-    }
-
-    private void clearCurrentHighlights() {
-        if(currentHighlights == null) {
-            currentHighlights = new HashMap<>();
-        }
-        currentHighlights.put(Options.selectColor, new int[]{-1});
-        currentHighlights.put(Options.searchColor, new int[]{-1});
-    }
-
-    private void clear() {
         StyledDocument sdoc = (StyledDocument)editorPane.getDocument();
-        AttributeSet as = sdoc.getStyle(NO_HIGHLIGHT);
-        sdoc.setCharacterAttributes(0, getBuffer().getLength(), as, true);
-
-        clearCurrentHighlights();
+        // Take away the old selection, and put back any search highlight
+        // that it covered.
+        applyHighlight(prev, sdoc.getStyle(NO_HIGHLIGHT));
+        AttributeSet search = sdoc.getStyle(Options.searchColor);
+        for (int i = 0; i < prev.length && prev[i] != -1; i += 2) {
+            int l1 = getBuffer().getLineNumber(Math.min(prev[i], prev[i+1]));
+            int l2 = getBuffer().getLineNumber(Math.max(prev[i], prev[i+1]));
+            for(int line : hlLines.lines(l1, l2)) {
+                setColumns(sdoc, line, hlLines.get(line), search);
+            }
+        }
+        applyHighlight(blocks, sdoc.getStyle(Options.selectColor));
     }
 
     private void reApplyHighlight()
@@ -273,11 +506,13 @@ abstract public class SimpleTextView extends SwingTextView
         // first clear our any previous highlights
         sdoc.setCharacterAttributes(0, getBuffer().getLength(),
                                     sdoc.getStyle(NO_HIGHLIGHT), true);
+        hlDirty.clear();
 
-        applyHighlight(currentHighlights.get(Options.searchColor),
-                       sdoc.getStyle(Options.searchColor));
-        applyHighlight(currentHighlights.get(Options.selectColor),
-                       sdoc.getStyle(Options.selectColor));
+        AttributeSet search = sdoc.getStyle(Options.searchColor);
+        for(int line : hlLines.lines(1, Integer.MAX_VALUE)) {
+            setColumns(sdoc, line, hlLines.get(line), search);
+        }
+        applyHighlight(currentSelect, sdoc.getStyle(Options.selectColor));
     }
 
     private void applyHighlight(int[] blocks, AttributeSet as)
@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err at raelity.com>
+ */
+
+package com.raelity.jvi.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JEditorPane;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+
+import com.raelity.jvi.swing.EditorEnv;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replayed insert text is inserted a run at a time, see
+ * GetChar.takeStuffed; the text, the redo buffer and magic redo
+ * are the same as for a char at a time.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class InsertRunTest
+{
+    private static final String ESC = "\u001b";
+
+    private JEditorPane ed;
+    private final List<String> inserts = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp()
+    {
+        ed = EditorEnv.open("one\ntwo\nthree\n", null);
+        ed.getDocument().addDocumentListener(new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                try {
+                    inserts.add(e.getDocument().getText(e.getOffset(),
+                                                        e.getLength()));
+                } catch(BadLocationException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+
+            @Override public void removeUpdate(DocumentEvent e) { }
+            @Override public void changedUpdate(DocumentEvent e) { }
+        });
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        EditorEnv.close(ed);
+    }
+
+    private static String redobuff()
+    {
+        return EditorEnv.edt(GetChar::get_inserted);
+    }
+
+    @Test
+    public void testCountRedo()
+    {
+        EditorEnv.type(ed, "3ifoo" + ESC);
+        assertEquals("foofoofooone\ntwo\nthree\n", EditorEnv.text(ed));
+        assertEquals("3ifoo" + ESC, redobuff());
+
+        inserts.clear();
+        EditorEnv.type(ed, "j0.");
+        assertEquals("foofoofooone\nfoofoofootwo\nthree\n",
+                     EditorEnv.text(ed));
+        assertEquals("3ifoo" + ESC, redobuff());
+        // the count is replayed from the stuff buffer, a run at a time
+        assertEquals(List.of("foo", "foo", "foo"), inserts);
+
+        EditorEnv.type(ed, "j$.");
+        assertEquals("foofoofooone\nfoofoofootwo\nthrefoofoofooe\n",
+                     EditorEnv.text(ed));
+        assertEquals("3ifoo" + ESC, redobuff());
+    }
+
+    @Test
+    public void testRunsAndSpecialChars()
+    {
+        EditorEnv.type(ed, "2ia_1 b." + ESC);
+        assertEquals("a_1 b.a_1 b.one\ntwo\nthree\n", EditorEnv.text(ed));
+        assertEquals("2ia_1 b." + ESC, redobuff());
+
+        inserts.clear();
+        EditorEnv.type(ed, "j0.");
+        assertEquals("a_1 b.a_1 b.one\na_1 b.a_1 b.two\nthree\n",
+                     EditorEnv.text(ed));
+        assertEquals("2ia_1 b." + ESC, redobuff());
+        // the space and the '.' are typed, the plain chars are runs
+        assertEquals(List.of("a_1", " ", "b", ".", "a_1", " ", "b", "."),
+                     inserts);
+    }
+
+    @Test
+    public void testTypedAfterRedo()
+    {
+        // magic redo follows typed chars after a replayed run
+        EditorEnv.type(ed, "3ifoo" + ESC + "j0.");
+        EditorEnv.type(ed, "jAbar" + ESC);
+        String redo = redobuff();
+        assertTrue(redo.endsWith("Abar" + ESC), redo);
+        EditorEnv.type(ed, "k.");
+        assertEquals("foofoofooone\nfoofoofootwobar\nthreebar\n",
+                     EditorEnv.text(ed));
+        assertEquals(redo, redobuff());
+    }
+}
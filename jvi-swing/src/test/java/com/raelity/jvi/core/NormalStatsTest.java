@@ -0,0 +1,75 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err at raelity.com>
+ */
+
+package com.raelity.jvi.core;
+
+import javax.swing.JEditorPane;
+
+import com.raelity.jvi.lib.PerfStats;
+import com.raelity.jvi.swing.EditorEnv;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The normal mode command times are recorded once per command,
+ * keyed on the command char.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class NormalStatsTest
+{
+    private JEditorPane ed;
+
+    @BeforeEach
+    public void setUp()
+    {
+        ed = EditorEnv.open("one two three\nfour five\nsix\n", null);
+        PerfStats.setEnabled(true);
+        PerfStats.reset();
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        PerfStats.setEnabled(false);
+        PerfStats.reset();
+        EditorEnv.close(ed);
+    }
+
+    private static long count(char c)
+    {
+        return PerfStats.histogram("normal " + c, PerfStats.NANOS).getCount();
+    }
+
+    @Test
+    public void testCommandKey()
+    {
+        EditorEnv.type(ed, "dw");
+        assertEquals("two three\nfour five\nsix\n", EditorEnv.text(ed));
+        assertEquals(1, count('d'));
+        assertEquals(0, count('w'));
+
+        EditorEnv.type(ed, "2j\"a3yy");
+        assertEquals(1, count('j'));
+        assertEquals(1, count('y'));
+        assertEquals(0, count('"'));
+    }
+}
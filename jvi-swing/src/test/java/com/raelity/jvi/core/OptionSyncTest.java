@@ -0,0 +1,102 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err at raelity.com>
+ */
+
+package com.raelity.jvi.core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.Preferences;
+
+import javax.swing.JEditorPane;
+
+import com.google.common.eventbus.Subscribe;
+
+import com.raelity.jvi.manager.ViManager;
+import com.raelity.jvi.options.OptionEvent;
+import com.raelity.jvi.swing.EditorEnv;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A global option changed off the EDT, from a preference; the G field
+ * has the new value when the option event is fired.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class OptionSyncTest
+{
+    private JEditorPane ed;
+    private Preferences prefs;
+    private String savedPref;
+    private boolean saved;
+
+    @BeforeEach
+    public void setUp()
+    {
+        ed = EditorEnv.open("one\n", null);
+        prefs = ViManager.getFactory().getPreferences();
+        savedPref = prefs.get(Options.ignoreCase, null);
+        saved = EditorEnv.edt(() -> G.p_ic);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        if(savedPref == null)
+            prefs.remove(Options.ignoreCase);
+        else
+            prefs.put(Options.ignoreCase, savedPref);
+        EditorEnv.type(ed, saved ? ":set ic\n" : ":set noic\n");
+        EditorEnv.close(ed);
+    }
+
+    public static class Listener
+    {
+        final CountDownLatch fired = new CountDownLatch(1);
+        volatile Object eventValue;
+        volatile boolean fieldValue;
+
+        @Subscribe
+        public void global(OptionEvent.Global ev)
+        {
+            if(!Options.ignoreCase.equals(ev.getName()))
+                return;
+            eventValue = ev.getNewValue();
+            fieldValue = G.p_ic;
+            fired.countDown();
+        }
+    }
+
+    @Test
+    public void testPreferenceChange() throws InterruptedException
+    {
+        Listener l = new Listener();
+        OptionEvent.getEventBus().register(l);
+        try {
+            prefs.putBoolean(Options.ignoreCase, !saved);
+            assertTrue(l.fired.await(5, TimeUnit.SECONDS));
+            assertEquals(!saved, l.eventValue);
+            assertEquals(!saved, l.fieldValue);
+        } finally {
+            OptionEvent.getEventBus().unregister(l);
+        }
+    }
+}
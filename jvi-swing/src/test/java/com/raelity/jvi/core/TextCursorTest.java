@@ -0,0 +1,114 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err at raelity.com>
+ */
+
+package com.raelity.jvi.core;
+
+import java.util.function.ToIntFunction;
+
+import javax.swing.JEditorPane;
+
+import com.raelity.jvi.ViFPOS;
+import com.raelity.jvi.ViTextCursor;
+import com.raelity.jvi.swing.EditorEnv;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ViTextCursor steps like the Misc methods of the same name, which
+ * step a ViFPOS. From every position, step until the start or end of
+ * the file; the return values and positions must agree.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class TextCursorTest
+{
+    // empty lines, and the last line without a newline
+    private static final String TEXT = "ab\n\n\ncd e\nf\n\nlast";
+
+    private JEditorPane ed;
+
+    @BeforeEach
+    public void setUp()
+    {
+        ed = EditorEnv.open(TEXT, null);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        EditorEnv.close(ed);
+    }
+
+    private void check(String name, ToIntFunction<ViFPOS> misc,
+                       ToIntFunction<ViTextCursor> cursor)
+    {
+        EditorEnv.edt(() -> {
+            int length = G.curbuf.getLength();
+            for(int offset = 0; offset < length; offset++) {
+                ViFPOS fpos = G.curbuf.createFPOS(offset);
+                ViTextCursor tc = G.curbuf.getTextCursor();
+                tc.set(fpos);
+                for(int i = 0; i <= length + 1; i++) {
+                    String where = name + " from " + offset + " step " + i;
+                    int rc = misc.applyAsInt(fpos);
+                    assertEquals(rc, cursor.applyAsInt(tc), where);
+                    assertEquals(fpos.getLine(), tc.getLine(), where);
+                    assertEquals(fpos.getColumn(), tc.getColumn(), where);
+                    assertEquals(fpos.getOffset(), tc.getOffset(), where);
+                    assertEquals(Misc.gchar_pos(fpos), tc.current(), where);
+                    if(rc < 0)
+                        break;
+                }
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testInc()
+    {
+        check("inc", Misc::inc, ViTextCursor::inc);
+    }
+
+    @Test
+    public void testIncV7()
+    {
+        check("incV7", Misc::incV7, ViTextCursor::incV7);
+    }
+
+    @Test
+    public void testInclV7()
+    {
+        check("inclV7", Misc::inclV7, ViTextCursor::inclV7);
+    }
+
+    @Test
+    public void testDec()
+    {
+        check("dec", Misc::dec, ViTextCursor::dec);
+    }
+
+    @Test
+    public void testDecl()
+    {
+        check("decl", Misc::decl, ViTextCursor::decl);
+    }
+}
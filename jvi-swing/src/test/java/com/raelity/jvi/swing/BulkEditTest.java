@@ -0,0 +1,154 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import javax.swing.JEditorPane;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The operators that change many lines with one bulk edit; the
+ * result, a single undo, and redo of the change.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class BulkEditTest
+{
+    private static final String CTRL_V = "\u0016";
+    private static final String ESC = "\u001b";
+    private static final String TEXT = "abc\n".repeat(8);
+
+    private JEditorPane ed;
+
+    @BeforeEach
+    public void setUp()
+    {
+        ed = EditorEnv.open(TEXT, null);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        EditorEnv.close(ed);
+    }
+
+    private int line()
+    {
+        return EditorEnv.edt(() -> ed.getDocument().getDefaultRootElement()
+                .getElementIndex(ed.getCaretPosition()) + 1);
+    }
+
+    private int col()
+    {
+        return EditorEnv.edt(() -> {
+            int off = ed.getCaretPosition();
+            return off - ed.getDocument().getDefaultRootElement()
+                    .getElement(line() - 1).getStartOffset();
+        });
+    }
+
+    private static String lines(String first, String rest)
+    {
+        return (first + "\n").repeat(4) + (rest + "\n").repeat(4);
+    }
+
+    @Test
+    public void testBlockInsert()
+    {
+        EditorEnv.type(ed, CTRL_V + "3jIX" + ESC);
+        assertEquals(lines("Xabc", "abc"), EditorEnv.text(ed));
+        EditorEnv.type(ed, "5G0.");
+        assertEquals(lines("Xabc", "Xabc"), EditorEnv.text(ed));
+        EditorEnv.type(ed, "u");
+        assertEquals(lines("Xabc", "abc"), EditorEnv.text(ed));
+        EditorEnv.type(ed, "u");
+        assertEquals(TEXT, EditorEnv.text(ed));
+    }
+
+    @Test
+    public void testBlockAppend()
+    {
+        EditorEnv.type(ed, CTRL_V + "3jlAYZ" + ESC);
+        assertEquals(lines("abYZc", "abc"), EditorEnv.text(ed));
+        EditorEnv.type(ed, "5G0.");
+        assertEquals(lines("abYZc", "abYZc"), EditorEnv.text(ed));
+    }
+
+    @Test
+    public void testBlockDelete()
+    {
+        EditorEnv.type(ed, "l" + CTRL_V + "3jd");
+        assertEquals(lines("ac", "abc"), EditorEnv.text(ed));
+        EditorEnv.type(ed, "u");
+        assertEquals(TEXT, EditorEnv.text(ed));
+    }
+
+    @Test
+    public void testShift()
+    {
+        EditorEnv.type(ed, "2G>2j");
+        assertEquals("abc\n" + "\tabc\n".repeat(3) + "abc\n".repeat(4),
+                     EditorEnv.text(ed));
+        EditorEnv.type(ed, "G'[");
+        assertEquals(2, line());
+        EditorEnv.type(ed, "G']");
+        assertEquals(4, line());
+        EditorEnv.type(ed, "u");
+        assertEquals(TEXT, EditorEnv.text(ed));
+
+        EditorEnv.type(ed, "gg>3j");
+        assertEquals(lines("\tabc", "abc"), EditorEnv.text(ed));
+        EditorEnv.type(ed, "5G.");
+        assertEquals(lines("\tabc", "\tabc"), EditorEnv.text(ed));
+        EditorEnv.type(ed, "gg<7j");
+        assertEquals(TEXT, EditorEnv.text(ed));
+        EditorEnv.type(ed, "u");
+        assertEquals(lines("\tabc", "\tabc"), EditorEnv.text(ed));
+    }
+
+    @Test
+    public void testMarks()
+    {
+        // a mark keeps its line, and like vim its column
+        EditorEnv.type(ed, "3GlmagglmbG");
+        EditorEnv.type(ed, "gg>7j");
+        assertEquals(lines("\tabc", "\tabc"), EditorEnv.text(ed));
+        EditorEnv.type(ed, "G`a");
+        assertEquals(3, line());
+        assertEquals(1, col());
+        EditorEnv.type(ed, "G`b");
+        assertEquals(1, line());
+        assertEquals(1, col());
+
+        EditorEnv.type(ed, "u");
+        assertEquals(TEXT, EditorEnv.text(ed));
+        EditorEnv.type(ed, "G`a");
+        assertEquals(3, line());
+        assertEquals(1, col());
+
+        EditorEnv.type(ed, "3Glma1G" + CTRL_V + "7jIX" + ESC);
+        assertEquals(lines("Xabc", "Xabc"), EditorEnv.text(ed));
+        EditorEnv.type(ed, "G`a");
+        assertEquals(3, line());
+        assertEquals(1, col());
+    }
+}
@@ -22,8 +22,11 @@ package com.raelity.jvi.swing;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
 
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -152,6 +155,52 @@ public class DocumentCharSequenceTest {
         cs = testSubSeq(cs.toString(), cs, 0, cs.length());
     }
 
+    @Test
+    public void testGetChars()
+    {
+        DocumentCharSequence cs = new DocumentCharSequence(
+                doc, 3, doc.getLength());
+        char[] a = new char[30];
+        cs.getChars(2, 20, a, 5);
+        assertEquals(baseString.substring(5, 23), new String(a, 5, 18));
+        cs.getChars(4, 4, a, 0);
+        assertThrows(IndexOutOfBoundsException.class,
+                     () -> cs.getChars(0, cs.length() + 1, a, 0));
+    }
+
+    @Test
+    public void testBackward()
+    {
+        CharSequence cs = new DocumentCharSequence(
+                doc, 0, doc.getLength());
+        StringBuilder sb = new StringBuilder();
+        for(int i = cs.length() - 1; i >= 0; i--)
+            sb.append(cs.charAt(i));
+        assertEquals(baseString, sb.reverse().toString());
+    }
+
+    @Test
+    public void testBigDocument() throws BadLocationException
+    {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < 3 * DocumentCharSequence.CHUNK / 10; i++)
+            sb.append(String.format("line %4d\n", i));
+        PlainDocument big = new PlainDocument();
+        big.insertString(0, sb.toString(), null);
+        // make a gap in the middle
+        big.insertString(big.getLength() / 2, "#", null);
+        String s = big.getText(0, big.getLength());
+        CharSequence cs = new DocumentCharSequence(big, 0, big.getLength());
+        assertEquals(s, cs.toString());
+        for(int i = cs.length() - 1; i >= 0; i -= 7)
+            assertEquals(s.charAt(i), cs.charAt(i), "" + i);
+        CharSequence sub = cs.subSequence(100, cs.length() - 100);
+        assertEquals(s.substring(100, s.length() - 100), sub.toString());
+        Matcher m = Pattern.compile("line 1234").matcher(cs);
+        assertTrue(m.find());
+        assertEquals(s.indexOf("line 1234"), m.start());
+    }
+
     // @Test
     public void testToString()
     {
@@ -0,0 +1,390 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import java.awt.Component;
+import java.io.File;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.JEditorPane;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+
+import com.raelity.jvi.ViAppView;
+import com.raelity.jvi.ViBuffer;
+import com.raelity.jvi.ViCmdEntry;
+import com.raelity.jvi.ViFPOS;
+import com.raelity.jvi.ViFS;
+import com.raelity.jvi.ViOutputStream;
+import com.raelity.jvi.ViStatusDisplay;
+import com.raelity.jvi.ViTextView;
+import com.raelity.jvi.core.Buffer;
+import com.raelity.jvi.core.lib.KeyDefs.KeyStrokeType;
+import com.raelity.jvi.lib.OutputStreamAdaptor;
+import com.raelity.jvi.manager.AppViews;
+import com.raelity.jvi.manager.Scheduler;
+import com.raelity.jvi.manager.ViManager;
+import com.raelity.jvi.swing.simple.SimpleAppView;
+import com.raelity.jvi.swing.simple.SimpleBuffer;
+import com.raelity.jvi.swing.simple.SimpleFactory;
+import com.raelity.jvi.swing.simple.SimpleFS;
+import com.raelity.jvi.swing.simple.SimpleTextView;
+
+/**
+ * Run jVi, without a display, on an editor for the tests that type
+ * vi commands. There is one factory for the JVM; {@link #open} makes
+ * an editor the current window. Everything is done on the EDT through
+ * {@link #edt}. Messages and output are discarded.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public final class EditorEnv
+{
+    private static boolean didInit;
+
+    private EditorEnv()
+    {
+    }
+
+    private static synchronized void init()
+    {
+        if(didInit)
+            return;
+        didInit = true;
+        ViManager.setViFactory(new EnvFactory());
+    }
+
+    /**
+     * Open an editor on a document with the text, make it the current
+     * window with the cursor at the start.
+     * @param doc the document, or null for a PlainDocument
+     * @return the editor
+     */
+    public static JEditorPane open(String text, Document doc)
+    {
+        init();
+        return edt(() -> {
+            Document d = doc;
+            if(d == null) {
+                PlainDocumentWithTestFeatures pdoc
+                        = new PlainDocumentWithTestFeatures();
+                pdoc.setChunkit(false);
+                pdoc.replace(0, pdoc.getLength(), text, null);
+                d = pdoc;
+            }
+            JEditorPane ed = new JEditorPane();
+            // not displayed, but scrolling needs a viewport with a size
+            JScrollPane sp = new JScrollPane(ed);
+            sp.setSize(800, 600);
+            sp.doLayout();
+            sp.getViewport().doLayout();
+            ed.setDocument(d);
+            AppViews.open(new EnvAppView(ed), "EditorEnv.open");
+            layout(ed);
+            // activate the editor, like focus would; escape is harmless
+            Scheduler.keyStroke(ed, (char)0x1b, 0, KeyStrokeType.CHAR);
+            return ed;
+        });
+    }
+
+    /** Close an editor from {@link #open}. */
+    public static void close(JEditorPane ed)
+    {
+        edt(() -> {
+            AppViews.close(ViManager.getFactory().getAppView(ed));
+            return null;
+        });
+    }
+
+    /**
+     * Type the keys into the editor, a control char is typed as is.
+     * While a command line is taking input, the keys go to it;
+     * a newline or escape finishes it.
+     */
+    public static void type(JEditorPane ed, String keys)
+    {
+        edt(() -> {
+            for(int i = 0; i < keys.length(); i++) {
+                char c = keys.charAt(i);
+                if(EnvCmdEntry.active != null && (c == '\n' || c == 0x1b))
+                    EnvCmdEntry.active.complete(c);
+                else
+                    Scheduler.keyStroke(ed, c, 0, KeyStrokeType.CHAR);
+                layout(ed);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Size the editor to its text, as revalidate would if it were
+     * displayed; so the viewport scrolls.
+     */
+    private static void layout(JEditorPane ed)
+    {
+        if(ed.getParent() instanceof JViewport vp)
+            vp.doLayout();
+    }
+
+    public static ViTextView textView(JEditorPane ed)
+    {
+        return edt(() -> ViManager.getFactory().getTextView(ed));
+    }
+
+    public static String text(JEditorPane ed)
+    {
+        return edt(() -> {
+            Document doc = ed.getDocument();
+            return doc.getText(0, doc.getLength());
+        });
+    }
+
+    /** Run the callable on the EDT and return its result. */
+    public static <T> T edt(Callable<T> c)
+    {
+        if(SwingUtilities.isEventDispatchThread())
+            return call(c);
+        AtomicReference<T> result = new AtomicReference<>();
+        try {
+            SwingUtilities.invokeAndWait(() -> result.set(call(c)));
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch(InvocationTargetException ex) {
+            if(ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException)ex.getCause();
+            throw new IllegalStateException(ex.getCause());
+        }
+        return result.get();
+    }
+
+    private static <T> T call(Callable<T> c)
+    {
+        try {
+            return c.call();
+        } catch(RuntimeException ex) {
+            throw ex;
+        } catch(Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class EnvFactory extends SimpleFactory
+    {
+        private final ViFS fs = new EnvFS();
+
+        @Override
+        public Component getMainWindow()
+        {
+            return null;
+        }
+
+        @Override
+        protected ViTextView newTextView(JTextComponent editor)
+        {
+            SwingTextView tv = new EnvTextView(editor);
+            tv.setMaps(new LineMapNoFolding(tv), new ViewMapSwitcher(tv));
+            return tv;
+        }
+
+        @Override
+        protected Buffer createBuffer(ViTextView tv)
+        {
+            return new EnvBuffer(tv);
+        }
+
+        @Override
+        public ViFS getFS()
+        {
+            return fs;
+        }
+
+        @Override
+        public ViCmdEntry createCmdEntry(ViCmdEntry.Type type)
+        {
+            return new EnvCmdEntry(type);
+        }
+
+        @Override
+        public ViOutputStream createOutputStream(
+                ViTextView tv, Object type, Object info,
+                EnumSet<ViOutputStream.FLAGS> flags)
+        {
+            return new NullOutputStream();
+        }
+    }
+
+    /**
+     * A command line that is not displayed; the characters typed while
+     * it is active are rerouted to it by the Scheduler.
+     */
+    private static final class EnvCmdEntry extends CommandLineEntry
+    {
+        private static EnvCmdEntry active;
+
+        EnvCmdEntry(ViCmdEntry.Type type)
+        {
+            super(type);
+        }
+
+        @Override
+        protected void finishActivate()
+        {
+            active = this;
+        }
+
+        @Override
+        protected void prepareShutdown()
+        {
+            active = null;
+        }
+
+        /** As the command line does for the key. */
+        void complete(char c)
+        {
+            ((BasicCommandLine)commandLine).commandLineComplete(
+                    String.valueOf(c));
+        }
+    }
+
+    private static final class EnvTextView extends SimpleTextView
+    {
+        EnvTextView(JTextComponent editor)
+        {
+            super(editor);
+            statusDisplay = new NullStatusDisplay();
+        }
+    }
+
+    private static final class EnvBuffer extends SimpleBuffer
+    {
+        EnvBuffer(ViTextView tv)
+        {
+            super(tv);
+        }
+
+        @Override
+        public boolean isDirty()
+        {
+            return false;
+        }
+
+        @Override
+        public File getFile()
+        {
+            return null;
+        }
+    }
+
+    private static final class EnvAppView extends SimpleAppView
+    {
+        EnvAppView(JTextComponent editor)
+        {
+            super(null, editor);
+        }
+
+        @Override
+        public boolean isNomad()
+        {
+            return false;
+        }
+
+        @Override
+        public Path getPath()
+        {
+            return null;
+        }
+    }
+
+    private static final class EnvFS extends SimpleFS
+    {
+        @Override
+        public Path getPath(ViAppView av)
+        {
+            return null;
+        }
+
+        @Override
+        public boolean isModified(ViBuffer buf)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean write(ViTextView tv, boolean force,
+                             Object writeTarget, Integer[] range)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean writeAll(boolean force)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean edit(ViAppView av, boolean force)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean edit(Path f, boolean force, ViFPOS fpos)
+        {
+            return false;
+        }
+    }
+
+    private static final class NullOutputStream extends OutputStreamAdaptor
+    {
+        NullOutputStream()
+        {
+            super(Writer.nullWriter(), false);
+        }
+
+        @Override public void println(int line, int col, int length) { }
+        @Override public void printlnLink(String text, String link) { }
+        @Override public void printLink(String text, String link) { }
+    }
+
+    private static final class NullStatusDisplay implements ViStatusDisplay
+    {
+        @Override public void displayMode(String mode) { }
+        @Override public void displayCommand(String cmd) { }
+        @Override public void displayStatusMessage(String msg) { }
+        @Override public void displayErrorMessage(String msg) { }
+        @Override public void displayWarningMessage(String msg) { }
+        @Override public void displayFrozenMessage(String msg) { }
+        @Override public void clearMessage() { }
+        @Override public void clearDisplay() { }
+        @Override public void scrolling() { }
+        @Override public void refresh() { }
+    }
+}
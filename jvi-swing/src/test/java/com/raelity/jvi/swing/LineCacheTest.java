@@ -0,0 +1,154 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import java.util.Random;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+
+import com.raelity.jvi.lib.MySegment;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Edit a document and check that the line cache agrees with it.
+ */
+public class LineCacheTest
+{
+    private PlainDocument doc;
+    private LineCache cache;
+
+    public LineCacheTest()
+    {
+    }
+
+    @BeforeEach
+    public void setUp() throws BadLocationException
+    {
+        doc = new PlainDocument();
+        StringBuilder sb = new StringBuilder();
+        for(int i = 1; i <= 50; i++)
+            sb.append("line ").append(i).append('\n');
+        doc.insertString(0, sb.toString(), null);
+        cache = new LineCache(doc);
+        // the same as SwingBuffer's listener
+        doc.addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                changed(e);
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                changed(e);
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+            }
+        });
+    }
+
+    private void changed(DocumentEvent e)
+    {
+        Element root = doc.getDefaultRootElement();
+        DocumentEvent.ElementChange ec = e.getChange(root);
+        if(ec == null) {
+            int line = root.getElementIndex(e.getOffset()) + 1;
+            cache.linesChanged(line, line, 0);
+        } else {
+            int nAdded = ec.getChildrenAdded().length;
+            int firstLine = ec.getIndex() + 1;
+            cache.linesChanged(firstLine, firstLine + Math.max(nAdded, 1) - 1,
+                               nAdded - ec.getChildrenRemoved().length);
+        }
+    }
+
+    private void check(int line) throws BadLocationException
+    {
+        Element root = doc.getDefaultRootElement();
+        Element elem = root.getElement(line - 1);
+        assertSame(elem, cache.getElement(line), "line " + line);
+        MySegment seg = cache.getSegment(line);
+        assertEquals(doc.getText(elem.getStartOffset(),
+                                 elem.getEndOffset() - elem.getStartOffset()),
+                     seg.toString(), "line " + line);
+        assertEquals(elem.getStartOffset(), seg.docOffset);
+        assertEquals(line, cache.getLine(elem.getStartOffset()));
+    }
+
+    @Test
+    public void testAlternate() throws BadLocationException
+    {
+        for(int i = 0; i < 10; i++) {
+            check(3);
+            check(7);
+        }
+        assertEquals(2, cache.elemMisses);
+        assertEquals(2, cache.segMisses);
+        assertEquals(18, cache.segHits);
+    }
+
+    @Test
+    public void testEvict() throws BadLocationException
+    {
+        for(int line = 1; line <= LineCache.SIZE + 1; line++)
+            check(line);
+        long misses = cache.elemMisses;
+        check(LineCache.SIZE + 1);
+        check(2);
+        assertEquals(misses, cache.elemMisses);
+        check(1);
+        assertEquals(misses + 1, cache.elemMisses);
+    }
+
+    @Test
+    public void testEdits() throws BadLocationException
+    {
+        Random r = new Random(42);
+        for(int i = 0; i < 500; i++) {
+            int nLines = doc.getDefaultRootElement().getElementCount();
+            for(int j = 0; j < 4; j++)
+                check(1 + r.nextInt(nLines));
+            int offset = r.nextInt(doc.getLength());
+            switch(r.nextInt(3)) {
+            case 0 -> doc.insertString(offset, "x", null);
+            case 1 -> doc.insertString(offset, r.nextBoolean() ? "\n" : "a\nb\n",
+                                       null);
+            default -> doc.remove(offset, Math.min(r.nextInt(12),
+                                                   doc.getLength() - offset));
+            }
+            if(doc.getLength() < 100)
+                doc.insertString(0, "more\nlines\nhere\n", null);
+            nLines = doc.getDefaultRootElement().getElementCount();
+            for(int line = 1; line <= nLines; line++)
+                check(line);
+        }
+    }
+}
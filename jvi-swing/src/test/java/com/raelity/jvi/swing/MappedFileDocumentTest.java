@@ -0,0 +1,127 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Segment;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A MappedFileDocument should have the same lines and text as a
+ * PlainDocument with the text of the file.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class MappedFileDocumentTest
+{
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        file = Files.createTempFile("jvi", ".txt");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    private MappedFileDocument open(String s) throws IOException
+    {
+        Files.write(file, s.getBytes(StandardCharsets.ISO_8859_1));
+        return new MappedFileDocument(file);
+    }
+
+    private static String lines(Document doc) throws BadLocationException
+    {
+        StringBuilder sb = new StringBuilder();
+        Element root = doc.getDefaultRootElement();
+        for(int i = 0; i < root.getElementCount(); i++) {
+            Element e = root.getElement(i);
+            sb.append(e.getStartOffset()).append('-')
+                    .append(e.getEndOffset()).append(' ');
+            if(root.getElementIndex(e.getStartOffset()) != i
+                    || root.getElementIndex(e.getEndOffset() - 1) != i)
+                sb.append("BAD INDEX ");
+            sb.append(doc.getText(e.getStartOffset(),
+                                  e.getEndOffset() - e.getStartOffset()));
+        }
+        return sb.toString();
+    }
+
+    private void check(String s) throws Exception
+    {
+        PlainDocument plain = new PlainDocument();
+        plain.insertString(0, s, null);
+        MappedFileDocument doc = open(s);
+        assertEquals(plain.getLength(), doc.getLength());
+        assertEquals(lines(plain), lines(doc));
+        assertEquals(file, doc.getProperty(Document.TitleProperty));
+    }
+
+    @Test
+    public void testLines() throws Exception
+    {
+        check("one\ntwo\n\nfour\nfive");
+        check("one\ntwo\n");
+        check("");
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < 500; i++)
+            sb.append("line ").append(i).append(i % 7 == 0 ? "\t\n" : "\n");
+        check(sb.toString());
+    }
+
+    @Test
+    public void testReadOnly() throws Exception
+    {
+        MappedFileDocument doc = open("one\ntwo\n");
+        assertThrows(BadLocationException.class,
+                     () -> doc.insertString(0, "x", null));
+        assertThrows(BadLocationException.class, () -> doc.remove(0, 1));
+        assertThrows(BadLocationException.class,
+                     () -> doc.replace(0, 1, "x", null));
+        assertEquals("one\ntwo\n", doc.getText(0, doc.getLength()));
+        assertEquals(3, doc.createPosition(3).getOffset());
+    }
+
+    @Test
+    public void testPartialReturn() throws Exception
+    {
+        MappedFileDocument doc = open("one\ntwo");
+        Segment seg = new Segment();
+        seg.setPartialReturn(true);
+        doc.getText(4, 4, seg);
+        assertEquals("two\n", seg.toString());
+        assertEquals("two", doc.getText(4, 3));
+    }
+}
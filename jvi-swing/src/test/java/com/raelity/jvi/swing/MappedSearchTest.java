@@ -0,0 +1,150 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.swing.JEditorPane;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Segment;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Searching a MappedFileDocument reads the text a piece at a time;
+ * the whole file is never copied.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class MappedSearchTest
+{
+    private static final int LINES = 20000;
+
+    private Path file;
+    private CountingDocument doc;
+    private JEditorPane ed;
+
+    /** Remember the most text asked for at once. */
+    @SuppressWarnings("serial")
+    private static class CountingDocument extends MappedFileDocument
+    {
+        volatile int maxText;
+
+        CountingDocument(Path path) throws IOException
+        {
+            super(path);
+        }
+
+        @Override
+        public String getText(int offset, int length)
+                throws BadLocationException
+        {
+            maxText = Math.max(maxText, length);
+            return super.getText(offset, length);
+        }
+
+        @Override
+        public void getText(int offset, int length, Segment txt)
+                throws BadLocationException
+        {
+            maxText = Math.max(maxText, length);
+            super.getText(offset, length, txt);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 1; i <= LINES; i++)
+            sb.append("line ").append(i).append('\n');
+        file = Files.createTempFile("jvi", ".txt");
+        Files.write(file, sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+        doc = new CountingDocument(file);
+        doc.getMappedText().indexInBackground().join();
+        ed = EditorEnv.open(null, doc);
+        ed.setEditable(false);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        EditorEnv.type(ed, ":set nois nobfs gpl&\n");
+        EditorEnv.close(ed);
+        Files.deleteIfExists(file);
+    }
+
+    private int line()
+    {
+        return EditorEnv.edt(() -> doc.getDefaultRootElement()
+                .getElementIndex(ed.getCaretPosition()) + 1);
+    }
+
+    private void checkNoCopy()
+    {
+        assertTrue(doc.maxText < doc.getLength() / 4,
+                   "read " + doc.maxText + " of " + doc.getLength());
+    }
+
+    @Test
+    public void testSearch()
+    {
+        EditorEnv.type(ed, "/line 19999\n");
+        assertEquals(19999, line());
+        EditorEnv.type(ed, "?line 7$\n");
+        assertEquals(7, line());
+        checkNoCopy();
+    }
+
+    @Test
+    public void testIncrSearch() throws InterruptedException
+    {
+        EditorEnv.type(ed, ":set is\n");
+        EditorEnv.type(ed, "/line 15000");
+        // let the debounce timer go off
+        Thread.sleep(300);
+        EditorEnv.type(ed, "\n");
+        assertEquals(15000, line());
+        checkNoCopy();
+    }
+
+    @Test
+    public void testBufSearch()
+    {
+        EditorEnv.type(ed, ":set bfs\n");
+        EditorEnv.type(ed, "/line 12345\n");
+        assertEquals(12345, line());
+        checkNoCopy();
+    }
+
+    @Test
+    public void testGlobal()
+    {
+        EditorEnv.type(ed, ":set gpl=1\n");
+        EditorEnv.type(ed, ":g/line 1234$/p\n");
+        assertEquals(1234, line());
+        checkNoCopy();
+    }
+}
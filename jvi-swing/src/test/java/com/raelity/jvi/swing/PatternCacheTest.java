@@ -0,0 +1,72 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import javax.swing.JEditorPane;
+
+import com.raelity.jvi.lib.PerfStats;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The pattern cache hits and misses are reported by PerfStats.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class PatternCacheTest
+{
+    private JEditorPane ed;
+
+    @BeforeEach
+    public void setUp()
+    {
+        ed = EditorEnv.open("one\ntwo\nthree\ntwo\n", null);
+        PerfStats.setEnabled(true);
+        PerfStats.reset();
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        PerfStats.setEnabled(false);
+        PerfStats.reset();
+        EditorEnv.close(ed);
+    }
+
+    @Test
+    public void testHitRatio()
+    {
+        PerfStats.Ratio r = PerfStats.ratio("pattern cache");
+        // the pattern may already be cached, from the search history
+        EditorEnv.type(ed, "/t[w]o\n");
+        PerfStats.reset();
+        EditorEnv.type(ed, "/t[w]o\n");
+        assertEquals(1, r.getTotal());
+        assertEquals(1, r.getHits());
+        // a pattern that has never been used
+        EditorEnv.type(ed, "/th[r]\\|x" + System.nanoTime() + "\n");
+        assertEquals(2, r.getTotal());
+        assertEquals(1, r.getHits());
+        assertTrue(PerfStats.report().stream()
+                .anyMatch(s -> s.startsWith("pattern cache")));
+    }
+}
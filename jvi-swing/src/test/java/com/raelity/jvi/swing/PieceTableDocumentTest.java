@@ -0,0 +1,317 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Position;
+import javax.swing.undo.UndoManager;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Do the same edits to a PlainDocument and a PieceTableDocument,
+ * the text and lines should match. The element changes may start at
+ * a different line, but should add and remove the same number of lines.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class PieceTableDocumentTest
+{
+    private PlainDocument plain;
+    private PieceTableDocument piece;
+    private final List<String> plainChanges = new ArrayList<>();
+    private final List<String> pieceChanges = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws BadLocationException
+    {
+        String s = "one\ntwo\n\nfour\nfive";
+        plain = new PlainDocument();
+        plain.insertString(0, s, null);
+        piece = new PieceTableDocument(s.toCharArray(), s.length());
+        plain.addDocumentListener(new Changes(plainChanges));
+        piece.addDocumentListener(new Changes(pieceChanges));
+    }
+
+    private static class Changes implements DocumentListener
+    {
+        private final List<String> changes;
+
+        Changes(List<String> changes)
+        {
+            this.changes = changes;
+        }
+
+        /**
+         * Record the change in the number of lines, and check
+         * that the added elements are the lines in the document.
+         */
+        private void add(DocumentEvent e)
+        {
+            Element root = e.getDocument().getDefaultRootElement();
+            DocumentEvent.ElementChange ec = e.getChange(root);
+            if(ec == null) {
+                changes.add("delta 0");
+                return;
+            }
+            Element[] added = ec.getChildrenAdded();
+            for(int i = 0; i < added.length; i++) {
+                Element line = root.getElement(ec.getIndex() + i);
+                assertEquals(line.getStartOffset(), added[i].getStartOffset());
+                assertEquals(line.getEndOffset(), added[i].getEndOffset());
+            }
+            changes.add("delta " + (added.length
+                                    - ec.getChildrenRemoved().length));
+        }
+
+        @Override
+        public void insertUpdate(DocumentEvent e)
+        {
+            add(e);
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e)
+        {
+            add(e);
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e)
+        {
+        }
+    }
+
+    private static String lines(Document doc) throws BadLocationException
+    {
+        StringBuilder sb = new StringBuilder();
+        Element root = doc.getDefaultRootElement();
+        for(int i = 0; i < root.getElementCount(); i++) {
+            Element e = root.getElement(i);
+            sb.append(e.getStartOffset()).append('-')
+                    .append(e.getEndOffset()).append(' ');
+            if(root.getElementIndex(e.getStartOffset()) != i)
+                sb.append("BAD INDEX ");
+        }
+        sb.append(doc.getText(0, doc.getLength()));
+        return sb.toString();
+    }
+
+    private void check() throws BadLocationException
+    {
+        assertEquals(lines(plain), lines(piece));
+        assertEquals(plainChanges, pieceChanges);
+    }
+
+    @Test
+    public void testEdits() throws BadLocationException
+    {
+        check();
+        piece.insertString(4, "x\ny\n", null);
+        plain.insertString(4, "x\ny\n", null);
+        check();
+        piece.remove(2, 7);
+        plain.remove(2, 7);
+        check();
+        piece.insertString(0, "\n", null);
+        plain.insertString(0, "\n", null);
+        check();
+        piece.remove(0, piece.getLength());
+        plain.remove(0, plain.getLength());
+        check();
+    }
+
+    @Test
+    public void testRandom() throws BadLocationException
+    {
+        Random r = new Random(3);
+        List<Position> plainPos = new ArrayList<>();
+        List<Position> piecePos = new ArrayList<>();
+        for(int i = 0; i < 500; i++) {
+            // sometimes a lot of new positions at once
+            for(int k = i % 100 == 0 ? 40 : i % 5 == 0 ? 1 : 0; k > 0; k--) {
+                int offset = r.nextInt(plain.getLength() + 1);
+                plainPos.add(plain.createPosition(offset));
+                piecePos.add(piece.createPosition(offset));
+            }
+            int offset = r.nextInt(plain.getLength() + 1);
+            if(r.nextInt(3) == 0 && offset < plain.getLength()) {
+                int n = r.nextInt(Math.min(6, plain.getLength() - offset)) + 1;
+                piece.remove(offset, n);
+                plain.remove(offset, n);
+            } else {
+                String s = r.nextBoolean() ? "ab" : "c\n";
+                piece.insertString(offset, s, null);
+                plain.insertString(offset, s, null);
+            }
+            check();
+            for(int j = 0; j < plainPos.size(); j++)
+                assertEquals(plainPos.get(j).getOffset(),
+                             piecePos.get(j).getOffset(), "position " + j);
+        }
+    }
+
+    @Test
+    public void testLineElementTracks() throws BadLocationException
+    {
+        Element line2 = piece.getDefaultRootElement().getElement(2);
+        Element line3 = piece.getDefaultRootElement().getElement(3);
+        assertEquals(8, line2.getStartOffset());
+        piece.insertString(8, "xx", null);
+        piece.insertString(0, "a\n", null);
+        assertEquals(10, line2.getStartOffset());
+        assertEquals(13, line2.getEndOffset());
+        assertEquals(13, line3.getStartOffset());
+    }
+
+    @SuppressWarnings("serial")
+    private static class ContentDocument extends PieceTableDocument
+    {
+        ContentDocument(String s)
+        {
+            super(s.toCharArray(), s.length());
+        }
+
+        /** @return the number of positions made since the last edit */
+        int pending() throws ReflectiveOperationException
+        {
+            Object content = getContent();
+            Field f = content.getClass().getDeclaredField("pending");
+            f.setAccessible(true);
+            return ((List<?>)f.get(content)).size();
+        }
+    }
+
+    @Test
+    public void testLineWalkDropsPositions()
+            throws ReflectiveOperationException
+    {
+        int nLines = 200_000;
+        String s = "line\n".repeat(nLines);
+        ContentDocument doc = new ContentDocument(s);
+        Element root = doc.getDefaultRootElement();
+        for(int i = 0; i < nLines; i++) {
+            assertEquals(i * 5, root.getElement(i).getStartOffset());
+            if(i % 20_000 == 0)
+                System.gc();
+        }
+        assertTrue(doc.pending() < nLines / 2, "pending " + doc.pending());
+    }
+
+    @Test
+    public void testPositionsAndUndo() throws BadLocationException
+    {
+        UndoManager um = new UndoManager();
+        piece.addUndoableEditListener(um);
+        Position p0 = piece.createPosition(0);
+        Position p5 = piece.createPosition(5);
+        piece.insertString(5, "xx", null);
+        piece.insertString(0, "yy", null);
+        assertEquals(0, p0.getOffset());
+        assertEquals(9, p5.getOffset());
+        piece.remove(1, 9);
+        assertEquals(1, p5.getOffset());
+        String text = piece.getText(0, piece.getLength());
+        um.undo();
+        assertEquals(9, p5.getOffset());
+        um.undo();
+        um.undo();
+        assertEquals("one\ntwo\n\nfour\nfive",
+                     piece.getText(0, piece.getLength()));
+        assertEquals(0, p0.getOffset());
+        assertEquals(5, p5.getOffset());
+        um.redo();
+        um.redo();
+        um.redo();
+        assertEquals(text, piece.getText(0, piece.getLength()));
+        assertEquals(0, p0.getOffset());
+        assertEquals(1, p5.getOffset());
+    }
+
+    /** The positions through undo and redo are the same as GapContent's. */
+    @Test
+    public void testPositionsLikeGapContent() throws BadLocationException
+    {
+        // without the Changes listeners, they don't follow undo
+        String text = plain.getText(0, plain.getLength());
+        PlainDocument plain = new PlainDocument();
+        plain.insertString(0, text, null);
+        PieceTableDocument piece
+                = new PieceTableDocument(text.toCharArray(), text.length());
+        UndoManager plainUndo = new UndoManager();
+        UndoManager pieceUndo = new UndoManager();
+        plain.addUndoableEditListener(plainUndo);
+        piece.addUndoableEditListener(pieceUndo);
+        List<Position> plainPos = new ArrayList<>();
+        List<Position> piecePos = new ArrayList<>();
+        for(int offset = 0; offset <= plain.getLength(); offset++) {
+            plainPos.add(plain.createPosition(offset));
+            piecePos.add(piece.createPosition(offset));
+        }
+        Random r = new Random(5);
+        int nEdit = 0;
+        for(int n = 0; n < 300; n++) {
+            int op = r.nextInt(4);
+            if(op == 0 && plainUndo.canUndo()) {
+                plainUndo.undo();
+                pieceUndo.undo();
+            } else if(op == 1 && plainUndo.canRedo()) {
+                plainUndo.redo();
+                pieceUndo.redo();
+            } else if(op == 2 || plain.getLength() < 2) {
+                int offset = r.nextInt(plain.getLength() + 1);
+                String s = "ab\nc".substring(r.nextInt(4));
+                plain.insertString(offset, s, null);
+                piece.insertString(offset, s, null);
+                nEdit++;
+            } else {
+                int offset = r.nextInt(plain.getLength());
+                int len = 1 + r.nextInt(Math.min(6, plain.getLength() - offset));
+                plain.remove(offset, len);
+                piece.remove(offset, len);
+                nEdit++;
+            }
+            if(r.nextInt(3) == 0) {
+                int offset = r.nextInt(plain.getLength() + 1);
+                plainPos.add(plain.createPosition(offset));
+                piecePos.add(piece.createPosition(offset));
+            }
+            assertEquals(plain.getText(0, plain.getLength()),
+                         piece.getText(0, piece.getLength()));
+            for(int i = 0; i < plainPos.size(); i++)
+                assertEquals(plainPos.get(i).getOffset(),
+                             piecePos.get(i).getOffset(),
+                             "step " + n + " position " + i);
+        }
+        assertTrue(nEdit > 100);
+    }
+}
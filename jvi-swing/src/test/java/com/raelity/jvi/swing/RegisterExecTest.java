@@ -0,0 +1,90 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import javax.swing.JEditorPane;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Executing a register, "@a", ends where typing its keys does; also
+ * for the commands that work from the viewport.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class RegisterExecTest
+{
+    private static final String CTRL_D = "\u0004";
+    private static final String CTRL_E = "\u0005";
+    private static final String CTRL_F = "\u0006";
+
+    private JEditorPane ed;
+
+    @BeforeEach
+    public void setUp()
+    {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 1; i <= 500; i++)
+            sb.append("line ").append(i).append('\n');
+        ed = EditorEnv.open(sb.toString(), null);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        EditorEnv.close(ed);
+    }
+
+    private int line()
+    {
+        return EditorEnv.edt(() -> ed.getDocument().getDefaultRootElement()
+                .getElementIndex(ed.getCaretPosition()) + 1);
+    }
+
+    /** Record the keys into register a, then execute it from the top. */
+    private void check(String keys)
+    {
+        EditorEnv.type(ed, "gg");
+        EditorEnv.type(ed, "qa" + keys + "q");
+        int typed = line();
+        EditorEnv.type(ed, "gg");
+        EditorEnv.type(ed, "@a");
+        assertEquals(typed, line(), keys);
+    }
+
+    @Test
+    public void testViewportMotions()
+    {
+        check("50jL");
+        check("100jH" + CTRL_D + "L");
+        check("300Gzt" + CTRL_F + "M");
+        check("200Gzb" + CTRL_E + CTRL_E + "L");
+    }
+
+    @Test
+    public void testScroll()
+    {
+        check(CTRL_D + CTRL_D);
+        check("60j" + CTRL_D + "L");
+        check("400Gzz" + CTRL_D + "H");
+    }
+}
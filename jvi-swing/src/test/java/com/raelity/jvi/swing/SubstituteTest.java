@@ -0,0 +1,80 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing;
+
+import javax.swing.JEditorPane;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Substitute without confirm is one bulk edit; the text, the marks
+ * between the matches and a single undo.
+ *
+ * @author Ernie Rael <err at raelity.com>
+ */
+public class SubstituteTest
+{
+    private static final String TEXT = "a x b x\nno match\nxx c\nend\n";
+
+    private JEditorPane ed;
+
+    @BeforeEach
+    public void setUp()
+    {
+        ed = EditorEnv.open(TEXT, null);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        EditorEnv.close(ed);
+    }
+
+    private int offset()
+    {
+        return EditorEnv.edt(() -> ed.getCaretPosition());
+    }
+
+    @Test
+    public void testSubstitute()
+    {
+        EditorEnv.type(ed, ":%s/x/yy/g\n");
+        assertEquals("a yy b yy\nno match\nyyyy c\nend\n", EditorEnv.text(ed));
+        EditorEnv.type(ed, "u");
+        assertEquals(TEXT, EditorEnv.text(ed));
+    }
+
+    @Test
+    public void testMarks()
+    {
+        // b on line 1 between the matches, c on a line without a match
+        EditorEnv.type(ed, "gg4lmb2G3lmc");
+        EditorEnv.type(ed, ":%s/x/yy/g\n");
+        EditorEnv.type(ed, "`b");
+        assertEquals(4, offset());
+        EditorEnv.type(ed, "`c");
+        assertEquals("a yy b yy\n".length() + 3, offset());
+        EditorEnv.type(ed, "u");
+        EditorEnv.type(ed, "`c");
+        assertEquals("a x b x\n".length() + 3, offset());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ *
+ * The Original Code is jvi - vi editor clone.
+ *
+ * The Initial Developer of the Original Code is Ernie Rael.
+ * Portions created by Ernie Rael are
+ * Copyright (C) 2000-2010 Ernie Rael.  All Rights Reserved.
+ *
+ * Contributor(s): Ernie Rael <err@raelity.com>
+ */
+
+package com.raelity.jvi.swing.simple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Line changes, the way SwingBuffer reports them, applied to the map
+ * and to a TreeMap whose tail is shifted by hand.
+ */
+public class LineShiftMapTest
+{
+    @Test
+    public void testShift()
+    {
+        LineShiftMap<String> m = new LineShiftMap<>();
+        m.put(2, "two");
+        m.put(5, "five");
+        m.put(9, "nine");
+        // line 3 becomes 3 lines
+        m.linesChanged(3, 5, 2);
+        assertEquals(List.of(2, 7, 11), m.lines(1, 100));
+        assertEquals("five", m.get(7));
+        // lines 6-8 become line 6, line 7 goes away
+        m.linesChanged(6, 6, -2);
+        assertEquals(List.of(2, 9), m.lines(1, 100));
+        assertNull(m.get(7));
+        assertEquals("nine", m.get(9));
+        // back before the gap
+        m.linesChanged(1, 2, 1);
+        assertEquals(List.of(3, 10), m.lines(1, 100));
+        assertTrue(m.isEmpty(4, 9));
+        assertFalse(m.isEmpty(10, 10));
+    }
+
+    @Test
+    public void testRandom()
+    {
+        Random r = new Random(5);
+        LineShiftMap<Integer> m = new LineShiftMap<>();
+        TreeMap<Integer, Integer> expect = new TreeMap<>();
+        int lineCount = 200;
+        for(int loop = 0; loop < 5000; loop++) {
+            int op = r.nextInt(4);
+            if(op == 0) {
+                int line = 1 + r.nextInt(lineCount);
+                m.put(line, loop);
+                expect.put(line, loop);
+            } else if(op == 1) {
+                int line = 1 + r.nextInt(lineCount);
+                assertEquals(expect.remove(line), m.remove(line));
+            } else {
+                int firstLine = 1 + r.nextInt(lineCount);
+                int nOld = 1 + r.nextInt(Math.min(5, lineCount - firstLine + 1));
+                int nNew = 1 + r.nextInt(5);
+                if(lineCount - nOld + nNew < 20)
+                    nNew = nOld;
+                int lineDelta = nNew - nOld;
+                int lastLine = firstLine + nNew - 1;
+                m.linesChanged(firstLine, lastLine, lineDelta);
+                shift(expect, firstLine, firstLine + nOld - 1, lineDelta);
+                lineCount += lineDelta;
+            }
+            assertEquals(new ArrayList<>(expect.keySet()),
+                         m.lines(1, Integer.MAX_VALUE));
+            int line = 1 + r.nextInt(lineCount);
+            assertEquals(expect.get(line), m.get(line));
+        }
+    }
+
+    private static void shift(TreeMap<Integer, Integer> map,
+                              int firstLine, int oldLastLine, int lineDelta)
+    {
+        List<Map.Entry<Integer, Integer>> tail = new ArrayList<>();
+        for(Map.Entry<Integer, Integer> e
+                : map.tailMap(firstLine, true).entrySet())
+            tail.add(Map.entry(e.getKey(), e.getValue()));
+        map.tailMap(firstLine, true).clear();
+        for(Map.Entry<Integer, Integer> e : tail) {
+            if(e.getKey() > oldLastLine)
+                map.put(e.getKey() + lineDelta, e.getValue());
+        }
+    }
+}